@@ -0,0 +1,58 @@
+package com.bbockowski.apicomplaint.benchmark;
+
+import com.bbockowski.apicomplaint.controller.ClientIpResolver;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Measures resolving the client address of {@code POST /api/v1/complaints} with
+ * {@link ClientIpResolver}, against the {@code Optional} chain the controller used
+ * before, for requests with and without an {@code X-Forwarded-For} header.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientIpBenchmark {
+  @Param({ "true", "false" })
+  public boolean forwarded;
+
+  private MockHttpServletRequest request;
+
+  @Setup
+  public void setUp() {
+    request = new MockHttpServletRequest("POST", "/api/v1/complaints");
+    request.setRemoteAddr("10.0.0.7");
+    request.addHeader("Content-Type", "application/json");
+    request.addHeader("User-Agent", "benchmark");
+    if (forwarded) {
+      request.addHeader("X-Forwarded-For", "83.12.34.56");
+    }
+  }
+
+  @Benchmark
+  public String clientIpResolver() {
+    return ClientIpResolver.resolve(request);
+  }
+
+  @Benchmark
+  public String optionalChain() {
+    return Optional
+      .ofNullable(request.getHeader("X-Forwarded-For"))
+      .orElse(request.getRemoteAddr());
+  }
+}
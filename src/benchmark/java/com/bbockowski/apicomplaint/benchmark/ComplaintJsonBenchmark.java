@@ -0,0 +1,105 @@
+package com.bbockowski.apicomplaint.benchmark;
+
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse.TotalMode;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Measures rendering complaints to JSON with an {@link ObjectMapper} configured like the
+ * application's: a single {@link ComplaintResponse}, a {@code Page<ComplaintResponse>}
+ * and the {@link ComplaintListResponse} the listing endpoint actually returns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComplaintJsonBenchmark {
+  @Param({ "20", "1000" })
+  public int pageSize;
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder
+    .json()
+    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+    .build();
+  private ComplaintResponse complaint;
+  private Page<ComplaintResponse> page;
+  private ComplaintListResponse listResponse;
+
+  @Setup
+  public void setUp() {
+    List<ComplaintResponse> responses = new ArrayList<>(pageSize);
+    List<ComplaintSummary> summaries = new ArrayList<>(pageSize);
+    for (int i = 0; i < pageSize; i++) {
+      ComplaintResponse response = complaint(i);
+      responses.add(response);
+      summaries.add(
+        new ComplaintSummary(
+          response.getId(),
+          response.getProductId(),
+          response.getCreatedAt(),
+          response.getReporter(),
+          response.getCountry(),
+          response.getReportCount()
+        )
+      );
+    }
+    complaint = responses.get(0);
+    page = new PageImpl<>(responses, PageRequest.of(0, pageSize), 10L * pageSize);
+    listResponse =
+      new ComplaintListResponse(summaries, 0, pageSize, true, null, TotalMode.NONE);
+  }
+
+  @Benchmark
+  public byte[] singleComplaint() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(complaint);
+  }
+
+  @Benchmark
+  public byte[] complaintPage() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(page);
+  }
+
+  @Benchmark
+  public byte[] complaintListResponse() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(listResponse);
+  }
+
+  private static ComplaintResponse complaint(int i) {
+    ComplaintResponse complaint = new ComplaintResponse();
+    complaint.setId(UUID.randomUUID());
+    complaint.setProductId("product-" + i);
+    complaint.setContent("Complaint number " + i);
+    complaint.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+    complaint.setReporter("reporter" + i + "@example.com");
+    complaint.setCountry("Poland");
+    complaint.setReportCount(i % 7 + 1);
+    complaint.setVersion((long) i);
+    return complaint;
+  }
+}
@@ -0,0 +1,85 @@
+package com.bbockowski.apicomplaint.benchmark;
+
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.mapper.ComplaintMapper;
+import com.bbockowski.apicomplaint.model.Complaint;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the reflective ModelMapper the service used to rely on with
+ * {@link ComplaintMapper}, for one complaint and for a page of listed complaints. Run
+ * with {@code -prof gc} to see the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComplaintMappingBenchmark {
+  private static final int PAGE_SIZE = 1000;
+
+  private final ModelMapper modelMapper = new ModelMapper();
+  private final ComplaintMapper complaintMapper = new ComplaintMapper();
+  private Complaint complaint;
+  private List<Complaint> page;
+
+  @Setup
+  public void setUp() {
+    page = new ArrayList<>(PAGE_SIZE);
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      page.add(complaint(i));
+    }
+    complaint = page.get(0);
+    // Builds ModelMapper's type map outside the measurement.
+    modelMapper.map(complaint, ComplaintResponse.class);
+  }
+
+  @Benchmark
+  public ComplaintResponse modelMapperSingle() {
+    return modelMapper.map(complaint, ComplaintResponse.class);
+  }
+
+  @Benchmark
+  public ComplaintResponse complaintMapperSingle() {
+    return complaintMapper.toResponse(complaint);
+  }
+
+  @Benchmark
+  public List<ComplaintResponse> modelMapperPage() {
+    return modelMapper.map(page, new TypeToken<List<ComplaintResponse>>() {}.getType());
+  }
+
+  @Benchmark
+  public List<ComplaintResponse> complaintMapperPage() {
+    return complaintMapper.toResponses(page);
+  }
+
+  private static Complaint complaint(int i) {
+    Complaint complaint = new Complaint();
+    complaint.setId(UUID.randomUUID());
+    complaint.setProductId("product-" + i);
+    complaint.setContent("Complaint number " + i);
+    complaint.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+    complaint.setReporter("reporter" + i + "@example.com");
+    complaint.setCountry("Poland");
+    complaint.setReportCount(i % 7 + 1);
+    return complaint;
+  }
+}
@@ -0,0 +1,84 @@
+package com.bbockowski.apicomplaint.benchmark;
+
+import com.bbockowski.apicomplaint.ApiComplaintApplication;
+import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.service.ComplaintDefaultService;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Measures {@link ComplaintDefaultService#createComplaint} end to end, from the request
+ * DTO through the upsert transaction to the response, against a private in-memory H2
+ * database: once for a new (productId, reporter) pair and once for a repeat that only
+ * increments the report count. The country is already set, so no lookup is involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ComplaintServiceBenchmark {
+  private final AtomicLong sequence = new AtomicLong();
+  private ConfigurableApplicationContext application;
+  private ComplaintDefaultService complaintService;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    application =
+      new SpringApplicationBuilder(ApiComplaintApplication.class)
+        .web(WebApplicationType.NONE)
+        .profiles("test")
+        .properties(
+          "spring.datasource.url=jdbc:h2:mem:benchmark-" +
+          UUID.randomUUID() +
+          ";DB_CLOSE_DELAY=-1",
+          "spring.docker.compose.enabled=false",
+          "logging.level.root=WARN"
+        )
+        .run();
+    complaintService = application.getBean(ComplaintDefaultService.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    application.close();
+  }
+
+  @Benchmark
+  public ComplaintResponse createComplaint() {
+    String productId = "product-" + sequence.incrementAndGet();
+    return complaintService.createComplaint(request(productId));
+  }
+
+  @Benchmark
+  public ComplaintResponse incrementComplaint() {
+    return complaintService.createComplaint(request("product-repeated"));
+  }
+
+  private static AddComplaintRequest request(String productId) {
+    AddComplaintRequest request = new AddComplaintRequest();
+    request.setProductId(productId);
+    request.setContent("Too loud");
+    request.setReporter("reporter@example.com");
+    request.setCountry("Poland");
+    return request;
+  }
+}
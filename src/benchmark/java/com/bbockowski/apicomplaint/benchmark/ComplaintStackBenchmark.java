@@ -0,0 +1,139 @@
+package com.bbockowski.apicomplaint.benchmark;
+
+import com.bbockowski.apicomplaint.ApiComplaintApplication;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares serving {@code POST /api/v1/complaints} on Tomcat's platform thread pool, on
+ * virtual threads and on the reactive stack. The application runs in-process on H2 and
+ * resolves every client address through a local geolocation stub that answers after a
+ * fixed delay, so request threads spend most of their time blocked on the outbound call,
+ * while the reactive stack waits for it without holding a thread.
+ *
+ * <p>Throughput mode reports requests per millisecond; sample mode reports the latency
+ * distribution including p99. Raise {@code -t} above Tomcat's 200 worker threads to see
+ * the platform pool saturate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(1)
+public class ComplaintStackBenchmark {
+  @Param({ "platform", "virtual", "reactive" })
+  public String stack;
+
+  @Param("100")
+  public int geoLocationDelayMillis;
+
+  private final AtomicLong sequence = new AtomicLong();
+  private HttpServer geoLocationStub;
+  private ConfigurableApplicationContext application;
+  private HttpClient client;
+  private URI complaintsUri;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    geoLocationStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+    geoLocationStub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    geoLocationStub.createContext(
+      "/json/",
+      exchange -> {
+        try {
+          Thread.sleep(geoLocationDelayMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        byte[] body = "{\"country\":\"Poland\"}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+      }
+    );
+    geoLocationStub.start();
+
+    String[] profiles = stack.equals("reactive")
+      ? new String[] { "test", "reactive" }
+      : new String[] { "test" };
+    application =
+      new SpringApplicationBuilder(ApiComplaintApplication.class)
+        .profiles(profiles)
+        .properties(
+          "server.port=0",
+          "spring.docker.compose.enabled=false",
+          "spring.threads.virtual.enabled=" + stack.equals("virtual"),
+          "geolocation.remote.url=http://127.0.0.1:" +
+          geoLocationStub.getAddress().getPort() +
+          "/json/",
+          // Every request goes to the stub, as it would for unseen client addresses.
+          "geolocation.cache.enabled=false",
+          "complaints.write-behind.journal-directory=" +
+          Files.createTempDirectory("journal"),
+          "logging.level.root=WARN"
+        )
+        .run();
+    int port =
+      ((WebServerApplicationContext) application).getWebServer().getPort();
+    complaintsUri = URI.create("http://localhost:" + port + "/api/v1/complaints");
+    client = HttpClient.newBuilder().executor(Executors.newCachedThreadPool()).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    application.close();
+    geoLocationStub.stop(0);
+  }
+
+  @Benchmark
+  public int addComplaint() throws IOException, InterruptedException {
+    String body =
+      "{\"productId\":\"product-" +
+      sequence.incrementAndGet() +
+      "\",\"content\":\"Too loud\",\"reporter\":\"reporter@example.com\"}";
+    HttpRequest request = HttpRequest
+      .newBuilder(complaintsUri)
+      .header("Content-Type", "application/json")
+      .header("X-Forwarded-For", "83.12.34.56")
+      .POST(HttpRequest.BodyPublishers.ofString(body))
+      .build();
+    HttpResponse<Void> response = client.send(
+      request,
+      HttpResponse.BodyHandlers.discarding()
+    );
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException("Unexpected status " + response.statusCode());
+    }
+    return response.statusCode();
+  }
+}
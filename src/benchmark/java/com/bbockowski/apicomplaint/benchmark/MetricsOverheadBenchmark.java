@@ -0,0 +1,89 @@
+package com.bbockowski.apicomplaint.benchmark;
+
+import com.bbockowski.apicomplaint.config.GeoLocationProperties;
+import com.bbockowski.apicomplaint.geolocation.GeoLocationCache;
+import com.bbockowski.apicomplaint.service.IpLocationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what the metrics cost on the hot path. {@code cachedLookup} is a cached
+ * geolocation answer through the timed {@link IpLocationService}, next to
+ * {@code cachedLookupUntimed} reading the same entry straight from the cache.
+ * {@code timerWithHistogram} records one sample into a percentile-histogram timer like
+ * the ones kept per endpoint and repository method. The {@code none} registry hands out
+ * no-op meters, which shows the cost of the instrumentation itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+  private static final String IP = "83.12.34.56";
+
+  @Param({ "none", "prometheus" })
+  public String registry;
+
+  private GeoLocationCache geoLocationCache;
+  private IpLocationService ipLocationService;
+  private Timer timer;
+  private long sample;
+
+  @Setup
+  public void setUp() {
+    MeterRegistry meterRegistry = registry.equals("prometheus")
+      ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+      : new CompositeMeterRegistry();
+    geoLocationCache = new GeoLocationCache(new GeoLocationProperties());
+    ipLocationService =
+      new IpLocationService(
+        List.of(ip -> Optional.of("Poland")),
+        geoLocationCache,
+        meterRegistry
+      );
+    ipLocationService.getCountryByIp(IP);
+    timer =
+      Timer
+        .builder("benchmark.requests")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  @Benchmark
+  public String cachedLookup() {
+    return ipLocationService.getCountryByIp(IP);
+  }
+
+  @Benchmark
+  public String cachedLookupUntimed() {
+    return geoLocationCache
+      .get(IP, ip -> new GeoLocationCache.Entry("Poland", false))
+      .country();
+  }
+
+  @Benchmark
+  public void timerWithHistogram() {
+    // Spread samples over the buckets rather than hitting one repeatedly.
+    sample = (sample + 7_919) % 5_000_000;
+    timer.record(1_000 + sample, TimeUnit.NANOSECONDS);
+  }
+}
@@ -0,0 +1,40 @@
+package com.bbockowski.apicomplaint.loadtest;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Outcomes of one operation: the latency of every successful response, in microseconds,
+ * and counts of failed and dropped requests.
+ */
+final class EndpointStats {
+  private final Recorder latencies = new Recorder(3);
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  void recordSuccess(long latencyNanos) {
+    latencies.recordValue(Math.max(1, latencyNanos / 1000));
+  }
+
+  void recordError() {
+    errors.increment();
+  }
+
+  void recordDropped() {
+    dropped.increment();
+  }
+
+  /** Returns the latencies recorded since the previous call. */
+  Histogram takeLatencies() {
+    return latencies.getIntervalHistogram();
+  }
+
+  long errors() {
+    return errors.sum();
+  }
+
+  long dropped() {
+    return dropped.sum();
+  }
+}
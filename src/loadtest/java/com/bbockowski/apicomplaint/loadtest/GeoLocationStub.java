@@ -0,0 +1,79 @@
+package com.bbockowski.apicomplaint.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stands in for ip-api.com: answers every lookup with a country after a fixed delay plus
+ * random jitter, and fails a given share of lookups with HTTP 503.
+ */
+final class GeoLocationStub implements AutoCloseable {
+  private static final byte[] ANSWER =
+    "{\"country\":\"Poland\"}".getBytes(StandardCharsets.UTF_8);
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final long latencyNanos;
+  private final long jitterNanos;
+  private final double failureRate;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+
+  GeoLocationStub(Duration latency, Duration jitter, double failureRate)
+    throws IOException {
+    this.latencyNanos = latency.toNanos();
+    this.jitterNanos = jitter.toNanos();
+    this.failureRate = failureRate;
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+    server.setExecutor(executor);
+    server.createContext("/json/", this::answer);
+    server.start();
+  }
+
+  String url() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/json/";
+  }
+
+  long requests() {
+    return requests.sum();
+  }
+
+  long failures() {
+    return failures.sum();
+  }
+
+  private void answer(HttpExchange exchange) throws IOException {
+    requests.increment();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long delay = latencyNanos + (jitterNanos > 0 ? random.nextLong(jitterNanos + 1) : 0);
+    try {
+      Thread.sleep(Duration.ofNanos(delay));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try (exchange) {
+      if (random.nextDouble() < failureRate) {
+        failures.increment();
+        exchange.sendResponseHeaders(503, -1);
+        return;
+      }
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, ANSWER.length);
+      exchange.getResponseBody().write(ANSWER);
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,208 @@
+package com.bbockowski.apicomplaint.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the application with an open workload: requests start on a fixed schedule at the
+ * scenario rate whether or not earlier ones have completed, as independent users would
+ * send them. Latency is measured from the time a request was due to start rather than
+ * when it was sent, so a stalled server shows up in the percentiles instead of quietly
+ * slowing the load down (coordinated omission).
+ */
+final class LoadGenerator {
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+  private static final int SEED_CONCURRENCY = 32;
+
+  private final Scenario scenario;
+  private final URI complaintsUri;
+  private final HttpClient client;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final AtomicLong sequence = new AtomicLong();
+  private final List<String> seededIds = new ArrayList<>();
+  private final List<String> seededProducts = new ArrayList<>();
+  private final Operation[] schedule;
+
+  LoadGenerator(URI baseUri, Scenario scenario) {
+    this.scenario = scenario;
+    this.complaintsUri = baseUri.resolve("/api/v1/complaints");
+    this.client =
+      HttpClient
+        .newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .build();
+    List<Operation> weighted = new ArrayList<>();
+    scenario
+      .mix()
+      .forEach(
+        (operation, weight) -> {
+          for (int i = 0; i < weight; i++) {
+            weighted.add(operation);
+          }
+        }
+      );
+    this.schedule = weighted.toArray(Operation[]::new);
+  }
+
+  /** Creates the complaints that increments and reads pick from. */
+  void seed() throws InterruptedException, IOException {
+    Semaphore permits = new Semaphore(SEED_CONCURRENCY);
+    List<CompletableFuture<Void>> pending = new ArrayList<>();
+    String[] ids = new String[scenario.seedComplaints()];
+    String[] products = new String[scenario.seedComplaints()];
+    for (int i = 0; i < ids.length; i++) {
+      int index = i;
+      products[i] = "seed-" + i;
+      permits.acquire();
+      pending.add(
+        client
+          .sendAsync(create(products[i]), HttpResponse.BodyHandlers.ofString())
+          .thenAccept(
+            response -> {
+              if (response.statusCode() != 200) {
+                throw new IllegalStateException(
+                  "Seeding failed with status " + response.statusCode()
+                );
+              }
+              try {
+                ids[index] = objectMapper.readTree(response.body()).get("id").asText();
+              } catch (IOException e) {
+                throw new IllegalStateException("Unreadable seed response", e);
+              }
+            }
+          )
+          .whenComplete((ignored, e) -> permits.release())
+      );
+    }
+    try {
+      CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+    } catch (RuntimeException e) {
+      throw new IOException("Could not seed complaints", e);
+    }
+    seededIds.addAll(List.of(ids));
+    seededProducts.addAll(List.of(products));
+  }
+
+  /**
+   * Runs the warmup and then the measured period, and waits for outstanding requests.
+   *
+   * @return the outcomes of the measured period per operation
+   */
+  Map<Operation, EndpointStats> run() throws InterruptedException {
+    Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+    for (Operation operation : scenario.mix().keySet()) {
+      stats.put(operation, new EndpointStats());
+    }
+    AtomicInteger inFlight = new AtomicInteger();
+    long interval = TimeUnit.SECONDS.toNanos(1) / scenario.rate();
+    long start = System.nanoTime();
+    long measureFrom = start + scenario.warmup().toNanos();
+    long end = measureFrom + scenario.duration().toNanos();
+
+    for (long n = 0;; n++) {
+      long intendedStart = start + n * interval;
+      if (intendedStart >= end) {
+        break;
+      }
+      long wait;
+      while ((wait = intendedStart - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      Operation operation =
+        schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+      EndpointStats endpoint = stats.get(operation);
+      boolean measured = intendedStart >= measureFrom;
+      if (inFlight.get() >= scenario.maxInFlight()) {
+        if (measured) {
+          endpoint.recordDropped();
+        }
+        continue;
+      }
+      inFlight.incrementAndGet();
+      client
+        .sendAsync(request(operation), HttpResponse.BodyHandlers.discarding())
+        .whenComplete(
+          (response, e) -> {
+            long latency = System.nanoTime() - intendedStart;
+            inFlight.decrementAndGet();
+            if (!measured) {
+              return;
+            }
+            if (e == null && response.statusCode() < 400) {
+              endpoint.recordSuccess(latency);
+            } else {
+              endpoint.recordError();
+            }
+          }
+        );
+    }
+
+    long drainDeadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+    while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+      Thread.sleep(10);
+    }
+    return stats;
+  }
+
+  private HttpRequest request(Operation operation) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return switch (operation) {
+      case CREATE -> create("load-" + sequence.incrementAndGet());
+      case INCREMENT -> create(seededProducts.get(random.nextInt(seededProducts.size())));
+      case GET -> HttpRequest
+        .newBuilder(
+          complaintsUri.resolve(
+            "/api/v1/complaints/" + seededIds.get(random.nextInt(seededIds.size()))
+          )
+        )
+        .timeout(REQUEST_TIMEOUT)
+        .GET()
+        .build();
+      case LIST -> HttpRequest
+        .newBuilder(complaintsUri.resolve("/api/v1/complaints?size=20"))
+        .timeout(REQUEST_TIMEOUT)
+        .GET()
+        .build();
+    };
+  }
+
+  private HttpRequest create(String productId) {
+    String body =
+      "{\"productId\":\"" +
+      productId +
+      "\",\"content\":\"Too loud\",\"reporter\":\"reporter@example.com\"}";
+    return HttpRequest
+      .newBuilder(complaintsUri)
+      .timeout(REQUEST_TIMEOUT)
+      .header("Content-Type", "application/json")
+      .header("X-Forwarded-For", clientIp())
+      .POST(HttpRequest.BodyPublishers.ofString(body))
+      .build();
+  }
+
+  /** Picks one of the scenario's client addresses, so lookups see repeat visitors. */
+  private String clientIp() {
+    int client = ThreadLocalRandom.current().nextInt(scenario.clients());
+    return "83." + (client >>> 16 & 0xff) + "." + (client >>> 8 & 0xff) + "." +
+    (client & 0xff);
+  }
+}
@@ -0,0 +1,91 @@
+package com.bbockowski.apicomplaint.loadtest;
+
+import com.bbockowski.apicomplaint.ApiComplaintApplication;
+import java.net.URI;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs a load test scenario end to end: starts a geolocation stub, boots the application
+ * against a fresh in-memory H2 database, seeds complaints, drives the scenario's traffic
+ * mix and writes a report.
+ *
+ * <p>Usage: {@code LoadTest <scenario name or file> [key=value ...]}; see the scenarios
+ * on the classpath for the available keys.
+ */
+public final class LoadTest {
+
+  private LoadTest() {}
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      System.err.println("Usage: LoadTest <scenario name or file> [key=value ...]");
+      System.exit(2);
+    }
+    Scenario scenario = Scenario.load(
+      args[0],
+      Arrays.asList(args).subList(1, args.length)
+    );
+
+    LoadTestReport report;
+    try (
+      GeoLocationStub geoLocationStub = new GeoLocationStub(
+        scenario.geoLocationLatency(),
+        scenario.geoLocationJitter(),
+        scenario.geoLocationFailureRate()
+      );
+      ConfigurableApplicationContext application = start(scenario, geoLocationStub)
+    ) {
+      int port =
+        ((WebServerApplicationContext) application).getWebServer().getPort();
+      LoadGenerator generator = new LoadGenerator(
+        URI.create("http://localhost:" + port),
+        scenario
+      );
+      generator.seed();
+      Instant startedAt = Instant.now();
+      Map<Operation, EndpointStats> stats = generator.run();
+      report = LoadTestReport.of(scenario, startedAt, stats, geoLocationStub);
+    }
+    report.print(System.out);
+    System.out.println("Report written to " + report.write(scenario.output()));
+    System.exit(0);
+  }
+
+  private static ConfigurableApplicationContext start(
+    Scenario scenario,
+    GeoLocationStub geoLocationStub
+  ) throws Exception {
+    String database = "loadtest-" + UUID.randomUUID();
+    // Command line arguments, so they win over the profile's own settings.
+    List<String> arguments = new ArrayList<>(
+      List.of(
+        "--server.port=0",
+        "--spring.docker.compose.enabled=false",
+        "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+        "--spring.r2dbc.url=r2dbc:h2:mem:///" + database + ";DB_CLOSE_DELAY=-1",
+        "--geolocation.remote.url=" + geoLocationStub.url(),
+        "--complaints.write-behind.journal-directory=" +
+        Files.createTempDirectory("loadtest-journal"),
+        "--logging.level.root=WARN"
+      )
+    );
+    if (scenario.profiles().contains("reactive")) {
+      arguments.add("--spring.main.web-application-type=reactive");
+    }
+    scenario
+      .applicationProperties()
+      .forEach((key, value) -> arguments.add("--" + key + "=" + value));
+    return new SpringApplicationBuilder(ApiComplaintApplication.class)
+      .profiles(scenario.profiles().toArray(String[]::new))
+      .run(arguments.toArray(String[]::new));
+  }
+}
@@ -0,0 +1,150 @@
+package com.bbockowski.apicomplaint.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The outcome of a run: per operation, the request, error and drop counts, throughput and
+ * latency percentiles in milliseconds. The full latency histogram is kept as a compressed
+ * HdrHistogram so runs can be merged or plotted later.
+ */
+record LoadTestReport(
+  String scenario,
+  Instant startedAt,
+  Map<String, String> settings,
+  Map<String, EndpointResult> endpoints,
+  long geoLocationRequests,
+  long geoLocationFailures
+) {
+  private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter
+    .ofPattern("yyyyMMdd-HHmmss")
+    .withZone(ZoneOffset.UTC);
+
+  record EndpointResult(
+    long requests,
+    long errors,
+    long dropped,
+    double throughputPerSecond,
+    double meanMillis,
+    double p50Millis,
+    double p90Millis,
+    double p99Millis,
+    double p999Millis,
+    double maxMillis,
+    String histogram
+  ) {
+    static EndpointResult of(EndpointStats stats, double seconds) {
+      Histogram latencies = stats.takeLatencies();
+      long count = latencies.getTotalCount();
+      return new EndpointResult(
+        count + stats.errors(),
+        stats.errors(),
+        stats.dropped(),
+        count / seconds,
+        latencies.getMean() / 1000,
+        millis(latencies, 50),
+        millis(latencies, 90),
+        millis(latencies, 99),
+        millis(latencies, 99.9),
+        latencies.getMaxValue() / 1000.0,
+        encode(latencies)
+      );
+    }
+
+    private static double millis(Histogram latencies, double percentile) {
+      return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static String encode(Histogram latencies) {
+      ByteBuffer buffer = ByteBuffer.allocate(latencies.getNeededByteBufferCapacity());
+      int length = latencies.encodeIntoCompressedByteBuffer(buffer);
+      return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+  }
+
+  static LoadTestReport of(
+    Scenario scenario,
+    Instant startedAt,
+    Map<Operation, EndpointStats> stats,
+    GeoLocationStub geoLocationStub
+  ) {
+    double seconds = scenario.duration().toNanos() / 1e9;
+    Map<String, EndpointResult> endpoints = new LinkedHashMap<>();
+    stats.forEach(
+      (operation, endpoint) ->
+        endpoints.put(operation.key(), EndpointResult.of(endpoint, seconds))
+    );
+    return new LoadTestReport(
+      scenario.name(),
+      startedAt,
+      scenario.settings(),
+      endpoints,
+      geoLocationStub.requests(),
+      geoLocationStub.failures()
+    );
+  }
+
+  /** Writes the report as {@code <scenario>-<timestamp>.json} into a directory. */
+  Path write(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    Path file = directory.resolve(
+      scenario + "-" + FILE_TIMESTAMP.format(startedAt) + ".json"
+    );
+    new ObjectMapper()
+      .findAndRegisterModules()
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .enable(SerializationFeature.INDENT_OUTPUT)
+      .writeValue(file.toFile(), this);
+    return file;
+  }
+
+  void print(PrintStream out) {
+    out.printf(
+      "%n%-10s %9s %7s %7s %9s %9s %9s %9s %9s %9s%n",
+      "endpoint",
+      "requests",
+      "errors",
+      "dropped",
+      "req/s",
+      "p50 ms",
+      "p90 ms",
+      "p99 ms",
+      "p99.9 ms",
+      "max ms"
+    );
+    endpoints.forEach(
+      (name, result) ->
+        out.printf(
+          "%-10s %9d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+          name,
+          result.requests(),
+          result.errors(),
+          result.dropped(),
+          result.throughputPerSecond(),
+          result.p50Millis(),
+          result.p90Millis(),
+          result.p99Millis(),
+          result.p999Millis(),
+          result.maxMillis()
+        )
+    );
+    out.printf(
+      "geolocation stub: %d lookups, %d failed%n",
+      geoLocationRequests,
+      geoLocationFailures
+    );
+  }
+}
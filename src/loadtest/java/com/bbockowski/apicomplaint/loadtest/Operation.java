@@ -0,0 +1,23 @@
+package com.bbockowski.apicomplaint.loadtest;
+
+/** The kinds of request a load test mixes, keyed as in the scenario files. */
+enum Operation {
+  /** {@code POST /api/v1/complaints} for a product and reporter not seen before. */
+  CREATE("create"),
+  /** {@code POST /api/v1/complaints} repeating a seeded complaint. */
+  INCREMENT("increment"),
+  /** {@code GET /api/v1/complaints/{id}} of a seeded complaint. */
+  GET("get"),
+  /** {@code GET /api/v1/complaints}, the newest page. */
+  LIST("list");
+
+  private final String key;
+
+  Operation(String key) {
+    this.key = key;
+  }
+
+  String key() {
+    return key;
+  }
+}
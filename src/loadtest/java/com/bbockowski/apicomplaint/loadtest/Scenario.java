@@ -0,0 +1,154 @@
+package com.bbockowski.apicomplaint.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * One load test run. Scenarios are properties files, either {@code scenarios/<name>}
+ * {@code .properties} on the classpath or a path on disk, and any setting can be
+ * overridden with {@code key=value} arguments. Keys starting with {@code app.} are passed
+ * to the application under test without the prefix.
+ *
+ * @param name                   the scenario name, used for the report file
+ * @param rate                   requests started per second, whether or not earlier
+ *                               ones have completed
+ * @param warmup                 how long to run before recording
+ * @param duration               how long to record
+ * @param mix                    the relative weight of each operation
+ * @param seedComplaints         complaints created before the run for increments and
+ *                               reads
+ * @param clients                distinct client addresses requests come from
+ * @param maxInFlight            outstanding requests above which new ones are dropped
+ * @param geoLocationLatency     fixed delay of the geolocation stub
+ * @param geoLocationJitter      random extra delay of the stub, up to this much
+ * @param geoLocationFailureRate share of stub answers that are HTTP 503
+ * @param profiles               Spring profiles of the application
+ * @param applicationProperties  extra application properties
+ * @param output                 the directory reports are written to
+ * @param settings               every setting, as given, for the report
+ */
+record Scenario(
+  String name,
+  int rate,
+  Duration warmup,
+  Duration duration,
+  Map<Operation, Integer> mix,
+  int seedComplaints,
+  int clients,
+  int maxInFlight,
+  Duration geoLocationLatency,
+  Duration geoLocationJitter,
+  double geoLocationFailureRate,
+  List<String> profiles,
+  Map<String, String> applicationProperties,
+  Path output,
+  Map<String, String> settings
+) {
+  private static final String APPLICATION_PREFIX = "app.";
+
+  static Scenario load(String nameOrPath, List<String> overrides) throws IOException {
+    Properties properties = new Properties();
+    Path file = Path.of(nameOrPath);
+    String name;
+    if (Files.isRegularFile(file)) {
+      try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        properties.load(reader);
+      }
+      name = file.getFileName().toString().replaceFirst("\\.properties$", "");
+    } else {
+      String resource = "scenarios/" + nameOrPath + ".properties";
+      try (
+        InputStream in = Scenario.class.getClassLoader().getResourceAsStream(resource)
+      ) {
+        if (in == null) {
+          throw new IllegalArgumentException("No scenario file or resource " + resource);
+        }
+        properties.load(in);
+      }
+      name = nameOrPath;
+    }
+    for (String override : overrides) {
+      int separator = override.indexOf('=');
+      if (separator < 1) {
+        throw new IllegalArgumentException("Expected key=value, got " + override);
+      }
+      properties.setProperty(
+        override.substring(0, separator).trim(),
+        override.substring(separator + 1).trim()
+      );
+    }
+
+    Map<String, String> settings = new TreeMap<>();
+    Map<String, String> applicationProperties = new LinkedHashMap<>();
+    for (String key : properties.stringPropertyNames()) {
+      settings.put(key, properties.getProperty(key));
+      if (key.startsWith(APPLICATION_PREFIX)) {
+        applicationProperties.put(
+          key.substring(APPLICATION_PREFIX.length()),
+          properties.getProperty(key)
+        );
+      }
+    }
+    Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      int weight = Integer.parseInt(
+        properties.getProperty("mix." + operation.key(), "0")
+      );
+      if (weight > 0) {
+        mix.put(operation, weight);
+      }
+    }
+    if (mix.isEmpty()) {
+      throw new IllegalArgumentException("Scenario " + name + " has no mix.* weights");
+    }
+    int seedComplaints = Integer.parseInt(
+      properties.getProperty("seed.complaints", "1000")
+    );
+    if (
+      seedComplaints < 1 &&
+      (mix.containsKey(Operation.INCREMENT) || mix.containsKey(Operation.GET))
+    ) {
+      throw new IllegalArgumentException(
+        "Scenario " + name + " reads or increments complaints but seeds none"
+      );
+    }
+    int rate = Integer.parseInt(properties.getProperty("rate", "100"));
+    if (rate < 1) {
+      throw new IllegalArgumentException("Scenario " + name + " needs a positive rate");
+    }
+
+    return new Scenario(
+      name,
+      rate,
+      duration(properties, "warmup", "10s"),
+      duration(properties, "duration", "60s"),
+      mix,
+      seedComplaints,
+      Integer.parseInt(properties.getProperty("clients", "10000")),
+      Integer.parseInt(properties.getProperty("max-in-flight", "10000")),
+      duration(properties, "geolocation.latency", "50ms"),
+      duration(properties, "geolocation.jitter", "0ms"),
+      Double.parseDouble(properties.getProperty("geolocation.failure-rate", "0")),
+      List.of(properties.getProperty("profiles", "test").split("\\s*,\\s*")),
+      applicationProperties,
+      Path.of(properties.getProperty("output", "target/loadtest")),
+      settings
+    );
+  }
+
+  private static Duration duration(Properties properties, String key, String fallback) {
+    return DurationStyle.detectAndParse(properties.getProperty(key, fallback));
+  }
+}
@@ -2,9 +2,12 @@ package com.bbockowski.apicomplaint;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
 
-@SpringBootApplication
+// An auto-configured R2DBC ConnectionFactory would switch off the JDBC DataSource; the
+// reactive profile builds its own instead, see ReactiveDataConfig.
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 @EnableSpringDataWebSupport
 public class ApiComplaintApplication {
 
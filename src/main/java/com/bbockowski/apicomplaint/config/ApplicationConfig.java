@@ -1,22 +1,70 @@
 package com.bbockowski.apicomplaint.config;
 
-import org.modelmapper.ModelMapper;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 @EnableJpaAuditing
+@EnableScheduling
+@EnableConfigurationProperties({ GeoLocationProperties.class, ComplaintProperties.class })
 public class ApplicationConfig {
 
+  /**
+   * HTTP client for the remote geolocation service: a bounded pool of keep-alive
+   * connections with connect, read and pool-wait timeouts, so a slow service cannot hold
+   * request threads indefinitely.
+   */
   @Bean
-  public ModelMapper modelMapper() {
-    return new ModelMapper();
+  public CloseableHttpClient geoLocationHttpClient(
+    GeoLocationProperties geoLocationProperties
+  ) {
+    GeoLocationProperties.Remote remote = geoLocationProperties.getRemote();
+    ConnectionConfig connectionConfig = ConnectionConfig
+      .custom()
+      .setConnectTimeout(Timeout.of(remote.getConnectTimeout()))
+      .setSocketTimeout(Timeout.of(remote.getReadTimeout()))
+      .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+      .build();
+    RequestConfig requestConfig = RequestConfig
+      .custom()
+      .setConnectionRequestTimeout(Timeout.of(remote.getConnectionRequestTimeout()))
+      .setResponseTimeout(Timeout.of(remote.getReadTimeout()))
+      .build();
+    return HttpClients
+      .custom()
+      .setConnectionManager(
+        PoolingHttpClientConnectionManagerBuilder
+          .create()
+          .setMaxConnTotal(remote.getMaxConnections())
+          .setMaxConnPerRoute(remote.getMaxConnections())
+          .setDefaultConnectionConfig(connectionConfig)
+          .build()
+      )
+      .setDefaultRequestConfig(requestConfig)
+      .evictIdleConnections(TimeValue.of(remote.getIdleTimeout()))
+      .evictExpiredConnections()
+      .build();
   }
 
   @Bean
-  public RestTemplate restTemplate() {
-    return new RestTemplate();
+  public RestTemplate geoLocationRestTemplate(
+    @Qualifier("geoLocationHttpClient") CloseableHttpClient geoLocationHttpClient
+  ) {
+    return new RestTemplate(
+      new HttpComponentsClientHttpRequestFactory(geoLocationHttpClient)
+    );
   }
 }
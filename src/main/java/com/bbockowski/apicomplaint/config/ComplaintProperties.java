@@ -0,0 +1,170 @@
+package com.bbockowski.apicomplaint.config;
+
+import java.time.Duration;
+import java.time.Period;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "complaints")
+public class ComplaintProperties {
+  private WriteBehind writeBehind = new WriteBehind();
+  private Batch batch = new Batch();
+  private Listing listing = new Listing();
+  private Edit edit = new Edit();
+  private Cache cache = new Cache();
+  private Export export = new Export();
+  private Stats stats = new Stats();
+  private Trending trending = new Trending();
+  private Partitions partitions = new Partitions();
+
+  @Getter
+  @Setter
+  public static class WriteBehind {
+    /**
+     * Whether repeat complaints for a known (productId, reporter) are journaled locally
+     * and applied to the database in batches instead of one update per request.
+     */
+    private boolean enabled = false;
+
+    /** Directory holding the append-only journal; must be local and node-private. */
+    private String journalDirectory = "data/report-count-journal";
+
+    /** How often pending increments are flushed to the database. */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /** Number of pending increments that triggers a flush before the interval ends. */
+    private int flushThreshold = 10_000;
+
+    /** Number of (productId, reporter) keys remembered as existing. */
+    private long knownKeys = 100_000;
+
+    /**
+     * How long a key stays remembered. Complaints changed or retired by other nodes are
+     * noticed here once their key is forgotten.
+     */
+    private Duration knownKeyTtl = Duration.ofMinutes(1);
+  }
+
+  @Getter
+  @Setter
+  public static class Batch {
+    /** Number of items stored per transaction by the batch endpoint. */
+    private int chunkSize = 500;
+
+    /** Largest number of items accepted in one batch request. */
+    private int maxItems = 100_000;
+  }
+
+  @Getter
+  @Setter
+  public static class Listing {
+    /** How often the estimated complaint total is re-read from planner statistics. */
+    private Duration estimateRefreshInterval = Duration.ofMinutes(1);
+  }
+
+  @Getter
+  @Setter
+  public static class Edit {
+    /** How an edit guards against concurrent changes to the same complaint. */
+    private Locking locking = Locking.OPTIMISTIC;
+
+    public enum Locking {
+      /**
+       * Reads without locks and checks the version on commit; conflicts are retried by
+       * the {@code complaintEdit} retry.
+       */
+      OPTIMISTIC,
+      /** Locks the row with {@code SELECT ... FOR UPDATE} for the whole edit. */
+      PESSIMISTIC,
+    }
+  }
+
+  @Getter
+  @Setter
+  public static class Cache {
+    /** Whether complaints read by id are cached in memory. */
+    private boolean enabled = true;
+
+    /** Largest number of complaints kept. */
+    private long maximumSize = 10_000;
+
+    /**
+     * How long a complaint stays cached. Writes on this node invalidate it at once;
+     * writes on other nodes become visible after at most this long.
+     */
+    private Duration ttl = Duration.ofMinutes(1);
+  }
+
+  @Getter
+  @Setter
+  public static class Export {
+    /**
+     * Number of rows fetched per database round trip by the export; also how many rows
+     * are written between flushes of the response.
+     */
+    private int fetchSize = 1000;
+  }
+
+  @Getter
+  @Setter
+  public static class Stats {
+    /**
+     * Whether the product statistics are rebuilt from the complaints table at startup.
+     * The migration that creates them seeds them, so this only repairs drift.
+     */
+    private Backfill backfill = Backfill.NEVER;
+
+    /** Number of products whose statistics are rebuilt per transaction. */
+    private int backfillChunkSize = 500;
+
+    public enum Backfill {
+      /** Never; the statistics are only maintained by complaint writes. */
+      NEVER,
+      /** On every startup, repairing any drift. */
+      ALWAYS,
+    }
+  }
+
+  @Getter
+  @Setter
+  public static class Trending {
+    /** Whether submissions on this node are counted for the trending products. */
+    private boolean enabled = true;
+
+    /**
+     * Number of products counted per time bucket, which bounds memory however many
+     * products there are. Estimates overstate a product's reports by at most the
+     * reports in the window divided by this.
+     */
+    private int capacity = 1000;
+  }
+
+  @Getter
+  @Setter
+  public static class Partitions {
+    /** How often the monthly partitions of complaints on PostgreSQL are checked. */
+    private Duration checkInterval = Duration.ofHours(1);
+
+    /** Number of months after the current one whose partitions are created ahead. */
+    private int monthsAhead = 3;
+
+    /**
+     * How long complaints are kept, by creation time; unset keeps them forever. A
+     * month's partition is retired once all of it is older than this.
+     */
+    private Period retention;
+
+    /** What happens to a retired partition. */
+    private Retirement retirement = Retirement.DETACH;
+
+    public enum Retirement {
+      /** Detached and left as a table of its own, to be archived and dropped by hand. */
+      DETACH,
+      /** Detached and dropped. */
+      DROP,
+    }
+  }
+}
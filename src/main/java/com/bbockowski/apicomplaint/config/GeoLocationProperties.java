@@ -0,0 +1,95 @@
+package com.bbockowski.apicomplaint.config;
+
+import com.bbockowski.apicomplaint.geolocation.GeoLocationCache;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "geolocation")
+public class GeoLocationProperties {
+  private Offline offline = new Offline();
+  private Remote remote = new Remote();
+  private Cache cache = new Cache();
+  private Enrichment enrichment = new Enrichment();
+
+  @Getter
+  @Setter
+  public static class Offline {
+    /** Whether the in-process IP range table is consulted before the remote service. */
+    private boolean enabled = false;
+
+    /** Path to the dataset, either CSV or the compact binary range table format. */
+    private String dataset;
+
+    /** How often the dataset file is checked for changes and reloaded. */
+    private Duration reloadInterval = Duration.ofMinutes(1);
+  }
+
+  @Getter
+  @Setter
+  public static class Remote {
+    /** Whether ip-api.com is called for addresses the offline table cannot answer. */
+    private boolean enabled = true;
+
+    private String url = "http://ip-api.com/json/";
+
+    /** Largest number of pooled connections to the service. */
+    private int maxConnections = 50;
+
+    /** Time allowed to establish a connection. */
+    private Duration connectTimeout = Duration.ofSeconds(1);
+
+    /** Longest wait for response data once the request is sent. */
+    private Duration readTimeout = Duration.ofSeconds(2);
+
+    /** How long a lookup waits for a free pooled connection. */
+    private Duration connectionRequestTimeout = Duration.ofMillis(500);
+
+    /** How long an idle connection is kept open for reuse. */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+  }
+
+  @Getter
+  @Setter
+  public static class Cache {
+    private boolean enabled = true;
+
+    private long maximumSize = 100_000;
+
+    /** How long a resolved country is reused. */
+    private Duration ttl = Duration.ofHours(6);
+
+    /** How long a failed lookup is remembered before the address is retried. */
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    /** Whether entries are keyed by exact address or by IPv4 /24 and IPv6 /48 network. */
+    private GeoLocationCache.KeyMode keyMode = GeoLocationCache.KeyMode.EXACT;
+  }
+
+  @Getter
+  @Setter
+  public static class Enrichment {
+    /**
+     * {@code sync} resolves the country before the complaint is stored; {@code async}
+     * stores it immediately and fills the country in later.
+     */
+    private Mode mode = Mode.SYNC;
+
+    /** Pending tasks held in memory; overflow is picked up later from the database. */
+    private int queueCapacity = 10_000;
+
+    /** Complaints resolved and updated per database round trip. */
+    private int batchSize = 100;
+
+    /** How often the database is scanned for pending complaints not held in memory. */
+    private Duration backlogScanInterval = Duration.ofSeconds(30);
+
+    public enum Mode {
+      SYNC,
+      ASYNC,
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.bbockowski.apicomplaint.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * R2DBC access for the reactive profile, configured from {@code spring.r2dbc.*}. The pool
+ * is only reachable through the {@link DatabaseClient}: a {@code ConnectionFactory} bean
+ * would make Spring Boot skip the JDBC {@code DataSource} that JPA, Liquibase and the
+ * background workers still use.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveDataConfig {
+  private ConnectionPool connectionPool;
+
+  @Bean
+  public DatabaseClient reactiveDatabaseClient(R2dbcProperties r2dbcProperties) {
+    R2dbcProperties.Pool pool = r2dbcProperties.getPool();
+    connectionPool =
+      new ConnectionPool(
+        ConnectionPoolConfiguration
+          .builder(
+            ConnectionFactoryBuilder
+              .withUrl(r2dbcProperties.getUrl())
+              .username(r2dbcProperties.getUsername())
+              .password(r2dbcProperties.getPassword())
+              .build()
+          )
+          .initialSize(pool.getInitialSize())
+          .maxSize(pool.getMaxSize())
+          .maxIdleTime(pool.getMaxIdleTime())
+          .build()
+      );
+    return DatabaseClient.create(connectionPool);
+  }
+
+  @PreDestroy
+  void closeConnectionPool() {
+    if (connectionPool != null) {
+      connectionPool.dispose();
+    }
+  }
+}
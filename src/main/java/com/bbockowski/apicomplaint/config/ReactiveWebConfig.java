@@ -0,0 +1,25 @@
+package com.bbockowski.apicomplaint.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.ReactiveSortHandlerMethodArgumentResolver;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+/**
+ * WebFlux counterpart of {@code @EnableSpringDataWebSupport}, which only registers its
+ * {@code Pageable} and {@code Sort} resolvers with Spring MVC.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+  @Override
+  public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+    configurer.addCustomResolver(
+      new ReactiveSortHandlerMethodArgumentResolver(),
+      new ReactivePageableHandlerMethodArgumentResolver()
+    );
+  }
+}
@@ -0,0 +1,51 @@
+package com.bbockowski.apicomplaint.controller;
+
+import com.bbockowski.apicomplaint.geolocation.IpAddresses;
+import jakarta.servlet.http.HttpServletRequest;
+import java.net.InetSocketAddress;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/**
+ * Determines the client address a complaint is located by: the {@code X-Forwarded-For}
+ * header set by the proxy in front of the service, or else the peer address. Runs once
+ * per created complaint, so it reads a single header and allocates nothing.
+ */
+public final class ClientIpResolver {
+  private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+  private ClientIpResolver() {}
+
+  public static String resolve(HttpServletRequest request) {
+    String forwardedFor = request.getHeader(FORWARDED_FOR);
+    return forwardedFor != null ? forwardedFor : request.getRemoteAddr();
+  }
+
+  public static String resolve(ServerHttpRequest request) {
+    String forwardedFor = request.getHeaders().getFirst(FORWARDED_FOR);
+    if (forwardedFor != null) {
+      return forwardedFor;
+    }
+    InetSocketAddress remoteAddress = request.getRemoteAddress();
+    return remoteAddress == null ? null : remoteAddress.getAddress().getHostAddress();
+  }
+
+  /**
+   * Reduces a resolved client address to the IP literal a complaint can wait on: the
+   * first hop of a forwarded chain, trimmed and without IPv6 brackets.
+   *
+   * @param clientIp the address returned by {@code resolve}
+   * @return the literal, at most 45 characters long, or {@code null} if the first hop is
+   *     not an IP address
+   */
+  public static String firstHopLiteral(String clientIp) {
+    if (clientIp == null) {
+      return null;
+    }
+    int comma = clientIp.indexOf(',');
+    String hop = (comma < 0 ? clientIp : clientIp.substring(0, comma)).trim();
+    if (hop.startsWith("[") && hop.endsWith("]")) {
+      hop = hop.substring(1, hop.length() - 1);
+    }
+    return IpAddresses.toBytes(hop) != null ? hop : null;
+  }
+}
@@ -1,11 +1,24 @@
 package com.bbockowski.apicomplaint.controller;
 
 import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.BatchComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintCursorPage;
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse.TotalMode;
 import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintSearchPage;
 import com.bbockowski.apicomplaint.dto.EditComplaintRequest;
 import com.bbockowski.apicomplaint.errorhandling.ErrorResponse;
+import com.bbockowski.apicomplaint.exception.ComplaintVersionMismatchException;
+import com.bbockowski.apicomplaint.service.ComplaintBatchService;
 import com.bbockowski.apicomplaint.service.ComplaintDefaultService;
+import com.bbockowski.apicomplaint.service.ComplaintExportService;
+import com.bbockowski.apicomplaint.service.ComplaintSearchService;
+import com.bbockowski.apicomplaint.service.CountryEnrichmentService;
 import com.bbockowski.apicomplaint.service.IpLocationService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,30 +26,45 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
-import java.util.Optional;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controller responsible for handling operations related to complaints.
  * Exposes endpoints for creating, retrieving, and updating complaints.
+ * The reactive profile replaces it with {@link ReactiveComplaintController}.
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/complaints")
 @RequiredArgsConstructor
 public class ComplaintController {
   private final ComplaintDefaultService complaintDefaultService;
   private final IpLocationService ipLocationService;
+  private final CountryEnrichmentService countryEnrichmentService;
+  private final ComplaintBatchService complaintBatchService;
+  private final ComplaintExportService complaintExportService;
+  private final ComplaintSearchService complaintSearchService;
+  private final ObjectMapper objectMapper;
 
   /**
    * Creates a new complaint or increments an existing one, based on the productId and reporter.
-   * Determines the complainant's country using the IP address.
+   * Determines the complainant's country using the IP address, either before storing the
+   * complaint or, in asynchronous enrichment mode, in the background afterwards.
    *
    * @param addComplaintRequest the DTO containing complaint details
    * @param request             the incoming HTTP request (used for IP extraction)
@@ -72,11 +100,17 @@ public class ComplaintController {
     @RequestBody AddComplaintRequest addComplaintRequest,
     HttpServletRequest request
   ) {
-    String clientIp = Optional
-      .ofNullable(request.getHeader("X-Forwarded-For"))
-      .orElse(request.getRemoteAddr());
+    // Anything but an IP literal is never looked up and gets the fallback country.
+    String clientIp = ClientIpResolver.firstHopLiteral(ClientIpResolver.resolve(request));
 
-    addComplaintRequest.setCountry(ipLocationService.getCountryByIp(clientIp));
+    if (clientIp == null) {
+      addComplaintRequest.setCountry(IpLocationService.FALLBACK_COUNTRY);
+    } else if (countryEnrichmentService.isAsync()) {
+      addComplaintRequest.setCountry(null);
+      addComplaintRequest.setPendingIp(clientIp);
+    } else {
+      addComplaintRequest.setCountry(ipLocationService.getCountryByIp(clientIp));
+    }
 
     return ResponseEntity.ok(
       complaintDefaultService.createComplaint(addComplaintRequest)
@@ -84,9 +118,65 @@ public class ComplaintController {
   }
 
   /**
-   * Retrieves a specific complaint by its UUID.
+   * Creates or increments many complaints in one request. The body is either a JSON array
+   * or newline-delimited JSON objects; it is read as a stream and stored in chunked
+   * transactions, and every item gets its own result instead of failing the whole batch.
    *
-   * @param id the UUID of the complaint
+   * @param request the incoming HTTP request carrying the body and the client IP
+   * @return the outcome of each item, in submission order
+   */
+  @Operation(summary = "Add or increment complaints in bulk")
+  @ApiResponses(
+    value = {
+      @ApiResponse(
+        responseCode = "200",
+        description = "Batch processed; see the status of each item",
+        content = @Content(
+          schema = @Schema(implementation = BatchComplaintResponse.class)
+        )
+      ),
+      @ApiResponse(
+        responseCode = "500",
+        description = "Internal server error",
+        content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+      )
+    }
+  )
+  @PostMapping(
+    value = "/batch",
+    consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE }
+  )
+  public ResponseEntity<BatchComplaintResponse> addComplaints(HttpServletRequest request)
+    throws IOException {
+    String clientIp = ClientIpResolver.firstHopLiteral(ClientIpResolver.resolve(request));
+    String country = null;
+    String pendingIp = null;
+    if (clientIp == null) {
+      country = IpLocationService.FALLBACK_COUNTRY;
+    } else if (countryEnrichmentService.isAsync()) {
+      pendingIp = clientIp;
+    } else {
+      country = ipLocationService.getCountryByIp(clientIp);
+    }
+
+    try (
+      MappingIterator<AddComplaintRequest> items = objectMapper
+        .readerFor(AddComplaintRequest.class)
+        .readValues(request.getInputStream())
+    ) {
+      return ResponseEntity.ok(
+        complaintBatchService.createComplaints(items, country, pendingIp)
+      );
+    }
+  }
+
+  /**
+   * Retrieves a specific complaint by its UUID. The response carries the complaint's
+   * version as a strong ETag; a matching {@code If-None-Match} is answered with 304 Not
+   * Modified after reading only the version.
+   *
+   * @param id          the UUID of the complaint
+   * @param ifNoneMatch ETags the client already holds, if any
    * @return the complaint as a response entity
    */
   @Operation(summary = "Get a complaint by ID")
@@ -97,6 +187,7 @@ public class ComplaintController {
         description = "Complaint retrieved successfully",
         content = @Content(schema = @Schema(implementation = ComplaintResponse.class))
       ),
+      @ApiResponse(responseCode = "304", description = "Complaint not modified"),
       @ApiResponse(
         responseCode = "404",
         description = "Complaint not found",
@@ -110,14 +201,32 @@ public class ComplaintController {
     }
   )
   @GetMapping("/{id}")
-  public ResponseEntity<ComplaintResponse> getComplaint(@PathVariable UUID id) {
-    return ResponseEntity.ok(complaintDefaultService.getComplaint(id));
+  public ResponseEntity<ComplaintResponse> getComplaint(
+    @PathVariable UUID id,
+    @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+  ) {
+    if (ifNoneMatch != null) {
+      long version = complaintDefaultService.getComplaintVersion(id);
+      if (ComplaintETags.noneMatchSatisfied(ifNoneMatch, version)) {
+        return ResponseEntity
+          .status(HttpStatus.NOT_MODIFIED)
+          .eTag(ComplaintETags.of(version))
+          .build();
+      }
+    }
+    return withETag(complaintDefaultService.getComplaint(id));
   }
 
   /**
-   * Retrieves all complaints in a paginated form.
+   * Retrieves complaints in a paginated form, optionally filtered.
    *
-   * @param pageable pagination configuration
+   * @param filter    optional productId, reporter, country and createdFrom / createdTo
+   *                  (ISO-8601, upper bound exclusive) criteria
+   * @param pageable  pagination configuration
+   * @param totalMode how to obtain the total number of complaints; {@code NONE} skips
+   *                  it, {@code ESTIMATED} uses cached planner statistics and
+   *                  {@code EXACT} runs a full count; filtered listings answer an
+   *                  estimate request without a total
    * @return a page of complaint responses
    */
   @Operation(summary = "Get all complaints in paginated form")
@@ -126,7 +235,7 @@ public class ComplaintController {
       @ApiResponse(
         responseCode = "200",
         description = "Complaints retrieved successfully",
-        content = @Content(schema = @Schema(implementation = ComplaintResponse.class))
+        content = @Content(schema = @Schema(implementation = ComplaintListResponse.class))
       ),
       @ApiResponse(
         responseCode = "500",
@@ -136,16 +245,146 @@ public class ComplaintController {
     }
   )
   @GetMapping("/all")
-  public ResponseEntity<Page<ComplaintResponse>> getAllComplaints(
-    @PageableDefault(sort = "id", direction = Sort.Direction.DESC) Pageable pageable
+  public ResponseEntity<ComplaintListResponse> getAllComplaints(
+    ComplaintFilter filter,
+    @PageableDefault(sort = "id", direction = Sort.Direction.DESC) Pageable pageable,
+    @RequestParam(name = "total", defaultValue = "NONE") TotalMode totalMode
+  ) {
+    return ResponseEntity.ok(
+      complaintDefaultService.getAllComplaints(filter, pageable, totalMode)
+    );
+  }
+
+  /**
+   * Lists complaints newest first using keyset pagination. Each page seeks directly to
+   * its position by {@code (createdAt, id)}, so deep pages cost the same as the first.
+   *
+   * @param cursor a {@code nextCursor} or {@code previousCursor} from an earlier page;
+   *               omit it to get the newest complaints
+   * @param size   the number of complaints per page, at most 100
+   * @return the page with cursors to its neighbours
+   */
+  @Operation(summary = "List complaints newest first with cursor-based pagination")
+  @ApiResponses(
+    value = {
+      @ApiResponse(
+        responseCode = "200",
+        description = "Complaints retrieved successfully",
+        content = @Content(schema = @Schema(implementation = ComplaintCursorPage.class))
+      ),
+      @ApiResponse(
+        responseCode = "400",
+        description = "Invalid cursor",
+        content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+      ),
+      @ApiResponse(
+        responseCode = "500",
+        description = "Internal server error",
+        content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+      )
+    }
+  )
+  @GetMapping
+  public ResponseEntity<ComplaintCursorPage> getComplaints(
+    @RequestParam(required = false) String cursor,
+    @RequestParam(defaultValue = "20") int size
   ) {
-    return ResponseEntity.ok(complaintDefaultService.getAllComplaints(pageable));
+    return ResponseEntity.ok(complaintDefaultService.getComplaints(cursor, size));
   }
 
   /**
-   * Updates the content of an existing complaint, if found.
+   * Searches complaint content, most relevant first, using keyset pagination.
+   *
+   * @param q         the words to look for; on PostgreSQL also "quoted phrases", {@code or}
+   *                  and {@code -word}
+   * @param productId only complaints about this product
+   * @param country   only complaints from this country
+   * @param cursor    a {@code nextCursor} from an earlier page; omit it for the first
+   * @param size      the number of hits per page, at most 100
+   * @return the page of hits with the cursor of the next one
+   */
+  @Operation(summary = "Search complaint content ranked by relevance")
+  @ApiResponses(
+    value = {
+      @ApiResponse(
+        responseCode = "200",
+        description = "Matching complaints retrieved successfully",
+        content = @Content(schema = @Schema(implementation = ComplaintSearchPage.class))
+      ),
+      @ApiResponse(
+        responseCode = "400",
+        description = "Blank query or invalid cursor",
+        content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+      )
+    }
+  )
+  @GetMapping("/search")
+  public ResponseEntity<ComplaintSearchPage> searchComplaints(
+    @RequestParam String q,
+    @RequestParam(required = false) String productId,
+    @RequestParam(required = false) String country,
+    @RequestParam(required = false) String cursor,
+    @RequestParam(defaultValue = "20") int size
+  ) {
+    return ResponseEntity.ok(
+      complaintSearchService.search(q, productId, country, cursor, size)
+    );
+  }
+
+  /**
+   * Exports every complaint matching the filter, oldest first. The body is streamed from
+   * a database cursor while it is being read, so exports of any size use constant memory.
+   *
+   * @param filter optional productId, reporter, country and createdFrom / createdTo
+   *               (ISO-8601, upper bound exclusive) criteria
+   * @param format {@code NDJSON} for one JSON object per line or {@code CSV}
+   * @return the streamed complaints as an attachment
+   */
+  @Operation(summary = "Export complaints as NDJSON or CSV")
+  @ApiResponses(
+    value = {
+      @ApiResponse(
+        responseCode = "200",
+        description = "Complaints streamed successfully",
+        content = {
+          @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE),
+          @Content(mediaType = "text/csv"),
+        }
+      ),
+      @ApiResponse(
+        responseCode = "400",
+        description = "Invalid filter or format",
+        content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+      )
+    }
+  )
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportComplaints(
+    ComplaintFilter filter,
+    @RequestParam(defaultValue = "NDJSON") ComplaintExportService.Format format
+  ) {
+    boolean csv = format == ComplaintExportService.Format.CSV;
+    MediaType contentType = csv
+      ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+      : MediaType.APPLICATION_NDJSON;
+    ContentDisposition disposition = ContentDisposition
+      .attachment()
+      .filename(csv ? "complaints.csv" : "complaints.ndjson")
+      .build();
+    return ResponseEntity
+      .ok()
+      .contentType(contentType)
+      .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+      .body(out -> complaintExportService.export(filter, format, out));
+  }
+
+  /**
+   * Updates the content of an existing complaint, if found. With an {@code If-Match}
+   * header the update is applied only while the complaint is still at that version, as a
+   * single conditional statement, and fails with 412 otherwise.
    *
    * @param editComplaintRequest the DTO containing updated complaint data
+   * @param ifMatch              the ETag the client last read, if any
    * @return the updated complaint as a response
    */
   @Operation(summary = "Update a complaint")
@@ -161,6 +400,16 @@ public class ComplaintController {
         description = "Complaint not found",
         content = @Content(schema = @Schema(implementation = ErrorResponse.class))
       ),
+      @ApiResponse(
+        responseCode = "412",
+        description = "Complaint no longer matches the If-Match ETag",
+        content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+      ),
+      @ApiResponse(
+        responseCode = "409",
+        description = "Complaint kept changing concurrently; retry the edit",
+        content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+      ),
       @ApiResponse(
         responseCode = "400",
         description = "Invalid request format",
@@ -175,8 +424,36 @@ public class ComplaintController {
   )
   @PutMapping
   public ResponseEntity<ComplaintResponse> editComplaint(
-    @Valid @RequestBody EditComplaintRequest editComplaintRequest
+    @Valid @RequestBody EditComplaintRequest editComplaintRequest,
+    @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
   ) {
-    return ResponseEntity.ok(complaintDefaultService.editComplaint(editComplaintRequest));
+    if (ifMatch == null || ComplaintETags.isWildcard(ifMatch)) {
+      return withETag(complaintDefaultService.editComplaint(editComplaintRequest));
+    }
+    List<Long> versions = ComplaintETags.versions(ifMatch);
+    long expectedVersion = versions.size() == 1
+      ? versions.get(0)
+      : currentVersionIfListed(editComplaintRequest.getId(), versions);
+    return withETag(
+      complaintDefaultService.editComplaint(editComplaintRequest, expectedVersion)
+    );
+  }
+
+  private long currentVersionIfListed(String id, List<Long> versions) {
+    long current = complaintDefaultService.getComplaintVersion(UUID.fromString(id));
+    if (!versions.contains(current)) {
+      throw new ComplaintVersionMismatchException(
+        "Complaint " + id + " does not match the If-Match header"
+      );
+    }
+    return current;
+  }
+
+  private static ResponseEntity<ComplaintResponse> withETag(ComplaintResponse complaint) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (complaint.getVersion() != null) {
+      response.eTag(ComplaintETags.of(complaint.getVersion()));
+    }
+    return response.body(complaint);
   }
 }
@@ -0,0 +1,49 @@
+package com.bbockowski.apicomplaint.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.ETag;
+
+/**
+ * Strong entity tags of complaints. The tag is the row version, which every change to a
+ * complaint increments, so comparing tags never needs the complaint body.
+ */
+final class ComplaintETags {
+
+  private ComplaintETags() {}
+
+  static String of(long version) {
+    return "\"" + version + "\"";
+  }
+
+  /** Whether an {@code If-None-Match} header matches, using weak comparison. */
+  static boolean noneMatchSatisfied(String ifNoneMatch, long version) {
+    ETag current = ETag.create(of(version));
+    return ETag
+      .parse(ifNoneMatch)
+      .stream()
+      .anyMatch(tag -> tag.isWildcard() || tag.compare(current, false));
+  }
+
+  static boolean isWildcard(String ifMatch) {
+    return ETag.parse(ifMatch).stream().anyMatch(ETag::isWildcard);
+  }
+
+  /**
+   * The versions an {@code If-Match} header accepts. Weak and foreign tags can never
+   * match under the strong comparison {@code If-Match} requires, so they are dropped.
+   */
+  static List<Long> versions(String ifMatch) {
+    List<Long> versions = new ArrayList<>();
+    for (ETag tag : ETag.parse(ifMatch)) {
+      if (!tag.weak() && !tag.isWildcard()) {
+        try {
+          versions.add(Long.parseLong(tag.tag()));
+        } catch (NumberFormatException e) {
+          // not one of ours
+        }
+      }
+    }
+    return versions;
+  }
+}
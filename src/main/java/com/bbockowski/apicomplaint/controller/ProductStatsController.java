@@ -0,0 +1,37 @@
+package com.bbockowski.apicomplaint.controller;
+
+import com.bbockowski.apicomplaint.dto.ProductStatsResponse;
+import com.bbockowski.apicomplaint.service.ProductStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves complaint statistics per product. The read never scans complaints, so its cost
+ * does not grow with the number of complaints about the product.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/v1/products")
+@RequiredArgsConstructor
+public class ProductStatsController {
+  private final ProductStatsService productStatsService;
+
+  /**
+   * Retrieves the distinct reporters and total reports of a product, overall and per
+   * country. A product without complaints has zero counts.
+   *
+   * @param productId the product
+   * @return the statistics of the product
+   */
+  @GetMapping("/{productId}/stats")
+  public ResponseEntity<ProductStatsResponse> getProductStats(
+    @PathVariable String productId
+  ) {
+    return ResponseEntity.ok(productStatsService.getStats(productId));
+  }
+}
@@ -0,0 +1,201 @@
+package com.bbockowski.apicomplaint.controller;
+
+import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.ComplaintCursorPage;
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse.TotalMode;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.EditComplaintRequest;
+import com.bbockowski.apicomplaint.exception.ComplaintVersionMismatchException;
+import com.bbockowski.apicomplaint.service.CountryEnrichmentService;
+import com.bbockowski.apicomplaint.service.IpLocationService;
+import com.bbockowski.apicomplaint.service.ReactiveComplaintService;
+import com.bbockowski.apicomplaint.service.ReactiveIpLocationService;
+import jakarta.validation.Valid;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of {@link ComplaintController}, active with the reactive profile.
+ * Serves the same create, get, list and edit endpoints with the same ETag handling, on
+ * R2DBC and a non-blocking geolocation client, so no request ever holds a thread while
+ * it waits for the database or the geolocation service.
+ */
+@RestController
+@RequestMapping("/api/v1/complaints")
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveComplaintController {
+  private final ReactiveComplaintService complaintService;
+  private final ReactiveIpLocationService ipLocationService;
+  private final CountryEnrichmentService countryEnrichmentService;
+
+  /**
+   * Creates a new complaint or increments an existing one, based on the productId and
+   * reporter.
+   *
+   * @param addComplaintRequest the DTO containing complaint details
+   * @param request             the incoming HTTP request (used for IP extraction)
+   * @return the newly created or updated complaint as a response
+   */
+  @PostMapping
+  public Mono<ResponseEntity<ComplaintResponse>> addComplaint(
+    @RequestBody AddComplaintRequest addComplaintRequest,
+    ServerHttpRequest request
+  ) {
+    // Anything but an IP literal is never looked up and gets the fallback country.
+    String clientIp = ClientIpResolver.firstHopLiteral(ClientIpResolver.resolve(request));
+
+    Mono<AddComplaintRequest> located;
+    if (clientIp == null) {
+      addComplaintRequest.setCountry(IpLocationService.FALLBACK_COUNTRY);
+      located = Mono.just(addComplaintRequest);
+    } else if (countryEnrichmentService.isAsync()) {
+      addComplaintRequest.setCountry(null);
+      addComplaintRequest.setPendingIp(clientIp);
+      located = Mono.just(addComplaintRequest);
+    } else {
+      located =
+        ipLocationService
+          .getCountryByIp(clientIp)
+          .map(
+            country -> {
+              addComplaintRequest.setCountry(country);
+              return addComplaintRequest;
+            }
+          );
+    }
+
+    return located.flatMap(complaintService::createComplaint).map(ResponseEntity::ok);
+  }
+
+  /**
+   * Retrieves a specific complaint by its UUID, answering a matching
+   * {@code If-None-Match} with 304 Not Modified after reading only the version.
+   *
+   * @param id          the UUID of the complaint
+   * @param ifNoneMatch ETags the client already holds, if any
+   * @return the complaint as a response entity
+   */
+  @GetMapping("/{id}")
+  public Mono<ResponseEntity<ComplaintResponse>> getComplaint(
+    @PathVariable UUID id,
+    @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+  ) {
+    if (ifNoneMatch == null) {
+      return complaintService.getComplaint(id).map(ReactiveComplaintController::withETag);
+    }
+    return complaintService
+      .getComplaintVersion(id)
+      .flatMap(
+        version ->
+          ComplaintETags.noneMatchSatisfied(ifNoneMatch, version)
+            ? Mono.just(
+              ResponseEntity
+                .status(HttpStatus.NOT_MODIFIED)
+                .eTag(ComplaintETags.of(version))
+                .<ComplaintResponse>build()
+            )
+            : complaintService
+              .getComplaint(id)
+              .map(ReactiveComplaintController::withETag)
+      );
+  }
+
+  /**
+   * Retrieves complaints in a paginated form, optionally filtered.
+   *
+   * @param filter    optional productId, reporter, country and creation time criteria
+   * @param pageable  pagination configuration
+   * @param totalMode how to obtain the total number of complaints
+   * @return a page of complaint responses
+   */
+  @GetMapping("/all")
+  public Mono<ResponseEntity<ComplaintListResponse>> getAllComplaints(
+    ComplaintFilter filter,
+    @PageableDefault(sort = "id", direction = Sort.Direction.DESC) Pageable pageable,
+    @RequestParam(name = "total", defaultValue = "NONE") TotalMode totalMode
+  ) {
+    return complaintService
+      .getAllComplaints(filter, pageable, totalMode)
+      .map(ResponseEntity::ok);
+  }
+
+  /**
+   * Lists complaints newest first using keyset pagination.
+   *
+   * @param cursor a {@code nextCursor} or {@code previousCursor} from an earlier page;
+   *               omit it to get the newest complaints
+   * @param size   the number of complaints per page, at most 100
+   * @return the page with cursors to its neighbours
+   */
+  @GetMapping
+  public Mono<ResponseEntity<ComplaintCursorPage>> getComplaints(
+    @RequestParam(required = false) String cursor,
+    @RequestParam(defaultValue = "20") int size
+  ) {
+    return complaintService.getComplaints(cursor, size).map(ResponseEntity::ok);
+  }
+
+  /**
+   * Updates the content of an existing complaint, if found. With an {@code If-Match}
+   * header the update is applied only while the complaint is still at that version.
+   *
+   * @param editComplaintRequest the DTO containing updated complaint data
+   * @param ifMatch              the ETag the client last read, if any
+   * @return the updated complaint as a response
+   */
+  @PutMapping
+  public Mono<ResponseEntity<ComplaintResponse>> editComplaint(
+    @Valid @RequestBody EditComplaintRequest editComplaintRequest,
+    @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+  ) {
+    if (ifMatch == null || ComplaintETags.isWildcard(ifMatch)) {
+      return complaintService
+        .editComplaint(editComplaintRequest)
+        .map(ReactiveComplaintController::withETag);
+    }
+    List<Long> versions = ComplaintETags.versions(ifMatch);
+    Mono<Long> expectedVersion = versions.size() == 1
+      ? Mono.just(versions.get(0))
+      : currentVersionIfListed(editComplaintRequest.getId(), versions);
+    return expectedVersion
+      .flatMap(version -> complaintService.editComplaint(editComplaintRequest, version))
+      .map(ReactiveComplaintController::withETag);
+  }
+
+  private Mono<Long> currentVersionIfListed(String id, List<Long> versions) {
+    return complaintService
+      .getComplaintVersion(UUID.fromString(id))
+      .flatMap(
+        current ->
+          versions.contains(current)
+            ? Mono.just(current)
+            : Mono.error(
+              new ComplaintVersionMismatchException(
+                "Complaint " + id + " does not match the If-Match header"
+              )
+            )
+      );
+  }
+
+  private static ResponseEntity<ComplaintResponse> withETag(ComplaintResponse complaint) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (complaint.getVersion() != null) {
+      response.eTag(ComplaintETags.of(complaint.getVersion()));
+    }
+    return response.body(complaint);
+  }
+}
@@ -0,0 +1,55 @@
+package com.bbockowski.apicomplaint.controller;
+
+import com.bbockowski.apicomplaint.dto.TrendingProductsResponse;
+import com.bbockowski.apicomplaint.trending.TrendingProducts;
+import com.bbockowski.apicomplaint.trending.TrendingWindow;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves the most reported products from memory. Nothing here blocks, so the same
+ * controller serves both the servlet and the reactive stack.
+ */
+@RestController
+@RequestMapping("/api/v1/products")
+@RequiredArgsConstructor
+public class TrendingProductsController {
+  private static final int MAX_LIMIT = 100;
+
+  private final TrendingProducts trendingProducts;
+
+  /**
+   * Lists the products with the most new reports on this node in a recent window.
+   *
+   * @param window {@code 5m}, {@code 1h} or {@code 24h}
+   * @param limit  the number of products to return, at most 100
+   * @return the products, most reported first
+   */
+  @GetMapping("/trending")
+  public ResponseEntity<TrendingProductsResponse> getTrendingProducts(
+    @RequestParam(defaultValue = "1h") String window,
+    @RequestParam(defaultValue = "10") int limit
+  ) {
+    TrendingWindow trendingWindow = TrendingWindow.of(window);
+    List<TrendingProductsResponse.TrendingProduct> products = trendingProducts
+      .top(trendingWindow, Math.clamp(limit, 1, MAX_LIMIT))
+      .stream()
+      .map(
+        product ->
+          new TrendingProductsResponse.TrendingProduct(
+            product.productId(),
+            product.reports(),
+            product.maxOvercount()
+          )
+      )
+      .toList();
+    return ResponseEntity.ok(
+      new TrendingProductsResponse(trendingWindow.label(), products)
+    );
+  }
+}
@@ -1,5 +1,6 @@
 package com.bbockowski.apicomplaint.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -10,4 +11,7 @@ public class AddComplaintRequest {
   private String content;
   private String reporter;
   private String country;
+
+  @JsonIgnore
+  private String pendingIp;
 }
@@ -0,0 +1,14 @@
+package com.bbockowski.apicomplaint.dto;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BatchComplaintResponse {
+  private int created;
+  private int incremented;
+  private int failed;
+  private List<BatchItemResult> items;
+}
@@ -0,0 +1,26 @@
+package com.bbockowski.apicomplaint.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+  /** Zero-based position of the item in the request body. */
+  private int index;
+  private Status status;
+  private ComplaintResponse complaint;
+  private String error;
+
+  public enum Status {
+    CREATED,
+    INCREMENTED,
+    FAILED,
+  }
+}
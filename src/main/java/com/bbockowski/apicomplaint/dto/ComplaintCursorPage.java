@@ -0,0 +1,21 @@
+package com.bbockowski.apicomplaint.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComplaintCursorPage {
+  private List<ComplaintSummary> items;
+
+  /** Opaque cursor of the following (older) page, or {@code null} on the last page. */
+  private String nextCursor;
+
+  /** Opaque cursor of the preceding (newer) page, or {@code null} on the first page. */
+  private String previousCursor;
+}
@@ -0,0 +1,34 @@
+package com.bbockowski.apicomplaint.dto;
+
+import java.time.Instant;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/** Optional criteria selecting complaints; unset fields match every complaint. */
+@Getter
+@Setter
+public class ComplaintFilter {
+  private String productId;
+  private String reporter;
+  private String country;
+
+  /** Inclusive lower bound of the creation time. */
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  private Instant createdFrom;
+
+  /** Exclusive upper bound of the creation time. */
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  private Instant createdTo;
+
+  /** Whether any criterion is set, so that some complaints may be left out. */
+  public boolean hasCriteria() {
+    return (
+      productId != null ||
+      reporter != null ||
+      country != null ||
+      createdFrom != null ||
+      createdTo != null
+    );
+  }
+}
@@ -0,0 +1,39 @@
+package com.bbockowski.apicomplaint.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComplaintListResponse {
+  private List<ComplaintSummary> content;
+  private int page;
+  private int size;
+  private boolean hasNext;
+
+  /** Total number of complaints, or {@code null} when no total was requested. */
+  private Long totalElements;
+
+  /**
+   * How {@link #totalElements} was obtained. May differ from the requested mode: a
+   * filtered listing asked for an estimate reports {@code NONE}.
+   */
+  private TotalMode totalMode;
+
+  public enum TotalMode {
+    /** No total; only whether a next page exists. Costs no extra query. */
+    NONE,
+    /**
+     * Planner statistics, refreshed periodically. Cheap, but may lag behind writes.
+     * Filtered listings get no total instead, as the statistics cover the whole table.
+     */
+    ESTIMATED,
+    /** A {@code COUNT(*)} of the listed complaints. Accurate, but reads every one. */
+    EXACT,
+  }
+}
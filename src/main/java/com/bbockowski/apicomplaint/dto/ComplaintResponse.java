@@ -1,12 +1,17 @@
 package com.bbockowski.apicomplaint.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.sql.Timestamp;
 import java.util.UUID;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Getter
 @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 public class ComplaintResponse {
   private UUID id;
   private String productId;
@@ -15,4 +20,8 @@ public class ComplaintResponse {
   private String reporter;
   private String country;
   private int reportCount = 1;
+
+  /** Row version the response was read at; sent as the ETag rather than in the body. */
+  @JsonIgnore
+  private Long version;
 }
@@ -0,0 +1,26 @@
+package com.bbockowski.apicomplaint.dto;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** A complaint matching a search, with how well it matches. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComplaintSearchHit {
+  private UUID id;
+  private String productId;
+  private String content;
+  private Timestamp createdAt;
+  private String reporter;
+  private String country;
+  private int reportCount;
+
+  /** Relevance to the query; higher ranks first, comparable within one search only. */
+  private float rank;
+}
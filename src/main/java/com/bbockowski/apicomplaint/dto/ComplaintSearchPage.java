@@ -0,0 +1,19 @@
+package com.bbockowski.apicomplaint.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComplaintSearchPage {
+  /** Matching complaints, most relevant first. */
+  private List<ComplaintSearchHit> items;
+
+  /** Opaque cursor of the following (less relevant) page, or {@code null} on the last. */
+  private String nextCursor;
+}
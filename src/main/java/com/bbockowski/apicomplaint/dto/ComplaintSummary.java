@@ -0,0 +1,22 @@
+package com.bbockowski.apicomplaint.dto;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** A complaint as shown in listings: everything but its content. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComplaintSummary {
+  private UUID id;
+  private String productId;
+  private Timestamp createdAt;
+  private String reporter;
+  private String country;
+  private int reportCount;
+}
@@ -0,0 +1,36 @@
+package com.bbockowski.apicomplaint.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStatsResponse {
+  private String productId;
+
+  /** Distinct reporters, which is also the number of complaints about the product. */
+  private long reporters;
+
+  /** Reports about the product, repeats included. */
+  private long reports;
+
+  /** The same counts per country, most reported first. */
+  private List<CountryStats> countries;
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class CountryStats {
+    /** The reporters' country, or {@code null} while it is still being resolved. */
+    private String country;
+
+    private long reporters;
+    private long reports;
+  }
+}
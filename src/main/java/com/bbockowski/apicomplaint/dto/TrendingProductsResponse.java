@@ -0,0 +1,33 @@
+package com.bbockowski.apicomplaint.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingProductsResponse {
+  /** The window the reports were counted over: {@code 5m}, {@code 1h} or {@code 24h}. */
+  private String window;
+
+  /** The most reported products on the answering node, most reported first. */
+  private List<TrendingProduct> products;
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class TrendingProduct {
+    private String productId;
+
+    /** Estimated reports in the window, never fewer than the actual ones. */
+    private long reports;
+
+    /** How many more than the actual reports {@code reports} may be. */
+    private long maxOvercount;
+  }
+}
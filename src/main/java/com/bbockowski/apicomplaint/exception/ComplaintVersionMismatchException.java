@@ -0,0 +1,8 @@
+package com.bbockowski.apicomplaint.exception;
+
+public class ComplaintVersionMismatchException extends RuntimeException {
+
+  public ComplaintVersionMismatchException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,8 @@
+package com.bbockowski.apicomplaint.exception;
+
+public class InvalidSearchQueryException extends RuntimeException {
+
+  public InvalidSearchQueryException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,8 @@
+package com.bbockowski.apicomplaint.exception;
+
+public class InvalidTrendingWindowException extends RuntimeException {
+
+  public InvalidTrendingWindowException(String message) {
+    super(message);
+  }
+}
@@ -4,8 +4,13 @@ import com.bbockowski.apicomplaint.exception.ComplaintAlreadyExistsException;
 import com.bbockowski.apicomplaint.exception.ComplaintCreateException;
 import com.bbockowski.apicomplaint.exception.ComplaintNotFoundException;
 import com.bbockowski.apicomplaint.exception.ComplaintUpdateException;
+import com.bbockowski.apicomplaint.exception.ComplaintVersionMismatchException;
+import com.bbockowski.apicomplaint.exception.InvalidCursorException;
+import com.bbockowski.apicomplaint.exception.InvalidSearchQueryException;
+import com.bbockowski.apicomplaint.exception.InvalidTrendingWindowException;
 import java.time.LocalDateTime;
 import java.util.List;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -62,6 +67,66 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseDto);
   }
 
+  @ExceptionHandler(InvalidCursorException.class)
+  public ResponseEntity<ExceptionResponseDto> handleInvalidCursorException(
+    InvalidCursorException e
+  ) {
+    ExceptionResponseDto responseDto = new ExceptionResponseDto(
+      List.of(e.getMessage()),
+      "BAD_REQUEST",
+      LocalDateTime.now()
+    );
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseDto);
+  }
+
+  @ExceptionHandler(InvalidSearchQueryException.class)
+  public ResponseEntity<ExceptionResponseDto> handleInvalidSearchQueryException(
+    InvalidSearchQueryException e
+  ) {
+    ExceptionResponseDto responseDto = new ExceptionResponseDto(
+      List.of(e.getMessage()),
+      "BAD_REQUEST",
+      LocalDateTime.now()
+    );
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseDto);
+  }
+
+  @ExceptionHandler(InvalidTrendingWindowException.class)
+  public ResponseEntity<ExceptionResponseDto> handleInvalidTrendingWindowException(
+    InvalidTrendingWindowException e
+  ) {
+    ExceptionResponseDto responseDto = new ExceptionResponseDto(
+      List.of(e.getMessage()),
+      "BAD_REQUEST",
+      LocalDateTime.now()
+    );
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseDto);
+  }
+
+  @ExceptionHandler(ComplaintVersionMismatchException.class)
+  public ResponseEntity<ExceptionResponseDto> handleComplaintVersionMismatchException(
+    ComplaintVersionMismatchException e
+  ) {
+    ExceptionResponseDto responseDto = new ExceptionResponseDto(
+      List.of(e.getMessage()),
+      "PRECONDITION_FAILED",
+      LocalDateTime.now()
+    );
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(responseDto);
+  }
+
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<ExceptionResponseDto> handleOptimisticLockingFailureException(
+    OptimisticLockingFailureException e
+  ) {
+    ExceptionResponseDto responseDto = new ExceptionResponseDto(
+      List.of("The complaint was changed concurrently, please retry"),
+      "CONFLICT",
+      LocalDateTime.now()
+    );
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(responseDto);
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<ExceptionResponseDto> handleGeneralException(Exception e) {
     ExceptionResponseDto responseDto = new ExceptionResponseDto(
@@ -0,0 +1,224 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+import com.bbockowski.apicomplaint.config.GeoLocationProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+
+/**
+ * Size-bounded, TTL-expiring cache of geolocation answers. Failed lookups are cached as
+ * negative entries with a shorter TTL, and concurrent misses for the same key share a
+ * single in-flight lookup, so a burst of requests from one network costs one resolution.
+ */
+@Component
+public class GeoLocationCache implements MeterBinder {
+  private final GeoLocationProperties.Cache properties;
+  private final AsyncCache<String, Entry> cache;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public GeoLocationCache(GeoLocationProperties geoLocationProperties) {
+    this.properties = geoLocationProperties.getCache();
+    this.cache =
+      Caffeine
+        .newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfter(new EntryExpiry(properties.getTtl(), properties.getNegativeTtl()))
+        .<String, Entry>removalListener(
+          (key, value, cause) -> {
+            if (cause.wasEvicted()) {
+              evictions.increment();
+            }
+          }
+        )
+        .buildAsync();
+  }
+
+  /**
+   * A cached answer.
+   *
+   * @param country  the resolved country
+   * @param negative whether the answer records a failed lookup
+   */
+  public record Entry(String country, boolean negative) {}
+
+  /**
+   * Returns the cached answer for the address, resolving it with {@code loader} on a miss.
+   * Only one caller per key runs the loader; the others wait for its result.
+   *
+   * @param ip     the client address
+   * @param loader resolves an address that is not cached
+   * @return the cached or freshly loaded answer
+   */
+  public Entry get(String ip, Function<String, Entry> loader) {
+    if (!properties.isEnabled() || ip == null) {
+      return loader.apply(ip);
+    }
+    String key = keyFor(ip);
+    CompletableFuture<Entry> pending = new CompletableFuture<>();
+    CompletableFuture<Entry> existing = cache.asMap().putIfAbsent(key, pending);
+    if (existing != null) {
+      if (existing.isDone()) {
+        hits.increment();
+      } else {
+        coalesced.increment();
+      }
+      try {
+        return existing.join();
+      } catch (CompletionException e) {
+        // The shared lookup failed without producing an entry; resolve on our own.
+        return loader.apply(ip);
+      }
+    }
+    misses.increment();
+    try {
+      Entry entry = loader.apply(ip);
+      pending.complete(entry);
+      return entry;
+    } catch (RuntimeException e) {
+      cache.asMap().remove(key, pending);
+      pending.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Non-blocking variant of {@link #get} for callers that must not wait: a miss starts
+   * {@code loader}, and callers arriving meanwhile are handed the same future.
+   *
+   * @param ip     the client address
+   * @param loader starts resolving an address that is not cached
+   * @return the cached answer, or a future completed by the shared lookup
+   */
+  public CompletableFuture<Entry> getAsync(
+    String ip,
+    Function<String, CompletableFuture<Entry>> loader
+  ) {
+    if (!properties.isEnabled() || ip == null) {
+      return loader.apply(ip);
+    }
+    String key = keyFor(ip);
+    CompletableFuture<Entry> pending = new CompletableFuture<>();
+    CompletableFuture<Entry> existing = cache.asMap().putIfAbsent(key, pending);
+    if (existing != null) {
+      if (existing.isDone()) {
+        hits.increment();
+      } else {
+        coalesced.increment();
+      }
+      // The shared lookup failed without producing an entry; resolve on our own.
+      return existing.exceptionallyCompose(e -> loader.apply(ip));
+    }
+    misses.increment();
+    loader
+      .apply(ip)
+      .whenComplete(
+        (entry, failure) -> {
+          if (failure == null) {
+            pending.complete(entry);
+          } else {
+            cache.asMap().remove(key, pending);
+            pending.completeExceptionally(failure);
+          }
+        }
+      );
+    return pending;
+  }
+
+  public long estimatedSize() {
+    return cache.synchronous().estimatedSize();
+  }
+
+  String keyFor(String ip) {
+    if (properties.getKeyMode() == KeyMode.EXACT) {
+      return ip;
+    }
+    byte[] address = IpAddresses.toBytes(ip);
+    if (address == null) {
+      return ip;
+    }
+    if (address.length == 4) {
+      return (
+        (address[0] & 0xff) +
+        "." +
+        (address[1] & 0xff) +
+        "." +
+        (address[2] & 0xff) +
+        ".0/24"
+      );
+    }
+    return HexFormat.of().formatHex(address, 0, 6) + "::/48";
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter
+      .builder("geolocation.cache.requests", hits, LongAdder::sum)
+      .tag("result", "hit")
+      .register(registry);
+    FunctionCounter
+      .builder("geolocation.cache.requests", misses, LongAdder::sum)
+      .tag("result", "miss")
+      .register(registry);
+    FunctionCounter
+      .builder("geolocation.cache.requests", coalesced, LongAdder::sum)
+      .tag("result", "coalesced")
+      .description("Misses that waited for another caller's in-flight lookup")
+      .register(registry);
+    FunctionCounter
+      .builder("geolocation.cache.evictions", evictions, LongAdder::sum)
+      .register(registry);
+    Gauge
+      .builder("geolocation.cache.size", this, GeoLocationCache::estimatedSize)
+      .register(registry);
+  }
+
+  public enum KeyMode {
+    /** One entry per address. */
+    EXACT,
+    /** One entry per IPv4 /24 or IPv6 /48 network. */
+    PREFIX,
+  }
+
+  private record EntryExpiry(Duration ttl, Duration negativeTtl)
+    implements Expiry<String, Entry> {
+    @Override
+    public long expireAfterCreate(String key, Entry value, long currentTime) {
+      return (value.negative() ? negativeTtl : ttl).toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(
+      String key,
+      Entry value,
+      long currentTime,
+      long currentDuration
+    ) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+      String key,
+      Entry value,
+      long currentTime,
+      long currentDuration
+    ) {
+      return currentDuration;
+    }
+  }
+}
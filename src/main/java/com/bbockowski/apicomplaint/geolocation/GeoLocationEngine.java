@@ -0,0 +1,19 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+import java.util.Optional;
+
+/**
+ * A source of IP to country answers. {@code IpLocationService} consults the available
+ * engines in {@link org.springframework.core.annotation.Order order} and uses the first
+ * answer it gets.
+ */
+public interface GeoLocationEngine {
+  /**
+   * Resolves the country of an IP address.
+   *
+   * @param ip the textual IPv4 or IPv6 address
+   * @return the country, or empty if this engine has no answer for the address
+   * @throws RuntimeException if the engine failed to produce an answer
+   */
+  Optional<String> findCountry(String ip);
+}
@@ -0,0 +1,195 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+/**
+ * Parsing of textual IP addresses. Unlike {@link java.net.InetAddress#getByName}, these
+ * methods only ever read the input as a literal, so a malformed address from a client
+ * header can never start a DNS lookup.
+ */
+public final class IpAddresses {
+  // "ffff:ffff:ffff:ffff:ffff:ffff:255.255.255.255", the longest IPv6 literal.
+  private static final int MAX_IPV6_LENGTH = 45;
+
+  private IpAddresses() {}
+
+  /**
+   * Parses a dotted-quad IPv4 address.
+   *
+   * @param ip the textual address
+   * @return the address as an unsigned 32-bit value held in a long, or -1 if invalid
+   */
+  public static long parseIpv4(String ip) {
+    return parseIpv4(ip, 0, ip.length());
+  }
+
+  private static long parseIpv4(String ip, int from, int to) {
+    int length = to - from;
+    if (length < 7 || length > 15) {
+      return -1;
+    }
+    long address = 0;
+    int octet = -1;
+    int dots = 0;
+    for (int i = from; i < to; i++) {
+      char c = ip.charAt(i);
+      if (c == '.') {
+        if (octet < 0 || ++dots > 3) {
+          return -1;
+        }
+        address = (address << 8) | octet;
+        octet = -1;
+      } else if (c >= '0' && c <= '9') {
+        octet = octet < 0 ? c - '0' : octet * 10 + (c - '0');
+        if (octet > 255) {
+          return -1;
+        }
+      } else {
+        return -1;
+      }
+    }
+    if (octet < 0 || dots != 3) {
+      return -1;
+    }
+    return (address << 8) | octet;
+  }
+
+  /**
+   * Parses an IPv4 or IPv6 literal into its raw bytes.
+   *
+   * @param ip the textual address
+   * @return 4 bytes for IPv4, 16 bytes for IPv6, or {@code null} if the input is not an
+   *     IP literal
+   */
+  public static byte[] toBytes(String ip) {
+    if (ip == null || ip.isEmpty()) {
+      return null;
+    }
+    String candidate = ip.trim();
+    if (candidate.indexOf(':') < 0) {
+      long ipv4 = parseIpv4(candidate);
+      if (ipv4 < 0) {
+        return null;
+      }
+      return new byte[] {
+        (byte) (ipv4 >>> 24),
+        (byte) (ipv4 >>> 16),
+        (byte) (ipv4 >>> 8),
+        (byte) ipv4,
+      };
+    }
+    if (candidate.startsWith("[") && candidate.endsWith("]")) {
+      candidate = candidate.substring(1, candidate.length() - 1);
+    }
+    byte[] address = parseIpv6(candidate);
+    if (address == null || !isIpv4Mapped(address)) {
+      return address;
+    }
+    // Like InetAddress, an IPv4-mapped address yields the IPv4 address it maps.
+    return new byte[] { address[12], address[13], address[14], address[15] };
+  }
+
+  /**
+   * Parses an IPv6 literal of up to eight groups of one to four hex digits, with at most
+   * one "::" standing for the omitted zero groups and an optional dotted quad in place of
+   * the last two groups. Zone ids are not accepted.
+   */
+  private static byte[] parseIpv6(String ip) {
+    int length = ip.length();
+    if (length < 2 || length > MAX_IPV6_LENGTH) {
+      return null;
+    }
+    byte[] address = new byte[16];
+    int gap = ip.indexOf("::");
+    if (gap < 0) {
+      return parseGroups(ip, 0, length, address, true) == 16 ? address : null;
+    }
+    if (ip.indexOf("::", gap + 1) >= 0) {
+      return null;
+    }
+    int head = gap == 0 ? 0 : parseGroups(ip, 0, gap, address, false);
+    byte[] tail = new byte[16];
+    int tailLength = gap + 2 == length ? 0 : parseGroups(ip, gap + 2, length, tail, true);
+    // The gap stands for at least one zero group.
+    if (head < 0 || tailLength < 0 || head + tailLength > 14) {
+      return null;
+    }
+    System.arraycopy(tail, 0, address, 16 - tailLength, tailLength);
+    return address;
+  }
+
+  /**
+   * Parses colon-separated groups of hex digits into {@code out}, optionally ending in a
+   * dotted quad.
+   *
+   * @return the number of bytes written, or -1 if the text is not such a sequence
+   */
+  private static int parseGroups(
+    String ip,
+    int from,
+    int to,
+    byte[] out,
+    boolean ipv4Allowed
+  ) {
+    int written = 0;
+    int start = from;
+    while (true) {
+      int end = ip.indexOf(':', start);
+      if (end < 0 || end > to) {
+        end = to;
+      }
+      int dot = ip.indexOf('.', start);
+      if (dot >= 0 && dot < end) {
+        if (end != to || !ipv4Allowed || written > 12) {
+          return -1;
+        }
+        long ipv4 = parseIpv4(ip, start, to);
+        if (ipv4 < 0) {
+          return -1;
+        }
+        out[written++] = (byte) (ipv4 >>> 24);
+        out[written++] = (byte) (ipv4 >>> 16);
+        out[written++] = (byte) (ipv4 >>> 8);
+        out[written++] = (byte) ipv4;
+        return written;
+      }
+      if (end - start < 1 || end - start > 4 || written == 16) {
+        return -1;
+      }
+      int group = 0;
+      for (int i = start; i < end; i++) {
+        int digit = hexDigit(ip.charAt(i));
+        if (digit < 0) {
+          return -1;
+        }
+        group = (group << 4) | digit;
+      }
+      out[written++] = (byte) (group >>> 8);
+      out[written++] = (byte) group;
+      if (end == to) {
+        return written;
+      }
+      start = end + 1;
+    }
+  }
+
+  private static int hexDigit(char c) {
+    if (c >= '0' && c <= '9') {
+      return c - '0';
+    }
+    if (c >= 'a' && c <= 'f') {
+      return c - 'a' + 10;
+    }
+    if (c >= 'A' && c <= 'F') {
+      return c - 'A' + 10;
+    }
+    return -1;
+  }
+
+  private static boolean isIpv4Mapped(byte[] address) {
+    for (int i = 0; i < 10; i++) {
+      if (address[i] != 0) {
+        return false;
+      }
+    }
+    return address[10] == (byte) 0xff && address[11] == (byte) 0xff;
+  }
+}
@@ -0,0 +1,418 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable IP range to country table backed by sorted primitive arrays.
+ * Lookups are a binary search over range starts and do not allocate for IPv4.
+ *
+ * <p>Unsigned address values are stored with their sign bit flipped so that the
+ * natural signed ordering of {@code int} and {@code long} matches address order.
+ */
+public final class IpRangeTable {
+  static final int MAGIC = 0x49505254; // "IPRT"
+  static final int FORMAT_VERSION = 1;
+
+  private static final IpRangeTable EMPTY = new Builder().build();
+
+  private final String[] countries;
+
+  private final int[] v4Starts;
+  private final int[] v4Ends;
+  private final short[] v4Countries;
+
+  private final long[] v6StartsHi;
+  private final long[] v6StartsLo;
+  private final long[] v6EndsHi;
+  private final long[] v6EndsLo;
+  private final short[] v6Countries;
+
+  private IpRangeTable(
+    String[] countries,
+    int[] v4Starts,
+    int[] v4Ends,
+    short[] v4Countries,
+    long[] v6StartsHi,
+    long[] v6StartsLo,
+    long[] v6EndsHi,
+    long[] v6EndsLo,
+    short[] v6Countries
+  ) {
+    this.countries = countries;
+    this.v4Starts = v4Starts;
+    this.v4Ends = v4Ends;
+    this.v4Countries = v4Countries;
+    this.v6StartsHi = v6StartsHi;
+    this.v6StartsLo = v6StartsLo;
+    this.v6EndsHi = v6EndsHi;
+    this.v6EndsLo = v6EndsLo;
+    this.v6Countries = v6Countries;
+  }
+
+  public static IpRangeTable empty() {
+    return EMPTY;
+  }
+
+  public int ipv4RangeCount() {
+    return v4Starts.length;
+  }
+
+  public int ipv6RangeCount() {
+    return v6StartsHi.length;
+  }
+
+  /**
+   * Finds the country for a textual IPv4 or IPv6 address.
+   *
+   * @param ip the address
+   * @return the country, or {@code null} if the address is invalid or not covered
+   */
+  public String lookup(String ip) {
+    if (ip == null) {
+      return null;
+    }
+    long ipv4 = IpAddresses.parseIpv4(ip);
+    if (ipv4 >= 0) {
+      return lookupIpv4((int) ipv4);
+    }
+    return lookup(IpAddresses.toBytes(ip));
+  }
+
+  /**
+   * Finds the country for a raw 4 or 16 byte address.
+   *
+   * @param address the address bytes
+   * @return the country, or {@code null} if the address is not covered
+   */
+  public String lookup(byte[] address) {
+    if (address == null) {
+      return null;
+    }
+    if (address.length == 4) {
+      return lookupIpv4(toInt(address, 0));
+    }
+    if (address.length != 16) {
+      return null;
+    }
+    if (isIpv4Mapped(address)) {
+      return lookupIpv4(toInt(address, 12));
+    }
+    return lookupIpv6(toLong(address, 0), toLong(address, 8));
+  }
+
+  private String lookupIpv4(int address) {
+    int key = address ^ Integer.MIN_VALUE;
+    int low = 0;
+    int high = v4Starts.length - 1;
+    int candidate = -1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (v4Starts[mid] <= key) {
+        candidate = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    if (candidate < 0 || key > v4Ends[candidate]) {
+      return null;
+    }
+    return countries[v4Countries[candidate]];
+  }
+
+  private String lookupIpv6(long hi, long lo) {
+    long keyHi = hi ^ Long.MIN_VALUE;
+    long keyLo = lo ^ Long.MIN_VALUE;
+    int low = 0;
+    int high = v6StartsHi.length - 1;
+    int candidate = -1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (compare(v6StartsHi[mid], v6StartsLo[mid], keyHi, keyLo) <= 0) {
+        candidate = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    if (
+      candidate < 0 ||
+      compare(keyHi, keyLo, v6EndsHi[candidate], v6EndsLo[candidate]) > 0
+    ) {
+      return null;
+    }
+    return countries[v6Countries[candidate]];
+  }
+
+  /**
+   * Writes the table in the compact binary format understood by {@link #readFrom}.
+   *
+   * @param outputStream the destination, left open
+   * @throws IOException if writing fails
+   */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    DataOutputStream out = new DataOutputStream(outputStream);
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    out.writeInt(countries.length);
+    for (String country : countries) {
+      out.writeUTF(country);
+    }
+    out.writeInt(v4Starts.length);
+    for (int i = 0; i < v4Starts.length; i++) {
+      out.writeInt(v4Starts[i]);
+      out.writeInt(v4Ends[i]);
+      out.writeShort(v4Countries[i]);
+    }
+    out.writeInt(v6StartsHi.length);
+    for (int i = 0; i < v6StartsHi.length; i++) {
+      out.writeLong(v6StartsHi[i]);
+      out.writeLong(v6StartsLo[i]);
+      out.writeLong(v6EndsHi[i]);
+      out.writeLong(v6EndsLo[i]);
+      out.writeShort(v6Countries[i]);
+    }
+    out.flush();
+  }
+
+  /**
+   * Reads a table previously written by {@link #writeTo}. Ranges must be sorted and
+   * must not overlap, as the builder guarantees, or lookups could not find them.
+   *
+   * @param inputStream the source, positioned after nothing has been consumed
+   * @return the table
+   * @throws IOException if the stream is not a valid range table
+   */
+  public static IpRangeTable readFrom(InputStream inputStream) throws IOException {
+    DataInputStream in = new DataInputStream(inputStream);
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not an IP range table: bad magic number");
+    }
+    int version = in.readInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unsupported IP range table version: " + version);
+    }
+    String[] countries = new String[in.readInt()];
+    for (int i = 0; i < countries.length; i++) {
+      countries[i] = in.readUTF();
+    }
+    int v4Count = in.readInt();
+    int[] v4Starts = new int[v4Count];
+    int[] v4Ends = new int[v4Count];
+    short[] v4Countries = new short[v4Count];
+    for (int i = 0; i < v4Count; i++) {
+      v4Starts[i] = in.readInt();
+      v4Ends[i] = in.readInt();
+      v4Countries[i] = checkCountryIndex(in.readShort(), countries.length);
+      if (v4Starts[i] > v4Ends[i] || (i > 0 && v4Starts[i] <= v4Ends[i - 1])) {
+        throw new IOException("Corrupt IP range table: unordered IPv4 range " + i);
+      }
+    }
+    int v6Count = in.readInt();
+    long[] v6StartsHi = new long[v6Count];
+    long[] v6StartsLo = new long[v6Count];
+    long[] v6EndsHi = new long[v6Count];
+    long[] v6EndsLo = new long[v6Count];
+    short[] v6Countries = new short[v6Count];
+    for (int i = 0; i < v6Count; i++) {
+      v6StartsHi[i] = in.readLong();
+      v6StartsLo[i] = in.readLong();
+      v6EndsHi[i] = in.readLong();
+      v6EndsLo[i] = in.readLong();
+      v6Countries[i] = checkCountryIndex(in.readShort(), countries.length);
+      if (
+        compare(v6StartsHi[i], v6StartsLo[i], v6EndsHi[i], v6EndsLo[i]) > 0 ||
+        (
+          i > 0 &&
+          compare(v6StartsHi[i], v6StartsLo[i], v6EndsHi[i - 1], v6EndsLo[i - 1]) <= 0
+        )
+      ) {
+        throw new IOException("Corrupt IP range table: unordered IPv6 range " + i);
+      }
+    }
+    return new IpRangeTable(
+      countries,
+      v4Starts,
+      v4Ends,
+      v4Countries,
+      v6StartsHi,
+      v6StartsLo,
+      v6EndsHi,
+      v6EndsLo,
+      v6Countries
+    );
+  }
+
+  private static short checkCountryIndex(short index, int countryCount) throws IOException {
+    if (index < 0 || index >= countryCount) {
+      throw new IOException("Corrupt IP range table: country index " + index);
+    }
+    return index;
+  }
+
+  private static boolean isIpv4Mapped(byte[] address) {
+    for (int i = 0; i < 10; i++) {
+      if (address[i] != 0) {
+        return false;
+      }
+    }
+    return address[10] == (byte) 0xff && address[11] == (byte) 0xff;
+  }
+
+  private static int compare(long aHi, long aLo, long bHi, long bLo) {
+    int result = Long.compare(aHi, bHi);
+    return result != 0 ? result : Long.compare(aLo, bLo);
+  }
+
+  private static int toInt(byte[] bytes, int offset) {
+    return (
+      ((bytes[offset] & 0xff) << 24) |
+      ((bytes[offset + 1] & 0xff) << 16) |
+      ((bytes[offset + 2] & 0xff) << 8) |
+      (bytes[offset + 3] & 0xff)
+    );
+  }
+
+  private static long toLong(byte[] bytes, int offset) {
+    long value = 0;
+    for (int i = 0; i < 8; i++) {
+      value = (value << 8) | (bytes[offset + i] & 0xff);
+    }
+    return value;
+  }
+
+  /**
+   * Collects ranges in any order and produces a sorted, validated table.
+   */
+  public static final class Builder {
+    private final Map<String, Short> countryIndexes = new HashMap<>();
+    private final List<String> countries = new ArrayList<>();
+    private final List<long[]> v4Ranges = new ArrayList<>();
+    private final List<long[]> v6Ranges = new ArrayList<>();
+
+    /**
+     * Adds an inclusive address range. Both ends must be of the same family.
+     *
+     * @param start   first address of the range
+     * @param end     last address of the range
+     * @param country country name for every address in the range
+     * @return this builder
+     */
+    public Builder add(byte[] start, byte[] end, String country) {
+      if (start == null || end == null || start.length != end.length) {
+        throw new IllegalArgumentException("Range ends must be addresses of one family");
+      }
+      short countryIndex = countryIndex(country);
+      if (start.length == 4) {
+        long first = toInt(start, 0) ^ Integer.MIN_VALUE;
+        long last = toInt(end, 0) ^ Integer.MIN_VALUE;
+        if (first > last) {
+          throw new IllegalArgumentException("Range start is after its end");
+        }
+        v4Ranges.add(new long[] { first, last, countryIndex });
+      } else {
+        long[] range = {
+          toLong(start, 0) ^ Long.MIN_VALUE,
+          toLong(start, 8) ^ Long.MIN_VALUE,
+          toLong(end, 0) ^ Long.MIN_VALUE,
+          toLong(end, 8) ^ Long.MIN_VALUE,
+          countryIndex,
+        };
+        if (compare(range[0], range[1], range[2], range[3]) > 0) {
+          throw new IllegalArgumentException("Range start is after its end");
+        }
+        v6Ranges.add(range);
+      }
+      return this;
+    }
+
+    public IpRangeTable build() {
+      v4Ranges.sort(Comparator.comparingLong(range -> range[0]));
+      v6Ranges.sort((a, b) -> compare(a[0], a[1], b[0], b[1]));
+
+      int v4Count = v4Ranges.size();
+      int[] v4Starts = new int[v4Count];
+      int[] v4Ends = new int[v4Count];
+      short[] v4Countries = new short[v4Count];
+      for (int i = 0; i < v4Count; i++) {
+        long[] range = v4Ranges.get(i);
+        if (i > 0 && range[0] <= v4Ends[i - 1]) {
+          throw new IllegalArgumentException("Overlapping IPv4 ranges at index " + i);
+        }
+        v4Starts[i] = (int) range[0];
+        v4Ends[i] = (int) range[1];
+        v4Countries[i] = (short) range[2];
+      }
+
+      int v6Count = v6Ranges.size();
+      long[] v6StartsHi = new long[v6Count];
+      long[] v6StartsLo = new long[v6Count];
+      long[] v6EndsHi = new long[v6Count];
+      long[] v6EndsLo = new long[v6Count];
+      short[] v6Countries = new short[v6Count];
+      for (int i = 0; i < v6Count; i++) {
+        long[] range = v6Ranges.get(i);
+        if (
+          i > 0 && compare(range[0], range[1], v6EndsHi[i - 1], v6EndsLo[i - 1]) <= 0
+        ) {
+          throw new IllegalArgumentException("Overlapping IPv6 ranges at index " + i);
+        }
+        v6StartsHi[i] = range[0];
+        v6StartsLo[i] = range[1];
+        v6EndsHi[i] = range[2];
+        v6EndsLo[i] = range[3];
+        v6Countries[i] = (short) range[4];
+      }
+
+      return new IpRangeTable(
+        countries.toArray(String[]::new),
+        v4Starts,
+        v4Ends,
+        v4Countries,
+        v6StartsHi,
+        v6StartsLo,
+        v6EndsHi,
+        v6EndsLo,
+        v6Countries
+      );
+    }
+
+    private short countryIndex(String country) {
+      if (country == null || country.isBlank()) {
+        throw new IllegalArgumentException("Country must not be blank");
+      }
+      Short index = countryIndexes.get(country);
+      if (index == null) {
+        if (countries.size() == Short.MAX_VALUE) {
+          throw new IllegalArgumentException("Too many distinct countries");
+        }
+        index = (short) countries.size();
+        countryIndexes.put(country, index);
+        countries.add(country);
+      }
+      return index;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return (
+      "IpRangeTable[ipv4=" +
+      v4Starts.length +
+      ", ipv6=" +
+      v6StartsHi.length +
+      ", countries=" +
+      countries.length +
+      "]"
+    );
+  }
+}
@@ -0,0 +1,111 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Loads {@link IpRangeTable} datasets from disk. Two formats are understood:
+ *
+ * <ul>
+ *   <li>CSV lines of {@code start_ip,end_ip,country}; blank lines, {@code #} comments and a
+ *       header row are skipped, and IPv4 and IPv6 ranges may be mixed.
+ *   <li>The compact binary format written by {@link IpRangeTable#writeTo}, detected by its
+ *       magic number. It loads several times faster than CSV for large datasets.
+ * </ul>
+ */
+public final class IpRangeTableLoader {
+
+  private IpRangeTableLoader() {}
+
+  public static IpRangeTable load(Path path) throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+      in.mark(4);
+      byte[] header = in.readNBytes(4);
+      in.reset();
+      if (header.length == 4 && readInt(header) == IpRangeTable.MAGIC) {
+        return IpRangeTable.readFrom(in);
+      }
+      return readCsv(in, path.toString());
+    }
+  }
+
+  /**
+   * Converts a dataset in any supported format into the binary format.
+   *
+   * @param source      the dataset to read
+   * @param destination the binary file to write
+   * @throws IOException if reading or writing fails
+   */
+  public static void convertToBinary(Path source, Path destination) throws IOException {
+    IpRangeTable table = load(source);
+    try (OutputStream out = Files.newOutputStream(destination)) {
+      table.writeTo(out);
+    }
+  }
+
+  static IpRangeTable readCsv(InputStream inputStream, String sourceName)
+    throws IOException {
+    IpRangeTable.Builder builder = new IpRangeTable.Builder();
+    BufferedReader reader = new BufferedReader(
+      new InputStreamReader(inputStream, StandardCharsets.UTF_8)
+    );
+    String line;
+    int lineNumber = 0;
+    boolean firstRecord = true;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      String trimmed = line.trim();
+      if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+        continue;
+      }
+      String[] fields = trimmed.split(",", 3);
+      if (fields.length != 3) {
+        throw new IOException(sourceName + ":" + lineNumber + ": expected 3 fields");
+      }
+      byte[] start = IpAddresses.toBytes(unquote(fields[0]));
+      byte[] end = IpAddresses.toBytes(unquote(fields[1]));
+      if (start == null || end == null) {
+        if (firstRecord) {
+          firstRecord = false;
+          continue; // header row
+        }
+        throw new IOException(sourceName + ":" + lineNumber + ": invalid IP address");
+      }
+      firstRecord = false;
+      try {
+        builder.add(start, end, unquote(fields[2]));
+      } catch (IllegalArgumentException e) {
+        throw new IOException(sourceName + ":" + lineNumber + ": " + e.getMessage(), e);
+      }
+    }
+    try {
+      return builder.build();
+    } catch (IllegalArgumentException e) {
+      throw new IOException(sourceName + ": " + e.getMessage(), e);
+    }
+  }
+
+  private static String unquote(String field) {
+    String trimmed = field.trim();
+    if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+      return trimmed.substring(1, trimmed.length() - 1);
+    }
+    return trimmed;
+  }
+
+  private static int readInt(byte[] bytes) {
+    return (
+      ((bytes[0] & 0xff) << 24) |
+      ((bytes[1] & 0xff) << 16) |
+      ((bytes[2] & 0xff) << 8) |
+      (bytes[3] & 0xff)
+    );
+  }
+}
@@ -0,0 +1,88 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+import com.bbockowski.apicomplaint.config.GeoLocationProperties;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Answers lookups from an {@link IpRangeTable} held in memory. The dataset file is polled
+ * for changes; a new table is fully built off the request path and then published with a
+ * single volatile write, so lookups never wait for a reload.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "geolocation.offline.enabled", havingValue = "true")
+public class OfflineGeoLocationEngine implements GeoLocationEngine {
+  private final GeoLocationProperties.Offline properties;
+  private final TaskScheduler taskScheduler;
+
+  private volatile IpRangeTable table = IpRangeTable.empty();
+  private FileTime loadedModifiedTime;
+
+  public OfflineGeoLocationEngine(
+    GeoLocationProperties geoLocationProperties,
+    TaskScheduler taskScheduler
+  ) {
+    this.properties = geoLocationProperties.getOffline();
+    this.taskScheduler = taskScheduler;
+  }
+
+  @PostConstruct
+  void start() {
+    if (properties.getDataset() == null || properties.getDataset().isBlank()) {
+      log.warn("Offline geolocation is enabled but no dataset is configured");
+      return;
+    }
+    reloadIfChanged();
+    taskScheduler.scheduleWithFixedDelay(
+      this::reloadIfChanged,
+      Instant.now().plus(properties.getReloadInterval()),
+      properties.getReloadInterval()
+    );
+  }
+
+  @Override
+  public Optional<String> findCountry(String ip) {
+    return Optional.ofNullable(table.lookup(ip));
+  }
+
+  public IpRangeTable getTable() {
+    return table;
+  }
+
+  /** Reloads the dataset if its modification time changed since the last load. */
+  public synchronized void reloadIfChanged() {
+    Path dataset = Path.of(properties.getDataset());
+    try {
+      FileTime modifiedTime = Files.getLastModifiedTime(dataset);
+      if (modifiedTime.equals(loadedModifiedTime)) {
+        return;
+      }
+      long started = System.nanoTime();
+      IpRangeTable loaded = IpRangeTableLoader.load(dataset);
+      table = loaded;
+      loadedModifiedTime = modifiedTime;
+      log.info(
+        "Loaded {} from {} in {} ms",
+        loaded,
+        dataset,
+        (System.nanoTime() - started) / 1_000_000
+      );
+    } catch (IOException | RuntimeException e) {
+      // Keep serving the previous table; a broken file must not take lookups down.
+      log.error("Failed to load geolocation dataset {}", dataset, e);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+import com.bbockowski.apicomplaint.config.GeoLocationProperties;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import java.net.URI;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Non-blocking counterpart of {@link RemoteGeoLocationEngine} for the reactive profile.
+ * Lookups go through a bounded Reactor Netty connection pool sized and timed by the same
+ * {@code geolocation.remote} settings, and pass the same {@code ipLocationService}
+ * circuit breaker, retry, bulkhead and time limiter, applied to the returned
+ * {@link Mono} rather than to a blocked thread.
+ */
+@Component
+@Profile("reactive")
+@ConditionalOnProperty(
+  name = "geolocation.remote.enabled",
+  havingValue = "true",
+  matchIfMissing = true
+)
+public class ReactiveGeoLocationClient {
+  private final ConnectionProvider connectionProvider;
+  private final WebClient webClient;
+  private final String baseUrl;
+
+  public ReactiveGeoLocationClient(
+    WebClient.Builder webClientBuilder,
+    GeoLocationProperties geoLocationProperties
+  ) {
+    GeoLocationProperties.Remote properties = geoLocationProperties.getRemote();
+    this.connectionProvider =
+      ConnectionProvider
+        .builder("geolocation")
+        .maxConnections(properties.getMaxConnections())
+        .pendingAcquireTimeout(properties.getConnectionRequestTimeout())
+        .maxIdleTime(properties.getIdleTimeout())
+        .build();
+    HttpClient httpClient = HttpClient
+      .create(connectionProvider)
+      .option(
+        ChannelOption.CONNECT_TIMEOUT_MILLIS,
+        (int) properties.getConnectTimeout().toMillis()
+      )
+      .responseTimeout(properties.getReadTimeout());
+    this.webClient =
+      webClientBuilder
+        .clientConnector(new ReactorClientHttpConnector(httpClient))
+        .build();
+    this.baseUrl = properties.getUrl();
+  }
+
+  @PreDestroy
+  void stop() {
+    connectionProvider.dispose();
+  }
+
+  /**
+   * Looks up the country of a client address.
+   *
+   * @param ip the client address
+   * @return the country, or empty if the service does not know the address
+   */
+  @CircuitBreaker(name = "ipLocationService")
+  @Retry(name = "ipLocationServiceRetry")
+  @Bulkhead(name = "ipLocationService")
+  @TimeLimiter(name = "ipLocationService")
+  public Mono<String> findCountry(String ip) {
+    // A path segment of its own, so the address can never reach the path or query.
+    URI requestUrl = UriComponentsBuilder
+      .fromUriString(baseUrl)
+      .pathSegment(ip)
+      .queryParam("fields", "country")
+      .encode()
+      .build()
+      .toUri();
+
+    return webClient
+      .get()
+      .uri(requestUrl)
+      .retrieve()
+      .bodyToMono(RemoteGeoLocationEngine.IpLocationResponse.class)
+      .mapNotNull(RemoteGeoLocationEngine.IpLocationResponse::getCountry);
+  }
+}
@@ -0,0 +1,113 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+import com.bbockowski.apicomplaint.config.GeoLocationProperties;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Resolves countries through the ip-api.com HTTP API. Failures propagate to the caller
+ * once the retry and circuit breaker policies give up.
+ *
+ * <p>Each attempt passes a bulkhead capping concurrent lookups and runs under the
+ * {@code ipLocationService} time limiter, which bounds the whole call, from waiting for a
+ * pooled connection to reading the last byte. The call itself runs on a virtual thread
+ * so the caller can stop waiting for it.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(
+  name = "geolocation.remote.enabled",
+  havingValue = "true",
+  matchIfMissing = true
+)
+public class RemoteGeoLocationEngine implements GeoLocationEngine {
+  private final RestTemplate restTemplate;
+  private final String baseUrl;
+  private final TimeLimiter timeLimiter;
+  private final ExecutorService lookups = Executors.newThreadPerTaskExecutor(
+    Thread.ofVirtual().name("geolocation-lookup-", 0).factory()
+  );
+
+  public RemoteGeoLocationEngine(
+    @Qualifier("geoLocationRestTemplate") RestTemplate restTemplate,
+    GeoLocationProperties geoLocationProperties,
+    TimeLimiterRegistry timeLimiterRegistry
+  ) {
+    this.restTemplate = restTemplate;
+    this.baseUrl = geoLocationProperties.getRemote().getUrl();
+    this.timeLimiter = timeLimiterRegistry.timeLimiter("ipLocationService");
+  }
+
+  @PreDestroy
+  void stop() {
+    lookups.shutdownNow();
+  }
+
+  @Override
+  @CircuitBreaker(name = "ipLocationService")
+  @Retry(name = "ipLocationServiceRetry")
+  @Bulkhead(name = "ipLocationService")
+  public Optional<String> findCountry(String ip) {
+    // A path segment of its own, so the address can never reach the path or query.
+    URI requestUrl = UriComponentsBuilder
+      .fromUriString(baseUrl)
+      .pathSegment(ip)
+      .queryParam("fields", "country")
+      .encode()
+      .build()
+      .toUri();
+
+    IpLocationResponse locationResponse = withinTimeLimit(
+      () -> restTemplate.getForObject(requestUrl, IpLocationResponse.class)
+    );
+
+    if (locationResponse == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(locationResponse.getCountry());
+  }
+
+  private <T> T withinTimeLimit(Callable<T> call) {
+    try {
+      return timeLimiter.executeFutureSupplier(() -> lookups.submit(call));
+    } catch (TimeoutException e) {
+      throw new ResourceAccessException(
+        "Geolocation lookup timed out after " +
+        timeLimiter.getTimeLimiterConfig().getTimeoutDuration()
+      );
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ResourceAccessException("Interrupted waiting for geolocation lookup");
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException("Geolocation lookup failed", e);
+    }
+  }
+
+  @Setter
+  @Getter
+  static class IpLocationResponse {
+    private String country;
+  }
+}
@@ -0,0 +1,48 @@
+package com.bbockowski.apicomplaint.mapper;
+
+import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.model.Complaint;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts between complaint entities and their DTOs with plain field copies. Mapping
+ * runs once per listed row, so it avoids reflection and allocates nothing beyond the
+ * target objects.
+ */
+@Component
+public class ComplaintMapper {
+
+  public ComplaintResponse toResponse(Complaint complaint) {
+    ComplaintResponse response = new ComplaintResponse();
+    response.setId(complaint.getId());
+    response.setProductId(complaint.getProductId());
+    response.setContent(complaint.getContent());
+    response.setCreatedAt(complaint.getCreatedAt());
+    response.setReporter(complaint.getReporter());
+    response.setCountry(complaint.getCountry());
+    response.setReportCount(complaint.getReportCount());
+    response.setVersion(complaint.getVersion());
+    return response;
+  }
+
+  public List<ComplaintResponse> toResponses(List<Complaint> complaints) {
+    List<ComplaintResponse> responses = new ArrayList<>(complaints.size());
+    for (Complaint complaint : complaints) {
+      responses.add(toResponse(complaint));
+    }
+    return responses;
+  }
+
+  public Complaint toComplaint(AddComplaintRequest request) {
+    Complaint complaint = new Complaint();
+    complaint.setProductId(request.getProductId());
+    complaint.setContent(request.getContent());
+    complaint.setReporter(request.getReporter());
+    complaint.setCountry(request.getCountry());
+    complaint.setPendingIp(request.getPendingIp());
+    return complaint;
+  }
+}
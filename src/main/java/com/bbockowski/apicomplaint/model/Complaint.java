@@ -12,6 +12,11 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+/**
+ * A complaint, unique per (productId, reporter). H2 enforces that with a unique index;
+ * the partitioned PostgreSQL table cannot, so writers claim the key in
+ * {@code complaint_keys} there.
+ */
 @Builder
 @Entity
 @Table(name = "complaints")
@@ -53,6 +58,10 @@ public class Complaint {
   @Column(name = "report_count", nullable = false)
   private int reportCount = 1;
 
+  /** Client IP awaiting asynchronous country enrichment; {@code null} once resolved. */
+  @Column(name = "pending_ip")
+  private String pendingIp;
+
   public void incrementReportCount() {
     this.reportCount++;
   }
@@ -0,0 +1,77 @@
+package com.bbockowski.apicomplaint.repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Complaint ids in the UUID version 7 layout, whose leading 48 bits are the creation time
+ * in Unix milliseconds. Lookups by such an id can also bound {@code created_at}, which
+ * lets PostgreSQL skip every monthly partition but the complaint's own. Ids of other
+ * versions, such as those stored before, carry no time and are bounded by nothing.
+ */
+final class ComplaintIds {
+  // A day either side absorbs the conversion of the id's instant to the local time the
+  // column stores, daylight saving shifts included, and still names one or two months.
+  private static final Duration SLACK = Duration.ofDays(1);
+
+  private static final CreationRange ANY_TIME = new CreationRange(
+    Timestamp.valueOf(LocalDateTime.of(1970, 1, 1, 0, 0)),
+    Timestamp.valueOf(LocalDateTime.of(9999, 12, 31, 0, 0))
+  );
+
+  private ComplaintIds() {}
+
+  /**
+   * Generates the id of a complaint created at the given time. The remaining 74 bits are
+   * random, from the same source as {@link UUID#randomUUID()}.
+   */
+  static UUID next(Instant createdAt) {
+    UUID random = UUID.randomUUID();
+    long mostSigBits =
+      createdAt.toEpochMilli() << 16 |
+      0x7000L |
+      (random.getMostSignificantBits() & 0x0FFFL);
+    // The least significant half of a random UUID already has the IETF variant bits.
+    return new UUID(mostSigBits, random.getLeastSignificantBits());
+  }
+
+  /** The creation times a complaint with this id can have. */
+  static CreationRange creationRange(UUID id) {
+    if (id.version() != 7) {
+      return ANY_TIME;
+    }
+    Instant createdAt = Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    return new CreationRange(
+      Timestamp.from(createdAt.minus(SLACK)),
+      Timestamp.from(createdAt.plus(SLACK))
+    );
+  }
+
+  /** The creation times complaints with any of these ids can have. */
+  static CreationRange creationRange(Collection<UUID> ids) {
+    Timestamp from = null;
+    Timestamp to = null;
+    for (UUID id : ids) {
+      CreationRange range = creationRange(id);
+      if (from == null || range.from().before(from)) {
+        from = range.from();
+      }
+      if (to == null || range.to().after(to)) {
+        to = range.to();
+      }
+    }
+    return from == null ? ANY_TIME : new CreationRange(from, to);
+  }
+
+  /**
+   * Bounds on {@code created_at}, to be matched as {@code >= from AND < to}.
+   *
+   * @param from the earliest possible creation time
+   * @param to   a time after the latest possible creation time
+   */
+  record CreationRange(Timestamp from, Timestamp to) {}
+}
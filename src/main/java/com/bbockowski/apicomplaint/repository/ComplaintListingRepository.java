@@ -0,0 +1,31 @@
+package com.bbockowski.apicomplaint.repository;
+
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Filtered complaint listings, built as Criteria queries from the criteria that are set,
+ * so each combination gets a statement its composite index can serve.
+ */
+public interface ComplaintListingRepository {
+  /**
+   * One page of the complaints matching a filter, without a {@code COUNT(*)}.
+   *
+   * @param filter   the complaints to include
+   * @param pageable the page and its sort order
+   * @return the page, and whether another one follows
+   */
+  Slice<ComplaintSummary> findSummaries(ComplaintFilter filter, Pageable pageable);
+
+  /**
+   * One page of the complaints matching a filter, together with how many match.
+   *
+   * @param filter   the complaints to include
+   * @param pageable the page and its sort order
+   * @return the page with the number of matching complaints
+   */
+  Page<ComplaintSummary> findSummaryPage(ComplaintFilter filter, Pageable pageable);
+}
@@ -0,0 +1,135 @@
+package com.bbockowski.apicomplaint.repository;
+
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
+import com.bbockowski.apicomplaint.model.Complaint;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Criteria implementation of {@link ComplaintListingRepository}. Like
+ * {@link ComplaintRepository#SELECT_SUMMARY}, rows are selected straight into
+ * {@link ComplaintSummary}, so no content is read and no entity is managed.
+ */
+class ComplaintListingRepositoryImpl implements ComplaintListingRepository {
+  private final EntityManager entityManager;
+
+  ComplaintListingRepositoryImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Slice<ComplaintSummary> findSummaries(
+    ComplaintFilter filter,
+    Pageable pageable
+  ) {
+    // One extra row tells whether another page follows without a count query.
+    List<ComplaintSummary> rows = summaries(filter, pageable, 1);
+    if (pageable.isUnpaged() || rows.size() <= pageable.getPageSize()) {
+      return new SliceImpl<>(rows, pageable, false);
+    }
+    return new SliceImpl<>(rows.subList(0, pageable.getPageSize()), pageable, true);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Page<ComplaintSummary> findSummaryPage(
+    ComplaintFilter filter,
+    Pageable pageable
+  ) {
+    // The count is skipped when the page itself shows where the results end.
+    return PageableExecutionUtils.getPage(
+      summaries(filter, pageable, 0),
+      pageable,
+      () -> count(filter)
+    );
+  }
+
+  private List<ComplaintSummary> summaries(
+    ComplaintFilter filter,
+    Pageable pageable,
+    int extraRows
+  ) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<ComplaintSummary> query = cb.createQuery(ComplaintSummary.class);
+    Root<Complaint> complaint = query.from(Complaint.class);
+    query
+      .select(
+        cb.construct(
+          ComplaintSummary.class,
+          complaint.get("id"),
+          complaint.get("productId"),
+          complaint.get("createdAt"),
+          complaint.get("reporter"),
+          complaint.get("country"),
+          complaint.get("reportCount")
+        )
+      )
+      .where(predicates(filter, cb, complaint))
+      .orderBy(QueryUtils.toOrders(pageable.getSort(), complaint, cb));
+    TypedQuery<ComplaintSummary> typedQuery = entityManager.createQuery(query);
+    if (pageable.isPaged()) {
+      typedQuery.setFirstResult(Math.toIntExact(pageable.getOffset()));
+      typedQuery.setMaxResults(pageable.getPageSize() + extraRows);
+    }
+    return typedQuery.getResultList();
+  }
+
+  private long count(ComplaintFilter filter) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Long> query = cb.createQuery(Long.class);
+    Root<Complaint> complaint = query.from(Complaint.class);
+    query.select(cb.count(complaint)).where(predicates(filter, cb, complaint));
+    return entityManager.createQuery(query).getSingleResult();
+  }
+
+  // Only set criteria become predicates, leaving the planner one shape per combination.
+  private static Predicate[] predicates(
+    ComplaintFilter filter,
+    CriteriaBuilder cb,
+    Root<Complaint> complaint
+  ) {
+    List<Predicate> predicates = new ArrayList<>();
+    if (filter.getProductId() != null) {
+      predicates.add(cb.equal(complaint.get("productId"), filter.getProductId()));
+    }
+    if (filter.getReporter() != null) {
+      predicates.add(cb.equal(complaint.get("reporter"), filter.getReporter()));
+    }
+    if (filter.getCountry() != null) {
+      predicates.add(cb.equal(complaint.get("country"), filter.getCountry()));
+    }
+    if (filter.getCreatedFrom() != null) {
+      predicates.add(
+        cb.greaterThanOrEqualTo(
+          complaint.<Timestamp>get("createdAt"),
+          Timestamp.from(filter.getCreatedFrom())
+        )
+      );
+    }
+    if (filter.getCreatedTo() != null) {
+      predicates.add(
+        cb.lessThan(
+          complaint.<Timestamp>get("createdAt"),
+          Timestamp.from(filter.getCreatedTo())
+        )
+      );
+    }
+    return predicates.toArray(Predicate[]::new);
+  }
+}
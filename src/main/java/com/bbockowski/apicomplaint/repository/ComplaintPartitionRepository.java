@@ -0,0 +1,163 @@
+package com.bbockowski.apicomplaint.repository;
+
+import com.bbockowski.apicomplaint.repository.ProductStatsRepository.Delta;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The monthly partitions of {@code complaints} on PostgreSQL, named
+ * {@code complaints_pYYYYMM} and bounded by local creation time like the column itself.
+ * Other databases keep one unpartitioned table, which reports no partitions. Changes take
+ * a transaction-scoped advisory lock, so nodes maintaining partitions at the same time
+ * take turns and each sees what the previous one did.
+ */
+@Repository
+public class ComplaintPartitionRepository {
+  private static final Pattern PARTITION_NAME = Pattern.compile(
+    "complaints_p(\\d{4})(\\d{2})"
+  );
+
+  // Any key shared by all nodes will do; this one spells "complain".
+  private static final long MAINTENANCE_LOCK = 0x636f6d706c61696eL;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ProductStatsRepository productStatsRepository;
+  private final SqlDialect dialect;
+
+  public ComplaintPartitionRepository(
+    JdbcTemplate jdbcTemplate,
+    ProductStatsRepository productStatsRepository
+  ) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.productStatsRepository = productStatsRepository;
+    this.dialect = SqlDialect.of(jdbcTemplate.getDataSource());
+  }
+
+  /** Whether complaints is a partitioned table; the other methods require it. */
+  @Transactional(readOnly = true)
+  public boolean isPartitioned() {
+    return (
+      dialect == SqlDialect.POSTGRESQL &&
+      Boolean.TRUE.equals(
+        jdbcTemplate.queryForObject(
+          "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table " +
+          "WHERE partrelid = 'complaints'::regclass)",
+          Boolean.class
+        )
+      )
+    );
+  }
+
+  /**
+   * Lists the months that have a partition attached.
+   *
+   * @return the months in ascending order, empty if complaints is not partitioned
+   */
+  @Transactional(readOnly = true)
+  public List<YearMonth> findPartitions() {
+    if (dialect != SqlDialect.POSTGRESQL) {
+      return List.of();
+    }
+    List<String> names = jdbcTemplate.queryForList(
+      "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+      "WHERE i.inhparent = 'complaints'::regclass",
+      String.class
+    );
+    List<YearMonth> months = new ArrayList<>(names.size());
+    for (String name : names) {
+      Matcher matcher = PARTITION_NAME.matcher(name);
+      if (matcher.matches()) {
+        int year = Integer.parseInt(matcher.group(1));
+        months.add(YearMonth.of(year, Integer.parseInt(matcher.group(2))));
+      }
+    }
+    months.sort(Comparator.naturalOrder());
+    return months;
+  }
+
+  /**
+   * Creates the partition of a month, unless it exists.
+   *
+   * @param month the month whose complaints the partition holds
+   * @return whether the partition was created
+   */
+  @Transactional
+  public boolean createPartition(YearMonth month) {
+    lockMaintenance();
+    if (findPartitions().contains(month)) {
+      return false;
+    }
+    jdbcTemplate.execute(
+      "CREATE TABLE " +
+      partitionName(month) +
+      " PARTITION OF complaints FOR VALUES FROM ('" +
+      month.atDay(1) +
+      "') TO ('" +
+      month.plusMonths(1).atDay(1) +
+      "')"
+    );
+    return true;
+  }
+
+  /**
+   * Retires the partition of a month, in one transaction: the keys of its complaints are
+   * released, its complaints are taken out of the product statistics, and the partition
+   * is detached and, if asked, dropped. None of this deletes complaints row by row.
+   *
+   * @param month the month whose complaints are retired
+   * @param drop  whether the detached partition is dropped as well
+   * @return whether the partition was retired
+   */
+  @Transactional
+  public boolean retirePartition(YearMonth month, boolean drop) {
+    lockMaintenance();
+    if (!findPartitions().contains(month)) {
+      return false;
+    }
+    String partition = partitionName(month);
+    // Keys go first: a writer reporting one of these complaints again either finished
+    // before and is counted below, or waits and then starts a new complaint.
+    jdbcTemplate.update(
+      "DELETE FROM complaint_keys WHERE created_at >= ? AND created_at < ?",
+      Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+      Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay())
+    );
+    // Reads stay possible until the detach; the statistics must see the final counts.
+    jdbcTemplate.execute("LOCK TABLE " + partition + " IN EXCLUSIVE MODE");
+    List<Delta> deltas = jdbcTemplate.query(
+      "SELECT product_id, country, COUNT(*) AS reporters, " +
+      "SUM(COALESCE(report_count, 1)) AS reports FROM " +
+      partition +
+      " WHERE product_id IS NOT NULL GROUP BY product_id, country",
+      (rs, rowNum) ->
+        Delta.of(
+          rs.getString("product_id"),
+          rs.getString("country"),
+          -rs.getLong("reporters"),
+          -rs.getLong("reports")
+        )
+    );
+    productStatsRepository.add(deltas);
+    jdbcTemplate.execute("ALTER TABLE complaints DETACH PARTITION " + partition);
+    if (drop) {
+      jdbcTemplate.execute("DROP TABLE " + partition);
+    }
+    return true;
+  }
+
+  static String partitionName(YearMonth month) {
+    return "complaints_p%04d%02d".formatted(month.getYear(), month.getMonthValue());
+  }
+
+  private void lockMaintenance() {
+    jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", MAINTENANCE_LOCK);
+  }
+}
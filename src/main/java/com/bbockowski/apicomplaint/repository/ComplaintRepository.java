@@ -1,16 +1,151 @@
 package com.bbockowski.apicomplaint.repository;
 
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
 import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ComplaintIds.CreationRange;
 import jakarta.persistence.LockModeType;
+import java.sql.Timestamp;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ComplaintRepository
+  extends
+    JpaRepository<Complaint, UUID>,
+    ComplaintRepositoryCustom,
+    ComplaintListingRepository {
+  /**
+   * Matches one complaint by id, and by the creation times its id allows, so PostgreSQL
+   * reads only the partitions that can hold it.
+   */
+  String BY_ID =
+    " WHERE c.id = :id AND c.createdAt >= :createdFrom AND c.createdAt < :createdTo";
+
+  /** Loads a complaint and locks its row until the transaction ends. */
+  default Optional<Complaint> findByIdForUpdate(UUID id) {
+    CreationRange created = ComplaintIds.creationRange(id);
+    return findByIdForUpdate(id, created.from(), created.to());
+  }
 
-public interface ComplaintRepository extends JpaRepository<Complaint, UUID> {
-  @Override
   @Lock(LockModeType.PESSIMISTIC_WRITE)
-  Optional<Complaint> findById(UUID id);
+  @Query("SELECT c FROM Complaint c" + BY_ID)
+  Optional<Complaint> findByIdForUpdate(
+    @Param("id") UUID id,
+    @Param("createdFrom") Timestamp createdFrom,
+    @Param("createdTo") Timestamp createdTo
+  );
+
+  /**
+   * Selects listed complaints straight into {@link ComplaintSummary}: the content column
+   * is never read and no managed entities are created for the persistence context.
+   */
+  String SELECT_SUMMARY =
+    "SELECT new com.bbockowski.apicomplaint.dto.ComplaintSummary(" +
+    "c.id, c.productId, c.createdAt, c.reporter, c.country, c.reportCount) " +
+    "FROM Complaint c";
+
+  /** One complaint as a response, read without loading it as a managed entity. */
+  default Optional<ComplaintResponse> findResponseById(UUID id) {
+    CreationRange created = ComplaintIds.creationRange(id);
+    return findResponseById(id, created.from(), created.to());
+  }
+
+  @Query(
+    "SELECT new com.bbockowski.apicomplaint.dto.ComplaintResponse(" +
+    "c.id, c.productId, c.content, c.createdAt, c.reporter, c.country, c.reportCount, " +
+    "c.version) FROM Complaint c" +
+    BY_ID
+  )
+  Optional<ComplaintResponse> findResponseById(
+    @Param("id") UUID id,
+    @Param("createdFrom") Timestamp createdFrom,
+    @Param("createdTo") Timestamp createdTo
+  );
+
+  /** The current row version of a complaint, for answering conditional requests. */
+  default Optional<Long> findVersionById(UUID id) {
+    CreationRange created = ComplaintIds.creationRange(id);
+    return findVersionById(id, created.from(), created.to());
+  }
+
+  @Query("SELECT c.version FROM Complaint c" + BY_ID)
+  Optional<Long> findVersionById(
+    @Param("id") UUID id,
+    @Param("createdFrom") Timestamp createdFrom,
+    @Param("createdTo") Timestamp createdTo
+  );
+
+  /**
+   * Replaces the content of a complaint only if it is still at the given version, in a
+   * single statement that takes no lock beyond the update itself.
+   *
+   * @return the number of updated rows, 0 if the complaint is missing or has changed
+   */
+  default int updateContentIfVersion(UUID id, long version, String content) {
+    CreationRange created = ComplaintIds.creationRange(id);
+    return updateContentIfVersion(id, created.from(), created.to(), version, content);
+  }
+
+  @Modifying
+  @Query(
+    "UPDATE Complaint c SET c.content = :content, c.version = c.version + 1, " +
+    "c.modifiedAt = CURRENT_TIMESTAMP" +
+    BY_ID +
+    " AND c.version = :version"
+  )
+  int updateContentIfVersion(
+    @Param("id") UUID id,
+    @Param("createdFrom") Timestamp createdFrom,
+    @Param("createdTo") Timestamp createdTo,
+    @Param("version") long version,
+    @Param("content") String content
+  );
+
+  /** One page of complaints without the {@code COUNT(*)} a {@code Page} would need. */
+  @Query(SELECT_SUMMARY)
+  Slice<ComplaintSummary> findSummaries(Pageable pageable);
+
+  /** One page of complaints together with the total number of complaints. */
+  @Query(value = SELECT_SUMMARY, countQuery = "SELECT COUNT(c) FROM Complaint c")
+  Page<ComplaintSummary> findSummaryPage(Pageable pageable);
+
+  /** Newest complaints first; pass a page of the wanted size plus one to detect more. */
+  @Query(SELECT_SUMMARY + " ORDER BY c.createdAt DESC, c.id DESC")
+  List<ComplaintSummary> findNewest(Pageable limit);
+
+  /**
+   * Complaints older than the given position, newest first. The plain bound on
+   * {@code createdAt} repeats the row comparison in a form partition pruning understands.
+   */
+  @Query(
+    SELECT_SUMMARY +
+    " WHERE c.createdAt <= :createdAt AND (c.createdAt, c.id) < (:createdAt, :id)" +
+    " ORDER BY c.createdAt DESC, c.id DESC"
+  )
+  List<ComplaintSummary> findOlderThan(
+    @Param("createdAt") Timestamp createdAt,
+    @Param("id") UUID id,
+    Pageable limit
+  );
 
-  Optional<Complaint> findByProductIdAndReporter(String productId, String reporter);
+  /** Complaints newer than the given position, oldest first. */
+  @Query(
+    SELECT_SUMMARY +
+    " WHERE c.createdAt >= :createdAt AND (c.createdAt, c.id) > (:createdAt, :id)" +
+    " ORDER BY c.createdAt ASC, c.id ASC"
+  )
+  List<ComplaintSummary> findNewerThan(
+    @Param("createdAt") Timestamp createdAt,
+    @Param("id") UUID id,
+    Pageable limit
+  );
 }
@@ -0,0 +1,111 @@
+package com.bbockowski.apicomplaint.repository;
+
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.model.Complaint;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Complaint queries that are issued as plain SQL rather than through entities.
+ */
+public interface ComplaintRepositoryCustom {
+  /**
+   * Inserts the complaint or, if one already exists for its product and reporter,
+   * increments that complaint's report count. Backed by the unique (product_id, reporter)
+   * index, or on partitioned PostgreSQL by the row of that key in
+   * {@code complaint_keys}, so concurrent calls for one key never create duplicates.
+   *
+   * @param complaint the complaint to insert; its id, if unset, is generated
+   * @return the stored complaint and whether it was newly created
+   */
+  UpsertResult upsert(Complaint complaint);
+
+  /**
+   * Stores a chunk of complaints with distinct (productId, reporter) keys in one
+   * transaction. Complaints that already exist are locked in id order and incremented
+   * with one batched update; the rest are written with one batched insert that falls
+   * back to incrementing if a concurrent writer created the same key first. On
+   * PostgreSQL all keys are claimed in {@code complaint_keys} up front instead.
+   *
+   * @param upserts the complaints with the number of reports to add for each
+   * @return the stored complaint per upsert, in the order given
+   */
+  List<UpsertResult> upsertBatch(List<BatchUpsert> upserts);
+
+  /**
+   * Estimates the number of complaints without scanning the table. PostgreSQL answers
+   * from planner statistics, which are as fresh as the last {@code ANALYZE}; other
+   * databases fall back to an exact count.
+   *
+   * @return the estimated number of complaints
+   */
+  long estimateCount();
+
+  /**
+   * Streams every complaint matching the filter, oldest first, in one query. Rows are
+   * read through a forward-only cursor {@code fetchSize} at a time and handed to the
+   * consumer as they arrive, so memory use does not grow with the number of rows.
+   *
+   * @param filter    the complaints to include
+   * @param fetchSize the number of rows fetched per round trip
+   * @param consumer  receives each complaint; it must not keep a reference to it
+   */
+  void streamComplaints(
+    ComplaintFilter filter,
+    int fetchSize,
+    Consumer<ComplaintResponse> consumer
+  );
+
+  /**
+   * Finds complaints that still wait for country enrichment, oldest first.
+   *
+   * @param limit maximum number of complaints to return
+   * @return the complaint ids with the client IP to resolve
+   */
+  List<PendingEnrichment> findPendingEnrichments(int limit);
+
+  /**
+   * Stores resolved countries and clears the pending marker in one batched statement.
+   * Complaints that are no longer pending are left untouched.
+   *
+   * @param countries resolved country per complaint id
+   * @return the complaints updated, with their natural keys
+   */
+  List<EnrichedComplaint> completeEnrichments(Map<UUID, String> countries);
+
+  /**
+   * Adds journaled report count increments to their complaints and records the segment
+   * they came from, all in one transaction. Each increment advances the row version by
+   * one, as storing the report directly would. Increments whose complaint no longer
+   * exists are stored as a new complaint of their key. A segment that was already
+   * applied is skipped, which makes replaying a journal after a crash idempotent.
+   *
+   * @param segment    identifies the journal segment the increments were read from
+   * @param increments the summed increment per (productId, reporter)
+   * @return {@code false} if the segment had already been applied
+   */
+  boolean applyReportCountIncrements(
+    String segment,
+    List<ReportCountIncrement> increments
+  );
+
+  /**
+   * Forgets an applied segment once its journal file has been deleted.
+   *
+   * @param segment the segment passed to {@link #applyReportCountIncrements}
+   */
+  void deleteReportCountFlush(String segment);
+
+  record UpsertResult(Complaint complaint, boolean created) {}
+
+  record BatchUpsert(Complaint complaint, int reportCount) {}
+
+  record PendingEnrichment(UUID id, String ip) {}
+
+  record EnrichedComplaint(UUID id, String productId, String reporter) {}
+
+  record ReportCountIncrement(String productId, String reporter, long delta) {}
+}
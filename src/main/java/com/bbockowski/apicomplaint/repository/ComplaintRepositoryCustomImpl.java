@@ -0,0 +1,688 @@
+package com.bbockowski.apicomplaint.repository;
+
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ComplaintIds.CreationRange;
+import com.bbockowski.apicomplaint.repository.ProductStatsRepository.Delta;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+
+class ComplaintRepositoryCustomImpl implements ComplaintRepositoryCustom {
+  static final String COMPLAINT_COLUMNS =
+    "id, version, product_id, content, created_at, modified_at, reporter, country, " +
+    "report_count, pending_ip";
+
+  // PostgreSQL partitions complaints by creation month, and a partitioned table cannot
+  // have a unique index without the partition column, so complaint_keys holds the one
+  // (product_id, reporter) row per complaint instead. Claiming a key inserts it with the
+  // new complaint's id, or locks the existing one and returns its complaint; either way
+  // concurrent writers of the key queue up until the transaction ends.
+  private static final String POSTGRESQL_CLAIM_KEYS =
+    """
+    INSERT INTO complaint_keys AS k (product_id, reporter, id, created_at)
+    VALUES %s
+    ON CONFLICT (product_id, reporter) DO UPDATE SET id = k.id
+    RETURNING id, created_at
+    """;
+
+  private static final String POSTGRESQL_INSERT =
+    "INSERT INTO complaints (" +
+    COMPLAINT_COLUMNS +
+    ") VALUES (?, 0, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String ADD_REPORTS =
+    "UPDATE complaints SET report_count = report_count + ?, version = version + 1, " +
+    "modified_at = ? WHERE id = ? AND created_at = ?";
+
+  // Inserts a complaint with the given report count, or adds that count to the existing
+  // complaint of the same (product_id, reporter), backed by H2's unique index.
+  private static final String H2_INSERT_OR_ADD =
+    """
+    MERGE INTO complaints c
+    USING (VALUES (CAST(? AS UUID), CAST(? AS VARCHAR), CAST(? AS VARCHAR),
+                   CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP), CAST(? AS VARCHAR),
+                   CAST(? AS VARCHAR), CAST(? AS INT), CAST(? AS VARCHAR)))
+      AS s(id, product_id, content, created_at, modified_at, reporter, country,
+           report_count, pending_ip)
+    ON c.product_id = s.product_id AND c.reporter = s.reporter
+    WHEN MATCHED THEN UPDATE
+      SET report_count = c.report_count + s.report_count,
+          version = c.version + 1,
+          modified_at = s.modified_at
+    WHEN NOT MATCHED THEN INSERT (%1$s)
+      VALUES (s.id, 0, s.product_id, s.content, s.created_at, s.modified_at,
+              s.reporter, s.country, s.report_count, s.pending_ip)
+    """.formatted(COMPLAINT_COLUMNS);
+
+  private static final String H2_UPSERT =
+    "SELECT " + COMPLAINT_COLUMNS + " FROM FINAL TABLE (" + H2_INSERT_OR_ADD + ")";
+
+  private static final Comparator<BatchUpsert> BATCH_KEY_ORDER = Comparator
+    .comparing((BatchUpsert upsert) -> upsert.complaint().getProductId())
+    .thenComparing(upsert -> upsert.complaint().getReporter());
+
+  static final RowMapper<Complaint> COMPLAINT_ROW_MAPPER =
+    ComplaintRepositoryCustomImpl::mapComplaint;
+
+  // Keys per query when looking up the countries of journaled increments.
+  private static final int KEY_LOOKUP_CHUNK = 500;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ProductStatsRepository productStatsRepository;
+  private final SqlDialect dialect;
+
+  ComplaintRepositoryCustomImpl(
+    JdbcTemplate jdbcTemplate,
+    ProductStatsRepository productStatsRepository
+  ) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.productStatsRepository = productStatsRepository;
+    this.dialect = SqlDialect.of(jdbcTemplate.getDataSource());
+  }
+
+  @Override
+  @Transactional
+  public UpsertResult upsert(Complaint complaint) {
+    Instant now = Instant.now();
+    if (complaint.getId() == null) {
+      complaint.setId(ComplaintIds.next(now));
+    }
+    Object[] args = insertOrAddArgs(complaint, 1, Timestamp.from(now));
+
+    Complaint stored;
+    if (dialect == SqlDialect.POSTGRESQL) {
+      stored = upsertClaimed(complaint, args);
+    } else {
+      try {
+        stored = jdbcTemplate.queryForObject(H2_UPSERT, COMPLAINT_ROW_MAPPER, args);
+      } catch (DuplicateKeyException e) {
+        // H2's MERGE is not atomic against a concurrent insert of the same key; the
+        // row exists now, so a second attempt takes the update branch.
+        stored = jdbcTemplate.queryForObject(H2_UPSERT, COMPLAINT_ROW_MAPPER, args);
+      }
+    }
+    boolean created = complaint.getId().equals(stored.getId());
+    productStatsRepository.add(
+      List.of(Delta.of(stored.getProductId(), stored.getCountry(), created ? 1 : 0, 1))
+    );
+    return new UpsertResult(stored, created);
+  }
+
+  private Complaint upsertClaimed(Complaint complaint, Object[] insertArgs) {
+    String returning = " RETURNING " + COMPLAINT_COLUMNS;
+    if (!hasKey(complaint)) {
+      return jdbcTemplate.queryForObject(
+        POSTGRESQL_INSERT + returning,
+        COMPLAINT_ROW_MAPPER,
+        insertArgs
+      );
+    }
+    Timestamp now = (Timestamp) insertArgs[3];
+    Map<String, Object> key = jdbcTemplate.queryForMap(
+      POSTGRESQL_CLAIM_KEYS.formatted("(?, ?, ?, ?)"),
+      complaint.getProductId(),
+      complaint.getReporter(),
+      complaint.getId(),
+      now
+    );
+    // A separate statement, so that it sees the complaint of a key claimed and
+    // committed by another transaction while this one waited for it.
+    if (complaint.getId().equals(key.get("id"))) {
+      return jdbcTemplate.queryForObject(
+        POSTGRESQL_INSERT + returning,
+        COMPLAINT_ROW_MAPPER,
+        insertArgs
+      );
+    }
+    return jdbcTemplate.queryForObject(
+      ADD_REPORTS + returning,
+      COMPLAINT_ROW_MAPPER,
+      1,
+      now,
+      key.get("id"),
+      key.get("created_at")
+    );
+  }
+
+  @Override
+  @Transactional
+  public List<UpsertResult> upsertBatch(List<BatchUpsert> upserts) {
+    if (upserts.isEmpty()) {
+      return List.of();
+    }
+    Instant createdAt = Instant.now();
+    Timestamp now = Timestamp.from(createdAt);
+    if (dialect == SqlDialect.POSTGRESQL) {
+      for (BatchUpsert upsert : upserts) {
+        if (upsert.complaint().getId() == null) {
+          upsert.complaint().setId(ComplaintIds.next(createdAt));
+        }
+      }
+      claimKeys(upserts, now);
+    }
+    Map<String, Complaint> existing = new HashMap<>();
+    for (Complaint complaint : selectByKeys(upserts, true)) {
+      existing.put(keyOf(complaint), complaint);
+    }
+
+    List<Object[]> updateArgs = new ArrayList<>();
+    List<Object[]> insertArgs = new ArrayList<>();
+    List<BatchUpsert> inserts = new ArrayList<>();
+    for (BatchUpsert upsert : upserts) {
+      Complaint complaint = upsert.complaint();
+      Complaint current = existing.get(keyOf(complaint));
+      if (current != null) {
+        updateArgs.add(
+          new Object[] {
+            upsert.reportCount(),
+            now,
+            current.getId(),
+            current.getCreatedAt(),
+          }
+        );
+      } else {
+        if (complaint.getId() == null) {
+          complaint.setId(ComplaintIds.next(createdAt));
+        }
+        inserts.add(upsert);
+      }
+    }
+    // Existing rows are already locked in id order by the select above; inserts go in
+    // key order so concurrent batches touching the same new keys queue up consistently.
+    // On PostgreSQL the claimed keys already exclude any concurrent insert.
+    inserts.sort(BATCH_KEY_ORDER);
+    for (BatchUpsert upsert : inserts) {
+      insertArgs.add(insertOrAddArgs(upsert.complaint(), upsert.reportCount(), now));
+    }
+
+    if (!updateArgs.isEmpty()) {
+      jdbcTemplate.batchUpdate(ADD_REPORTS, updateArgs);
+    }
+    Map<String, Complaint> stored = new HashMap<>(existing);
+    if (!insertArgs.isEmpty()) {
+      jdbcTemplate.batchUpdate(
+        dialect == SqlDialect.POSTGRESQL ? POSTGRESQL_INSERT : H2_INSERT_OR_ADD,
+        insertArgs
+      );
+      for (Complaint complaint : selectByKeys(inserts, false)) {
+        stored.put(keyOf(complaint), complaint);
+      }
+    }
+
+    List<UpsertResult> results = new ArrayList<>(upserts.size());
+    List<Delta> deltas = new ArrayList<>(upserts.size());
+    for (BatchUpsert upsert : upserts) {
+      Complaint requested = upsert.complaint();
+      Complaint current = existing.get(keyOf(requested));
+      UpsertResult result;
+      if (current != null) {
+        current.setReportCount(current.getReportCount() + upsert.reportCount());
+        current.setVersion(current.getVersion() + 1);
+        current.setModifiedAt(now);
+        result = new UpsertResult(current, false);
+      } else {
+        Complaint row = stored.get(keyOf(requested));
+        result = new UpsertResult(row, requested.getId().equals(row.getId()));
+      }
+      results.add(result);
+      deltas.add(
+        Delta.of(
+          result.complaint().getProductId(),
+          result.complaint().getCountry(),
+          result.created() ? 1 : 0,
+          upsert.reportCount()
+        )
+      );
+    }
+    productStatsRepository.add(deltas);
+    return results;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public long estimateCount() {
+    if (dialect == SqlDialect.POSTGRESQL) {
+      // A partitioned table keeps no statistics of its own; its partitions do.
+      Long estimate = jdbcTemplate.queryForObject(
+        """
+        SELECT CASE WHEN bool_or(reltuples >= 0)
+                    THEN SUM(GREATEST(reltuples, 0)) ELSE -1 END::bigint
+        FROM pg_class
+        WHERE oid = 'complaints'::regclass
+           OR oid IN (SELECT inhrelid FROM pg_inherits
+                      WHERE inhparent = 'complaints'::regclass)
+        """,
+        Long.class
+      );
+      // reltuples is -1 until a table has been vacuumed or analyzed once.
+      if (estimate != null && estimate >= 0) {
+        return estimate;
+      }
+    }
+    Long count = jdbcTemplate.queryForObject(
+      "SELECT COUNT(*) FROM complaints",
+      Long.class
+    );
+    return count == null ? 0 : count;
+  }
+
+  @Override
+  // PostgreSQL only honours the fetch size, instead of reading the whole result into
+  // memory, when the statement runs inside a transaction.
+  @Transactional(readOnly = true)
+  public void streamComplaints(
+    ComplaintFilter filter,
+    int fetchSize,
+    Consumer<ComplaintResponse> consumer
+  ) {
+    StringBuilder sql = new StringBuilder(
+      "SELECT id, product_id, content, created_at, reporter, country, report_count " +
+      "FROM complaints WHERE 1 = 1"
+    );
+    List<Object> args = new ArrayList<>();
+    if (filter.getProductId() != null) {
+      sql.append(" AND product_id = ?");
+      args.add(filter.getProductId());
+    }
+    if (filter.getReporter() != null) {
+      sql.append(" AND reporter = ?");
+      args.add(filter.getReporter());
+    }
+    if (filter.getCountry() != null) {
+      sql.append(" AND country = ?");
+      args.add(filter.getCountry());
+    }
+    if (filter.getCreatedFrom() != null) {
+      sql.append(" AND created_at >= ?");
+      args.add(Timestamp.from(filter.getCreatedFrom()));
+    }
+    if (filter.getCreatedTo() != null) {
+      sql.append(" AND created_at < ?");
+      args.add(Timestamp.from(filter.getCreatedTo()));
+    }
+    sql.append(" ORDER BY created_at, id");
+
+    jdbcTemplate.query(
+      connection -> {
+        PreparedStatement statement = connection.prepareStatement(
+          sql.toString(),
+          ResultSet.TYPE_FORWARD_ONLY,
+          ResultSet.CONCUR_READ_ONLY
+        );
+        statement.setFetchSize(fetchSize);
+        new ArgumentPreparedStatementSetter(args.toArray()).setValues(statement);
+        return statement;
+      },
+      (RowCallbackHandler) rs -> consumer.accept(mapResponse(rs))
+    );
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<PendingEnrichment> findPendingEnrichments(int limit) {
+    return jdbcTemplate.query(
+      "SELECT id, pending_ip FROM complaints WHERE pending_ip IS NOT NULL " +
+      "ORDER BY created_at LIMIT ?",
+      (rs, rowNum) ->
+        new PendingEnrichment(rs.getObject("id", UUID.class), rs.getString("pending_ip")),
+      limit
+    );
+  }
+
+  @Override
+  @Transactional
+  public List<EnrichedComplaint> completeEnrichments(Map<UUID, String> countries) {
+    if (countries.isEmpty()) {
+      return List.of();
+    }
+    // Lock the complaints still pending, so their statistics move country exactly once.
+    // The creation times the ids allow keep PostgreSQL to the partitions holding them.
+    CreationRange created = ComplaintIds.creationRange(countries.keySet());
+    List<Object> selectArgs = new ArrayList<>(countries.keySet());
+    selectArgs.add(created.from());
+    selectArgs.add(created.to());
+    List<Delta> deltas = new ArrayList<>(countries.size() * 2);
+    List<Object[]> batchArgs = new ArrayList<>(countries.size());
+    List<EnrichedComplaint> candidates = new ArrayList<>(countries.size());
+    jdbcTemplate.query(
+      "SELECT id, product_id, reporter, created_at, report_count FROM complaints " +
+      "WHERE id IN (" +
+      String.join(", ", Collections.nCopies(countries.size(), "?")) +
+      ") AND created_at >= ? AND created_at < ? AND pending_ip IS NOT NULL " +
+      "ORDER BY id FOR UPDATE",
+      (RowCallbackHandler) rs -> {
+        UUID id = rs.getObject("id", UUID.class);
+        String productId = rs.getString("product_id");
+        int reports = rs.getInt("report_count");
+        String country = countries.get(id);
+        deltas.add(Delta.of(productId, null, -1, -reports));
+        deltas.add(Delta.of(productId, country, 1, reports));
+        // Rows arrive in id order, which keeps lock acquisition order stable across
+        // concurrent batches.
+        batchArgs.add(new Object[] { country, id, rs.getTimestamp("created_at") });
+        candidates.add(new EnrichedComplaint(id, productId, rs.getString("reporter")));
+      },
+      selectArgs.toArray()
+    );
+    if (batchArgs.isEmpty()) {
+      return List.of();
+    }
+    int[] updated = jdbcTemplate.batchUpdate(
+      "UPDATE complaints SET country = ?, pending_ip = NULL, version = version + 1, " +
+      "modified_at = CURRENT_TIMESTAMP " +
+      "WHERE id = ? AND created_at = ? AND pending_ip IS NOT NULL",
+      batchArgs
+    );
+    List<EnrichedComplaint> enriched = new ArrayList<>(candidates.size());
+    for (int i = 0; i < updated.length; i++) {
+      if (updated[i] > 0 || updated[i] == Statement.SUCCESS_NO_INFO) {
+        enriched.add(candidates.get(i));
+      }
+    }
+    productStatsRepository.add(deltas);
+    return enriched;
+  }
+
+  @Override
+  @Transactional
+  public boolean applyReportCountIncrements(
+    String segment,
+    List<ReportCountIncrement> increments
+  ) {
+    Integer applied = jdbcTemplate.queryForObject(
+      "SELECT COUNT(*) FROM report_count_flushes WHERE segment = ?",
+      Integer.class,
+      segment
+    );
+    if (applied != null && applied > 0) {
+      return false;
+    }
+    jdbcTemplate.update("INSERT INTO report_count_flushes (segment) VALUES (?)", segment);
+    Map<String, KeyedComplaint> complaints = complaintsByKey(increments);
+    List<ReportCountIncrement> matched = new ArrayList<>(increments.size());
+    List<KeyedComplaint> matchedComplaints = new ArrayList<>(increments.size());
+    List<Object[]> batchArgs = new ArrayList<>(increments.size());
+    List<BatchUpsert> unmatched = new ArrayList<>();
+    // Sorted keys keep lock acquisition order stable across concurrent writers.
+    increments
+      .stream()
+      .sorted(
+        Comparator
+          .comparing(ReportCountIncrement::productId)
+          .thenComparing(ReportCountIncrement::reporter)
+      )
+      .forEach(
+        increment -> {
+          KeyedComplaint complaint = complaints.get(
+            increment.productId() + '\u0000' + increment.reporter()
+          );
+          if (complaint == null) {
+            unmatched.add(restored(increment));
+            return;
+          }
+          matched.add(increment);
+          matchedComplaints.add(complaint);
+          batchArgs.add(
+            new Object[] {
+              increment.delta(),
+              increment.delta(),
+              complaint.id(),
+              complaint.createdAt(),
+            }
+          );
+        }
+      );
+    // One version per report, as if each had been stored directly.
+    int[] updated = batchArgs.isEmpty()
+      ? new int[0]
+      : jdbcTemplate.batchUpdate(
+        "UPDATE complaints SET report_count = report_count + ?, version = version + ?, " +
+        "modified_at = CURRENT_TIMESTAMP WHERE id = ? AND created_at = ?",
+        batchArgs
+      );
+    List<Delta> deltas = new ArrayList<>(matched.size());
+    for (int i = 0; i < updated.length; i++) {
+      ReportCountIncrement increment = matched.get(i);
+      if (updated[i] == 0) {
+        unmatched.add(restored(increment));
+        continue;
+      }
+      String country = matchedComplaints.get(i).country();
+      deltas.add(Delta.of(increment.productId(), country, 0, increment.delta()));
+    }
+    productStatsRepository.add(deltas);
+    // The complaint was retired after the reports were journaled, possibly by another
+    // node whose write-behind still knew it. The reports are stored as a new complaint
+    // of the key, as they would have been without write-behind, rather than lost.
+    if (!unmatched.isEmpty()) {
+      upsertBatch(unmatched);
+    }
+    return true;
+  }
+
+  /**
+   * Finds the complaint of every increment's key. On PostgreSQL the key is resolved
+   * through complaint_keys first, so the complaints are read from their partitions only.
+   */
+  private Map<String, KeyedComplaint> complaintsByKey(
+    List<ReportCountIncrement> increments
+  ) {
+    Map<String, KeyedComplaint> complaints = new HashMap<>();
+    for (int from = 0; from < increments.size(); from += KEY_LOOKUP_CHUNK) {
+      List<ReportCountIncrement> chunk = increments.subList(
+        from,
+        Math.min(from + KEY_LOOKUP_CHUNK, increments.size())
+      );
+      List<Object> args = new ArrayList<>(chunk.size() * 2);
+      for (ReportCountIncrement increment : chunk) {
+        args.add(increment.productId());
+        args.add(increment.reporter());
+      }
+      String keys = String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)"));
+      if (dialect == SqlDialect.POSTGRESQL) {
+        complaints.putAll(claimedComplaints(keys, args));
+        continue;
+      }
+      jdbcTemplate.query(
+        "SELECT id, product_id, reporter, created_at, country FROM complaints " +
+        "WHERE (product_id, reporter) IN (" +
+        keys +
+        ")",
+        (RowCallbackHandler) rs ->
+          complaints.put(
+            rs.getString("product_id") + '\u0000' + rs.getString("reporter"),
+            new KeyedComplaint(
+              rs.getObject("id", UUID.class),
+              rs.getTimestamp("created_at"),
+              rs.getString("country")
+            )
+          ),
+        args.toArray()
+      );
+    }
+    return complaints;
+  }
+
+  private Map<String, KeyedComplaint> claimedComplaints(String keys, List<Object> args) {
+    Map<UUID, String> keysById = new HashMap<>();
+    List<Timestamp> created = new ArrayList<>();
+    jdbcTemplate.query(
+      "SELECT product_id, reporter, id, created_at FROM complaint_keys " +
+      "WHERE (product_id, reporter) IN (" +
+      keys +
+      ")",
+      (RowCallbackHandler) rs -> {
+        keysById.put(
+          rs.getObject("id", UUID.class),
+          rs.getString("product_id") + '\u0000' + rs.getString("reporter")
+        );
+        created.add(rs.getTimestamp("created_at"));
+      },
+      args.toArray()
+    );
+    Map<String, KeyedComplaint> complaints = new HashMap<>();
+    if (keysById.isEmpty()) {
+      return complaints;
+    }
+    List<Object> selectArgs = new ArrayList<>(keysById.keySet());
+    selectArgs.add(Collections.min(created));
+    selectArgs.add(Collections.max(created));
+    jdbcTemplate.query(
+      "SELECT id, created_at, country FROM complaints WHERE id IN (" +
+      String.join(", ", Collections.nCopies(keysById.size(), "?")) +
+      ") AND created_at >= ? AND created_at <= ?",
+      (RowCallbackHandler) rs -> {
+        UUID id = rs.getObject("id", UUID.class);
+        complaints.put(
+          keysById.get(id),
+          new KeyedComplaint(id, rs.getTimestamp("created_at"), rs.getString("country"))
+        );
+      },
+      selectArgs.toArray()
+    );
+    return complaints;
+  }
+
+  private static BatchUpsert restored(ReportCountIncrement increment) {
+    Complaint complaint = new Complaint();
+    complaint.setProductId(increment.productId());
+    complaint.setReporter(increment.reporter());
+    return new BatchUpsert(complaint, Math.toIntExact(increment.delta()));
+  }
+
+  @Override
+  @Transactional
+  public void deleteReportCountFlush(String segment) {
+    jdbcTemplate.update("DELETE FROM report_count_flushes WHERE segment = ?", segment);
+  }
+
+  /** Claims the keys of a batch in key order, so concurrent batches never deadlock. */
+  private void claimKeys(List<BatchUpsert> upserts, Timestamp now) {
+    List<Complaint> keyed = upserts
+      .stream()
+      .map(BatchUpsert::complaint)
+      .filter(ComplaintRepositoryCustomImpl::hasKey)
+      .sorted(
+        Comparator
+          .comparing(Complaint::getProductId)
+          .thenComparing(Complaint::getReporter)
+      )
+      .toList();
+    for (int from = 0; from < keyed.size(); from += KEY_LOOKUP_CHUNK) {
+      List<Complaint> chunk = keyed.subList(
+        from,
+        Math.min(from + KEY_LOOKUP_CHUNK, keyed.size())
+      );
+      List<Object> args = new ArrayList<>(chunk.size() * 4);
+      for (Complaint complaint : chunk) {
+        args.add(complaint.getProductId());
+        args.add(complaint.getReporter());
+        args.add(complaint.getId());
+        args.add(now);
+      }
+      jdbcTemplate.queryForList(
+        POSTGRESQL_CLAIM_KEYS.formatted(
+          String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, ?)"))
+        ),
+        args.toArray()
+      );
+    }
+  }
+
+  // Without both parts a complaint has no key and, as under a unique index, never
+  // matches another.
+  private static boolean hasKey(Complaint complaint) {
+    return complaint.getProductId() != null && complaint.getReporter() != null;
+  }
+
+  private List<Complaint> selectByKeys(List<BatchUpsert> upserts, boolean forUpdate) {
+    StringJoiner keys = new StringJoiner(", ");
+    List<Object> args = new ArrayList<>(upserts.size() * 2);
+    for (BatchUpsert upsert : upserts) {
+      keys.add("(?, ?)");
+      args.add(upsert.complaint().getProductId());
+      args.add(upsert.complaint().getReporter());
+    }
+    return jdbcTemplate.query(
+      "SELECT " +
+      COMPLAINT_COLUMNS +
+      " FROM complaints WHERE (product_id, reporter) IN (" +
+      keys +
+      ") ORDER BY id" +
+      (forUpdate ? " FOR UPDATE" : ""),
+      COMPLAINT_ROW_MAPPER,
+      args.toArray()
+    );
+  }
+
+  private static String keyOf(Complaint complaint) {
+    return complaint.getProductId() + '\u0000' + complaint.getReporter();
+  }
+
+  private static Object[] insertOrAddArgs(
+    Complaint complaint,
+    int reportCount,
+    Timestamp now
+  ) {
+    return new Object[] {
+      complaint.getId(),
+      complaint.getProductId(),
+      complaint.getContent(),
+      now,
+      now,
+      complaint.getReporter(),
+      complaint.getCountry(),
+      reportCount,
+      complaint.getPendingIp(),
+    };
+  }
+
+  private static ComplaintResponse mapResponse(ResultSet rs) throws SQLException {
+    ComplaintResponse response = new ComplaintResponse();
+    response.setId(rs.getObject("id", UUID.class));
+    response.setProductId(rs.getString("product_id"));
+    response.setContent(rs.getString("content"));
+    response.setCreatedAt(rs.getTimestamp("created_at"));
+    response.setReporter(rs.getString("reporter"));
+    response.setCountry(rs.getString("country"));
+    response.setReportCount(rs.getInt("report_count"));
+    return response;
+  }
+
+  private static Complaint mapComplaint(ResultSet rs, int rowNum) throws SQLException {
+    Complaint complaint = new Complaint();
+    complaint.setId(rs.getObject("id", UUID.class));
+    complaint.setVersion(rs.getLong("version"));
+    complaint.setProductId(rs.getString("product_id"));
+    complaint.setContent(rs.getString("content"));
+    complaint.setCreatedAt(rs.getTimestamp("created_at"));
+    complaint.setModifiedAt(rs.getTimestamp("modified_at"));
+    complaint.setReporter(rs.getString("reporter"));
+    complaint.setCountry(rs.getString("country"));
+    complaint.setReportCount(rs.getInt("report_count"));
+    complaint.setPendingIp(rs.getString("pending_ip"));
+    return complaint;
+  }
+
+  private record KeyedComplaint(UUID id, Timestamp createdAt, String country) {}
+}
@@ -0,0 +1,144 @@
+package com.bbockowski.apicomplaint.repository;
+
+import com.bbockowski.apicomplaint.dto.ComplaintSearchHit;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Full-text search over complaint content, ranked by relevance and paginated by
+ * {@code (rank, id)} keyset.
+ *
+ * <p>On PostgreSQL the query is parsed by {@code websearch_to_tsquery}, so quoted
+ * phrases, {@code or} and {@code -word} work; matches come from the GIN index on the
+ * generated {@code content_tsv} column and are ranked by {@code ts_rank_cd}. On H2, H2's
+ * own full-text index finds complaints containing every word and the rank counts their
+ * occurrences; there is no stemming or query syntax.
+ */
+@Repository
+public class ComplaintSearchRepository {
+  private static final String COLUMNS =
+    "c.id, c.product_id, c.content, c.created_at, c.reporter, c.country, c.report_count";
+
+  private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private final JdbcTemplate jdbcTemplate;
+  private final SqlDialect dialect;
+
+  public ComplaintSearchRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.dialect = SqlDialect.of(jdbcTemplate.getDataSource());
+  }
+
+  /**
+   * Finds complaints whose content matches a query, most relevant first.
+   *
+   * @param query     the words to look for
+   * @param productId only complaints about this product, or {@code null}
+   * @param country   only complaints from this country, or {@code null}
+   * @param after     the last hit of the previous page, or {@code null} for the first
+   * @param limit     the largest number of hits to return
+   * @return the matching complaints in rank order, then id order
+   */
+  @Transactional(readOnly = true)
+  public List<ComplaintSearchHit> search(
+    String query,
+    String productId,
+    String country,
+    Position after,
+    int limit
+  ) {
+    StringBuilder sql = new StringBuilder("SELECT * FROM (SELECT ");
+    List<Object> args = new ArrayList<>();
+    if (dialect == SqlDialect.POSTGRESQL) {
+      sql
+        .append(COLUMNS)
+        .append(", ts_rank_cd(c.content_tsv, q) AS rank ")
+        .append("FROM complaints c, websearch_to_tsquery('english', ?) q ")
+        .append("WHERE c.content_tsv @@ q");
+      args.add(query);
+    } else {
+      Set<String> words = words(query);
+      if (words.isEmpty()) {
+        return List.of();
+      }
+      sql.append(COLUMNS).append(", CAST(");
+      for (String word : words) {
+        // Occurrences of the word: how much shorter the content gets without it.
+        sql.append(
+          "(LENGTH(LOWER(c.content)) - LENGTH(REPLACE(LOWER(c.content), ?, ''))) / ? + "
+        );
+        args.add(word);
+        args.add(word.length());
+      }
+      sql
+        .append("0 AS REAL) AS rank ")
+        .append("FROM FT_SEARCH_DATA(?, 0, 0) f ")
+        .append("JOIN complaints c ON c.id = CAST(f.KEYS[1] AS UUID) ")
+        .append("WHERE f.\"TABLE\" = 'COMPLAINTS'");
+      args.add(String.join(" ", words));
+    }
+    if (productId != null) {
+      sql.append(" AND c.product_id = ?");
+      args.add(productId);
+    }
+    if (country != null) {
+      sql.append(" AND c.country = ?");
+      args.add(country);
+    }
+    sql.append(") hits");
+    if (after != null) {
+      sql.append(" WHERE rank < ? OR (rank = ? AND id < ?)");
+      args.add(after.rank());
+      args.add(after.rank());
+      args.add(after.id());
+    }
+    sql.append(" ORDER BY rank DESC, id DESC LIMIT ?");
+    args.add(limit);
+    return jdbcTemplate.query(
+      sql.toString(),
+      ComplaintSearchRepository::mapHit,
+      args.toArray()
+    );
+  }
+
+  private static Set<String> words(String query) {
+    Set<String> words = new LinkedHashSet<>();
+    for (String word : NON_WORD.split(query.toLowerCase(Locale.ROOT))) {
+      if (!word.isEmpty()) {
+        words.add(word);
+      }
+    }
+    return words;
+  }
+
+  private static ComplaintSearchHit mapHit(ResultSet rs, int rowNum) throws SQLException {
+    return new ComplaintSearchHit(
+      rs.getObject("id", UUID.class),
+      rs.getString("product_id"),
+      rs.getString("content"),
+      rs.getTimestamp("created_at"),
+      rs.getString("reporter"),
+      rs.getString("country"),
+      rs.getInt("report_count"),
+      rs.getFloat("rank")
+    );
+  }
+
+  /**
+   * Where a page of hits ends.
+   *
+   * @param rank the rank of the last hit
+   * @param id   the id of the last hit, breaking ties between equal ranks
+   */
+  public record Position(float rank, UUID id) {}
+}
@@ -0,0 +1,222 @@
+package com.bbockowski.apicomplaint.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Complaint and report counts per product and country in {@code product_stats}. Every
+ * complaint write in {@link ComplaintRepositoryCustomImpl} adds its change here in the
+ * same transaction, so the statistics of a product are read from one row per country,
+ * however many complaints it has. Each complaint is the one complaint of its reporter
+ * about the product, so counting complaints counts distinct reporters.
+ */
+@Repository
+public class ProductStatsRepository {
+  /** Country key of complaints whose country has not been resolved yet. */
+  static final String PENDING_COUNTRY = "";
+
+  private static final String POSTGRESQL_ADD =
+    """
+    INSERT INTO product_stats (product_id, country, reporters, reports)
+    VALUES (?, ?, ?, ?)
+    ON CONFLICT (product_id, country) DO UPDATE
+    SET reporters = product_stats.reporters + EXCLUDED.reporters,
+        reports = product_stats.reports + EXCLUDED.reports
+    """;
+
+  private static final String H2_ADD =
+    """
+    MERGE INTO product_stats p
+    USING (VALUES (CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS BIGINT),
+                   CAST(? AS BIGINT)))
+      AS s(product_id, country, reporters, reports)
+    ON p.product_id = s.product_id AND p.country = s.country
+    WHEN MATCHED THEN UPDATE
+      SET reporters = p.reporters + s.reporters,
+          reports = p.reports + s.reports
+    WHEN NOT MATCHED THEN INSERT (product_id, country, reporters, reports)
+      VALUES (s.product_id, s.country, s.reporters, s.reports)
+    """;
+
+  private static final Comparator<Delta> KEY_ORDER = Comparator
+    .comparing(Delta::productId)
+    .thenComparing(Delta::country);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final SqlDialect dialect;
+
+  public ProductStatsRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.dialect = SqlDialect.of(jdbcTemplate.getDataSource());
+  }
+
+  /**
+   * Adds changes to the statistics, in the caller's transaction. Changes to the same
+   * product and country are summed first and rows are written in key order, so
+   * concurrent writers lock them in a consistent order.
+   *
+   * @param deltas the changes; those without a product are ignored
+   */
+  public void add(Collection<Delta> deltas) {
+    Map<Delta, long[]> sums = new TreeMap<>(KEY_ORDER);
+    for (Delta delta : deltas) {
+      if (delta.productId() == null) {
+        continue;
+      }
+      long[] sum = sums.computeIfAbsent(delta, key -> new long[2]);
+      sum[0] += delta.reporters();
+      sum[1] += delta.reports();
+    }
+    List<Object[]> batchArgs = new ArrayList<>(sums.size());
+    sums.forEach(
+      (key, sum) -> {
+        if (sum[0] != 0 || sum[1] != 0) {
+          batchArgs.add(new Object[] { key.productId(), key.country(), sum[0], sum[1] });
+        }
+      }
+    );
+    if (batchArgs.isEmpty()) {
+      return;
+    }
+    if (dialect == SqlDialect.POSTGRESQL) {
+      jdbcTemplate.batchUpdate(POSTGRESQL_ADD, batchArgs);
+      return;
+    }
+    for (Object[] args : batchArgs) {
+      try {
+        jdbcTemplate.update(H2_ADD, args);
+      } catch (DuplicateKeyException e) {
+        // H2's MERGE is not atomic against a concurrent insert of the same key; the
+        // row exists now, so a second attempt takes the update branch.
+        jdbcTemplate.update(H2_ADD, args);
+      }
+    }
+  }
+
+  /**
+   * Reads the statistics of one product.
+   *
+   * @param productId the product
+   * @return one entry per country, empty if the product has no complaints
+   */
+  @Transactional(readOnly = true)
+  public List<CountryStats> findByProductId(String productId) {
+    return jdbcTemplate.query(
+      "SELECT country, reporters, reports FROM product_stats " +
+      "WHERE product_id = ? AND (reporters <> 0 OR reports <> 0) " +
+      "ORDER BY reports DESC, country",
+      (rs, rowNum) ->
+        new CountryStats(
+          fromCountryKey(rs.getString("country")),
+          rs.getLong("reporters"),
+          rs.getLong("reports")
+        ),
+      productId
+    );
+  }
+
+  /**
+   * Lists products that have complaints, in product order, for walking the complaints
+   * table in chunks.
+   *
+   * @param after only products after this one; {@code null} to start at the first
+   * @param limit the number of products to return
+   * @return the next products with complaints
+   */
+  @Transactional(readOnly = true)
+  public List<String> findComplaintProductIds(String after, int limit) {
+    return after == null
+      ? jdbcTemplate.queryForList(
+        "SELECT DISTINCT product_id FROM complaints WHERE product_id IS NOT NULL " +
+        "ORDER BY product_id LIMIT ?",
+        String.class,
+        limit
+      )
+      : jdbcTemplate.queryForList(
+        "SELECT DISTINCT product_id FROM complaints WHERE product_id > ? " +
+        "ORDER BY product_id LIMIT ?",
+        String.class,
+        after,
+        limit
+      );
+  }
+
+  /**
+   * Replaces the statistics of the given products with counts recomputed from the
+   * complaints table, in one transaction. On PostgreSQL the statistics are locked
+   * against writes first: a complaint write either committed before and is counted, or
+   * waits and adds to the rebuilt rows afterwards, so none is lost or counted twice and
+   * no write can insert a key between the delete and the insert. Reads go on.
+   *
+   * @param productIds the products to rebuild
+   */
+  @Transactional
+  public void rebuild(List<String> productIds) {
+    if (productIds.isEmpty()) {
+      return;
+    }
+    String placeholders = String.join(", ", Collections.nCopies(productIds.size(), "?"));
+    Object[] args = productIds.toArray();
+    if (dialect == SqlDialect.POSTGRESQL) {
+      jdbcTemplate.execute("LOCK TABLE product_stats IN EXCLUSIVE MODE");
+    }
+    jdbcTemplate.update(
+      "DELETE FROM product_stats WHERE product_id IN (" + placeholders + ")",
+      args
+    );
+    jdbcTemplate.update(
+      "INSERT INTO product_stats (product_id, country, reporters, reports) " +
+      "SELECT product_id, COALESCE(country, ''), COUNT(*), " +
+      "SUM(COALESCE(report_count, 1)) FROM complaints " +
+      "WHERE product_id IN (" +
+      placeholders +
+      ") GROUP BY product_id, COALESCE(country, '')",
+      args
+    );
+  }
+
+  static String countryKey(String country) {
+    return country == null ? PENDING_COUNTRY : country;
+  }
+
+  private static String fromCountryKey(String country) {
+    return PENDING_COUNTRY.equals(country) ? null : country;
+  }
+
+  /**
+   * A change to the statistics of one product and country.
+   *
+   * @param productId the product
+   * @param country   the country key, {@link #PENDING_COUNTRY} while unresolved
+   * @param reporters the change in complaints, and so in distinct reporters
+   * @param reports   the change in reports
+   */
+  public record Delta(String productId, String country, long reporters, long reports) {
+    public static Delta of(
+      String productId,
+      String country,
+      long reporters,
+      long reports
+    ) {
+      return new Delta(productId, countryKey(country), reporters, reports);
+    }
+  }
+
+  /**
+   * The statistics of a product in one country.
+   *
+   * @param country   the country, or {@code null} for complaints still being resolved
+   * @param reporters distinct reporters, which is also the number of complaints
+   * @param reports   the sum of the report counts of those complaints
+   */
+  public record CountryStats(String country, long reporters, long reports) {}
+}
@@ -0,0 +1,522 @@
+package com.bbockowski.apicomplaint.repository;
+
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
+import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ComplaintIds.CreationRange;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.UpsertResult;
+import io.r2dbc.spi.Readable;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Complaint queries for the reactive profile, issued through R2DBC against the same
+ * schema as {@link ComplaintRepository}. Edits are single atomic statements; an upsert
+ * also adds to the product statistics and runs both statements in one transaction.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveComplaintRepository {
+  // As in ComplaintRepositoryCustomImpl, PostgreSQL dedupes through complaint_keys, as
+  // the partitioned complaints table cannot have a unique (product_id, reporter) index.
+  private static final String POSTGRESQL_CLAIM_KEY =
+    """
+    INSERT INTO complaint_keys AS k (product_id, reporter, id, created_at)
+    VALUES (:productId, :reporter, :id, :now)
+    ON CONFLICT (product_id, reporter) DO UPDATE SET id = k.id
+    RETURNING id, created_at
+    """;
+
+  private static final String POSTGRESQL_INSERT =
+    """
+    INSERT INTO complaints (%1$s)
+    VALUES (:id, 0, :productId, :content, :now, :now, :reporter, :country, 1, :pendingIp)
+    RETURNING %1$s
+    """.formatted(ComplaintRepositoryCustomImpl.COMPLAINT_COLUMNS);
+
+  private static final String POSTGRESQL_ADD_REPORT =
+    """
+    UPDATE complaints
+    SET report_count = report_count + 1, version = version + 1, modified_at = :now
+    WHERE id = :id AND created_at = :createdAt
+    RETURNING %1$s
+    """.formatted(ComplaintRepositoryCustomImpl.COMPLAINT_COLUMNS);
+
+  private static final String H2_UPSERT =
+    """
+    SELECT %1$s FROM FINAL TABLE (
+    MERGE INTO complaints c
+    USING (VALUES (CAST(:id AS UUID), CAST(:productId AS VARCHAR),
+                   CAST(:content AS VARCHAR), CAST(:now AS TIMESTAMP),
+                   CAST(:reporter AS VARCHAR), CAST(:country AS VARCHAR),
+                   CAST(:pendingIp AS VARCHAR)))
+      AS s(id, product_id, content, modified_at, reporter, country, pending_ip)
+    ON c.product_id = s.product_id AND c.reporter = s.reporter
+    WHEN MATCHED THEN UPDATE
+      SET report_count = c.report_count + 1,
+          version = c.version + 1,
+          modified_at = s.modified_at
+    WHEN NOT MATCHED THEN INSERT (%1$s)
+      VALUES (s.id, 0, s.product_id, s.content, s.modified_at, s.modified_at,
+              s.reporter, s.country, 1, s.pending_ip))
+    """.formatted(ComplaintRepositoryCustomImpl.COMPLAINT_COLUMNS);
+
+  private static final String POSTGRESQL_ADD_STATS =
+    """
+    INSERT INTO product_stats (product_id, country, reporters, reports)
+    VALUES (:productId, :country, :reporters, 1)
+    ON CONFLICT (product_id, country) DO UPDATE
+    SET reporters = product_stats.reporters + EXCLUDED.reporters,
+        reports = product_stats.reports + EXCLUDED.reports
+    """;
+
+  private static final String H2_ADD_STATS =
+    """
+    MERGE INTO product_stats p
+    USING (VALUES (CAST(:productId AS VARCHAR), CAST(:country AS VARCHAR),
+                   CAST(:reporters AS BIGINT)))
+      AS s(product_id, country, reporters)
+    ON p.product_id = s.product_id AND p.country = s.country
+    WHEN MATCHED THEN UPDATE
+      SET reporters = p.reporters + s.reporters,
+          reports = p.reports + 1
+    WHEN NOT MATCHED THEN INSERT (product_id, country, reporters, reports)
+      VALUES (s.product_id, s.country, s.reporters, 1)
+    """;
+
+  private static final String SELECT_SUMMARY =
+    "SELECT id, product_id, created_at, reporter, country, report_count FROM complaints";
+
+  private static final String NEWEST_FIRST = " ORDER BY created_at DESC, id DESC";
+
+  // One complaint, within the creation times its id allows; see bindId.
+  private static final String BY_ID =
+    " WHERE id = :id AND created_at >= :createdFrom AND created_at < :createdTo";
+
+  // Sortable listing properties and their columns; anything else is rejected.
+  private static final Map<String, String> SORT_COLUMNS = Map.of(
+    "id",
+    "id",
+    "productId",
+    "product_id",
+    "createdAt",
+    "created_at",
+    "reporter",
+    "reporter",
+    "country",
+    "country",
+    "reportCount",
+    "report_count"
+  );
+
+  private final DatabaseClient databaseClient;
+  private final SqlDialect dialect;
+  // Not a bean: a second transaction manager would displace the JPA one.
+  private final TransactionalOperator transactionalOperator;
+
+  public ReactiveComplaintRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+    this.dialect = SqlDialect.of(databaseClient.getConnectionFactory());
+    this.transactionalOperator =
+      TransactionalOperator.create(
+        new R2dbcTransactionManager(databaseClient.getConnectionFactory())
+      );
+  }
+
+  /**
+   * Reactive counterpart of {@link ComplaintRepositoryCustom#upsert}: inserts the
+   * complaint or increments the report count of the existing one for its product and
+   * reporter, and adds the report to the product statistics in the same transaction.
+   *
+   * @param complaint the complaint to insert; its id, if unset, is generated
+   * @return the stored complaint and whether it was newly created
+   */
+  public Mono<UpsertResult> upsert(Complaint complaint) {
+    Instant createdAt = Instant.now();
+    if (complaint.getId() == null) {
+      complaint.setId(ComplaintIds.next(createdAt));
+    }
+    LocalDateTime now = localDateTime(createdAt);
+    Mono<Complaint> stored;
+    if (dialect == SqlDialect.POSTGRESQL) {
+      stored = upsertClaimed(complaint, now);
+    } else {
+      // H2's MERGE is not atomic against a concurrent insert of the same key; the row
+      // exists after a duplicate key error, so a second attempt takes the update branch.
+      stored =
+        upsertStatement(H2_UPSERT, complaint, now)
+          .onErrorResume(
+            DuplicateKeyException.class,
+            e -> upsertStatement(H2_UPSERT, complaint, now)
+          );
+    }
+    return stored
+      .flatMap(
+        row -> {
+          boolean created = complaint.getId().equals(row.getId());
+          return addStats(row, created).thenReturn(new UpsertResult(row, created));
+        }
+      )
+      .as(transactionalOperator::transactional);
+  }
+
+  private Mono<Complaint> upsertClaimed(Complaint complaint, LocalDateTime now) {
+    if (complaint.getProductId() == null || complaint.getReporter() == null) {
+      // Without a complete key nothing can match, as under a unique index.
+      return upsertStatement(POSTGRESQL_INSERT, complaint, now);
+    }
+    return databaseClient
+      .sql(POSTGRESQL_CLAIM_KEY)
+      .bind("productId", complaint.getProductId())
+      .bind("reporter", complaint.getReporter())
+      .bind("id", complaint.getId())
+      .bind("now", now)
+      .map(
+        row ->
+          new ClaimedKey(
+            row.get("id", UUID.class),
+            row.get("created_at", LocalDateTime.class)
+          )
+      )
+      .one()
+      // A separate statement, so that it sees the complaint of a key claimed and
+      // committed by another transaction while this one waited for it.
+      .flatMap(
+        claimed ->
+          complaint.getId().equals(claimed.id())
+            ? upsertStatement(POSTGRESQL_INSERT, complaint, now)
+            : databaseClient
+              .sql(POSTGRESQL_ADD_REPORT)
+              .bind("now", now)
+              .bind("id", claimed.id())
+              .bind("createdAt", claimed.createdAt())
+              .map(ReactiveComplaintRepository::mapComplaint)
+              .one()
+      );
+  }
+
+  private Mono<Long> addStats(Complaint stored, boolean created) {
+    if (stored.getProductId() == null) {
+      return Mono.empty();
+    }
+    if (dialect == SqlDialect.POSTGRESQL) {
+      return statsStatement(POSTGRESQL_ADD_STATS, stored, created);
+    }
+    // As for complaints, H2 may report a concurrently inserted key as a duplicate.
+    return statsStatement(H2_ADD_STATS, stored, created)
+      .onErrorResume(
+        DuplicateKeyException.class,
+        e -> statsStatement(H2_ADD_STATS, stored, created)
+      );
+  }
+
+  private Mono<Long> statsStatement(String sql, Complaint stored, boolean created) {
+    return databaseClient
+      .sql(sql)
+      .bind("productId", stored.getProductId())
+      .bind("country", ProductStatsRepository.countryKey(stored.getCountry()))
+      .bind("reporters", created ? 1L : 0L)
+      .fetch()
+      .rowsUpdated();
+  }
+
+  public Mono<ComplaintResponse> findResponseById(UUID id) {
+    return bindId(
+      databaseClient.sql(
+        "SELECT id, product_id, content, created_at, reporter, country, report_count, " +
+        "version FROM complaints" +
+        BY_ID
+      ),
+      id
+    )
+      .map(ReactiveComplaintRepository::mapResponse)
+      .one();
+  }
+
+  public Mono<Long> findVersionById(UUID id) {
+    return bindId(databaseClient.sql("SELECT version FROM complaints" + BY_ID), id)
+      .map(row -> row.get("version", Long.class))
+      .one();
+  }
+
+  /**
+   * Reads one page of the listing with {@code LIMIT}/{@code OFFSET}, fetching
+   * {@code limit} rows from the page's offset.
+   *
+   * @param filter   the complaints to list; unset criteria match every complaint
+   * @param pageable the page and its sort, by listed properties only
+   * @param limit    the number of rows to fetch
+   * @return the summaries on the page
+   */
+  public Flux<ComplaintSummary> findSummaries(
+    ComplaintFilter filter,
+    Pageable pageable,
+    int limit
+  ) {
+    String sql =
+      SELECT_SUMMARY +
+      where(filter) +
+      orderBy(pageable.getSort()) +
+      " LIMIT " +
+      limit +
+      " OFFSET " +
+      (pageable.isPaged() ? pageable.getOffset() : 0);
+    return bindFilter(databaseClient.sql(sql), filter)
+      .map(ReactiveComplaintRepository::mapSummary)
+      .all();
+  }
+
+  /** Counts the complaints matching the filter. */
+  public Mono<Long> count(ComplaintFilter filter) {
+    return bindFilter(
+      databaseClient.sql("SELECT COUNT(*) AS total FROM complaints" + where(filter)),
+      filter
+    )
+      .map(row -> row.get("total", Long.class))
+      .one();
+  }
+
+  public Flux<ComplaintSummary> findNewest(int limit) {
+    return databaseClient
+      .sql(SELECT_SUMMARY + NEWEST_FIRST + " LIMIT :limit")
+      .bind("limit", limit)
+      .map(ReactiveComplaintRepository::mapSummary)
+      .all();
+  }
+
+  public Flux<ComplaintSummary> findOlderThan(Timestamp createdAt, UUID id, int limit) {
+    return databaseClient
+      .sql(
+        SELECT_SUMMARY +
+        " WHERE created_at <= :createdAt AND (created_at, id) < (:createdAt, :id)" +
+        NEWEST_FIRST +
+        " LIMIT :limit"
+      )
+      .bind("createdAt", createdAt.toLocalDateTime())
+      .bind("id", id)
+      .bind("limit", limit)
+      .map(ReactiveComplaintRepository::mapSummary)
+      .all();
+  }
+
+  /** Complaints just newer than the position, nearest first. */
+  public Flux<ComplaintSummary> findNewerThan(Timestamp createdAt, UUID id, int limit) {
+    return databaseClient
+      .sql(
+        SELECT_SUMMARY +
+        " WHERE created_at >= :createdAt AND (created_at, id) > (:createdAt, :id)" +
+        " ORDER BY created_at, id LIMIT :limit"
+      )
+      .bind("createdAt", createdAt.toLocalDateTime())
+      .bind("id", id)
+      .bind("limit", limit)
+      .map(ReactiveComplaintRepository::mapSummary)
+      .all();
+  }
+
+  /**
+   * Replaces the content of a complaint and bumps its version.
+   *
+   * @return the number of updated rows, 0 if the complaint does not exist
+   */
+  public Mono<Long> updateContent(UUID id, String content) {
+    return bindId(
+      databaseClient.sql(
+        "UPDATE complaints SET content = :content, version = version + 1, " +
+        "modified_at = :now" +
+        BY_ID
+      ),
+      id
+    )
+      .bind("content", content)
+      .bind("now", LocalDateTime.now())
+      .fetch()
+      .rowsUpdated();
+  }
+
+  /**
+   * Replaces the content of a complaint only while it is at the expected version.
+   *
+   * @return the number of updated rows, 0 if the complaint is missing or has moved on
+   */
+  public Mono<Long> updateContentIfVersion(
+    UUID id,
+    long expectedVersion,
+    String content
+  ) {
+    return bindId(
+      databaseClient.sql(
+        "UPDATE complaints SET content = :content, version = version + 1, " +
+        "modified_at = :now" +
+        BY_ID +
+        " AND version = :version"
+      ),
+      id
+    )
+      .bind("content", content)
+      .bind("now", LocalDateTime.now())
+      .bind("version", expectedVersion)
+      .fetch()
+      .rowsUpdated();
+  }
+
+  private Mono<Complaint> upsertStatement(
+    String sql,
+    Complaint complaint,
+    LocalDateTime now
+  ) {
+    GenericExecuteSpec spec = databaseClient
+      .sql(sql)
+      .bind("id", complaint.getId())
+      .bind("now", now);
+    spec = bind(spec, "productId", complaint.getProductId());
+    spec = bind(spec, "content", complaint.getContent());
+    spec = bind(spec, "reporter", complaint.getReporter());
+    spec = bind(spec, "country", complaint.getCountry());
+    spec = bind(spec, "pendingIp", complaint.getPendingIp());
+    return spec.map(ReactiveComplaintRepository::mapComplaint).one();
+  }
+
+  private static GenericExecuteSpec bind(
+    GenericExecuteSpec spec,
+    String name,
+    String value
+  ) {
+    return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+  }
+
+  private static GenericExecuteSpec bindId(GenericExecuteSpec spec, UUID id) {
+    CreationRange created = ComplaintIds.creationRange(id);
+    return spec
+      .bind("id", id)
+      .bind("createdFrom", created.from().toLocalDateTime())
+      .bind("createdTo", created.to().toLocalDateTime());
+  }
+
+  // The same conditions as ComplaintListingRepositoryImpl, on named parameters.
+  private static String where(ComplaintFilter filter) {
+    StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+    if (filter.getProductId() != null) {
+      where.add("product_id = :productId");
+    }
+    if (filter.getReporter() != null) {
+      where.add("reporter = :reporter");
+    }
+    if (filter.getCountry() != null) {
+      where.add("country = :country");
+    }
+    if (filter.getCreatedFrom() != null) {
+      where.add("created_at >= :createdFrom");
+    }
+    if (filter.getCreatedTo() != null) {
+      where.add("created_at < :createdTo");
+    }
+    return where.toString();
+  }
+
+  private static GenericExecuteSpec bindFilter(
+    GenericExecuteSpec spec,
+    ComplaintFilter filter
+  ) {
+    if (filter.getProductId() != null) {
+      spec = spec.bind("productId", filter.getProductId());
+    }
+    if (filter.getReporter() != null) {
+      spec = spec.bind("reporter", filter.getReporter());
+    }
+    if (filter.getCountry() != null) {
+      spec = spec.bind("country", filter.getCountry());
+    }
+    if (filter.getCreatedFrom() != null) {
+      spec = spec.bind("createdFrom", localDateTime(filter.getCreatedFrom()));
+    }
+    if (filter.getCreatedTo() != null) {
+      spec = spec.bind("createdTo", localDateTime(filter.getCreatedTo()));
+    }
+    return spec;
+  }
+
+  // Creation times are stored as local times of this JVM, as JDBC writes them.
+  private static LocalDateTime localDateTime(Instant instant) {
+    return Timestamp.from(instant).toLocalDateTime();
+  }
+
+  private static String orderBy(Sort sort) {
+    if (sort.isUnsorted()) {
+      return " ORDER BY id DESC";
+    }
+    StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+    for (Sort.Order order : sort) {
+      String column = SORT_COLUMNS.get(order.getProperty());
+      if (column == null) {
+        throw new IllegalArgumentException(
+          "Cannot sort complaints by " + order.getProperty()
+        );
+      }
+      orderBy.add(column + (order.isAscending() ? " ASC" : " DESC"));
+    }
+    return orderBy.toString();
+  }
+
+  private static Timestamp timestamp(Readable row, String column) {
+    LocalDateTime value = row.get(column, LocalDateTime.class);
+    return value == null ? null : Timestamp.valueOf(value);
+  }
+
+  private static ComplaintSummary mapSummary(Readable row) {
+    return new ComplaintSummary(
+      row.get("id", UUID.class),
+      row.get("product_id", String.class),
+      timestamp(row, "created_at"),
+      row.get("reporter", String.class),
+      row.get("country", String.class),
+      row.get("report_count", Integer.class)
+    );
+  }
+
+  private static ComplaintResponse mapResponse(Readable row) {
+    ComplaintResponse response = new ComplaintResponse();
+    response.setId(row.get("id", UUID.class));
+    response.setProductId(row.get("product_id", String.class));
+    response.setContent(row.get("content", String.class));
+    response.setCreatedAt(timestamp(row, "created_at"));
+    response.setReporter(row.get("reporter", String.class));
+    response.setCountry(row.get("country", String.class));
+    response.setReportCount(row.get("report_count", Integer.class));
+    response.setVersion(row.get("version", Long.class));
+    return response;
+  }
+
+  private static Complaint mapComplaint(Readable row) {
+    Complaint complaint = new Complaint();
+    complaint.setId(row.get("id", UUID.class));
+    complaint.setVersion(row.get("version", Long.class));
+    complaint.setProductId(row.get("product_id", String.class));
+    complaint.setContent(row.get("content", String.class));
+    complaint.setCreatedAt(timestamp(row, "created_at"));
+    complaint.setModifiedAt(timestamp(row, "modified_at"));
+    complaint.setReporter(row.get("reporter", String.class));
+    complaint.setCountry(row.get("country", String.class));
+    complaint.setReportCount(row.get("report_count", Integer.class));
+    complaint.setPendingIp(row.get("pending_ip", String.class));
+    return complaint;
+  }
+
+  private record ClaimedKey(UUID id, LocalDateTime createdAt) {}
+}
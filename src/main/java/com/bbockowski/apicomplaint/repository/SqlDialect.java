@@ -0,0 +1,34 @@
+package com.bbockowski.apicomplaint.repository;
+
+import io.r2dbc.spi.ConnectionFactory;
+import java.sql.DatabaseMetaData;
+import javax.sql.DataSource;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+/**
+ * The databases native complaint SQL is written for. PostgreSQL runs in production; H2
+ * backs the tests and gets equivalent statements where the syntax differs.
+ */
+public enum SqlDialect {
+  POSTGRESQL,
+  H2;
+
+  public static SqlDialect of(DataSource dataSource) {
+    try {
+      String productName = JdbcUtils.extractDatabaseMetaData(
+        dataSource,
+        DatabaseMetaData::getDatabaseProductName
+      );
+      return "H2".equalsIgnoreCase(productName) ? H2 : POSTGRESQL;
+    } catch (MetaDataAccessException e) {
+      throw new IllegalStateException("Cannot determine the database product", e);
+    }
+  }
+
+  public static SqlDialect of(ConnectionFactory connectionFactory) {
+    return "H2".equalsIgnoreCase(connectionFactory.getMetadata().getName())
+      ? H2
+      : POSTGRESQL;
+  }
+}
@@ -0,0 +1,212 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.BatchComplaintResponse;
+import com.bbockowski.apicomplaint.dto.BatchItemResult;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.mapper.ComplaintMapper;
+import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.BatchUpsert;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.UpsertResult;
+import com.bbockowski.apicomplaint.trending.TrendingProducts;
+import com.bbockowski.apicomplaint.writebehind.ReportCountWriteBehind;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores complaints submitted in bulk.
+ *
+ * <p>Items are read one at a time and stored in chunks, each in its own transaction.
+ * Repeats of one (productId, reporter) inside a chunk are merged into a single row
+ * change, so a chunk costs one locking select and at most two batched statements. A
+ * chunk that fails is retried key by key, so one bad item never fails its neighbours,
+ * and chunks that were already committed stay committed.
+ */
+@Slf4j
+@Service
+public class ComplaintBatchService {
+  private final ComplaintProperties.Batch properties;
+  private final ComplaintRepository complaintRepository;
+  private final ComplaintMapper complaintMapper;
+  private final CountryEnrichmentService countryEnrichmentService;
+  private final ReportCountWriteBehind reportCountWriteBehind;
+  private final ComplaintCache complaintCache;
+  private final TrendingProducts trendingProducts;
+  private final TransactionTemplate transactionTemplate;
+
+  public ComplaintBatchService(
+    ComplaintProperties complaintProperties,
+    ComplaintRepository complaintRepository,
+    ComplaintMapper complaintMapper,
+    CountryEnrichmentService countryEnrichmentService,
+    ReportCountWriteBehind reportCountWriteBehind,
+    ComplaintCache complaintCache,
+    TrendingProducts trendingProducts,
+    PlatformTransactionManager transactionManager
+  ) {
+    this.properties = complaintProperties.getBatch();
+    this.complaintRepository = complaintRepository;
+    this.complaintMapper = complaintMapper;
+    this.countryEnrichmentService = countryEnrichmentService;
+    this.reportCountWriteBehind = reportCountWriteBehind;
+    this.complaintCache = complaintCache;
+    this.trendingProducts = trendingProducts;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Stores every item of a batch, reporting the outcome of each one.
+   *
+   * @param items     the submitted complaints, read lazily; reading stops at the first
+   *                  item that cannot be parsed
+   * @param country   the country to store with every item, or {@code null}
+   * @param pendingIp the client address to resolve later, or {@code null}
+   * @return the per-item results in submission order
+   */
+  public BatchComplaintResponse createComplaints(
+    Iterator<AddComplaintRequest> items,
+    String country,
+    String pendingIp
+  ) {
+    List<BatchItemResult> results = new ArrayList<>();
+    List<IndexedItem> chunk = new ArrayList<>(properties.getChunkSize());
+    int maxItems = properties.getMaxItems();
+    int index = 0;
+    while (true) {
+      AddComplaintRequest item;
+      try {
+        if (!items.hasNext()) {
+          break;
+        }
+        item = items.next();
+      } catch (RuntimeException e) {
+        results.add(failed(index, "Malformed item: " + e.getMessage()));
+        break;
+      }
+      if (index >= maxItems) {
+        results.add(failed(index, "Batch exceeds the limit of " + maxItems + " items"));
+        break;
+      }
+      if (item == null || item.getProductId() == null || item.getReporter() == null) {
+        results.add(failed(index, "productId and reporter are required"));
+      } else {
+        item.setCountry(country);
+        item.setPendingIp(pendingIp);
+        chunk.add(new IndexedItem(index, item));
+        if (chunk.size() == properties.getChunkSize()) {
+          storeChunk(chunk, results);
+          chunk.clear();
+        }
+      }
+      index++;
+    }
+    if (!chunk.isEmpty()) {
+      storeChunk(chunk, results);
+    }
+    results.sort(Comparator.comparingInt(BatchItemResult::getIndex));
+    return summarize(results);
+  }
+
+  private void storeChunk(List<IndexedItem> chunk, List<BatchItemResult> results) {
+    Map<String, List<IndexedItem>> byKey = new LinkedHashMap<>();
+    for (IndexedItem item : chunk) {
+      byKey
+        .computeIfAbsent(
+          item.request().getProductId() + '\u0000' + item.request().getReporter(),
+          key -> new ArrayList<>()
+        )
+        .add(item);
+    }
+    List<List<IndexedItem>> groups = new ArrayList<>(byKey.values());
+    try {
+      results.addAll(storeGroups(groups));
+    } catch (RuntimeException e) {
+      log.warn("Storing a chunk of {} keys failed, retrying each", groups.size(), e);
+      for (List<IndexedItem> group : groups) {
+        try {
+          results.addAll(storeGroups(List.of(group)));
+        } catch (RuntimeException itemFailure) {
+          for (IndexedItem item : group) {
+            results.add(failed(item.index(), itemFailure.getMessage()));
+          }
+        }
+      }
+    }
+  }
+
+  private List<BatchItemResult> storeGroups(List<List<IndexedItem>> groups) {
+    List<BatchUpsert> upserts = new ArrayList<>(groups.size());
+    for (List<IndexedItem> group : groups) {
+      Complaint complaint = complaintMapper.toComplaint(group.get(0).request());
+      upserts.add(new BatchUpsert(complaint, group.size()));
+    }
+    List<UpsertResult> stored = transactionTemplate.execute(
+      status -> {
+        List<UpsertResult> upserted = complaintRepository.upsertBatch(upserts);
+        for (int i = 0; i < upserted.size(); i++) {
+          UpsertResult result = upserted.get(i);
+          Complaint complaint = result.complaint();
+          trendingProducts.recordAfterCommit(
+            complaint.getProductId(),
+            upserts.get(i).reportCount()
+          );
+          if (!result.created()) {
+            complaintCache.invalidateAfterCommit(complaint.getId());
+          } else if (complaint.getPendingIp() != null) {
+            countryEnrichmentService.enqueueAfterCommit(
+              complaint.getId(),
+              complaint.getPendingIp()
+            );
+          }
+        }
+        return upserted;
+      }
+    );
+
+    List<BatchItemResult> results = new ArrayList<>();
+    for (int i = 0; i < groups.size(); i++) {
+      UpsertResult result = stored.get(i);
+      Complaint complaint = result.complaint();
+      // The cached copy used by write-behind would now understate the report count.
+      reportCountWriteBehind.forget(complaint.getProductId(), complaint.getReporter());
+      ComplaintResponse response = complaintMapper.toResponse(complaint);
+      List<IndexedItem> group = groups.get(i);
+      for (int j = 0; j < group.size(); j++) {
+        BatchItemResult.Status status = j == 0 && result.created()
+          ? BatchItemResult.Status.CREATED
+          : BatchItemResult.Status.INCREMENTED;
+        results.add(new BatchItemResult(group.get(j).index(), status, response, null));
+      }
+    }
+    return results;
+  }
+
+  private static BatchItemResult failed(int index, String error) {
+    return new BatchItemResult(index, BatchItemResult.Status.FAILED, null, error);
+  }
+
+  private static BatchComplaintResponse summarize(List<BatchItemResult> results) {
+    BatchComplaintResponse response = new BatchComplaintResponse();
+    for (BatchItemResult result : results) {
+      switch (result.getStatus()) {
+        case CREATED -> response.setCreated(response.getCreated() + 1);
+        case INCREMENTED -> response.setIncremented(response.getIncremented() + 1);
+        case FAILED -> response.setFailed(response.getFailed() + 1);
+      }
+    }
+    response.setItems(results);
+    return response;
+  }
+
+  private record IndexedItem(int index, AddComplaintRequest request) {}
+}
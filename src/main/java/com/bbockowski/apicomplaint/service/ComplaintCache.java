@@ -0,0 +1,179 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Size-bounded, TTL-expiring cache of complaints by id.
+ *
+ * <p>Writes on this node invalidate an entry once they commit by leaving a stamped
+ * tombstone in its place. Every load is stamped when it starts and is only stored if it
+ * started after the newest invalidation of its complaint, so a slow read that began
+ * before a commit can never put the older version back. Writes on other nodes become
+ * visible when entries expire.
+ */
+@Component
+public class ComplaintCache implements MeterBinder {
+  private final ComplaintProperties.Cache properties;
+  private final Cache<UUID, Entry> cache;
+
+  /** Orders loads and invalidations; only compared, never read as a time. */
+  private final AtomicLong clock = new AtomicLong();
+  /** Loads started at or before this stamp may be stale for any complaint. */
+  private final AtomicLong floor = new AtomicLong();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public ComplaintCache(ComplaintProperties complaintProperties) {
+    this.properties = complaintProperties.getCache();
+    this.cache =
+      Caffeine
+        .newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getTtl())
+        .<UUID, Entry>removalListener(
+          (id, entry, cause) -> {
+            if (!cause.wasEvicted()) {
+              return;
+            }
+            if (entry.complaint() == null) {
+              // A lost tombstone no longer guards its complaint; guard all of them.
+              floor.accumulateAndGet(entry.stamp(), Math::max);
+            } else {
+              evictions.increment();
+            }
+          }
+        )
+        .build();
+  }
+
+  /**
+   * Returns the cached complaint, loading it with {@code loader} on a miss.
+   *
+   * @param id     the complaint id
+   * @param loader reads the complaint from the database
+   * @return the cached or freshly loaded complaint
+   */
+  public ComplaintResponse get(UUID id, Function<UUID, ComplaintResponse> loader) {
+    if (!properties.isEnabled()) {
+      return loader.apply(id);
+    }
+    Entry cached = cache.getIfPresent(id);
+    if (cached != null && cached.complaint() != null) {
+      hits.increment();
+      return cached.complaint();
+    }
+    misses.increment();
+    long started = clock.incrementAndGet();
+    ComplaintResponse loaded = loader.apply(id);
+    if (started > floor.get()) {
+      Entry entry = new Entry(loaded, started);
+      cache
+        .asMap()
+        .compute(
+          id,
+          (key, current) ->
+            current == null || current.stamp() < started ? entry : current
+        );
+      if (started <= floor.get()) {
+        // A bulk invalidation ran while storing and may have missed this entry.
+        cache.asMap().remove(id, entry);
+      }
+    }
+    return loaded;
+  }
+
+  /** Invalidates a complaint once the current transaction commits. */
+  public void invalidateAfterCommit(UUID id) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidate(id);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          invalidate(id);
+        }
+      }
+    );
+  }
+
+  /** Invalidates complaints whose change has already been committed. */
+  public void invalidate(Collection<UUID> ids) {
+    if (properties.isEnabled()) {
+      ids.forEach(this::invalidate);
+    }
+  }
+
+  /**
+   * Invalidates every cached complaint matching {@code changed}, for committed writes
+   * that know complaints by something other than their id. Loads already running may
+   * have read any complaint, so none of them is stored.
+   */
+  public void invalidateIf(Predicate<ComplaintResponse> changed) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    floor.accumulateAndGet(clock.incrementAndGet(), Math::max);
+    cache
+      .asMap()
+      .values()
+      .removeIf(entry -> entry.complaint() != null && changed.test(entry.complaint()));
+  }
+
+  public long estimatedSize() {
+    return cache.estimatedSize();
+  }
+
+  private void invalidate(UUID id) {
+    cache.put(id, new Entry(null, clock.incrementAndGet()));
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter
+      .builder("complaints.cache.requests", hits, LongAdder::sum)
+      .tag("result", "hit")
+      .register(registry);
+    FunctionCounter
+      .builder("complaints.cache.requests", misses, LongAdder::sum)
+      .tag("result", "miss")
+      .register(registry);
+    FunctionCounter
+      .builder("complaints.cache.evictions", evictions, LongAdder::sum)
+      .description("Complaints dropped to stay within the size bound")
+      .register(registry);
+    Gauge
+      .builder("complaints.cache.size", this, ComplaintCache::estimatedSize)
+      .description("Cached complaints, including invalidation markers")
+      .register(registry);
+  }
+
+  /**
+   * A cached complaint, or a tombstone when {@code complaint} is {@code null}.
+   *
+   * @param stamp when the complaint was loaded or invalidated
+   */
+  private record Entry(ComplaintResponse complaint, long stamp) {}
+}
@@ -0,0 +1,62 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cached estimate of the number of complaints, refreshed in the background so listing
+ * requests never wait for it.
+ */
+@Slf4j
+@Component
+public class ComplaintCountEstimate {
+  private static final long UNKNOWN = -1;
+
+  private final ComplaintProperties.Listing properties;
+  private final ComplaintRepository complaintRepository;
+  private final TaskScheduler taskScheduler;
+
+  private volatile long estimate = UNKNOWN;
+
+  public ComplaintCountEstimate(
+    ComplaintProperties complaintProperties,
+    ComplaintRepository complaintRepository,
+    TaskScheduler taskScheduler
+  ) {
+    this.properties = complaintProperties.getListing();
+    this.complaintRepository = complaintRepository;
+    this.taskScheduler = taskScheduler;
+  }
+
+  @PostConstruct
+  void start() {
+    taskScheduler.scheduleWithFixedDelay(
+      this::refresh,
+      Instant.now().plus(properties.getEstimateRefreshInterval()),
+      properties.getEstimateRefreshInterval()
+    );
+  }
+
+  /** Returns the cached estimate, loading it on first use. */
+  public long get() {
+    long current = estimate;
+    if (current == UNKNOWN) {
+      refresh();
+      current = Math.max(estimate, 0);
+    }
+    return current;
+  }
+
+  void refresh() {
+    try {
+      estimate = complaintRepository.estimateCount();
+    } catch (RuntimeException e) {
+      log.warn("Refreshing the complaint count estimate failed", e);
+    }
+  }
+}
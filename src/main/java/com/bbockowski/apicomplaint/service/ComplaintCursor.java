@@ -0,0 +1,73 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
+import com.bbockowski.apicomplaint.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Position in the complaint listing, which is ordered newest first by
+ * {@code (created_at, id)}. Encoded as an opaque URL-safe token so clients cannot depend
+ * on its contents.
+ *
+ * @param createdAt creation time of the complaint the cursor points at
+ * @param id        id of that complaint, breaking ties between equal timestamps
+ * @param direction whether the page wanted lies after (older) or before (newer) it
+ */
+record ComplaintCursor(Instant createdAt, UUID id, Direction direction) {
+  private static final String SEPARATOR = "|";
+
+  enum Direction {
+    NEXT,
+    PREVIOUS,
+  }
+
+  static ComplaintCursor of(ComplaintSummary complaint, Direction direction) {
+    return new ComplaintCursor(
+      complaint.getCreatedAt().toInstant(),
+      complaint.getId(),
+      direction
+    );
+  }
+
+  static ComplaintCursor decode(String token) {
+    try {
+      byte[] decoded = Base64.getUrlDecoder().decode(token);
+      String[] parts = new String(decoded, StandardCharsets.UTF_8).split(
+        Pattern.quote(SEPARATOR)
+      );
+      if (parts.length != 4) {
+        throw new IllegalArgumentException("expected 4 fields");
+      }
+      return new ComplaintCursor(
+        Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2])),
+        UUID.fromString(parts[3]),
+        parts[0].equals("p") ? Direction.PREVIOUS : Direction.NEXT
+      );
+    } catch (RuntimeException e) {
+      throw new InvalidCursorException("Invalid cursor: " + token, e);
+    }
+  }
+
+  String encode() {
+    String raw = String.join(
+      SEPARATOR,
+      direction == Direction.PREVIOUS ? "p" : "n",
+      Long.toString(createdAt.getEpochSecond()),
+      Integer.toString(createdAt.getNano()),
+      id.toString()
+    );
+    return Base64
+      .getUrlEncoder()
+      .withoutPadding()
+      .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  Timestamp createdAtTimestamp() {
+    return Timestamp.from(createdAt);
+  }
+}
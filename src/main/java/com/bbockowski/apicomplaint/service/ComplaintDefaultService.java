@@ -1,10 +1,13 @@
 package com.bbockowski.apicomplaint.service;
 
 import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.ComplaintCursorPage;
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse.TotalMode;
 import com.bbockowski.apicomplaint.dto.ComplaintResponse;
 import com.bbockowski.apicomplaint.dto.EditComplaintRequest;
 import java.util.UUID;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
@@ -14,7 +17,26 @@ public interface ComplaintDefaultService {
 
   ComplaintResponse editComplaint(EditComplaintRequest editComplaintRequest);
 
+  /**
+   * Edits a complaint only if it is still at the version the client last saw.
+   *
+   * @throws com.bbockowski.apicomplaint.exception.ComplaintVersionMismatchException if
+   *     the complaint has changed since
+   */
+  ComplaintResponse editComplaint(
+    EditComplaintRequest editComplaintRequest,
+    long expectedVersion
+  );
+
   ComplaintResponse getComplaint(UUID id);
 
-  Page<ComplaintResponse> getAllComplaints(Pageable pageable);
+  long getComplaintVersion(UUID id);
+
+  ComplaintListResponse getAllComplaints(
+    ComplaintFilter filter,
+    Pageable pageable,
+    TotalMode totalMode
+  );
+
+  ComplaintCursorPage getComplaints(String cursor, int size);
 }
@@ -1,56 +1,91 @@
 package com.bbockowski.apicomplaint.service;
 
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.config.ComplaintProperties.Edit.Locking;
 import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.ComplaintCursorPage;
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse.TotalMode;
 import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
 import com.bbockowski.apicomplaint.dto.EditComplaintRequest;
 import com.bbockowski.apicomplaint.exception.ComplaintCreateException;
 import com.bbockowski.apicomplaint.exception.ComplaintNotFoundException;
+import com.bbockowski.apicomplaint.exception.ComplaintVersionMismatchException;
+import com.bbockowski.apicomplaint.mapper.ComplaintMapper;
 import com.bbockowski.apicomplaint.model.Complaint;
 import com.bbockowski.apicomplaint.repository.ComplaintRepository;
-import jakarta.transaction.Transactional;
-import java.sql.Timestamp;
-import java.time.Instant;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.UpsertResult;
+import com.bbockowski.apicomplaint.trending.TrendingProducts;
+import com.bbockowski.apicomplaint.writebehind.ReportCountWriteBehind;
+import io.github.resilience4j.retry.annotation.Retry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+/** Default complaint operations; reads select DTOs in read-only transactions. */
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class ComplaintDefaultServiceImpl implements ComplaintDefaultService {
+  private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
   private final ComplaintRepository complaintRepository;
-  private final ModelMapper modelMapper;
+  private final ComplaintMapper complaintMapper;
+  private final CountryEnrichmentService countryEnrichmentService;
+  private final ReportCountWriteBehind reportCountWriteBehind;
+  private final ComplaintCountEstimate complaintCountEstimate;
+  private final ComplaintProperties complaintProperties;
+  private final ComplaintCache complaintCache;
+  private final ComplaintSubmissionMetrics submissionMetrics;
+  private final TrendingProducts trendingProducts;
 
   @Override
   public ComplaintResponse createComplaint(AddComplaintRequest addComplaintRequest) {
     try {
-      Optional<Complaint> existingComplaintOpt = complaintRepository.findByProductIdAndReporter(
+      Optional<ComplaintResponse> incremented = reportCountWriteBehind.tryIncrement(
         addComplaintRequest.getProductId(),
         addComplaintRequest.getReporter()
       );
+      if (incremented.isPresent()) {
+        submissionMetrics.recordJournaled();
+        trendingProducts.record(addComplaintRequest.getProductId(), 1);
+        return incremented.get();
+      }
 
-      if (existingComplaintOpt.isPresent()) {
-        Complaint existingComplaint = existingComplaintOpt.get();
-        existingComplaint.setReportCount(existingComplaint.getReportCount() + 1);
-        complaintRepository.save(existingComplaint);
-
-        return modelMapper.map(existingComplaint, ComplaintResponse.class);
+      UpsertResult result = complaintRepository.upsert(
+        complaintMapper.toComplaint(addComplaintRequest)
+      );
+      Complaint storedComplaint = result.complaint();
+      if (result.created()) {
+        submissionMetrics.recordCreated();
       } else {
-        Complaint newComplaint = new Complaint();
-        newComplaint.setProductId(addComplaintRequest.getProductId());
-        newComplaint.setContent(addComplaintRequest.getContent());
-        newComplaint.setCreatedAt(Timestamp.from(Instant.now()));
-        newComplaint.setReporter(addComplaintRequest.getReporter());
-        newComplaint.setCountry(addComplaintRequest.getCountry());
-        newComplaint.setReportCount(1);
-
-        complaintRepository.save(newComplaint);
-        return modelMapper.map(newComplaint, ComplaintResponse.class);
+        submissionMetrics.recordIncremented();
+        complaintCache.invalidateAfterCommit(storedComplaint.getId());
+      }
+      trendingProducts.recordAfterCommit(storedComplaint.getProductId(), 1);
+
+      if (result.created() && storedComplaint.getPendingIp() != null) {
+        countryEnrichmentService.enqueueAfterCommit(
+          storedComplaint.getId(),
+          storedComplaint.getPendingIp()
+        );
       }
+      ComplaintResponse response = complaintMapper.toResponse(storedComplaint);
+      reportCountWriteBehind.rememberAfterCommit(response);
+      return response;
     } catch (Exception e) {
       throw new ComplaintCreateException(
         "Failed to create or update complaint: " + e.getMessage(),
@@ -60,27 +95,148 @@ public class ComplaintDefaultServiceImpl implements ComplaintDefaultService {
   }
 
   @Override
+  // Cache hits need no transaction, and so no pooled connection.
+  @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
   public ComplaintResponse getComplaint(UUID id) {
-    Complaint complaintEntity = complaintRepository
-      .findById(id)
+    return complaintCache.get(id, this::loadComplaint);
+  }
+
+  private ComplaintResponse loadComplaint(UUID id) {
+    return complaintRepository
+      .findResponseById(id)
       .orElseThrow(
         () -> new ComplaintNotFoundException("Complaint not found with id: " + id)
       );
-
-    return modelMapper.map(complaintEntity, ComplaintResponse.class);
   }
 
   @Override
-  public Page<ComplaintResponse> getAllComplaints(Pageable pageable) {
+  @Transactional(readOnly = true)
+  public long getComplaintVersion(UUID id) {
     return complaintRepository
-      .findAll(pageable)
-      .map(complaint -> modelMapper.map(complaint, ComplaintResponse.class));
+      .findVersionById(id)
+      .orElseThrow(
+        () -> new ComplaintNotFoundException("Complaint not found with id: " + id)
+      );
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public ComplaintListResponse getAllComplaints(
+    ComplaintFilter filter,
+    Pageable pageable,
+    TotalMode totalMode
+  ) {
+    boolean filtered = filter.hasCriteria();
+    // The planner's estimate is of the whole table, so filtered listings get no total
+    // unless an exact count is asked for.
+    TotalMode mode = filtered && totalMode == TotalMode.ESTIMATED
+      ? TotalMode.NONE
+      : totalMode;
+    boolean counted = mode == TotalMode.EXACT;
+    Slice<ComplaintSummary> slice;
+    if (filtered) {
+      slice =
+        counted
+          ? complaintRepository.findSummaryPage(filter, pageable)
+          : complaintRepository.findSummaries(filter, pageable);
+    } else {
+      slice =
+        counted
+          ? complaintRepository.findSummaryPage(pageable)
+          : complaintRepository.findSummaries(pageable);
+    }
+    Long total = null;
+    if (counted) {
+      total = ((Page<ComplaintSummary>) slice).getTotalElements();
+    } else if (mode == TotalMode.ESTIMATED) {
+      // Never report fewer complaints than this very page proves to exist.
+      total =
+        Math.max(
+          complaintCountEstimate.get(),
+          (pageable.isPaged() ? pageable.getOffset() : 0) +
+          slice.getNumberOfElements() +
+          (slice.hasNext() ? 1 : 0)
+        );
+    }
+    return new ComplaintListResponse(
+      slice.getContent(),
+      slice.getNumber(),
+      slice.getSize(),
+      slice.hasNext(),
+      total,
+      mode
+    );
   }
 
   @Override
+  @Transactional(readOnly = true)
+  public ComplaintCursorPage getComplaints(String cursor, int size) {
+    int limit = Math.clamp(size, 1, MAX_CURSOR_PAGE_SIZE);
+    // One extra row tells whether another page follows without a count query.
+    Pageable fetch = PageRequest.ofSize(limit + 1);
+    if (cursor == null || cursor.isBlank()) {
+      return forwardPage(complaintRepository.findNewest(fetch), limit, false);
+    }
+    ComplaintCursor position = ComplaintCursor.decode(cursor);
+    if (position.direction() == ComplaintCursor.Direction.NEXT) {
+      List<ComplaintSummary> rows = complaintRepository.findOlderThan(
+        position.createdAtTimestamp(),
+        position.id(),
+        fetch
+      );
+      return forwardPage(rows, limit, true);
+    }
+    List<ComplaintSummary> rows = complaintRepository.findNewerThan(
+      position.createdAtTimestamp(),
+      position.id(),
+      fetch
+    );
+    boolean hasPrevious = rows.size() > limit;
+    List<ComplaintSummary> page = new ArrayList<>(
+      rows.subList(0, Math.min(limit, rows.size()))
+    );
+    Collections.reverse(page);
+    return cursorPage(page, true, hasPrevious);
+  }
+
+  private ComplaintCursorPage forwardPage(
+    List<ComplaintSummary> rows,
+    int limit,
+    boolean hasPrevious
+  ) {
+    boolean hasNext = rows.size() > limit;
+    List<ComplaintSummary> page = rows.subList(0, Math.min(limit, rows.size()));
+    return cursorPage(page, hasNext, hasPrevious);
+  }
+
+  private ComplaintCursorPage cursorPage(
+    List<ComplaintSummary> page,
+    boolean hasNext,
+    boolean hasPrevious
+  ) {
+    if (page.isEmpty()) {
+      return new ComplaintCursorPage(page, null, null);
+    }
+    ComplaintSummary first = page.get(0);
+    ComplaintSummary last = page.get(page.size() - 1);
+    return new ComplaintCursorPage(
+      page,
+      hasNext ? ComplaintCursor.of(last, ComplaintCursor.Direction.NEXT).encode() : null,
+      hasPrevious
+        ? ComplaintCursor.of(first, ComplaintCursor.Direction.PREVIOUS).encode()
+        : null
+    );
+  }
+
+  @Override
+  @Retry(name = "complaintEdit")
   public ComplaintResponse editComplaint(EditComplaintRequest editComplaintRequest) {
+    UUID id = UUID.fromString(editComplaintRequest.getId());
+    if (complaintProperties.getEdit().getLocking() == Locking.OPTIMISTIC) {
+      return editComplaintAtCurrentVersion(id, editComplaintRequest.getContent());
+    }
     Complaint complaintToUpdate = complaintRepository
-      .findById(UUID.fromString(editComplaintRequest.getId()))
+      .findByIdForUpdate(id)
       .orElseThrow(
         () ->
           new ComplaintNotFoundException(
@@ -91,8 +247,62 @@ public class ComplaintDefaultServiceImpl implements ComplaintDefaultService {
     if (editComplaintRequest.getContent() != null) {
       complaintToUpdate.setContent(editComplaintRequest.getContent());
       complaintRepository.save(complaintToUpdate);
+      complaintCache.invalidateAfterCommit(complaintToUpdate.getId());
+      reportCountWriteBehind.forget(
+        complaintToUpdate.getProductId(),
+        complaintToUpdate.getReporter()
+      );
     }
 
-    return modelMapper.map(complaintToUpdate, ComplaintResponse.class);
+    return complaintMapper.toResponse(complaintToUpdate);
+  }
+
+  /**
+   * Updates the content only if the complaint is still at the version just read; a
+   * concurrent change fails the attempt, which the {@code complaintEdit} retry repeats.
+   */
+  private ComplaintResponse editComplaintAtCurrentVersion(UUID id, String content) {
+    ComplaintResponse current = loadComplaint(id);
+    if (content == null) {
+      return current;
+    }
+    complaintCache.invalidateAfterCommit(id);
+    reportCountWriteBehind.forget(current.getProductId(), current.getReporter());
+    int updated = complaintRepository.updateContentIfVersion(
+      id,
+      current.getVersion(),
+      content
+    );
+    if (updated == 0) {
+      throw new ObjectOptimisticLockingFailureException(Complaint.class, id);
+    }
+    return loadComplaint(id);
+  }
+
+  @Override
+  public ComplaintResponse editComplaint(
+    EditComplaintRequest editComplaintRequest,
+    long expectedVersion
+  ) {
+    UUID id = UUID.fromString(editComplaintRequest.getId());
+    String content = editComplaintRequest.getContent();
+    if (
+      content != null &&
+      complaintRepository.updateContentIfVersion(id, expectedVersion, content) == 1
+    ) {
+      complaintCache.invalidateAfterCommit(id);
+      ComplaintResponse updated = loadComplaint(id);
+      reportCountWriteBehind.forget(updated.getProductId(), updated.getReporter());
+      return updated;
+    }
+    // Nothing was updated: tell a missing complaint apart from a stale version.
+    ComplaintResponse current = loadComplaint(id);
+    if (current.getVersion() != expectedVersion) {
+      throw new ComplaintVersionMismatchException(
+        "Complaint " + id + " is at version " + current.getVersion() +
+        ", not " + expectedVersion
+      );
+    }
+    return current;
   }
 }
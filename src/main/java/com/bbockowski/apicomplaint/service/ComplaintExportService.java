@@ -0,0 +1,186 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes complaints matching a filter to a stream as NDJSON or CSV.
+ *
+ * <p>Rows come straight from a forward-only database cursor and are written as they
+ * arrive; the output is flushed once per fetched batch, so neither the result set nor
+ * the response body is ever held in memory.
+ */
+@Service
+public class ComplaintExportService {
+  private static final String CSV_HEADER =
+    "id,productId,content,createdAt,reporter,country,reportCount";
+
+  private final ComplaintRepository complaintRepository;
+  private final ComplaintProperties.Export properties;
+  private final ObjectWriter rowWriter;
+
+  public ComplaintExportService(
+    ComplaintRepository complaintRepository,
+    ComplaintProperties complaintProperties,
+    ObjectMapper objectMapper
+  ) {
+    this.complaintRepository = complaintRepository;
+    this.properties = complaintProperties.getExport();
+    this.rowWriter =
+      objectMapper
+        .writerFor(ComplaintResponse.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+        .withRootValueSeparator("\n");
+  }
+
+  public enum Format {
+    /** One JSON object per line, as in the single-complaint responses. */
+    NDJSON,
+    /** RFC 4180 CSV with a header row and creation times as ISO-8601 instants. */
+    CSV,
+  }
+
+  /**
+   * Writes every complaint matching the filter, oldest first.
+   *
+   * @param filter the complaints to include
+   * @param format the output format
+   * @param out    the stream to write to; it is flushed but not closed
+   * @throws IOException if writing to the stream fails
+   */
+  public void export(ComplaintFilter filter, Format format, OutputStream out)
+    throws IOException {
+    int fetchSize = properties.getFetchSize();
+    try (RowSink sink = format == Format.CSV ? new CsvSink(out) : new NdjsonSink(out)) {
+      int[] unflushed = { 0 };
+      complaintRepository.streamComplaints(
+        filter,
+        fetchSize,
+        complaint -> {
+          try {
+            sink.write(complaint);
+            if (++unflushed[0] == fetchSize) {
+              sink.flush();
+              unflushed[0] = 0;
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      );
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /** Writes rows to the response; closing flushes it without closing the stream. */
+  private interface RowSink extends Closeable {
+    void write(ComplaintResponse complaint) throws IOException;
+
+    void flush() throws IOException;
+  }
+
+  private class NdjsonSink implements RowSink {
+    private final JsonGenerator generator;
+    private boolean empty = true;
+
+    NdjsonSink(OutputStream out) throws IOException {
+      this.generator =
+        rowWriter.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void write(ComplaintResponse complaint) throws IOException {
+      rowWriter.writeValue(generator, complaint);
+      empty = false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!empty) {
+        generator.writeRaw('\n');
+      }
+      generator.close();
+    }
+  }
+
+  private static class CsvSink implements RowSink {
+    private final Writer writer;
+
+    CsvSink(OutputStream out) throws IOException {
+      this.writer =
+        new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+      writer.write(CSV_HEADER);
+      writer.write("\r\n");
+    }
+
+    @Override
+    public void write(ComplaintResponse complaint) throws IOException {
+      writer.write(complaint.getId().toString());
+      writer.write(',');
+      writeField(complaint.getProductId());
+      writer.write(',');
+      writeField(complaint.getContent());
+      writer.write(',');
+      if (complaint.getCreatedAt() != null) {
+        writer.write(complaint.getCreatedAt().toInstant().toString());
+      }
+      writer.write(',');
+      writeField(complaint.getReporter());
+      writer.write(',');
+      writeField(complaint.getCountry());
+      writer.write(',');
+      writer.write(Integer.toString(complaint.getReportCount()));
+      writer.write("\r\n");
+    }
+
+    private void writeField(String value) throws IOException {
+      if (value == null) {
+        return;
+      }
+      boolean quote = false;
+      for (int i = 0; i < value.length() && !quote; i++) {
+        char c = value.charAt(i);
+        quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+      }
+      if (!quote) {
+        writer.write(value);
+        return;
+      }
+      writer.write('"');
+      writer.write(value.replace("\"", "\"\""));
+      writer.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+      writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      // Flushed only: the servlet container owns the response stream.
+      writer.flush();
+    }
+  }
+}
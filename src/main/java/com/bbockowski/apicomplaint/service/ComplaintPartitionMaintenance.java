@@ -0,0 +1,136 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.config.ComplaintProperties.Partitions.Retirement;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.repository.ComplaintPartitionRepository;
+import com.bbockowski.apicomplaint.writebehind.ReportCountWriteBehind;
+import jakarta.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the monthly partitions of complaints on PostgreSQL in step with the calendar:
+ * those of the current month and {@code complaints.partitions.months-ahead} after it are
+ * created before any complaint needs them, and those wholly older than
+ * {@code complaints.partitions.retention} are retired. Once a retirement has committed,
+ * the write-behind and by-id caches drop their copies of its complaints. Runs at startup
+ * and then every {@code check-interval}; on an unpartitioned table it does nothing.
+ */
+@Slf4j
+@Component
+public class ComplaintPartitionMaintenance {
+  private final ComplaintProperties.Partitions properties;
+  private final ComplaintPartitionRepository partitionRepository;
+  private final TaskScheduler taskScheduler;
+  private final ReportCountWriteBehind reportCountWriteBehind;
+  private final ComplaintCache complaintCache;
+  private final Clock clock;
+
+  @Autowired
+  public ComplaintPartitionMaintenance(
+    ComplaintProperties complaintProperties,
+    ComplaintPartitionRepository partitionRepository,
+    TaskScheduler taskScheduler,
+    ReportCountWriteBehind reportCountWriteBehind,
+    ComplaintCache complaintCache
+  ) {
+    this(
+      complaintProperties,
+      partitionRepository,
+      taskScheduler,
+      reportCountWriteBehind,
+      complaintCache,
+      Clock.systemDefaultZone()
+    );
+  }
+
+  ComplaintPartitionMaintenance(
+    ComplaintProperties complaintProperties,
+    ComplaintPartitionRepository partitionRepository,
+    TaskScheduler taskScheduler,
+    ReportCountWriteBehind reportCountWriteBehind,
+    ComplaintCache complaintCache,
+    Clock clock
+  ) {
+    this.properties = complaintProperties.getPartitions();
+    this.partitionRepository = partitionRepository;
+    this.taskScheduler = taskScheduler;
+    this.reportCountWriteBehind = reportCountWriteBehind;
+    this.complaintCache = complaintCache;
+    this.clock = clock;
+  }
+
+  @PostConstruct
+  void start() {
+    taskScheduler.scheduleWithFixedDelay(
+      this::runScheduled,
+      Instant.now(),
+      properties.getCheckInterval()
+    );
+  }
+
+  private void runScheduled() {
+    try {
+      maintain();
+    } catch (RuntimeException e) {
+      log.warn("Maintaining the complaint partitions failed", e);
+    }
+  }
+
+  /** Creates the partitions due ahead and retires those past the retention. */
+  public void maintain() {
+    if (!partitionRepository.isPartitioned()) {
+      return;
+    }
+    List<YearMonth> partitions = partitionRepository.findPartitions();
+    YearMonth current = YearMonth.now(clock);
+    YearMonth last = current.plusMonths(properties.getMonthsAhead());
+    for (YearMonth month = current; !month.isAfter(last); month = month.plusMonths(1)) {
+      if (!partitions.contains(month) && partitionRepository.createPartition(month)) {
+        log.info("Created the complaint partition of {}", month);
+      }
+    }
+    if (properties.getRetention() == null) {
+      return;
+    }
+    LocalDate keptFrom = LocalDate.now(clock).minus(properties.getRetention());
+    boolean drop = properties.getRetirement() == Retirement.DROP;
+    for (YearMonth month : partitions) {
+      // Only months that end before the retention starts are retired, so no complaint
+      // is let go early; the rest of a month waits for the month to pass entirely.
+      if (
+        !month.plusMonths(1).atDay(1).isAfter(keptFrom) &&
+        partitionRepository.retirePartition(month, drop)
+      ) {
+        forgetRetired(month);
+        log.info(
+          "{} the complaint partition of {}",
+          drop ? "Dropped" : "Detached",
+          month
+        );
+      }
+    }
+  }
+
+  /**
+   * Drops this node's cached copies of a retired month's complaints. Other nodes drop
+   * theirs when the entries expire; reports they journal meanwhile are stored again.
+   */
+  private void forgetRetired(YearMonth month) {
+    Timestamp end = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+    Predicate<ComplaintResponse> retired = complaint ->
+      complaint.getCreatedAt() != null && complaint.getCreatedAt().before(end);
+    reportCountWriteBehind.forgetIf(retired);
+    complaintCache.invalidateIf(retired);
+  }
+}
@@ -0,0 +1,55 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.dto.ComplaintSearchHit;
+import com.bbockowski.apicomplaint.exception.InvalidCursorException;
+import com.bbockowski.apicomplaint.repository.ComplaintSearchRepository.Position;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Position in search results, which are ordered by {@code (rank, id)} descending. Encoded
+ * like {@link ComplaintCursor} as an opaque URL-safe token.
+ *
+ * @param rank rank of the last hit of a page
+ * @param id   id of that hit, breaking ties between equal ranks
+ */
+record ComplaintSearchCursor(float rank, UUID id) {
+  private static final String SEPARATOR = "|";
+
+  static ComplaintSearchCursor of(ComplaintSearchHit hit) {
+    return new ComplaintSearchCursor(hit.getRank(), hit.getId());
+  }
+
+  static ComplaintSearchCursor decode(String token) {
+    try {
+      byte[] decoded = Base64.getUrlDecoder().decode(token);
+      String[] parts = new String(decoded, StandardCharsets.UTF_8).split(
+        Pattern.quote(SEPARATOR)
+      );
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("expected 2 fields");
+      }
+      // Float.toString round-trips exactly, so the next page starts right after this hit.
+      return new ComplaintSearchCursor(
+        Float.parseFloat(parts[0]),
+        UUID.fromString(parts[1])
+      );
+    } catch (RuntimeException e) {
+      throw new InvalidCursorException("Invalid cursor: " + token, e);
+    }
+  }
+
+  String encode() {
+    String raw = Float.toString(rank) + SEPARATOR + id;
+    return Base64
+      .getUrlEncoder()
+      .withoutPadding()
+      .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  Position position() {
+    return new Position(rank, id);
+  }
+}
@@ -0,0 +1,66 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.dto.ComplaintSearchHit;
+import com.bbockowski.apicomplaint.dto.ComplaintSearchPage;
+import com.bbockowski.apicomplaint.exception.InvalidSearchQueryException;
+import com.bbockowski.apicomplaint.repository.ComplaintSearchRepository;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/** Searches complaint content, one page of hits at a time. */
+@Service
+@RequiredArgsConstructor
+public class ComplaintSearchService {
+  private static final int MAX_PAGE_SIZE = 100;
+  private static final int MAX_QUERY_LENGTH = 200;
+
+  private final ComplaintSearchRepository complaintSearchRepository;
+
+  /**
+   * Finds complaints whose content matches a query, most relevant first.
+   *
+   * @param query     the words to look for
+   * @param productId only complaints about this product, or {@code null}
+   * @param country   only complaints from this country, or {@code null}
+   * @param cursor    a {@code nextCursor} from an earlier page, or {@code null}
+   * @param size      the number of hits per page, at most 100
+   * @return the page of hits with the cursor of the next one
+   */
+  public ComplaintSearchPage search(
+    String query,
+    String productId,
+    String country,
+    String cursor,
+    int size
+  ) {
+    if (query == null || query.isBlank()) {
+      throw new InvalidSearchQueryException("The search query must not be blank");
+    }
+    if (query.length() > MAX_QUERY_LENGTH) {
+      throw new InvalidSearchQueryException(
+        "The search query must be at most " + MAX_QUERY_LENGTH + " characters"
+      );
+    }
+    int limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+    ComplaintSearchCursor after = cursor == null || cursor.isBlank()
+      ? null
+      : ComplaintSearchCursor.decode(cursor);
+    // One extra hit tells whether another page follows.
+    List<ComplaintSearchHit> hits = complaintSearchRepository.search(
+      query,
+      productId,
+      country,
+      after == null ? null : after.position(),
+      limit + 1
+    );
+    if (hits.size() <= limit) {
+      return new ComplaintSearchPage(hits, null);
+    }
+    List<ComplaintSearchHit> page = hits.subList(0, limit);
+    return new ComplaintSearchPage(
+      page,
+      ComplaintSearchCursor.of(page.get(limit - 1)).encode()
+    );
+  }
+}
@@ -0,0 +1,59 @@
+package com.bbockowski.apicomplaint.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts how single complaint submissions were stored, as {@code complaints.submitted}
+ * tagged with the result: {@code created} for a new complaint, {@code incremented} for a
+ * repeat that raised the report count in the database and {@code journaled} for a repeat
+ * acknowledged by the write-behind journal.
+ */
+@Component
+public class ComplaintSubmissionMetrics implements MeterBinder {
+  private final LongAdder created = new LongAdder();
+  private final LongAdder incremented = new LongAdder();
+  private final LongAdder journaled = new LongAdder();
+
+  public void recordCreated() {
+    created.increment();
+  }
+
+  public void recordIncremented() {
+    incremented.increment();
+  }
+
+  public void recordJournaled() {
+    journaled.increment();
+  }
+
+  long created() {
+    return created.sum();
+  }
+
+  long incremented() {
+    return incremented.sum();
+  }
+
+  long journaled() {
+    return journaled.sum();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    submitted(registry, "created", created);
+    submitted(registry, "incremented", incremented);
+    submitted(registry, "journaled", journaled);
+  }
+
+  private static void submitted(MeterRegistry registry, String result, LongAdder count) {
+    FunctionCounter
+      .builder("complaints.submitted", count, LongAdder::sum)
+      .tag("result", result)
+      .description("Complaint submissions by how they were stored")
+      .register(registry);
+  }
+}
@@ -0,0 +1,256 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.config.GeoLocationProperties;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.EnrichedComplaint;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.PendingEnrichment;
+import com.bbockowski.apicomplaint.writebehind.ReportCountWriteBehind;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** Fills in the country of complaints stored with a pending client IP. */
+@Slf4j
+@Service
+public class CountryEnrichmentService {
+  private final GeoLocationProperties.Enrichment properties;
+  private final IpLocationService ipLocationService;
+  private final ComplaintRepository complaintRepository;
+  private final TaskScheduler taskScheduler;
+  private final ComplaintCache complaintCache;
+  private final ReportCountWriteBehind reportCountWriteBehind;
+
+  private final BlockingQueue<Task> queue;
+  /** Complaints queued or in the worker's current batch, never queued a second time. */
+  private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+  private final ExecutorService lookups = Executors.newThreadPerTaskExecutor(
+    Thread.ofVirtual().name("country-enrichment-lookup-", 0).factory()
+  );
+  private final Timer lagTimer;
+  private final Counter enrichedCounter;
+  private final Counter overflowCounter;
+
+  private volatile Thread worker;
+
+  public CountryEnrichmentService(
+    GeoLocationProperties geoLocationProperties,
+    IpLocationService ipLocationService,
+    ComplaintRepository complaintRepository,
+    TaskScheduler taskScheduler,
+    ComplaintCache complaintCache,
+    ReportCountWriteBehind reportCountWriteBehind,
+    MeterRegistry meterRegistry
+  ) {
+    this.properties = geoLocationProperties.getEnrichment();
+    this.ipLocationService = ipLocationService;
+    this.complaintRepository = complaintRepository;
+    this.taskScheduler = taskScheduler;
+    this.complaintCache = complaintCache;
+    this.reportCountWriteBehind = reportCountWriteBehind;
+    this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    this.lagTimer =
+      Timer
+        .builder("geolocation.enrichment.lag")
+        .description("Time from enqueueing a complaint to storing its country")
+        .register(meterRegistry);
+    this.enrichedCounter =
+      Counter.builder("geolocation.enrichment.completed").register(meterRegistry);
+    this.overflowCounter =
+      Counter
+        .builder("geolocation.enrichment.overflow")
+        .description("Tasks left to the backlog scan because the queue was full")
+        .register(meterRegistry);
+    Gauge
+      .builder("geolocation.enrichment.queue.depth", queue, BlockingQueue::size)
+      .register(meterRegistry);
+  }
+
+  public boolean isAsync() {
+    return properties.getMode() == GeoLocationProperties.Enrichment.Mode.ASYNC;
+  }
+
+  @PostConstruct
+  void start() {
+    if (!isAsync()) {
+      return;
+    }
+    // Published before starting: the worker loops only while it is the current one.
+    worker = Thread.ofPlatform().name("country-enrichment").daemon().unstarted(this::run);
+    worker.start();
+    taskScheduler.scheduleWithFixedDelay(
+      this::scanBacklog,
+      Instant.now(),
+      properties.getBacklogScanInterval()
+    );
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    Thread running = worker;
+    worker = null;
+    if (running != null) {
+      running.interrupt();
+      running.join(Duration.ofSeconds(5).toMillis());
+    }
+    lookups.shutdownNow();
+  }
+
+  /**
+   * Queues a complaint for enrichment once the current transaction commits, so the worker
+   * never sees a complaint that is not yet visible to it.
+   *
+   * @param complaintId the stored complaint
+   * @param ip          the client address to resolve
+   */
+  public void enqueueAfterCommit(UUID complaintId, String ip) {
+    Task task = new Task(complaintId, ip, System.nanoTime());
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      enqueue(task);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          enqueue(task);
+        }
+      }
+    );
+  }
+
+  private void enqueue(Task task) {
+    if (!inFlight.add(task.complaintId())) {
+      return;
+    }
+    if (!queue.offer(task)) {
+      inFlight.remove(task.complaintId());
+      overflowCounter.increment();
+    }
+  }
+
+  void scanBacklog() {
+    // A busy queue has work enough; rows already in flight are skipped by enqueue.
+    if (!queue.isEmpty()) {
+      return;
+    }
+    try {
+      List<PendingEnrichment> pending = complaintRepository.findPendingEnrichments(
+        properties.getQueueCapacity()
+      );
+      long now = System.nanoTime();
+      for (PendingEnrichment enrichment : pending) {
+        if (queue.remainingCapacity() == 0) {
+          break;
+        }
+        enqueue(new Task(enrichment.id(), enrichment.ip(), now));
+      }
+      if (!pending.isEmpty()) {
+        log.info("Recovered {} complaints awaiting country enrichment", pending.size());
+      }
+    } catch (RuntimeException e) {
+      log.warn("Scanning the enrichment backlog failed", e);
+    }
+  }
+
+  private void run() {
+    List<Task> batch = new ArrayList<>(properties.getBatchSize());
+    while (worker != null) {
+      try {
+        Task first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, properties.getBatchSize() - 1);
+        processBatch(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        // The rows stay pending in the database and are retried by the backlog scan.
+        log.warn("Country enrichment of {} complaints failed", batch.size(), e);
+      } finally {
+        for (Task task : batch) {
+          inFlight.remove(task.complaintId());
+        }
+        batch.clear();
+      }
+    }
+  }
+
+  void processBatch(List<Task> batch) {
+    // Each distinct address is looked up once, all of them at the same time.
+    Map<String, Future<Optional<String>>> lookupsByIp = new HashMap<>();
+    for (Task task : batch) {
+      lookupsByIp.computeIfAbsent(
+        task.ip(),
+        ip -> lookups.submit(() -> ipLocationService.findResolvedCountry(ip))
+      );
+    }
+    Map<UUID, String> countries = new HashMap<>(batch.size() * 2);
+    for (Task task : batch) {
+      // Failed lookups stay pending and are retried by a later backlog scan.
+      resolved(lookupsByIp.get(task.ip()))
+        .ifPresent(country -> countries.put(task.complaintId(), country));
+    }
+    if (countries.isEmpty()) {
+      return;
+    }
+    List<EnrichedComplaint> enriched = complaintRepository.completeEnrichments(countries);
+    complaintCache.invalidate(countries.keySet());
+    Set<UUID> completed = new HashSet<>(enriched.size() * 2);
+    for (EnrichedComplaint complaint : enriched) {
+      completed.add(complaint.id());
+      // The country and version changed under any copy remembered at creation.
+      reportCountWriteBehind.forget(complaint.productId(), complaint.reporter());
+    }
+    long now = System.nanoTime();
+    for (Task task : batch) {
+      if (completed.contains(task.complaintId())) {
+        lagTimer.record(now - task.enqueuedNanos(), TimeUnit.NANOSECONDS);
+      }
+    }
+    enrichedCounter.increment(completed.size());
+  }
+
+  private static Optional<String> resolved(Future<Optional<String>> lookup) {
+    try {
+      return lookup.get();
+    } catch (ExecutionException e) {
+      log.debug("Country lookup failed", e.getCause());
+      return Optional.empty();
+    } catch (InterruptedException e) {
+      // Stopping: the rows stay pending for the next start.
+      Thread.currentThread().interrupt();
+      return Optional.empty();
+    }
+  }
+
+  record Task(UUID complaintId, String ip, long enqueuedNanos) {}
+}
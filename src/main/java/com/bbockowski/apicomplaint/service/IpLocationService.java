@@ -1,45 +1,112 @@
 package com.bbockowski.apicomplaint.service;
 
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.Setter;
+import com.bbockowski.apicomplaint.geolocation.GeoLocationCache;
+import com.bbockowski.apicomplaint.geolocation.GeoLocationEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
+/**
+ * Resolves the country of a client IP by asking each configured {@link GeoLocationEngine}
+ * in order: the offline range table first when enabled, then the remote HTTP lookup.
+ * Answers, including failures, are cached in {@link GeoLocationCache}.
+ *
+ * <p>Every lookup is timed as {@code geolocation.lookup}, tagged with its outcome:
+ * {@code hit} for a cached answer, {@code miss} for one resolved by an engine,
+ * {@code fallback} when no engine could answer and {@code error} when the lookup threw.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class IpLocationService {
-  private final RestTemplate restTemplate;
+  static final String UNKNOWN_COUNTRY = "Unknown";
+  public static final String FALLBACK_COUNTRY = "Fallback Country";
+
+  private final List<GeoLocationEngine> geoLocationEngines;
+  private final GeoLocationCache geoLocationCache;
+  private final Timer hitTimer;
+  private final Timer missTimer;
+  private final Timer fallbackTimer;
+  private final Timer errorTimer;
+
+  public IpLocationService(
+    List<GeoLocationEngine> geoLocationEngines,
+    GeoLocationCache geoLocationCache,
+    MeterRegistry meterRegistry
+  ) {
+    this.geoLocationEngines = geoLocationEngines;
+    this.geoLocationCache = geoLocationCache;
+    this.hitTimer = lookupTimer("hit", meterRegistry);
+    this.missTimer = lookupTimer("miss", meterRegistry);
+    this.fallbackTimer = lookupTimer("fallback", meterRegistry);
+    this.errorTimer = lookupTimer("error", meterRegistry);
+  }
+
+  private static Timer lookupTimer(String outcome, MeterRegistry meterRegistry) {
+    return Timer
+      .builder("geolocation.lookup")
+      .description("Time to resolve the country of a client address")
+      .tag("outcome", outcome)
+      .publishPercentileHistogram()
+      .register(meterRegistry);
+  }
 
-  @CircuitBreaker(name = "ipLocationService", fallbackMethod = "fallbackCountry")
-  @Retry(name = "ipLocationServiceRetry")
   public String getCountryByIp(String ip) {
-    String requestUrl = UriComponentsBuilder
-      .fromUriString("http://ip-api.com/json/" + ip)
-      .queryParam("fields", "country")
-      .toUriString();
-
-    IpLocationResponse locationResponse = restTemplate.getForObject(
-      requestUrl,
-      IpLocationResponse.class
-    );
-
-    if (locationResponse == null || locationResponse.getCountry() == null) {
-      return "Unknown";
-    }
-    return locationResponse.getCountry();
+    return lookup(ip).country();
   }
 
-  public String fallbackCountry(String ip, Throwable t) {
-    return "Fallback Country";
+  /**
+   * Resolves the country like {@link #getCountryByIp}, but reports a failed lookup as
+   * empty instead of substituting the fallback country.
+   *
+   * @param ip the client address
+   * @return the resolved country, or empty if no engine could answer
+   */
+  public Optional<String> findResolvedCountry(String ip) {
+    GeoLocationCache.Entry entry = lookup(ip);
+    return entry.negative() ? Optional.empty() : Optional.of(entry.country());
+  }
+
+  private GeoLocationCache.Entry lookup(String ip) {
+    long start = System.nanoTime();
+    boolean[] resolved = new boolean[1];
+    GeoLocationCache.Entry entry;
+    try {
+      entry =
+        geoLocationCache.get(
+          ip,
+          key -> {
+            resolved[0] = true;
+            return resolve(key);
+          }
+        );
+    } catch (RuntimeException e) {
+      errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
+    Timer timer = entry.negative() ? fallbackTimer : resolved[0] ? missTimer : hitTimer;
+    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    return entry;
   }
-}
 
-@Setter
-@Getter
-class IpLocationResponse {
-  private String country;
+  private GeoLocationCache.Entry resolve(String ip) {
+    boolean failed = false;
+    for (GeoLocationEngine engine : geoLocationEngines) {
+      try {
+        Optional<String> country = engine.findCountry(ip);
+        if (country.isPresent()) {
+          return new GeoLocationCache.Entry(country.get(), false);
+        }
+      } catch (RuntimeException e) {
+        log.debug("Geolocation engine {} failed for {}", engine, ip, e);
+        failed = true;
+      }
+    }
+    return failed
+      ? new GeoLocationCache.Entry(FALLBACK_COUNTRY, true)
+      : new GeoLocationCache.Entry(UNKNOWN_COUNTRY, false);
+  }
 }
@@ -0,0 +1,71 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.config.ComplaintProperties.Stats.Backfill;
+import com.bbockowski.apicomplaint.repository.ProductStatsRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+/** Rebuilds the product statistics from complaints, a chunk of products at a time. */
+@Slf4j
+@Component
+public class ProductStatsBackfill {
+  private final ComplaintProperties.Stats properties;
+  private final ProductStatsRepository productStatsRepository;
+  private final TaskScheduler taskScheduler;
+
+  public ProductStatsBackfill(
+    ComplaintProperties complaintProperties,
+    ProductStatsRepository productStatsRepository,
+    TaskScheduler taskScheduler
+  ) {
+    this.properties = complaintProperties.getStats();
+    this.productStatsRepository = productStatsRepository;
+    this.taskScheduler = taskScheduler;
+  }
+
+  @PostConstruct
+  void start() {
+    if (properties.getBackfill() == Backfill.ALWAYS) {
+      taskScheduler.schedule(this::runOnStartup, Instant.now());
+    }
+  }
+
+  private void runOnStartup() {
+    try {
+      rebuildAll();
+    } catch (RuntimeException e) {
+      log.warn("Rebuilding the product statistics failed", e);
+    }
+  }
+
+  /**
+   * Rebuilds the statistics of every product with complaints.
+   *
+   * @return the number of products rebuilt
+   */
+  public long rebuildAll() {
+    long rebuilt = 0;
+    String after = null;
+    List<String> products;
+    do {
+      products =
+        productStatsRepository.findComplaintProductIds(
+          after,
+          properties.getBackfillChunkSize()
+        );
+      if (products.isEmpty()) {
+        break;
+      }
+      productStatsRepository.rebuild(products);
+      rebuilt += products.size();
+      after = products.get(products.size() - 1);
+    } while (products.size() == properties.getBackfillChunkSize());
+    log.info("Rebuilt the statistics of {} products", rebuilt);
+    return rebuilt;
+  }
+}
@@ -0,0 +1,36 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.dto.ProductStatsResponse;
+import com.bbockowski.apicomplaint.repository.ProductStatsRepository;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/** Serves per-product complaint statistics from the {@code product_stats} table. */
+@Service
+@RequiredArgsConstructor
+public class ProductStatsService {
+  private final ProductStatsRepository productStatsRepository;
+
+  public ProductStatsResponse getStats(String productId) {
+    List<ProductStatsResponse.CountryStats> countries = productStatsRepository
+      .findByProductId(productId)
+      .stream()
+      .map(
+        stats ->
+          new ProductStatsResponse.CountryStats(
+            stats.country(),
+            stats.reporters(),
+            stats.reports()
+          )
+      )
+      .toList();
+    long reporters = 0;
+    long reports = 0;
+    for (ProductStatsResponse.CountryStats country : countries) {
+      reporters += country.getReporters();
+      reports += country.getReports();
+    }
+    return new ProductStatsResponse(productId, reporters, reports, countries);
+  }
+}
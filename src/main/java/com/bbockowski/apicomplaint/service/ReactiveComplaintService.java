@@ -0,0 +1,289 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.ComplaintCursorPage;
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse.TotalMode;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
+import com.bbockowski.apicomplaint.dto.EditComplaintRequest;
+import com.bbockowski.apicomplaint.exception.ComplaintCreateException;
+import com.bbockowski.apicomplaint.exception.ComplaintNotFoundException;
+import com.bbockowski.apicomplaint.exception.ComplaintVersionMismatchException;
+import com.bbockowski.apicomplaint.mapper.ComplaintMapper;
+import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ReactiveComplaintRepository;
+import com.bbockowski.apicomplaint.trending.TrendingProducts;
+import com.bbockowski.apicomplaint.writebehind.ReportCountWriteBehind;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Complaint operations for the reactive profile, with the semantics of
+ * {@link ComplaintDefaultServiceImpl}. Edits are one atomic statement and the
+ * repository makes an upsert and its product statistics one transaction, so nothing here
+ * opens one; the in-memory complaint cache and the write-behind journal are bypassed,
+ * since both block the calling thread.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveComplaintService {
+  private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+  private final ReactiveComplaintRepository complaintRepository;
+  private final ComplaintMapper complaintMapper;
+  private final CountryEnrichmentService countryEnrichmentService;
+  private final ReportCountWriteBehind reportCountWriteBehind;
+  private final ComplaintCountEstimate complaintCountEstimate;
+  private final ComplaintSubmissionMetrics submissionMetrics;
+  private final TrendingProducts trendingProducts;
+
+  public Mono<ComplaintResponse> createComplaint(
+    AddComplaintRequest addComplaintRequest
+  ) {
+    Complaint complaint = complaintMapper.toComplaint(addComplaintRequest);
+    return complaintRepository
+      .upsert(complaint)
+      .map(
+        result -> {
+          Complaint storedComplaint = result.complaint();
+          if (result.created()) {
+            submissionMetrics.recordCreated();
+          } else {
+            submissionMetrics.recordIncremented();
+          }
+          trendingProducts.record(storedComplaint.getProductId(), 1);
+          if (result.created() && storedComplaint.getPendingIp() != null) {
+            countryEnrichmentService.enqueueAfterCommit(
+              storedComplaint.getId(),
+              storedComplaint.getPendingIp()
+            );
+          }
+          return complaintMapper.toResponse(storedComplaint);
+        }
+      )
+      .onErrorMap(
+        e ->
+          new ComplaintCreateException(
+            "Failed to create or update complaint: " + e.getMessage(),
+            e
+          )
+      );
+  }
+
+  public Mono<ComplaintResponse> getComplaint(UUID id) {
+    return complaintRepository.findResponseById(id).switchIfEmpty(notFound(id));
+  }
+
+  public Mono<Long> getComplaintVersion(UUID id) {
+    return complaintRepository.findVersionById(id).switchIfEmpty(notFound(id));
+  }
+
+  public Mono<ComplaintListResponse> getAllComplaints(
+    ComplaintFilter filter,
+    Pageable pageable,
+    TotalMode totalMode
+  ) {
+    int size = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE - 1;
+    long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+    // One extra row tells whether another page follows without a count query.
+    Mono<List<ComplaintSummary>> rows = complaintRepository
+      .findSummaries(filter, pageable, size + 1)
+      .collectList();
+    // The planner estimate covers the whole table, so filtered listings get no total
+    // unless an exact count is asked for.
+    TotalMode mode = filter.hasCriteria() && totalMode == TotalMode.ESTIMATED
+      ? TotalMode.NONE
+      : totalMode;
+    boolean counted = mode == TotalMode.EXACT;
+    Mono<Long> total;
+    if (counted) {
+      total = complaintRepository.count(filter);
+    } else if (mode == TotalMode.ESTIMATED) {
+      // The estimate is read from a cache that may refresh through JDBC.
+      total =
+        Mono
+          .fromCallable(complaintCountEstimate::get)
+          .subscribeOn(Schedulers.boundedElastic());
+    } else {
+      total = Mono.just(-1L);
+    }
+    return Mono
+      .zip(rows, total)
+      .map(
+        pageAndTotal -> {
+          List<ComplaintSummary> fetched = pageAndTotal.getT1();
+          boolean hasNext = fetched.size() > size;
+          List<ComplaintSummary> page = fetched.subList(
+            0,
+            Math.min(size, fetched.size())
+          );
+          Long totalElements = null;
+          if (counted) {
+            totalElements = pageAndTotal.getT2();
+          } else if (mode == TotalMode.ESTIMATED) {
+            // Never report fewer complaints than this very page proves to exist.
+            totalElements =
+              Math.max(pageAndTotal.getT2(), offset + page.size() + (hasNext ? 1 : 0));
+          }
+          return new ComplaintListResponse(
+            page,
+            pageable.isPaged() ? pageable.getPageNumber() : 0,
+            pageable.isPaged() ? size : page.size(),
+            hasNext,
+            totalElements,
+            mode
+          );
+        }
+      );
+  }
+
+  public Mono<ComplaintCursorPage> getComplaints(String cursor, int size) {
+    int limit = Math.clamp(size, 1, MAX_CURSOR_PAGE_SIZE);
+    if (cursor == null || cursor.isBlank()) {
+      return forwardPage(complaintRepository.findNewest(limit + 1), limit, false);
+    }
+    ComplaintCursor position;
+    try {
+      position = ComplaintCursor.decode(cursor);
+    } catch (RuntimeException e) {
+      return Mono.error(e);
+    }
+    if (position.direction() == ComplaintCursor.Direction.NEXT) {
+      Flux<ComplaintSummary> rows = complaintRepository.findOlderThan(
+        position.createdAtTimestamp(),
+        position.id(),
+        limit + 1
+      );
+      return forwardPage(rows, limit, true);
+    }
+    return complaintRepository
+      .findNewerThan(position.createdAtTimestamp(), position.id(), limit + 1)
+      .collectList()
+      .map(
+        rows -> {
+          boolean hasPrevious = rows.size() > limit;
+          List<ComplaintSummary> page = new ArrayList<>(
+            rows.subList(0, Math.min(limit, rows.size()))
+          );
+          Collections.reverse(page);
+          return cursorPage(page, true, hasPrevious);
+        }
+      );
+  }
+
+  private Mono<ComplaintCursorPage> forwardPage(
+    Flux<ComplaintSummary> rows,
+    int limit,
+    boolean hasPrevious
+  ) {
+    return rows
+      .collectList()
+      .map(
+        fetched -> {
+          boolean hasNext = fetched.size() > limit;
+          List<ComplaintSummary> page = fetched.subList(
+            0,
+            Math.min(limit, fetched.size())
+          );
+          return cursorPage(page, hasNext, hasPrevious);
+        }
+      );
+  }
+
+  private static ComplaintCursorPage cursorPage(
+    List<ComplaintSummary> page,
+    boolean hasNext,
+    boolean hasPrevious
+  ) {
+    if (page.isEmpty()) {
+      return new ComplaintCursorPage(page, null, null);
+    }
+    ComplaintSummary first = page.get(0);
+    ComplaintSummary last = page.get(page.size() - 1);
+    return new ComplaintCursorPage(
+      page,
+      hasNext ? ComplaintCursor.of(last, ComplaintCursor.Direction.NEXT).encode() : null,
+      hasPrevious
+        ? ComplaintCursor.of(first, ComplaintCursor.Direction.PREVIOUS).encode()
+        : null
+    );
+  }
+
+  /**
+   * Replaces the content of a complaint with a single {@code UPDATE}, so unlike the
+   * servlet path there is no read-modify-write to retry.
+   */
+  public Mono<ComplaintResponse> editComplaint(
+    EditComplaintRequest editComplaintRequest
+  ) {
+    UUID id = UUID.fromString(editComplaintRequest.getId());
+    String content = editComplaintRequest.getContent();
+    if (content == null) {
+      return getComplaint(id);
+    }
+    return complaintRepository
+      .updateContent(id, content)
+      .flatMap(updated -> updated == 0 ? notFound(id) : getComplaint(id))
+      .doOnNext(
+        updated ->
+          reportCountWriteBehind.forget(updated.getProductId(), updated.getReporter())
+      );
+  }
+
+  public Mono<ComplaintResponse> editComplaint(
+    EditComplaintRequest editComplaintRequest,
+    long expectedVersion
+  ) {
+    UUID id = UUID.fromString(editComplaintRequest.getId());
+    String content = editComplaintRequest.getContent();
+    Mono<Long> updated = content == null
+      ? Mono.just(0L)
+      : complaintRepository.updateContentIfVersion(id, expectedVersion, content);
+    return updated.flatMap(
+      count -> {
+        if (count == 1) {
+          return getComplaint(id)
+            .doOnNext(
+              complaint ->
+                reportCountWriteBehind.forget(
+                  complaint.getProductId(),
+                  complaint.getReporter()
+                )
+            );
+        }
+        // Nothing was updated: tell a missing complaint apart from a stale version.
+        return getComplaint(id)
+          .flatMap(
+            current ->
+              current.getVersion() != expectedVersion
+                ? Mono.error(
+                  new ComplaintVersionMismatchException(
+                    "Complaint " + id + " is at version " + current.getVersion() +
+                    ", not " + expectedVersion
+                  )
+                )
+                : Mono.just(current)
+          );
+      }
+    );
+  }
+
+  private static <T> Mono<T> notFound(UUID id) {
+    return Mono.defer(
+      () ->
+        Mono.error(new ComplaintNotFoundException("Complaint not found with id: " + id))
+    );
+  }
+}
@@ -0,0 +1,69 @@
+package com.bbockowski.apicomplaint.service;
+
+import com.bbockowski.apicomplaint.geolocation.GeoLocationCache;
+import com.bbockowski.apicomplaint.geolocation.OfflineGeoLocationEngine;
+import com.bbockowski.apicomplaint.geolocation.ReactiveGeoLocationClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves client countries for the reactive profile like {@link IpLocationService}: the
+ * in-memory offline table first, when enabled, then the remote lookup. Answers share the
+ * {@link GeoLocationCache}, and concurrent misses for one key share one lookup without
+ * any caller blocking on it.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveIpLocationService {
+  private final OfflineGeoLocationEngine offlineEngine;
+  private final ReactiveGeoLocationClient remoteClient;
+  private final GeoLocationCache geoLocationCache;
+
+  public ReactiveIpLocationService(
+    ObjectProvider<OfflineGeoLocationEngine> offlineEngine,
+    ObjectProvider<ReactiveGeoLocationClient> remoteClient,
+    GeoLocationCache geoLocationCache
+  ) {
+    this.offlineEngine = offlineEngine.getIfAvailable();
+    this.remoteClient = remoteClient.getIfAvailable();
+    this.geoLocationCache = geoLocationCache;
+  }
+
+  public Mono<String> getCountryByIp(String ip) {
+    return Mono
+      .fromFuture(() -> geoLocationCache.getAsync(ip, key -> resolve(key).toFuture()))
+      .map(GeoLocationCache.Entry::country);
+  }
+
+  private Mono<GeoLocationCache.Entry> resolve(String ip) {
+    if (offlineEngine != null) {
+      String country = offlineEngine.findCountry(ip).orElse(null);
+      if (country != null) {
+        return Mono.just(new GeoLocationCache.Entry(country, false));
+      }
+    }
+    GeoLocationCache.Entry unknown = new GeoLocationCache.Entry(
+      IpLocationService.UNKNOWN_COUNTRY,
+      false
+    );
+    if (remoteClient == null) {
+      return Mono.just(unknown);
+    }
+    return remoteClient
+      .findCountry(ip)
+      .map(country -> new GeoLocationCache.Entry(country, false))
+      .defaultIfEmpty(unknown)
+      .onErrorResume(
+        e -> {
+          log.debug("Reactive geolocation lookup failed for {}", ip, e);
+          return Mono.just(
+            new GeoLocationCache.Entry(IpLocationService.FALLBACK_COUNTRY, true)
+          );
+        }
+      );
+  }
+}
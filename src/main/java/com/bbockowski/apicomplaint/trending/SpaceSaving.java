@@ -0,0 +1,129 @@
+package com.bbockowski.apicomplaint.trending;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving summary of the most frequent keys in a stream, in a fixed number of
+ * counters (Metwally et al., "Efficient Computation of Frequent and Top-k Elements in
+ * Data Streams").
+ *
+ * <p>A key without a counter takes over the counter with the smallest count and inherits
+ * that count as its error, so a counter never understates its key and overstates it by
+ * at most the total divided by the capacity. Counters sit in a min-heap indexed from the
+ * map, making an update {@code O(log capacity)}. Not thread-safe.
+ */
+final class SpaceSaving {
+  private final int capacity;
+  private final Map<String, Counter> counters;
+  private final Counter[] heap;
+  private int size;
+  private long total;
+
+  SpaceSaving(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.counters = HashMap.newHashMap(capacity);
+    this.heap = new Counter[capacity];
+  }
+
+  /**
+   * Counts occurrences of a key.
+   *
+   * @param key   the key
+   * @param count the number of occurrences, positive
+   */
+  void offer(String key, long count) {
+    Counter counter = counters.get(key);
+    if (counter == null) {
+      if (size < capacity) {
+        counter = new Counter(key, size);
+        heap[size++] = counter;
+      } else {
+        counter = heap[0];
+        counters.remove(counter.key);
+        counter.key = key;
+        counter.error = counter.count;
+      }
+      counters.put(key, counter);
+    }
+    counter.count += count;
+    total += count;
+    siftDown(counter.index);
+  }
+
+  /**
+   * The most any key without a counter can have occurred: the smallest count once every
+   * counter is taken, zero before.
+   */
+  long floor() {
+    return size < capacity ? 0 : heap[0].count;
+  }
+
+  long total() {
+    return total;
+  }
+
+  Collection<Counter> counters() {
+    return Collections.unmodifiableCollection(counters.values());
+  }
+
+  void clear() {
+    counters.clear();
+    Arrays.fill(heap, 0, size, null);
+    size = 0;
+    total = 0;
+  }
+
+  // Counts only grow, so an updated counter can only move towards the leaves.
+  private void siftDown(int index) {
+    Counter counter = heap[index];
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+        child++;
+      }
+      if (heap[child].count >= counter.count) {
+        break;
+      }
+      heap[index] = heap[child];
+      heap[index].index = index;
+      index = child;
+    }
+    heap[index] = counter;
+    counter.index = index;
+  }
+
+  /** The count of one key, over-estimated by at most {@link #error()}. */
+  static final class Counter {
+    private String key;
+    private long count;
+    private long error;
+    private int index;
+
+    private Counter(String key, int index) {
+      this.key = key;
+      this.index = index;
+    }
+
+    String key() {
+      return key;
+    }
+
+    long count() {
+      return count;
+    }
+
+    long error() {
+      return error;
+    }
+  }
+}
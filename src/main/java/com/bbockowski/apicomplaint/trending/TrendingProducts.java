@@ -0,0 +1,181 @@
+package com.bbockowski.apicomplaint.trending;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The most reported products on this node over the last five minutes, hour and day,
+ * counted in memory as reports are submitted.
+ *
+ * <p>Each window is a ring of time buckets, each holding a {@link SpaceSaving} summary
+ * of fixed capacity, so memory is bounded by the number of buckets times the capacity
+ * however many products exist. A query merges the buckets of its window: a product
+ * missing from a full bucket is credited with that bucket's smallest count, which keeps
+ * every estimate an upper bound and its error within the window's reports divided by the
+ * capacity. Windows move a bucket at a time, so they cover their length less at most one
+ * bucket. Other nodes count their own submissions.
+ */
+@Component
+public class TrendingProducts {
+  private final boolean enabled;
+  private final LongSupplier currentTimeMillis;
+  private final Map<TrendingWindow, Ring> rings = new EnumMap<>(TrendingWindow.class);
+
+  @Autowired
+  public TrendingProducts(ComplaintProperties complaintProperties) {
+    this(complaintProperties.getTrending(), System::currentTimeMillis);
+  }
+
+  TrendingProducts(
+    ComplaintProperties.Trending properties,
+    LongSupplier currentTimeMillis
+  ) {
+    this.enabled = properties.isEnabled();
+    this.currentTimeMillis = currentTimeMillis;
+    for (TrendingWindow window : TrendingWindow.values()) {
+      rings.put(window, new Ring(window, properties.getCapacity()));
+    }
+  }
+
+  /**
+   * Counts reports of a product.
+   *
+   * @param productId the product; ignored if {@code null}
+   * @param reports   the number of reports
+   */
+  public void record(String productId, long reports) {
+    if (!enabled || productId == null || reports <= 0) {
+      return;
+    }
+    long now = currentTimeMillis.getAsLong();
+    for (Ring ring : rings.values()) {
+      ring.record(productId, reports, now);
+    }
+  }
+
+  /**
+   * Counts reports of a product once the current transaction commits, or right away
+   * outside one.
+   */
+  public void recordAfterCommit(String productId, long reports) {
+    if (!enabled || !TransactionSynchronizationManager.isSynchronizationActive()) {
+      record(productId, reports);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          record(productId, reports);
+        }
+      }
+    );
+  }
+
+  /**
+   * Lists the most reported products of a window, most reported first.
+   *
+   * @param window the window
+   * @param limit  the largest number of products to return
+   * @return the products with their estimated reports
+   */
+  public List<TrendingProduct> top(TrendingWindow window, int limit) {
+    return rings.get(window).top(limit, currentTimeMillis.getAsLong());
+  }
+
+  /**
+   * A product's reports in a window.
+   *
+   * @param productId    the product
+   * @param reports      the estimated reports, never fewer than the actual ones
+   * @param maxOvercount how many more than the actual reports the estimate may be
+   */
+  public record TrendingProduct(String productId, long reports, long maxOvercount) {}
+
+  private static final class Ring {
+    private final long bucketMillis;
+    private final long[] epochs;
+    private final SpaceSaving[] summaries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    Ring(TrendingWindow window, int capacity) {
+      this.bucketMillis = window.bucket().toMillis();
+      this.epochs = new long[window.buckets()];
+      this.summaries = new SpaceSaving[window.buckets()];
+      for (int i = 0; i < summaries.length; i++) {
+        epochs[i] = Long.MIN_VALUE;
+        summaries[i] = new SpaceSaving(capacity);
+      }
+    }
+
+    void record(String productId, long reports, long now) {
+      long epoch = Math.floorDiv(now, bucketMillis);
+      int slot = (int) Math.floorMod(epoch, (long) epochs.length);
+      lock.lock();
+      try {
+        if (epochs[slot] != epoch) {
+          // The slot still holds a bucket that has left the window.
+          epochs[slot] = epoch;
+          summaries[slot].clear();
+        }
+        summaries[slot].offer(productId, reports);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    List<TrendingProduct> top(int limit, long now) {
+      long currentEpoch = Math.floorDiv(now, bucketMillis);
+      // Per product: summed counts, summed errors and the floors of the buckets
+      // that counted it; buckets that did not are credited with their floor.
+      Map<String, long[]> merged = new HashMap<>();
+      long floors = 0;
+      for (int slot = 0; slot < epochs.length; slot++) {
+        // One bucket at a time, so a query never holds up writers for long.
+        lock.lock();
+        try {
+          long age = currentEpoch - epochs[slot];
+          if (age < 0 || age >= epochs.length) {
+            continue;
+          }
+          long floor = summaries[slot].floor();
+          floors += floor;
+          for (SpaceSaving.Counter counter : summaries[slot].counters()) {
+            long[] sums = merged.computeIfAbsent(counter.key(), key -> new long[3]);
+            sums[0] += counter.count();
+            sums[1] += counter.error();
+            sums[2] += floor;
+          }
+        } finally {
+          lock.unlock();
+        }
+      }
+      List<TrendingProduct> products = new ArrayList<>(merged.size());
+      for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+        long[] sums = entry.getValue();
+        long uncounted = floors - sums[2];
+        products.add(
+          new TrendingProduct(entry.getKey(), sums[0] + uncounted, sums[1] + uncounted)
+        );
+      }
+      products.sort(
+        Comparator
+          .comparingLong(TrendingProduct::reports)
+          .reversed()
+          .thenComparing(TrendingProduct::productId)
+      );
+      return products.subList(0, Math.min(limit, products.size()));
+    }
+  }
+}
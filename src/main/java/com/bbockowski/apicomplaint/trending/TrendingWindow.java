@@ -0,0 +1,56 @@
+package com.bbockowski.apicomplaint.trending;
+
+import com.bbockowski.apicomplaint.exception.InvalidTrendingWindowException;
+import java.time.Duration;
+
+/** The periods over which trending products are counted, each split into buckets. */
+public enum TrendingWindow {
+  FIVE_MINUTES("5m", Duration.ofMinutes(5), Duration.ofSeconds(30)),
+  ONE_HOUR("1h", Duration.ofHours(1), Duration.ofMinutes(5)),
+  ONE_DAY("24h", Duration.ofDays(1), Duration.ofHours(1));
+
+  private final String label;
+  private final Duration length;
+  private final Duration bucket;
+
+  TrendingWindow(String label, Duration length, Duration bucket) {
+    this.label = label;
+    this.length = length;
+    this.bucket = bucket;
+  }
+
+  /**
+   * Finds a window by its label.
+   *
+   * @param label {@code 5m}, {@code 1h} or {@code 24h}
+   * @return the window
+   * @throws InvalidTrendingWindowException if no window has the label
+   */
+  public static TrendingWindow of(String label) {
+    for (TrendingWindow window : values()) {
+      if (window.label.equals(label)) {
+        return window;
+      }
+    }
+    throw new InvalidTrendingWindowException(
+      "Unknown trending window '" + label + "', expected 5m, 1h or 24h"
+    );
+  }
+
+  public String label() {
+    return label;
+  }
+
+  /** How long buckets are counted for; the current one is still being filled. */
+  Duration length() {
+    return length;
+  }
+
+  Duration bucket() {
+    return bucket;
+  }
+
+  int buckets() {
+    return (int) (length.toMillis() / bucket.toMillis());
+  }
+}
@@ -0,0 +1,4 @@
+package com.bbockowski.apicomplaint.writebehind;
+
+/** The natural key of a complaint: one row per product and reporter. */
+record ComplaintKey(String productId, String reporter) {}
@@ -0,0 +1,352 @@
+package com.bbockowski.apicomplaint.writebehind;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only, segmented journal of report count increments with group fsync.
+ *
+ * <p>Appends are cheap buffered writes that return a sequence number; callers then block
+ * in {@link #awaitDurable} until a background syncer has forced the file past their
+ * record. One {@code fsync} covers every record appended while the previous one was
+ * running, so the cost is shared by all concurrent writers.
+ *
+ * <p>Each record is {@code [int length][int crc32c][payload]}; replay stops at the first
+ * truncated or corrupt record, which can only be an unacknowledged torn tail.
+ *
+ * <p>State is guarded by a {@link ReentrantLock} rather than the object monitor, so a
+ * request running on a virtual thread unmounts while it waits for the fsync instead of
+ * pinning its carrier thread.
+ */
+@Slf4j
+class ReportCountJournal implements Closeable {
+  private static final String SEGMENT_PREFIX = "report-counts-";
+  private static final String SEGMENT_SUFFIX = ".journal";
+  private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+  private final Path directory;
+  private final String journalId;
+  private final ByteBuffer recordBuffer = ByteBuffer.allocate(MAX_RECORD_SIZE);
+  private final ReentrantLock lock = new ReentrantLock();
+  /** Signalled whenever a record is appended, becomes durable or the journal closes. */
+  private final Condition changed = lock.newCondition();
+  private final Thread syncer;
+
+  private FileChannel channel;
+  private long segmentNumber;
+  private long appendedSequence;
+  private long durableSequence;
+  private IOException syncFailure;
+  private boolean closed;
+
+  /**
+   * A closed journal segment.
+   *
+   * @param key  identifies the segment across nodes and restarts
+   * @param path the segment file
+   */
+  record Segment(String key, Path path) {}
+
+  ReportCountJournal(Path directory) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.journalId = readOrCreateJournalId(directory);
+    this.segmentNumber = highestSegmentNumber() + 1;
+    this.channel = openSegment(segmentNumber);
+    this.syncer =
+      Thread.ofPlatform().name("report-count-journal-sync").daemon().start(this::sync);
+  }
+
+  /**
+   * Lists segments left by a previous run, oldest first, excluding the active one.
+   *
+   * @return the closed segments
+   */
+  List<Segment> closedSegments() throws IOException {
+    List<Segment> segments = new ArrayList<>();
+    lock.lock();
+    try (Stream<Path> files = Files.list(directory)) {
+      files
+        .filter(ReportCountJournal::isSegmentFile)
+        .sorted()
+        .forEach(
+          path -> {
+            if (segmentNumberOf(path) != segmentNumber) {
+              segments.add(new Segment(segmentKey(segmentNumberOf(path)), path));
+            }
+          }
+        );
+    } finally {
+      lock.unlock();
+    }
+    return segments;
+  }
+
+  /**
+   * Appends one increment without waiting for it to reach the disk.
+   *
+   * @return the sequence number to pass to {@link #awaitDurable}
+   */
+  long append(ComplaintKey key, int delta) throws IOException {
+    lock.lock();
+    try {
+      return appendLocked(key, delta);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private long appendLocked(ComplaintKey key, int delta) throws IOException {
+    if (closed) {
+      throw new ClosedChannelException();
+    }
+    if (syncFailure != null) {
+      throw new IOException("Journal fsync failed", syncFailure);
+    }
+    byte[] productId = key.productId().getBytes(StandardCharsets.UTF_8);
+    byte[] reporter = key.reporter().getBytes(StandardCharsets.UTF_8);
+    int payloadLength = 2 + productId.length + 2 + reporter.length + 4;
+    if (payloadLength + 8 > MAX_RECORD_SIZE) {
+      throw new IOException("Journal record too large for key " + key);
+    }
+    recordBuffer.clear();
+    recordBuffer.position(8);
+    recordBuffer.putShort((short) productId.length).put(productId);
+    recordBuffer.putShort((short) reporter.length).put(reporter);
+    recordBuffer.putInt(delta);
+    CRC32C crc = new CRC32C();
+    crc.update(recordBuffer.array(), 8, payloadLength);
+    recordBuffer.putInt(0, payloadLength);
+    recordBuffer.putInt(4, (int) crc.getValue());
+    recordBuffer.flip();
+    while (recordBuffer.hasRemaining()) {
+      channel.write(recordBuffer);
+    }
+    long sequence = ++appendedSequence;
+    changed.signalAll();
+    return sequence;
+  }
+
+  /** Blocks until the record with the given sequence number has been forced to disk. */
+  void awaitDurable(long sequence) throws IOException {
+    lock.lock();
+    try {
+      while (durableSequence < sequence) {
+        if (syncFailure != null) {
+          throw new IOException("Journal fsync failed", syncFailure);
+        }
+        if (closed) {
+          throw new ClosedChannelException();
+        }
+        changed.await();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for journal fsync");
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forces and closes the active segment and starts a new one. Every record appended so
+   * far is durable once this returns.
+   *
+   * @return the segment that was closed
+   */
+  Segment rotate() throws IOException {
+    lock.lock();
+    try {
+      channel.force(false);
+      channel.close();
+      durableSequence = appendedSequence;
+      changed.signalAll();
+      Segment closedSegment = new Segment(
+        segmentKey(segmentNumber),
+        segmentPath(segmentNumber)
+      );
+      segmentNumber++;
+      channel = openSegment(segmentNumber);
+      return closedSegment;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Reads every intact record of a closed segment. */
+  static void replay(Path segment, BiConsumer<ComplaintKey, Integer> consumer)
+    throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+    while (buffer.remaining() >= 8) {
+      int payloadLength = buffer.getInt();
+      int expectedCrc = buffer.getInt();
+      if (payloadLength <= 0 || payloadLength > buffer.remaining()) {
+        log.warn("Ignoring truncated tail of journal segment {}", segment);
+        return;
+      }
+      CRC32C crc = new CRC32C();
+      crc.update(buffer.array(), buffer.position(), payloadLength);
+      if ((int) crc.getValue() != expectedCrc) {
+        log.warn("Ignoring corrupt tail of journal segment {}", segment);
+        return;
+      }
+      try {
+        String productId = readString(buffer);
+        String reporter = readString(buffer);
+        int delta = buffer.getInt();
+        consumer.accept(new ComplaintKey(productId, reporter), delta);
+      } catch (EOFException e) {
+        log.warn("Ignoring malformed record in journal segment {}", segment);
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      channel.force(false);
+      channel.close();
+      durableSequence = appendedSequence;
+      closed = true;
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    syncer.interrupt();
+  }
+
+  private void sync() {
+    while (true) {
+      FileChannel target;
+      long sequence;
+      lock.lock();
+      try {
+        while (!closed && appendedSequence == durableSequence) {
+          changed.await();
+        }
+        if (closed) {
+          return;
+        }
+        target = channel;
+        sequence = appendedSequence;
+      } catch (InterruptedException e) {
+        return;
+      } finally {
+        lock.unlock();
+      }
+      try {
+        // Forced outside the lock so appends keep flowing while the disk catches up.
+        target.force(false);
+      } catch (ClosedChannelException e) {
+        continue; // rotated or closed meanwhile; both force the segment themselves
+      } catch (IOException e) {
+        log.error("Journal fsync failed; increments can no longer be acknowledged", e);
+        lock.lock();
+        try {
+          syncFailure = e;
+          changed.signalAll();
+        } finally {
+          lock.unlock();
+        }
+        return;
+      }
+      lock.lock();
+      try {
+        if (sequence > durableSequence) {
+          durableSequence = sequence;
+          changed.signalAll();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private FileChannel openSegment(long number) throws IOException {
+    return FileChannel.open(
+      segmentPath(number),
+      StandardOpenOption.CREATE_NEW,
+      StandardOpenOption.WRITE
+    );
+  }
+
+  private long highestSegmentNumber() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+        .filter(ReportCountJournal::isSegmentFile)
+        .mapToLong(ReportCountJournal::segmentNumberOf)
+        .max()
+        .orElse(0);
+    }
+  }
+
+  private Path segmentPath(long number) {
+    return directory.resolve(SEGMENT_PREFIX + "%020d".formatted(number) + SEGMENT_SUFFIX);
+  }
+
+  private String segmentKey(long number) {
+    return journalId + ":" + number;
+  }
+
+  private static boolean isSegmentFile(Path path) {
+    String name = path.getFileName().toString();
+    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+  }
+
+  private static long segmentNumberOf(Path path) {
+    String name = path.getFileName().toString();
+    return Long.parseLong(
+      name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())
+    );
+  }
+
+  private static String readOrCreateJournalId(Path directory) throws IOException {
+    Path idFile = directory.resolve("journal.id");
+    if (Files.exists(idFile)) {
+      return Files.readString(idFile).trim();
+    }
+    String id = UUID.randomUUID().toString();
+    Files.writeString(idFile, id, StandardOpenOption.CREATE_NEW);
+    return id;
+  }
+
+  private static String readString(ByteBuffer buffer) throws EOFException {
+    if (buffer.remaining() < 2) {
+      throw new EOFException();
+    }
+    int length = buffer.getShort() & 0xffff;
+    if (buffer.remaining() < length) {
+      throw new EOFException();
+    }
+    String value = new String(
+      buffer.array(),
+      buffer.position(),
+      length,
+      StandardCharsets.UTF_8
+    );
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+}
@@ -0,0 +1,334 @@
+package com.bbockowski.apicomplaint.writebehind;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.ReportCountIncrement;
+import com.bbockowski.apicomplaint.service.ComplaintCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** Journals repeats of known complaints locally and flushes their counts in batches. */
+@Slf4j
+@Component
+public class ReportCountWriteBehind {
+  private final ComplaintProperties.WriteBehind properties;
+  private final ComplaintRepository complaintRepository;
+  private final TaskScheduler taskScheduler;
+  private final ComplaintCache complaintCache;
+
+  private final Cache<ComplaintKey, KnownComplaint> knownComplaints;
+  /** Held shared by writers and exclusively while the flusher swaps epochs. */
+  private final ReadWriteLock epochLock = new ReentrantReadWriteLock();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final Deque<PendingFlush> pendingFlushes = new ArrayDeque<>();
+  private final AtomicLong pendingIncrements = new AtomicLong();
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+  private final Counter flushedCounter;
+
+  private Map<ComplaintKey, LongAdder> counters = new ConcurrentHashMap<>();
+  private volatile ReportCountJournal journal;
+
+  public ReportCountWriteBehind(
+    ComplaintProperties complaintProperties,
+    ComplaintRepository complaintRepository,
+    TaskScheduler taskScheduler,
+    ComplaintCache complaintCache,
+    MeterRegistry meterRegistry
+  ) {
+    this.properties = complaintProperties.getWriteBehind();
+    this.complaintRepository = complaintRepository;
+    this.taskScheduler = taskScheduler;
+    this.complaintCache = complaintCache;
+    this.knownComplaints =
+      Caffeine
+        .newBuilder()
+        .maximumSize(properties.getKnownKeys())
+        .expireAfterWrite(properties.getKnownKeyTtl())
+        .build();
+    this.flushedCounter =
+      Counter
+        .builder("complaints.write-behind.flushed")
+        .description("Report count increments applied to the database")
+        .register(meterRegistry);
+    Gauge
+      .builder("complaints.write-behind.pending", pendingIncrements, AtomicLong::get)
+      .description("Acknowledged increments not yet handed to the flusher")
+      .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() throws IOException {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    ReportCountJournal opened = new ReportCountJournal(
+      Path.of(properties.getJournalDirectory())
+    );
+    List<ReportCountJournal.Segment> leftovers = opened.closedSegments();
+    for (ReportCountJournal.Segment segment : leftovers) {
+      pendingFlushes.add(new PendingFlush(segment, readSegment(segment.path())));
+    }
+    if (!leftovers.isEmpty()) {
+      log.info("Replaying {} report count journal segments", leftovers.size());
+      applyPendingFlushes();
+    }
+    journal = opened;
+    taskScheduler.scheduleWithFixedDelay(
+      this::flush,
+      Instant.now().plus(properties.getFlushInterval()),
+      properties.getFlushInterval()
+    );
+  }
+
+  @PreDestroy
+  void stop() throws IOException {
+    ReportCountJournal running = journal;
+    if (running == null) {
+      return;
+    }
+    flush();
+    journal = null;
+    running.close();
+  }
+
+  /**
+   * Records a repeat complaint for a key known to exist, if write-behind is enabled.
+   *
+   * @return the complaint with its new report count, or empty if the caller has to
+   *     store the complaint itself, as it must for a key with a null part
+   */
+  public Optional<ComplaintResponse> tryIncrement(String productId, String reporter) {
+    ReportCountJournal active = journal;
+    if (active == null || productId == null || reporter == null) {
+      return Optional.empty();
+    }
+    ComplaintKey key = new ComplaintKey(productId, reporter);
+    KnownComplaint known = knownComplaints.getIfPresent(key);
+    if (known == null) {
+      return Optional.empty();
+    }
+    long sequence;
+    long pending;
+    epochLock.readLock().lock();
+    try {
+      sequence = active.append(key, 1);
+      counters.computeIfAbsent(key, k -> new LongAdder()).increment();
+      pending = pendingIncrements.incrementAndGet();
+    } catch (IOException e) {
+      log.warn("Journal unavailable, storing complaint directly", e);
+      return Optional.empty();
+    } finally {
+      epochLock.readLock().unlock();
+    }
+    if (
+      pending >= properties.getFlushThreshold() &&
+      flushRequested.compareAndSet(false, true)
+    ) {
+      taskScheduler.schedule(this::flush, Instant.now());
+    }
+    try {
+      active.awaitDurable(sequence);
+    } catch (IOException e) {
+      // The counter already holds the report and the flush applies it; failing here
+      // would only make the client retry and count it twice. Later appends fail over
+      // to the database, as the journal refuses them after a failed sync.
+      log.warn("Journaled report not confirmed durable; it is flushed from memory", e);
+    }
+    return Optional.of(known.increment());
+  }
+
+  /**
+   * Marks a stored complaint as existing once the current transaction commits, so later
+   * repeats of it can be absorbed by {@link #tryIncrement}. Complaints with a null key
+   * part are skipped: the journal cannot encode them and the flush could not match them.
+   *
+   * @param complaint the complaint as stored in the database
+   */
+  public void rememberAfterCommit(ComplaintResponse complaint) {
+    if (
+      journal == null ||
+      complaint.getProductId() == null ||
+      complaint.getReporter() == null
+    ) {
+      return;
+    }
+    ComplaintKey key = new ComplaintKey(
+      complaint.getProductId(),
+      complaint.getReporter()
+    );
+    KnownComplaint known = new KnownComplaint(
+      complaint,
+      new AtomicLong(complaint.getReportCount())
+    );
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      knownComplaints.put(key, known);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          knownComplaints.put(key, known);
+        }
+      }
+    );
+  }
+
+  /**
+   * Drops the cached copy of a complaint whose other fields changed. Its pending
+   * increments are still flushed.
+   */
+  public void forget(String productId, String reporter) {
+    knownComplaints.invalidate(new ComplaintKey(productId, reporter));
+  }
+
+  /**
+   * Drops the cached copies of every complaint matching {@code gone}, for committed
+   * writes that removed rows without knowing their keys. Later repeats of them are
+   * stored directly instead of being journaled against a row that no longer exists.
+   */
+  public void forgetIf(Predicate<ComplaintResponse> gone) {
+    knownComplaints.asMap().values().removeIf(known -> gone.test(known.snapshot()));
+  }
+
+  /** Hands the current counters to the database, on schedule and on shutdown. */
+  void flush() {
+    if (!flushLock.tryLock()) {
+      return;
+    }
+    try {
+      flushRequested.set(false);
+      ReportCountJournal active = journal;
+      if (active != null) {
+        epochLock.writeLock().lock();
+        try {
+          if (!counters.isEmpty()) {
+            ReportCountJournal.Segment segment = active.rotate();
+            pendingFlushes.add(new PendingFlush(segment, toIncrements(counters)));
+            counters = new ConcurrentHashMap<>();
+            pendingIncrements.set(0);
+          }
+        } finally {
+          epochLock.writeLock().unlock();
+        }
+      }
+      applyPendingFlushes();
+    } catch (IOException | RuntimeException e) {
+      log.warn("Flushing report counts failed; retrying on the next run", e);
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private void applyPendingFlushes() throws IOException {
+    while (!pendingFlushes.isEmpty()) {
+      PendingFlush flush = pendingFlushes.peek();
+      String segmentKey = flush.segment().key();
+      if (
+        !flush.increments().isEmpty() &&
+        complaintRepository.applyReportCountIncrements(segmentKey, flush.increments())
+      ) {
+        flushedCounter.increment(
+          flush.increments().stream().mapToLong(ReportCountIncrement::delta).sum()
+        );
+        Set<ComplaintKey> flushed = new HashSet<>();
+        for (ReportCountIncrement increment : flush.increments()) {
+          flushed.add(new ComplaintKey(increment.productId(), increment.reporter()));
+        }
+        complaintCache.invalidateIf(
+          complaint ->
+            flushed.contains(
+              new ComplaintKey(complaint.getProductId(), complaint.getReporter())
+            )
+        );
+      }
+      // The file goes first: a marker without a file is harmless, the reverse is not.
+      Files.deleteIfExists(flush.segment().path());
+      complaintRepository.deleteReportCountFlush(segmentKey);
+      pendingFlushes.poll();
+    }
+  }
+
+  private static List<ReportCountIncrement> readSegment(Path path) throws IOException {
+    Map<ComplaintKey, Long> sums = new HashMap<>();
+    ReportCountJournal.replay(
+      path,
+      (key, delta) -> sums.merge(key, (long) delta, Long::sum)
+    );
+    List<ReportCountIncrement> increments = new ArrayList<>(sums.size());
+    sums.forEach(
+      (key, delta) ->
+        increments.add(new ReportCountIncrement(key.productId(), key.reporter(), delta))
+    );
+    return increments;
+  }
+
+  private static List<ReportCountIncrement> toIncrements(
+    Map<ComplaintKey, LongAdder> counters
+  ) {
+    List<ReportCountIncrement> increments = new ArrayList<>(counters.size());
+    counters.forEach(
+      (key, adder) ->
+        increments.add(
+          new ReportCountIncrement(key.productId(), key.reporter(), adder.sum())
+        )
+    );
+    return increments;
+  }
+
+  private record PendingFlush(
+    ReportCountJournal.Segment segment,
+    List<ReportCountIncrement> increments
+  ) {}
+
+  private record KnownComplaint(ComplaintResponse snapshot, AtomicLong reportCount) {
+    /**
+     * The complaint with one more report, without a version: other nodes and writers
+     * advance the row too, so the version the flush reaches is unknown here.
+     */
+    ComplaintResponse increment() {
+      long count = reportCount.incrementAndGet();
+      ComplaintResponse response = new ComplaintResponse();
+      response.setId(snapshot.getId());
+      response.setProductId(snapshot.getProductId());
+      response.setContent(snapshot.getContent());
+      response.setCreatedAt(snapshot.getCreatedAt());
+      response.setReporter(snapshot.getReporter());
+      response.setCountry(snapshot.getCountry());
+      response.setReportCount((int) count);
+      return response;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package com.bbockowski.apicomplaint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Runs the complaint request path on virtual threads against a slow geolocation stub and
+ * fails if JFR reports a virtual thread parking while pinned to its carrier, e.g. inside
+ * a {@code synchronized} block of the HTTP client, the JDBC driver or our own code.
+ * JFR does not report {@code Object.wait()}, which pins as well, so monitors are kept
+ * off the request path altogether.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class VirtualThreadPinningTest {
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private static HttpServer geoLocationStub;
+
+  @LocalServerPort
+  private int port;
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    geoLocationStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    geoLocationStub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    geoLocationStub.createContext(
+      "/json/",
+      exchange -> {
+        try {
+          Thread.sleep(20);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        byte[] body = "{\"country\":\"Poland\"}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+      }
+    );
+    geoLocationStub.start();
+    String stubUrl =
+      "http://127.0.0.1:" + geoLocationStub.getAddress().getPort() + "/json/";
+
+    String journalDirectory = Files.createTempDirectory("journal").toString();
+
+    registry.add("spring.threads.virtual.enabled", () -> "true");
+    registry.add("geolocation.remote.url", () -> stubUrl);
+    registry.add("geolocation.cache.enabled", () -> "false");
+    registry.add("complaints.write-behind.enabled", () -> "true");
+    registry.add("complaints.write-behind.journal-directory", () -> journalDirectory);
+  }
+
+  @AfterAll
+  static void stopStub() {
+    geoLocationStub.stop(0);
+  }
+
+  @Test
+  void requestPathShouldNotPinCarrierThreads() throws Exception {
+    // given
+    ConcurrentLinkedQueue<RecordedEvent> pinned = new ConcurrentLinkedQueue<>();
+    HttpClient client = HttpClient.newHttpClient();
+    List<Future<HttpResponse<String>>> responses = new ArrayList<>();
+
+    // when
+    try (RecordingStream recording = new RecordingStream()) {
+      recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+      recording.onEvent(PINNED_EVENT, pinned::add);
+      recording.startAsync();
+
+      try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+        // Every key is stored once, then repeated through the write-behind journal.
+        for (int round = 0; round < 2; round++) {
+          for (int i = 0; i < 100; i++) {
+            HttpRequest request = addComplaint("product-" + i);
+            responses.add(
+              clients.submit(() -> client.send(request, BodyHandlers.ofString()))
+            );
+          }
+          for (Future<HttpResponse<String>> response : responses) {
+            response.get(30, TimeUnit.SECONDS);
+          }
+        }
+      }
+      recording.stop();
+    }
+
+    // then
+    assertThat(responses)
+      .allSatisfy(response -> assertThat(response.get().statusCode()).isEqualTo(200));
+    assertThat(pinned).map(VirtualThreadPinningTest::describe).isEmpty();
+  }
+
+  private HttpRequest addComplaint(String productId) {
+    String body =
+      "{\"productId\":\"" +
+      productId +
+      "\",\"content\":\"Too loud\",\"reporter\":\"reporter@example.com\"}";
+    return HttpRequest
+      .newBuilder(URI.create("http://localhost:" + port + "/api/v1/complaints"))
+      .header("Content-Type", "application/json")
+      .header("X-Forwarded-For", "83.12.34.56")
+      .POST(HttpRequest.BodyPublishers.ofString(body))
+      .build();
+  }
+
+  private static String describe(RecordedEvent event) {
+    StringBuilder description = new StringBuilder("pinned for ")
+      .append(event.getDuration().toMillis())
+      .append(" ms");
+    if (event.getStackTrace() != null) {
+      for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+        description
+          .append("\n  at ")
+          .append(frame.getMethod().getType().getName())
+          .append('.')
+          .append(frame.getMethod().getName());
+      }
+    }
+    return description.toString();
+  }
+}
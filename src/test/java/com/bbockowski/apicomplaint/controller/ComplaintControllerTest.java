@@ -1,9 +1,15 @@
 package com.bbockowski.apicomplaint.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -11,26 +17,42 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.BatchComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintCursorPage;
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse.TotalMode;
 import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintSearchHit;
+import com.bbockowski.apicomplaint.dto.ComplaintSearchPage;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
 import com.bbockowski.apicomplaint.dto.EditComplaintRequest;
+import com.bbockowski.apicomplaint.exception.ComplaintVersionMismatchException;
+import com.bbockowski.apicomplaint.service.ComplaintBatchService;
 import com.bbockowski.apicomplaint.service.ComplaintDefaultService;
+import com.bbockowski.apicomplaint.service.ComplaintExportService;
+import com.bbockowski.apicomplaint.service.ComplaintSearchService;
+import com.bbockowski.apicomplaint.service.CountryEnrichmentService;
 import com.bbockowski.apicomplaint.service.IpLocationService;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.util.StreamUtils;
 
@@ -48,6 +70,18 @@ class ComplaintControllerTest {
   @MockitoBean
   private IpLocationService ipLocationService;
 
+  @MockitoBean
+  private CountryEnrichmentService countryEnrichmentService;
+
+  @MockitoBean
+  private ComplaintBatchService complaintBatchService;
+
+  @MockitoBean
+  private ComplaintExportService complaintExportService;
+
+  @MockitoBean
+  private ComplaintSearchService complaintSearchService;
+
   @Test
   void addComplaint_ShouldReturnComplaintResponse() throws Exception {
     AddComplaintRequest addComplaintRequest = Mockito.mock(AddComplaintRequest.class);
@@ -78,6 +112,161 @@ class ComplaintControllerTest {
       .andExpect(jsonPath("$.country").value("Poland"));
   }
 
+  @Test
+  void addComplaint_ShouldLocateOnlyTheFirstForwardedHop() throws Exception {
+    when(ipLocationService.getCountryByIp("198.51.100.23")).thenReturn("Poland");
+    when(complaintDefaultService.createComplaint(any(AddComplaintRequest.class)))
+      .thenReturn(new ComplaintResponse());
+
+    var resource = new ClassPathResource("requestAddComplaint.json");
+    var requestBody = StreamUtils.copyToString(
+      resource.getInputStream(),
+      StandardCharsets.UTF_8
+    );
+
+    mockMvc
+      .perform(
+        post("/api/v1/complaints")
+          .header("X-Forwarded-For", "198.51.100.23, 203.0.113.195")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(requestBody)
+      )
+      .andExpect(status().isOk());
+
+    ArgumentCaptor<AddComplaintRequest> captor = ArgumentCaptor.forClass(
+      AddComplaintRequest.class
+    );
+    verify(complaintDefaultService).createComplaint(captor.capture());
+    assertThat(captor.getValue().getCountry()).isEqualTo("Poland");
+  }
+
+  @Test
+  void addComplaint_ShouldNotLookUpAddressesThatAreNoIpLiterals() throws Exception {
+    when(complaintDefaultService.createComplaint(any(AddComplaintRequest.class)))
+      .thenReturn(new ComplaintResponse());
+
+    var resource = new ClassPathResource("requestAddComplaint.json");
+    var requestBody = StreamUtils.copyToString(
+      resource.getInputStream(),
+      StandardCharsets.UTF_8
+    );
+
+    mockMvc
+      .perform(
+        post("/api/v1/complaints")
+          .header("X-Forwarded-For", "1.2.3.4/../../admin?fields=all")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(requestBody)
+      )
+      .andExpect(status().isOk());
+
+    ArgumentCaptor<AddComplaintRequest> captor = ArgumentCaptor.forClass(
+      AddComplaintRequest.class
+    );
+    verify(complaintDefaultService).createComplaint(captor.capture());
+    assertThat(captor.getValue().getCountry())
+      .isEqualTo(IpLocationService.FALLBACK_COUNTRY);
+    verify(ipLocationService, never()).getCountryByIp(anyString());
+  }
+
+  @Test
+  void addComplaint_ShouldQueueFirstForwardedHopInAsyncMode() throws Exception {
+    when(countryEnrichmentService.isAsync()).thenReturn(true);
+    when(complaintDefaultService.createComplaint(any(AddComplaintRequest.class)))
+      .thenReturn(new ComplaintResponse());
+
+    var resource = new ClassPathResource("requestAddComplaint.json");
+    var requestBody = StreamUtils.copyToString(
+      resource.getInputStream(),
+      StandardCharsets.UTF_8
+    );
+
+    mockMvc
+      .perform(
+        post("/api/v1/complaints")
+          .header(
+            "X-Forwarded-For",
+            " 2001:db8:85a3::8a2e:370:7334 , 198.51.100.23, 203.0.113.195, 10.0.0.1"
+          )
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(requestBody)
+      )
+      .andExpect(status().isOk());
+
+    ArgumentCaptor<AddComplaintRequest> captor = ArgumentCaptor.forClass(
+      AddComplaintRequest.class
+    );
+    verify(complaintDefaultService).createComplaint(captor.capture());
+    assertThat(captor.getValue().getPendingIp())
+      .isEqualTo("2001:db8:85a3::8a2e:370:7334");
+    assertThat(captor.getValue().getCountry()).isNull();
+    verify(ipLocationService, never()).getCountryByIp(anyString());
+  }
+
+  @Test
+  void addComplaint_ShouldStoreFallbackCountryForUnresolvableAddressInAsyncMode()
+    throws Exception {
+    when(countryEnrichmentService.isAsync()).thenReturn(true);
+    when(complaintDefaultService.createComplaint(any(AddComplaintRequest.class)))
+      .thenReturn(new ComplaintResponse());
+
+    var resource = new ClassPathResource("requestAddComplaint.json");
+    var requestBody = StreamUtils.copyToString(
+      resource.getInputStream(),
+      StandardCharsets.UTF_8
+    );
+
+    mockMvc
+      .perform(
+        post("/api/v1/complaints")
+          .header("X-Forwarded-For", "unknown, 198.51.100.23")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(requestBody)
+      )
+      .andExpect(status().isOk());
+
+    ArgumentCaptor<AddComplaintRequest> captor = ArgumentCaptor.forClass(
+      AddComplaintRequest.class
+    );
+    verify(complaintDefaultService).createComplaint(captor.capture());
+    assertThat(captor.getValue().getPendingIp()).isNull();
+    assertThat(captor.getValue().getCountry())
+      .isEqualTo(IpLocationService.FALLBACK_COUNTRY);
+  }
+
+  @Test
+  void addComplaints_ShouldStreamNdjsonItemsToBatchService() throws Exception {
+    List<String> productIds = new ArrayList<>();
+    when(ipLocationService.getCountryByIp(anyString())).thenReturn("Poland");
+    when(complaintBatchService.createComplaints(any(), eq("Poland"), isNull()))
+      .thenAnswer(
+        invocation -> {
+          Iterator<AddComplaintRequest> items = invocation.getArgument(0);
+          items.forEachRemaining(item -> productIds.add(item.getProductId()));
+          BatchComplaintResponse response = new BatchComplaintResponse();
+          response.setCreated(productIds.size());
+          response.setItems(List.of());
+          return response;
+        }
+      );
+
+    var resource = new ClassPathResource("requestAddComplaintsBatch.ndjson");
+    var requestBody = StreamUtils.copyToString(
+      resource.getInputStream(),
+      StandardCharsets.UTF_8
+    );
+
+    var result = mockMvc.perform(
+      post("/api/v1/complaints/batch")
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .content(requestBody)
+    );
+
+    result.andExpect(status().isOk()).andExpect(jsonPath("$.created").value(3));
+    assertThat(productIds)
+      .containsExactly("RocknRoll-001", "RocknRoll-002", "RocknRoll-001");
+  }
+
   @Test
   void getComplaint_ShouldReturnComplaintResponse() throws Exception {
     UUID id = UUID.randomUUID();
@@ -95,22 +284,33 @@ class ComplaintControllerTest {
 
   @Test
   void getAllComplaints_ShouldReturnListOfComplaints() throws Exception {
-    ComplaintResponse complaint = Mockito.mock(ComplaintResponse.class);
+    ComplaintSummary complaint = Mockito.mock(ComplaintSummary.class);
     doReturn(UUID.fromString("c732cd78-572c-4059-bd62-61b9f5ed9251"))
       .when(complaint)
       .getId();
     doReturn("Poland").when(complaint).getCountry();
     doReturn(1).when(complaint).getReportCount();
 
-    var pageOfComplaints = new PageImpl<>(
+    var pageOfComplaints = new ComplaintListResponse(
       Collections.singletonList(complaint),
-      PageRequest.of(0, 10),
-      1
+      0,
+      10,
+      false,
+      1L,
+      TotalMode.ESTIMATED
     );
-    when(complaintDefaultService.getAllComplaints(any(Pageable.class)))
+    when(
+      complaintDefaultService.getAllComplaints(
+        any(ComplaintFilter.class),
+        any(Pageable.class),
+        eq(TotalMode.ESTIMATED)
+      )
+    )
       .thenReturn(pageOfComplaints);
 
-    var result = mockMvc.perform(get("/api/v1/complaints/all"));
+    var result = mockMvc.perform(
+      get("/api/v1/complaints/all").param("total", "ESTIMATED")
+    );
     var resource = new ClassPathResource("expectedComplaintList.json");
     var expectedJson = StreamUtils.copyToString(
       resource.getInputStream(),
@@ -122,6 +322,46 @@ class ComplaintControllerTest {
       .andExpect(MockMvcResultMatchers.content().json(expectedJson, true));
   }
 
+  @Test
+  void searchComplaints_ShouldReturnRankedHitsWithCursor() throws Exception {
+    ComplaintSearchHit hit = new ComplaintSearchHit();
+    hit.setId(UUID.randomUUID());
+    hit.setContent("Battery drains overnight");
+    hit.setRank(0.5f);
+    when(complaintSearchService.search("battery", "RocknRoll-001", null, null, 20))
+      .thenReturn(new ComplaintSearchPage(List.of(hit), "next"));
+
+    var result = mockMvc.perform(
+      get("/api/v1/complaints/search")
+        .param("q", "battery")
+        .param("productId", "RocknRoll-001")
+    );
+
+    result
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.items[0].id").value(hit.getId().toString()))
+      .andExpect(jsonPath("$.items[0].rank").value(0.5))
+      .andExpect(jsonPath("$.nextCursor").value("next"));
+  }
+
+  @Test
+  void getComplaints_ShouldReturnPageWithCursors() throws Exception {
+    ComplaintSummary complaint = new ComplaintSummary();
+    complaint.setId(UUID.randomUUID());
+    when(complaintDefaultService.getComplaints("abc", 1))
+      .thenReturn(new ComplaintCursorPage(List.of(complaint), "next", "previous"));
+
+    var result = mockMvc.perform(
+      get("/api/v1/complaints").param("cursor", "abc").param("size", "1")
+    );
+
+    result
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.items[0].id").value(complaint.getId().toString()))
+      .andExpect(jsonPath("$.nextCursor").value("next"))
+      .andExpect(jsonPath("$.previousCursor").value("previous"));
+  }
+
   @Test
   void editComplaint_ShouldReturnUpdatedComplaintResponse() throws Exception {
     UUID id = UUID.randomUUID();
@@ -149,4 +389,108 @@ class ComplaintControllerTest {
       .andExpect(jsonPath("$.content").value("new content"))
       .andExpect(jsonPath("$.country").value("Poland"));
   }
+
+  @Test
+  void getComplaint_ShouldAnswerNotModifiedFromVersionAlone() throws Exception {
+    UUID id = UUID.randomUUID();
+    when(complaintDefaultService.getComplaintVersion(id)).thenReturn(4L);
+
+    var result = mockMvc.perform(
+      get("/api/v1/complaints/{id}", id).header("If-None-Match", "\"4\"")
+    );
+
+    result
+      .andExpect(status().isNotModified())
+      .andExpect(header().string("ETag", "\"4\""))
+      .andExpect(content().string(""));
+    verify(complaintDefaultService, never()).getComplaint(id);
+  }
+
+  @Test
+  void getComplaint_ShouldReturnBodyWithETagWhenVersionChanged() throws Exception {
+    UUID id = UUID.randomUUID();
+    ComplaintResponse complaint = new ComplaintResponse();
+    complaint.setId(id);
+    complaint.setVersion(5L);
+    when(complaintDefaultService.getComplaintVersion(id)).thenReturn(5L);
+    when(complaintDefaultService.getComplaint(id)).thenReturn(complaint);
+
+    var result = mockMvc.perform(
+      get("/api/v1/complaints/{id}", id).header("If-None-Match", "\"4\"")
+    );
+
+    result
+      .andExpect(status().isOk())
+      .andExpect(header().string("ETag", "\"5\""))
+      .andExpect(jsonPath("$.id").value(id.toString()))
+      .andExpect(jsonPath("$.version").doesNotExist());
+  }
+
+  @Test
+  void editComplaint_ShouldRejectStaleIfMatchWithPreconditionFailed() throws Exception {
+    when(
+      complaintDefaultService.editComplaint(any(EditComplaintRequest.class), eq(3L))
+    )
+      .thenThrow(new ComplaintVersionMismatchException("Complaint is at version 4"));
+
+    var resource = new ClassPathResource("requestEditComplaint.json");
+    var requestBody = StreamUtils.copyToString(
+      resource.getInputStream(),
+      StandardCharsets.UTF_8
+    );
+
+    var result = mockMvc.perform(
+      put("/api/v1/complaints")
+        .header("If-Match", "\"3\"")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(requestBody)
+    );
+
+    result
+      .andExpect(status().isPreconditionFailed())
+      .andExpect(jsonPath("$.errorCode").value("PRECONDITION_FAILED"));
+  }
+
+  @Test
+  void exportComplaints_ShouldStreamCsvWithFilter() throws Exception {
+    Mockito
+      .doAnswer(
+        invocation -> {
+          OutputStream out = invocation.getArgument(2);
+          out.write("id,productId\r\n".getBytes(StandardCharsets.UTF_8));
+          return null;
+        }
+      )
+      .when(complaintExportService)
+      .export(any(), eq(ComplaintExportService.Format.CSV), any());
+
+    MvcResult started = mockMvc
+      .perform(
+        get("/api/v1/complaints/export")
+          .param("format", "CSV")
+          .param("country", "Poland")
+          .param("createdFrom", "2025-01-01T00:00:00Z")
+      )
+      .andExpect(request().asyncStarted())
+      .andReturn();
+    var result = mockMvc.perform(asyncDispatch(started));
+
+    result
+      .andExpect(status().isOk())
+      .andExpect(content().contentType("text/csv;charset=UTF-8"))
+      .andExpect(
+        header().string("Content-Disposition", "attachment; filename=\"complaints.csv\"")
+      )
+      .andExpect(content().string("id,productId\r\n"));
+    verify(complaintExportService)
+      .export(
+        Mockito.argThat(
+          filter ->
+            "Poland".equals(filter.getCountry()) &&
+            filter.getCreatedFrom().toString().equals("2025-01-01T00:00:00Z")
+        ),
+        eq(ComplaintExportService.Format.CSV),
+        any()
+      );
+  }
 }
@@ -0,0 +1,50 @@
+package com.bbockowski.apicomplaint.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.bbockowski.apicomplaint.dto.ProductStatsResponse;
+import com.bbockowski.apicomplaint.service.ProductStatsService;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+@WebMvcTest(ProductStatsController.class)
+class ProductStatsControllerTest {
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockitoBean
+  private ProductStatsService productStatsService;
+
+  @Test
+  void getProductStats_ShouldReturnTotalsAndCountries() throws Exception {
+    // given
+    when(productStatsService.getStats("RocknRoll-001"))
+      .thenReturn(
+        new ProductStatsResponse(
+          "RocknRoll-001",
+          3,
+          8,
+          List.of(
+            new ProductStatsResponse.CountryStats("Poland", 2, 7),
+            new ProductStatsResponse.CountryStats(null, 1, 1)
+          )
+        )
+      );
+
+    // when / then
+    mockMvc
+      .perform(get("/api/v1/products/RocknRoll-001/stats"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.productId").value("RocknRoll-001"))
+      .andExpect(jsonPath("$.reporters").value(3))
+      .andExpect(jsonPath("$.reports").value(8))
+      .andExpect(jsonPath("$.countries[0].country").value("Poland"))
+      .andExpect(jsonPath("$.countries[1].country").doesNotExist());
+  }
+}
@@ -0,0 +1,72 @@
+package com.bbockowski.apicomplaint.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(
+  webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+  properties = "geolocation.remote.enabled=false"
+)
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class PrometheusEndpointTest {
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Test
+  void scrapeShouldExposeRequestRepositoryGeolocationAndPoolMetrics() {
+    // given
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set("X-Forwarded-For", "83.12.34.56");
+    Map<String, String> complaint = Map.of(
+      "productId",
+      "metrics-" + UUID.randomUUID(),
+      "content",
+      "Too loud",
+      "reporter",
+      "reporter@example.com"
+    );
+    restTemplate.postForEntity(
+      "/api/v1/complaints",
+      new HttpEntity<>(complaint, headers),
+      String.class
+    );
+    restTemplate.postForEntity(
+      "/api/v1/complaints",
+      new HttpEntity<>(complaint, headers),
+      String.class
+    );
+
+    // when
+    ResponseEntity<String> scrape = restTemplate.getForEntity(
+      "/actuator/prometheus",
+      String.class
+    );
+
+    // then
+    assertThat(scrape.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(scrape.getBody())
+      .contains("http_server_requests_seconds_bucket{")
+      .contains("uri=\"/api/v1/complaints\"")
+      .contains("spring_data_repository_invocations_seconds_bucket{")
+      .contains("geolocation_lookup_seconds_bucket{")
+      .contains("complaints_submitted_total{result=\"created\"}")
+      .contains("complaints_submitted_total{result=\"incremented\"}")
+      .contains("hikaricp_connections_active")
+      .contains("resilience4j_circuitbreaker_state");
+  }
+}
@@ -0,0 +1,224 @@
+package com.bbockowski.apicomplaint.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bbockowski.apicomplaint.dto.ComplaintCursorPage;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(
+  webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+  properties = "spring.main.web-application-type=reactive"
+)
+@ActiveProfiles({ "test", "reactive" })
+class ReactiveComplaintControllerTest {
+  private static HttpServer geoLocationStub;
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    geoLocationStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    geoLocationStub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    geoLocationStub.createContext(
+      "/json/",
+      exchange -> {
+        byte[] body = "{\"country\":\"Poland\"}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+      }
+    );
+    geoLocationStub.start();
+    String stubUrl =
+      "http://127.0.0.1:" + geoLocationStub.getAddress().getPort() + "/json/";
+
+    registry.add("geolocation.remote.url", () -> stubUrl);
+  }
+
+  @AfterAll
+  static void stopStub() {
+    geoLocationStub.stop(0);
+  }
+
+  @Test
+  void addComplaintShouldCreateThenIncrement() {
+    // given
+    String productId = "reactive-" + UUID.randomUUID();
+
+    // when
+    ComplaintResponse created = addComplaint(productId);
+    ComplaintResponse incremented = addComplaint(productId);
+
+    // then
+    assertThat(incremented.getId()).isEqualTo(created.getId());
+    assertThat(created.getReportCount()).isEqualTo(1);
+    assertThat(incremented.getReportCount()).isEqualTo(2);
+    assertThat(incremented.getCountry()).isEqualTo("Poland");
+  }
+
+  @Test
+  void getComplaintShouldAnswerMatchingETagWithNotModified() {
+    // given
+    ComplaintResponse created = addComplaint("reactive-" + UUID.randomUUID());
+    String eTag = eTagOf(created.getId());
+
+    // when / then
+    webTestClient
+      .get()
+      .uri("/api/v1/complaints/{id}", created.getId())
+      .header(HttpHeaders.IF_NONE_MATCH, eTag)
+      .exchange()
+      .expectStatus()
+      .isNotModified()
+      .expectHeader()
+      .valueEquals(HttpHeaders.ETAG, eTag);
+    webTestClient
+      .get()
+      .uri("/api/v1/complaints/{id}", UUID.randomUUID())
+      .exchange()
+      .expectStatus()
+      .isNotFound();
+  }
+
+  @Test
+  void editComplaintShouldHonourIfMatch() {
+    // given
+    ComplaintResponse created = addComplaint("reactive-" + UUID.randomUUID());
+    long version = ComplaintETags.versions(eTagOf(created.getId())).get(0);
+    Map<String, String> edit = Map.of(
+      "id",
+      created.getId().toString(),
+      "content",
+      "Even louder"
+    );
+
+    // when / then
+    webTestClient
+      .put()
+      .uri("/api/v1/complaints")
+      .header(HttpHeaders.IF_MATCH, ComplaintETags.of(version + 1))
+      .bodyValue(edit)
+      .exchange()
+      .expectStatus()
+      .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    webTestClient
+      .put()
+      .uri("/api/v1/complaints")
+      .header(HttpHeaders.IF_MATCH, ComplaintETags.of(version))
+      .bodyValue(edit)
+      .exchange()
+      .expectStatus()
+      .isOk()
+      .expectHeader()
+      .valueEquals(HttpHeaders.ETAG, ComplaintETags.of(version + 1))
+      .expectBody(ComplaintResponse.class)
+      .value(complaint -> assertThat(complaint.getContent()).isEqualTo("Even louder"));
+  }
+
+  @Test
+  void listingsShouldIncludeNewComplaints() {
+    // given
+    ComplaintResponse created = addComplaint("reactive-" + UUID.randomUUID());
+
+    // when
+    ComplaintListResponse page = webTestClient
+      .get()
+      .uri("/api/v1/complaints/all?sort=createdAt,desc&size=5&total=EXACT")
+      .exchange()
+      .expectStatus()
+      .isOk()
+      .expectBody(ComplaintListResponse.class)
+      .returnResult()
+      .getResponseBody();
+    ComplaintListResponse filtered = webTestClient
+      .get()
+      .uri(
+        "/api/v1/complaints/all?productId={productId}&createdFrom={from}&total=EXACT",
+        created.getProductId(),
+        created.getCreatedAt().toInstant().minusSeconds(1)
+      )
+      .exchange()
+      .expectStatus()
+      .isOk()
+      .expectBody(ComplaintListResponse.class)
+      .returnResult()
+      .getResponseBody();
+    ComplaintCursorPage newest = webTestClient
+      .get()
+      .uri("/api/v1/complaints?size=5")
+      .exchange()
+      .expectStatus()
+      .isOk()
+      .expectBody(ComplaintCursorPage.class)
+      .returnResult()
+      .getResponseBody();
+
+    // then
+    assertThat(page.getSize()).isEqualTo(5);
+    assertThat(page.getTotalElements()).isPositive();
+    assertThat(page.getContent())
+      .extracting(ComplaintSummary::getId)
+      .contains(created.getId());
+    assertThat(filtered.getTotalElements()).isEqualTo(1);
+    assertThat(filtered.getContent())
+      .extracting(ComplaintSummary::getId)
+      .containsExactly(created.getId());
+    assertThat(newest.getItems())
+      .extracting(ComplaintSummary::getId)
+      .contains(created.getId());
+  }
+
+  private ComplaintResponse addComplaint(String productId) {
+    String body =
+      "{\"productId\":\"" +
+      productId +
+      "\",\"content\":\"Too loud\",\"reporter\":\"reporter@example.com\"}";
+    return webTestClient
+      .post()
+      .uri("/api/v1/complaints")
+      .header("Content-Type", "application/json")
+      .header("X-Forwarded-For", "83.12.34.56")
+      .bodyValue(body)
+      .exchange()
+      .expectStatus()
+      .isOk()
+      .expectBody(ComplaintResponse.class)
+      .returnResult()
+      .getResponseBody();
+  }
+
+  private String eTagOf(UUID id) {
+    return webTestClient
+      .get()
+      .uri("/api/v1/complaints/{id}", id)
+      .exchange()
+      .expectStatus()
+      .isOk()
+      .expectBody(ComplaintResponse.class)
+      .value(complaint -> assertThat(complaint.getId()).isEqualTo(id))
+      .returnResult()
+      .getResponseHeaders()
+      .getETag();
+  }
+}
@@ -0,0 +1,54 @@
+package com.bbockowski.apicomplaint.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.bbockowski.apicomplaint.trending.TrendingProducts;
+import com.bbockowski.apicomplaint.trending.TrendingProducts.TrendingProduct;
+import com.bbockowski.apicomplaint.trending.TrendingWindow;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+@WebMvcTest(TrendingProductsController.class)
+class TrendingProductsControllerTest {
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockitoBean
+  private TrendingProducts trendingProducts;
+
+  @Test
+  void getTrendingProducts_ShouldReturnTopProductsOfTheWindow() throws Exception {
+    // given
+    when(trendingProducts.top(TrendingWindow.FIVE_MINUTES, 2))
+      .thenReturn(
+        List.of(
+          new TrendingProduct("RocknRoll-001", 12, 0),
+          new TrendingProduct("RocknRoll-002", 7, 1)
+        )
+      );
+
+    // when / then
+    mockMvc
+      .perform(get("/api/v1/products/trending").param("window", "5m").param("limit", "2"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.window").value("5m"))
+      .andExpect(jsonPath("$.products[0].productId").value("RocknRoll-001"))
+      .andExpect(jsonPath("$.products[0].reports").value(12))
+      .andExpect(jsonPath("$.products[1].maxOvercount").value(1));
+  }
+
+  @Test
+  void getTrendingProducts_ShouldRejectUnknownWindow() throws Exception {
+    // when / then
+    mockMvc
+      .perform(get("/api/v1/products/trending").param("window", "7d"))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.errorCode").value("BAD_REQUEST"));
+  }
+}
@@ -0,0 +1,137 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import com.bbockowski.apicomplaint.config.GeoLocationProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GeoLocationCacheTest {
+  private GeoLocationProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    properties = new GeoLocationProperties();
+  }
+
+  @Test
+  void get_ShouldLoadEachAddressOnlyOnce() {
+    // given
+    GeoLocationCache cache = new GeoLocationCache(properties);
+    AtomicInteger loads = new AtomicInteger();
+
+    // when
+    for (int i = 0; i < 5; i++) {
+      cache.get(
+        "80.1.2.3",
+        ip -> {
+          loads.incrementAndGet();
+          return new GeoLocationCache.Entry("Poland", false);
+        }
+      );
+    }
+
+    // then
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void get_ShouldShareOneLookupBetweenConcurrentMisses() throws Exception {
+    // given
+    GeoLocationCache cache = new GeoLocationCache(properties);
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    // when
+    List<Future<GeoLocationCache.Entry>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(
+        executor.submit(
+          () ->
+            cache.get(
+              "80.1.2.3",
+              ip -> {
+                loads.incrementAndGet();
+                await(release);
+                return new GeoLocationCache.Entry("Poland", false);
+              }
+            )
+        )
+      );
+    }
+    Thread.sleep(100);
+    release.countDown();
+
+    // then
+    for (Future<GeoLocationCache.Entry> result : results) {
+      assertThat(result.get(5, TimeUnit.SECONDS).country()).isEqualTo("Poland");
+    }
+    executor.shutdown();
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void get_ShouldExpireNegativeEntriesSooner() throws InterruptedException {
+    // given
+    properties.getCache().setNegativeTtl(Duration.ofMillis(50));
+    GeoLocationCache cache = new GeoLocationCache(properties);
+    AtomicInteger loads = new AtomicInteger();
+
+    // when
+    cache.get(
+      "80.1.2.3",
+      ip -> {
+        loads.incrementAndGet();
+        return new GeoLocationCache.Entry("Fallback Country", true);
+      }
+    );
+    Thread.sleep(150);
+    GeoLocationCache.Entry entry = cache.get(
+      "80.1.2.3",
+      ip -> {
+        loads.incrementAndGet();
+        return new GeoLocationCache.Entry("Poland", false);
+      }
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(entry.country()).isEqualTo("Poland"),
+      () -> assertThat(loads).hasValue(2)
+    );
+  }
+
+  @Test
+  void get_ShouldKeyByNetworkPrefixWhenConfigured() {
+    // given
+    properties.getCache().setKeyMode(GeoLocationCache.KeyMode.PREFIX);
+    GeoLocationCache cache = new GeoLocationCache(properties);
+
+    // when / then
+    assertAll(
+      () -> assertThat(cache.keyFor("80.1.2.3")).isEqualTo("80.1.2.0/24"),
+      () -> assertThat(cache.keyFor("80.1.2.250")).isEqualTo("80.1.2.0/24"),
+      () -> assertThat(cache.keyFor("2a00:1450:4001::1")).isEqualTo("2a0014504001::/48"),
+      () -> assertThat(cache.keyFor("garbage")).isEqualTo("garbage")
+    );
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class IpAddressesTest {
+
+  @Test
+  void toBytes_ShouldParseIpv6LiteralsLikeInetAddress() throws UnknownHostException {
+    // given
+    List<String> literals = List.of(
+      "::",
+      "::1",
+      "2001:db8::",
+      "2001:DB8:0:0:8:800:200C:417A",
+      "fe80::1:2",
+      "1:2:3:4:5:6:7::",
+      "::ffff:80.1.2.3",
+      "64:ff9b::192.0.2.33",
+      "[2a00:1450:4001::200e]"
+    );
+
+    // when / then
+    for (String literal : literals) {
+      String bare = literal.replace("[", "").replace("]", "");
+      assertThat(IpAddresses.toBytes(literal))
+        .as(literal)
+        .isEqualTo(InetAddress.getByName(bare).getAddress());
+    }
+  }
+
+  @Test
+  void toBytes_ShouldRejectNonLiterals() {
+    // given
+    List<String> invalid = List.of(
+      "localhost",
+      "example.com",
+      "1.2.3.4.nip.io",
+      "zz:zz",
+      "example.com:80",
+      "localhost:",
+      "1::2::3",
+      ":::",
+      ":1:2:3:4:5:6:7",
+      "1:2:3:4:5:6:7:8:9",
+      "1:2:3:4:5:6:7:8::",
+      "12345::",
+      "1.2.3.4::",
+      "::1.2.3",
+      "::ffff:1.2.3.4:5",
+      "fe80::1%eth0"
+    );
+
+    // when
+    List<byte[]> parsed = invalid.stream().map(IpAddresses::toBytes).toList();
+
+    // then
+    assertThat(parsed).containsOnlyNulls();
+  }
+}
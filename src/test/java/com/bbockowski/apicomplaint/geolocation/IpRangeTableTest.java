@@ -0,0 +1,140 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IpRangeTableTest {
+  private static final String DATASET =
+    """
+    start_ip,end_ip,country
+    # comment lines are ignored
+    1.0.0.0,1.0.0.255,Australia
+    223.255.255.0,223.255.255.255,China
+    80.0.0.0,80.255.255.255,Poland
+    255.255.255.0,255.255.255.255,Nowhere
+    2001:db8::,2001:db8:ffff:ffff:ffff:ffff:ffff:ffff,Iceland
+    2a00::,2a00:ffff:ffff:ffff:ffff:ffff:ffff:ffff,Finland
+    """;
+
+  @TempDir
+  private Path tempDir;
+
+  private IpRangeTable table;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    table =
+      IpRangeTableLoader.readCsv(
+        new ByteArrayInputStream(DATASET.getBytes(StandardCharsets.UTF_8)),
+        "test"
+      );
+  }
+
+  @Test
+  void shouldResolveIpv4AddressesInsideRanges() {
+    assertAll(
+      () -> assertThat(table.lookup("1.0.0.0")).isEqualTo("Australia"),
+      () -> assertThat(table.lookup("1.0.0.255")).isEqualTo("Australia"),
+      () -> assertThat(table.lookup("80.12.34.56")).isEqualTo("Poland"),
+      () -> assertThat(table.lookup("223.255.255.7")).isEqualTo("China"),
+      () -> assertThat(table.lookup("255.255.255.255")).isEqualTo("Nowhere")
+    );
+  }
+
+  @Test
+  void shouldReturnNullOutsideRangesAndForInvalidInput() {
+    assertAll(
+      () -> assertThat(table.lookup("0.255.255.255")).isNull(),
+      () -> assertThat(table.lookup("1.0.1.0")).isNull(),
+      () -> assertThat(table.lookup("not-an-ip")).isNull(),
+      () -> assertThat(table.lookup("1.2.3")).isNull(),
+      () -> assertThat(table.lookup("256.1.1.1")).isNull(),
+      () -> assertThat(table.lookup((String) null)).isNull()
+    );
+  }
+
+  @Test
+  void shouldResolveIpv6AndIpv4MappedAddresses() {
+    assertAll(
+      () -> assertThat(table.lookup("2001:db8::1")).isEqualTo("Iceland"),
+      () -> assertThat(table.lookup("2a00:1450:4001::200e")).isEqualTo("Finland"),
+      () -> assertThat(table.lookup("2a01::1")).isNull(),
+      () -> assertThat(table.lookup("::ffff:80.1.2.3")).isEqualTo("Poland")
+    );
+  }
+
+  @Test
+  void shouldRoundTripThroughBinaryFormat() throws IOException {
+    Path csv = Files.writeString(tempDir.resolve("ranges.csv"), DATASET);
+    Path binary = tempDir.resolve("ranges.bin");
+
+    IpRangeTableLoader.convertToBinary(csv, binary);
+    IpRangeTable loaded = IpRangeTableLoader.load(binary);
+
+    assertAll(
+      () -> assertThat(loaded.ipv4RangeCount()).isEqualTo(4),
+      () -> assertThat(loaded.ipv6RangeCount()).isEqualTo(2),
+      () -> assertThat(loaded.lookup("80.0.0.1")).isEqualTo("Poland"),
+      () -> assertThat(loaded.lookup("2001:db8::ffff")).isEqualTo("Iceland")
+    );
+  }
+
+  @Test
+  void shouldRejectOverlappingRanges() {
+    String overlapping = "10.0.0.0,10.0.0.255,A\n10.0.0.128,10.0.1.0,B\n";
+
+    assertThrows(
+      IOException.class,
+      () ->
+        IpRangeTableLoader.readCsv(
+          new ByteArrayInputStream(overlapping.getBytes(StandardCharsets.UTF_8)),
+          "test"
+        )
+    );
+  }
+
+  @Test
+  void shouldRejectBinaryTableWithUnsortedRanges() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(IpRangeTable.MAGIC);
+    out.writeInt(IpRangeTable.FORMAT_VERSION);
+    out.writeInt(1);
+    out.writeUTF("Poland");
+    out.writeInt(2);
+    for (int start : new int[] { 0x50000000, 0x01000000 }) {
+      out.writeInt(start ^ Integer.MIN_VALUE);
+      out.writeInt((start + 0xff) ^ Integer.MIN_VALUE);
+      out.writeShort(0);
+    }
+    out.writeInt(0);
+
+    assertThrows(
+      IOException.class,
+      () -> IpRangeTable.readFrom(new ByteArrayInputStream(bytes.toByteArray()))
+    );
+  }
+
+  @Test
+  void shouldWriteIdenticalBytesAfterReadingBinaryBack() throws IOException {
+    ByteArrayOutputStream first = new ByteArrayOutputStream();
+    ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+    table.writeTo(first);
+    IpRangeTable.readFrom(new ByteArrayInputStream(first.toByteArray())).writeTo(second);
+
+    assertThat(second.toByteArray()).isEqualTo(first.toByteArray());
+  }
+}
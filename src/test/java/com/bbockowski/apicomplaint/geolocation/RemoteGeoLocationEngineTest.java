@@ -0,0 +1,154 @@
+package com.bbockowski.apicomplaint.geolocation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.ResourceAccessException;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RemoteGeoLocationEngineTest {
+  private static final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+  private static HttpServer geoLocationStub;
+
+  @Autowired
+  private RemoteGeoLocationEngine remoteGeoLocationEngine;
+
+  @Autowired
+  private CircuitBreakerRegistry circuitBreakerRegistry;
+
+  @Autowired
+  private RetryRegistry retryRegistry;
+
+  @Autowired
+  private BulkheadRegistry bulkheadRegistry;
+
+  @Autowired
+  private TimeLimiterRegistry timeLimiterRegistry;
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) throws IOException {
+    geoLocationStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    geoLocationStub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    geoLocationStub.createContext(
+      "/json/",
+      exchange -> {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        if (exchange.getRequestURI().getPath().endsWith("/10.0.0.99")) {
+          try {
+            Thread.sleep(1000);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        byte[] body = "{\"country\":\"Poland\"}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+      }
+    );
+    geoLocationStub.start();
+    String stubUrl =
+      "http://127.0.0.1:" + geoLocationStub.getAddress().getPort() + "/json/";
+
+    registry.add("geolocation.remote.url", () -> stubUrl);
+    registry.add("geolocation.remote.read-timeout", () -> "200ms");
+    registry.add(
+      "resilience4j.retry.instances.ipLocationServiceRetry.wait-duration",
+      () -> "10ms"
+    );
+  }
+
+  @AfterAll
+  static void stopStub() {
+    geoLocationStub.stop(0);
+  }
+
+  @Test
+  void configurationShouldBindToAnnotatedInstanceNames() {
+    assertAll(
+      () ->
+        assertThat(
+          circuitBreakerRegistry
+            .circuitBreaker("ipLocationService")
+            .getCircuitBreakerConfig()
+            .getSlidingWindowSize()
+        )
+          .isEqualTo(10),
+      () ->
+        assertThat(
+          retryRegistry.retry("ipLocationServiceRetry").getRetryConfig().getMaxAttempts()
+        )
+          .isEqualTo(3),
+      () ->
+        assertThat(
+          bulkheadRegistry
+            .bulkhead("ipLocationService")
+            .getBulkheadConfig()
+            .getMaxConcurrentCalls()
+        )
+          .isEqualTo(50),
+      () ->
+        assertThat(
+          timeLimiterRegistry
+            .timeLimiter("ipLocationService")
+            .getTimeLimiterConfig()
+            .getTimeoutDuration()
+        )
+          .isEqualTo(Duration.ofSeconds(3))
+    );
+  }
+
+  @Test
+  void shouldReuseOnePooledConnectionForSequentialLookups() {
+    // given
+    clientPorts.clear();
+
+    // when
+    Optional<String> first = remoteGeoLocationEngine.findCountry("83.12.34.56");
+    for (int i = 0; i < 4; i++) {
+      remoteGeoLocationEngine.findCountry("83.12.34." + i);
+    }
+
+    // then
+    assertAll(
+      () -> assertThat(first).contains("Poland"),
+      () -> assertThat(clientPorts).hasSize(1)
+    );
+  }
+
+  @Test
+  void shouldGiveUpOnSlowServiceAfterReadTimeout() {
+    // when
+    long started = System.nanoTime();
+    assertThatThrownBy(() -> remoteGeoLocationEngine.findCountry("10.0.0.99"))
+      .isInstanceOf(ResourceAccessException.class);
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+    // then
+    assertThat(elapsed).isLessThan(Duration.ofSeconds(2));
+  }
+}
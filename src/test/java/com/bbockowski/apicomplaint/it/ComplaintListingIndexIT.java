@@ -0,0 +1,158 @@
+package com.bbockowski.apicomplaint.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Checks on PostgreSQL that the listing query generated for every combination of
+ * filters reads the seeded partition through the index made for that filter.
+ */
+@SpringBootTest(
+  properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+  "com.bbockowski.apicomplaint.it.ComplaintListingIndexIT$RecordingStatementInspector"
+)
+@Transactional
+@ActiveProfiles("dev")
+class ComplaintListingIndexIT {
+  private static final int SEEDED_ROWS = 20_000;
+  private static final int PAGE_SIZE = 20;
+
+  @Autowired
+  private ComplaintRepository complaintRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private LocalDateTime monthStart;
+  private String partition;
+
+  @BeforeEach
+  void seed() {
+    YearMonth month = YearMonth.now();
+    monthStart = month.atDay(1).atStartOfDay();
+    partition = "complaints_p" + month.format(DateTimeFormatter.ofPattern("yyyyMM"));
+    // One row a minute from the start of the month keeps every row in one partition.
+    jdbcTemplate.update(
+      "INSERT INTO complaints (id, version, product_id, content, created_at, " +
+      "modified_at, reporter, country, report_count) " +
+      "SELECT gen_random_uuid(), 0, 'Product-' || (i % 500), 'content', " +
+      "?::timestamp + i * interval '1 minute', localtimestamp, " +
+      "'Reporter-' || (i % 2000), 'Country-' || (i % 20), 1 " +
+      "FROM generate_series(1, ?) AS i",
+      Timestamp.valueOf(monthStart),
+      SEEDED_ROWS
+    );
+    jdbcTemplate.execute("ANALYZE complaints");
+    RecordingStatementInspector.STATEMENTS.clear();
+  }
+
+  @Test
+  void findSummaries_ShouldUseTheIndexMatchingEveryFilterCombination() {
+    for (int mask = 1; mask < 1 << 4; mask++) {
+      // given
+      ComplaintFilter filter = new ComplaintFilter();
+      List<Object> args = new ArrayList<>();
+      List<String> expectedIndexes = new ArrayList<>();
+      if ((mask & 1) != 0) {
+        filter.setProductId("Product-7");
+        args.add(filter.getProductId());
+        expectedIndexes.add("ix_complaints_product_id_created_at");
+        expectedIndexes.add("ix_complaints_product_id_reporter");
+      }
+      if ((mask & 2) != 0) {
+        filter.setReporter("Reporter-7");
+        args.add(filter.getReporter());
+        expectedIndexes.add("ix_complaints_reporter_created_at");
+      }
+      if ((mask & 4) != 0) {
+        filter.setCountry("Country-7");
+        args.add(filter.getCountry());
+        expectedIndexes.add("ix_complaints_country_created_at");
+      }
+      if ((mask & 8) != 0) {
+        filter.setCreatedFrom(instant(monthStart.plusDays(2)));
+        filter.setCreatedTo(instant(monthStart.plusDays(3)));
+        args.add(Timestamp.valueOf(monthStart.plusDays(2)));
+        args.add(Timestamp.valueOf(monthStart.plusDays(3)));
+      }
+      if (expectedIndexes.isEmpty()) {
+        expectedIndexes.add("ix_complaints_created_at_id");
+      }
+      args.add(PAGE_SIZE + 1);
+      RecordingStatementInspector.STATEMENTS.clear();
+      complaintRepository.findSummaries(
+        filter,
+        PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+      );
+      String sql = RecordingStatementInspector.STATEMENTS.getLast();
+
+      // when
+      String plan = String.join(
+        "\n",
+        jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args.toArray())
+      );
+
+      // then
+      assertThat(sql.chars().filter(c -> c == '?').count())
+        .as(sql)
+        .isEqualTo(args.size());
+      assertThat(plan)
+        .as(sql)
+        .doesNotContain("Seq Scan on " + partition)
+        .containsAnyOf(
+          expectedIndexes
+            .stream()
+            .map(this::partitionIndex)
+            .toArray(String[]::new)
+        );
+    }
+  }
+
+  private String partitionIndex(String parentIndex) {
+    return jdbcTemplate.queryForObject(
+      "SELECT c.relname FROM pg_inherits i " +
+      "JOIN pg_class c ON c.oid = i.inhrelid " +
+      "JOIN pg_index x ON x.indexrelid = c.oid " +
+      "WHERE i.inhparent = ?::regclass AND x.indrelid = ?::regclass",
+      String.class,
+      parentIndex,
+      partition
+    );
+  }
+
+  private static Instant instant(LocalDateTime time) {
+    return time.atZone(ZoneId.systemDefault()).toInstant();
+  }
+
+  /** Keeps the SQL Hibernate sends, so the test explains the listing query itself. */
+  public static class RecordingStatementInspector implements StatementInspector {
+    static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+      STATEMENTS.add(sql);
+      return sql;
+    }
+  }
+}
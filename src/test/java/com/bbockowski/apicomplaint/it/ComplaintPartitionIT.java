@@ -0,0 +1,93 @@
+package com.bbockowski.apicomplaint.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ComplaintPartitionRepository;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.UpsertResult;
+import com.bbockowski.apicomplaint.service.ComplaintPartitionMaintenance;
+import java.time.YearMonth;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Checks on PostgreSQL that complaints are partitioned by month, that lookups by a
+ * generated id read a single partition, and that repeated reports still land on one
+ * complaint now that its key lives in complaint_keys.
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("dev")
+class ComplaintPartitionIT {
+  @Autowired
+  private ComplaintRepository complaintRepository;
+
+  @Autowired
+  private ComplaintPartitionRepository partitionRepository;
+
+  @Autowired
+  private ComplaintPartitionMaintenance partitionMaintenance;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void maintain_ShouldKeepPartitionsAhead() {
+    // when
+    partitionMaintenance.maintain();
+
+    // then
+    YearMonth current = YearMonth.now();
+    assertAll(
+      () -> assertThat(partitionRepository.isPartitioned()).isTrue(),
+      () ->
+        assertThat(partitionRepository.findPartitions())
+          .contains(current, current.plusMonths(1), current.plusMonths(3))
+    );
+  }
+
+  @Test
+  void upsert_ShouldIncrementOneComplaintFoundInItsOwnPartition() {
+    // given
+    String reporter = "Cliff Burton " + UUID.randomUUID();
+    UpsertResult first = complaintRepository.upsert(newComplaint(reporter));
+
+    // when
+    UpsertResult second = complaintRepository.upsert(newComplaint(reporter));
+    UUID id = first.complaint().getId();
+    String plan = String.join(
+      "\n",
+      jdbcTemplate.queryForList(
+        "EXPLAIN SELECT * FROM complaints WHERE id = ? AND created_at = ?",
+        String.class,
+        id,
+        first.complaint().getCreatedAt()
+      )
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(second.created()).isFalse(),
+      () -> assertThat(second.complaint().getId()).isEqualTo(id),
+      () -> assertThat(second.complaint().getReportCount()).isEqualTo(2),
+      () -> assertThat(id.version()).isEqualTo(7),
+      () -> assertThat(plan.split("complaints_p", -1)).as(plan).hasSize(2)
+    );
+  }
+
+  private static Complaint newComplaint(String reporter) {
+    Complaint complaint = new Complaint();
+    complaint.setProductId("RocknRoll-001");
+    complaint.setReporter(reporter);
+    complaint.setContent("Volume too loud");
+    complaint.setCountry("Poland");
+    return complaint;
+  }
+}
@@ -0,0 +1,61 @@
+package com.bbockowski.apicomplaint.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.model.Complaint;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ComplaintMapperTest {
+  private final ComplaintMapper complaintMapper = new ComplaintMapper();
+
+  @Test
+  void shouldCopyEveryResponseField() {
+    // given
+    Complaint complaint = new Complaint();
+    complaint.setId(UUID.randomUUID());
+    complaint.setProductId("RocknRoll-001");
+    complaint.setContent("Volume too loud");
+    complaint.setCreatedAt(Timestamp.from(Instant.parse("2026-10-18T12:00:00Z")));
+    complaint.setReporter("Cliff Burton");
+    complaint.setCountry("Poland");
+    complaint.setReportCount(7);
+
+    // when
+    ComplaintResponse response = complaintMapper.toResponse(complaint);
+
+    // then
+    assertThat(response).usingRecursiveComparison().isEqualTo(complaint);
+  }
+
+  @Test
+  void shouldMapListsAndRequests() {
+    // given
+    AddComplaintRequest request = new AddComplaintRequest();
+    request.setProductId("RocknRoll-001");
+    request.setContent("Volume too loud");
+    request.setReporter("Cliff Burton");
+    request.setCountry("Poland");
+    request.setPendingIp("80.1.2.3");
+
+    // when
+    Complaint complaint = complaintMapper.toComplaint(request);
+    List<ComplaintResponse> responses = complaintMapper.toResponses(
+      List.of(complaint, complaint)
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(request).usingRecursiveComparison().isEqualTo(complaint),
+      () -> assertThat(complaint.getId()).isNull(),
+      () -> assertThat(responses).hasSize(2),
+      () -> assertThat(responses.get(1).getProductId()).isEqualTo("RocknRoll-001")
+    );
+  }
+}
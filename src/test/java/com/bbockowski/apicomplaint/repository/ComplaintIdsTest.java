@@ -0,0 +1,66 @@
+package com.bbockowski.apicomplaint.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import com.bbockowski.apicomplaint.repository.ComplaintIds.CreationRange;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ComplaintIdsTest {
+  private static final String EPOCH_2000 = "2000-01-01 00:00:00";
+  private static final String EPOCH_3000 = "3000-01-01 00:00:00";
+
+  @Test
+  void shouldEmbedTheCreationTimeInVersion7Ids() {
+    // given
+    Instant createdAt = Instant.parse("2026-10-18T12:34:56.789Z");
+
+    // when
+    UUID id = ComplaintIds.next(createdAt);
+    UUID later = ComplaintIds.next(createdAt.plusMillis(1));
+
+    // then
+    assertAll(
+      () -> assertThat(id.version()).isEqualTo(7),
+      () -> assertThat(id.variant()).isEqualTo(2),
+      () ->
+        assertThat(id.getMostSignificantBits() >>> 16)
+          .isEqualTo(createdAt.toEpochMilli()),
+      () -> assertThat(ComplaintIds.next(createdAt)).isNotEqualTo(id),
+      () ->
+        assertThat(later.getMostSignificantBits())
+          .isGreaterThan(id.getMostSignificantBits())
+    );
+  }
+
+  @Test
+  void shouldBoundCreationTimesOnlyForVersion7Ids() {
+    // given
+    Instant createdAt = Instant.parse("2026-10-18T12:34:56.789Z");
+    Timestamp stored = Timestamp.from(createdAt);
+    UUID id = ComplaintIds.next(createdAt);
+    UUID legacy = UUID.randomUUID();
+
+    // when
+    CreationRange range = ComplaintIds.creationRange(id);
+    CreationRange legacyRange = ComplaintIds.creationRange(legacy);
+    CreationRange both = ComplaintIds.creationRange(List.of(id, legacy));
+
+    // then
+    assertAll(
+      () -> assertThat(range.from()).isBefore(stored),
+      () -> assertThat(range.to()).isAfter(stored),
+      () ->
+        assertThat(range.to().getTime() - range.from().getTime())
+          .isEqualTo(Duration.ofDays(2).toMillis()),
+      () -> assertThat(legacyRange.from()).isBefore(Timestamp.valueOf(EPOCH_2000)),
+      () -> assertThat(legacyRange.to()).isAfter(Timestamp.valueOf(EPOCH_3000)),
+      () -> assertThat(both).isEqualTo(legacyRange)
+    );
+  }
+}
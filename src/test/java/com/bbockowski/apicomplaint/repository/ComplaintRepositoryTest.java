@@ -0,0 +1,330 @@
+package com.bbockowski.apicomplaint.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
+import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.BatchUpsert;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.ReportCountIncrement;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.UpsertResult;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ComplaintRepositoryTest {
+  @Autowired
+  private ComplaintRepository complaintRepository;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @AfterEach
+  void tearDown() {
+    complaintRepository.deleteAll();
+  }
+
+  @Test
+  void upsert_ShouldCreateThenIncrementSameComplaint() {
+    // when
+    UpsertResult first = complaintRepository.upsert(newComplaint("Volume too loud"));
+    UpsertResult second = complaintRepository.upsert(newComplaint("Still too loud"));
+
+    // then
+    assertAll(
+      () -> assertThat(first.created()).isTrue(),
+      () -> assertThat(first.complaint().getReportCount()).isEqualTo(1),
+      () -> assertThat(second.created()).isFalse(),
+      () -> assertThat(second.complaint().getId()).isEqualTo(first.complaint().getId()),
+      () -> assertThat(second.complaint().getReportCount()).isEqualTo(2),
+      () -> assertThat(second.complaint().getContent()).isEqualTo("Volume too loud"),
+      () -> assertThat(second.complaint().getVersion()).isEqualTo(1L),
+      () -> assertThat(complaintRepository.count()).isEqualTo(1)
+    );
+  }
+
+  @Test
+  void upsert_ShouldNotCreateDuplicatesUnderConcurrency() throws Exception {
+    // given
+    int threads = 8;
+    int callsPerThread = 25;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    // when
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      futures.add(
+        executor.submit(
+          () -> {
+            for (int j = 0; j < callsPerThread; j++) {
+              complaintRepository.upsert(newComplaint("Volume too loud"));
+            }
+          }
+        )
+      );
+    }
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    // then
+    List<Complaint> complaints = complaintRepository.findAll();
+    assertAll(
+      () -> assertThat(complaints).hasSize(1),
+      () ->
+        assertThat(complaints.get(0).getReportCount())
+          .isEqualTo(threads * callsPerThread)
+    );
+  }
+
+  @Test
+  void applyReportCountIncrements_ShouldApplyEachSegmentOnlyOnce() {
+    // given
+    complaintRepository.upsert(newComplaint("Volume too loud"));
+    List<ReportCountIncrement> increments = List.of(
+      new ReportCountIncrement("RocknRoll-001", "Cliff Burton", 4),
+      new ReportCountIncrement("Unknown-001", "Nobody", 7)
+    );
+
+    // when
+    boolean firstApply = complaintRepository.applyReportCountIncrements(
+      "node:1",
+      increments
+    );
+    boolean replay = complaintRepository.applyReportCountIncrements(
+      "node:1",
+      increments
+    );
+    complaintRepository.deleteReportCountFlush("node:1");
+
+    // then
+    List<Complaint> complaints = complaintRepository.findAll();
+    Complaint complaint = complaints
+      .stream()
+      .filter(stored -> stored.getReporter().equals("Cliff Burton"))
+      .findFirst()
+      .orElseThrow();
+    assertAll(
+      () -> assertThat(firstApply).isTrue(),
+      () -> assertThat(replay).isFalse(),
+      () -> assertThat(complaints).hasSize(2),
+      () -> assertThat(complaint.getReportCount()).isEqualTo(5),
+      () -> assertThat(complaint.getVersion()).isEqualTo(4L)
+    );
+  }
+
+  @Test
+  void applyReportCountIncrements_ShouldStoreReportsOfRetiredComplaintsAgain() {
+    // given
+    complaintRepository.upsert(newComplaint("Volume too loud"));
+    complaintRepository.deleteAll();
+
+    // when
+    complaintRepository.applyReportCountIncrements(
+      "node:1",
+      List.of(new ReportCountIncrement("RocknRoll-001", "Cliff Burton", 3))
+    );
+    complaintRepository.deleteReportCountFlush("node:1");
+
+    // then
+    List<Complaint> complaints = complaintRepository.findAll();
+    assertAll(
+      () -> assertThat(complaints).hasSize(1),
+      () -> assertThat(complaints.get(0).getProductId()).isEqualTo("RocknRoll-001"),
+      () -> assertThat(complaints.get(0).getReporter()).isEqualTo("Cliff Burton"),
+      () -> assertThat(complaints.get(0).getReportCount()).isEqualTo(3)
+    );
+  }
+
+  @Test
+  void upsertBatch_ShouldIncrementExistingAndInsertNewComplaints() {
+    // given
+    Complaint existing = complaintRepository
+      .upsert(newComplaint("Volume too loud"))
+      .complaint();
+    Complaint fresh = newComplaint("Strings keep breaking");
+    fresh.setProductId("RocknRoll-002");
+
+    // when
+    List<UpsertResult> results = complaintRepository.upsertBatch(
+      List.of(
+        new BatchUpsert(newComplaint("Still too loud"), 3),
+        new BatchUpsert(fresh, 2)
+      )
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(results.get(0).created()).isFalse(),
+      () -> assertThat(results.get(0).complaint().getId()).isEqualTo(existing.getId()),
+      () -> assertThat(results.get(0).complaint().getReportCount()).isEqualTo(4),
+      () -> assertThat(results.get(1).created()).isTrue(),
+      () -> assertThat(results.get(1).complaint().getReportCount()).isEqualTo(2),
+      () ->
+        assertThat(complaintRepository.findById(existing.getId()))
+          .hasValueSatisfying(stored -> assertThat(stored.getReportCount()).isEqualTo(4)),
+      () -> assertThat(complaintRepository.count()).isEqualTo(2)
+    );
+  }
+
+  @Test
+  void projections_ShouldReadResponsesAndSortedSummaries() {
+    // given
+    Complaint first = complaintRepository
+      .upsert(newComplaint("Volume too loud"))
+      .complaint();
+    Complaint second = newComplaint("Strings keep breaking");
+    second.setProductId("RocknRoll-002");
+    complaintRepository.upsert(second);
+
+    // when
+    Page<ComplaintSummary> page = complaintRepository.findSummaryPage(
+      PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "productId"))
+    );
+
+    // then
+    assertAll(
+      () ->
+        assertThat(complaintRepository.findResponseById(first.getId()))
+          .hasValueSatisfying(
+            response -> assertThat(response.getContent()).isEqualTo("Volume too loud")
+          ),
+      () -> assertThat(page.getTotalElements()).isEqualTo(2),
+      () -> assertThat(page.getContent().get(0).getProductId()).isEqualTo("RocknRoll-002")
+    );
+  }
+
+  @Test
+  void lookupsById_ShouldFindTimeOrderedAndLegacyIds() {
+    // given
+    Complaint generated = complaintRepository
+      .upsert(newComplaint("Volume too loud"))
+      .complaint();
+    Complaint legacy = newComplaint("Strings keep breaking");
+    legacy.setProductId("RocknRoll-002");
+    legacy.setId(UUID.randomUUID());
+    complaintRepository.upsert(legacy);
+
+    // when
+    String content = "Strings broke again";
+    Integer updated = transactionTemplate.execute(
+      status -> complaintRepository.updateContentIfVersion(legacy.getId(), 0L, content)
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(generated.getId().version()).isEqualTo(7),
+      () ->
+        assertThat(complaintRepository.findVersionById(generated.getId())).hasValue(0L),
+      () -> assertThat(updated).isEqualTo(1),
+      () ->
+        assertThat(complaintRepository.findResponseById(legacy.getId()))
+          .hasValueSatisfying(
+            response -> assertThat(response.getContent()).isEqualTo(content)
+          )
+    );
+  }
+
+  @Test
+  void filteredSummaries_ShouldListOnlyMatchingComplaints() {
+    // given
+    Instant before = Instant.now().minusSeconds(60);
+    for (String productId : List.of("RocknRoll-002", "RocknRoll-001")) {
+      Complaint complaint = newComplaint("Volume too loud");
+      complaint.setProductId(productId);
+      complaintRepository.upsert(complaint);
+    }
+    Complaint elsewhere = newComplaint("Strings keep breaking");
+    elsewhere.setCountry("Germany");
+    elsewhere.setProductId("RocknRoll-003");
+    complaintRepository.upsert(elsewhere);
+    ComplaintFilter filter = new ComplaintFilter();
+    filter.setCountry("Poland");
+    filter.setReporter("Cliff Burton");
+    filter.setCreatedFrom(before);
+    ComplaintFilter tooEarly = new ComplaintFilter();
+    tooEarly.setCreatedTo(before);
+    PageRequest firstByProduct = PageRequest.of(0, 1, Sort.by("productId"));
+
+    // when
+    Page<ComplaintSummary> page = complaintRepository.findSummaryPage(
+      filter,
+      firstByProduct
+    );
+    Slice<ComplaintSummary> slice = complaintRepository.findSummaries(
+      filter,
+      firstByProduct
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(page.getTotalElements()).isEqualTo(2),
+      () ->
+        assertThat(page.getContent())
+          .extracting(ComplaintSummary::getProductId)
+          .containsExactly("RocknRoll-001"),
+      () -> assertThat(slice.hasNext()).isTrue(),
+      () ->
+        assertThat(slice.getContent())
+          .extracting(ComplaintSummary::getCountry)
+          .containsExactly("Poland"),
+      () ->
+        assertThat(complaintRepository.findSummaryPage(tooEarly, firstByProduct))
+          .isEmpty()
+    );
+  }
+
+  @Test
+  void streamComplaints_ShouldStreamFilteredComplaintsOldestFirst() {
+    // given
+    for (String productId : List.of("RocknRoll-003", "RocknRoll-001", "RocknRoll-002")) {
+      Complaint complaint = newComplaint("Volume too loud");
+      complaint.setProductId(productId);
+      complaintRepository.upsert(complaint);
+    }
+    Complaint elsewhere = newComplaint("Strings keep breaking");
+    elsewhere.setCountry("Germany");
+    elsewhere.setProductId("RocknRoll-004");
+    complaintRepository.upsert(elsewhere);
+    ComplaintFilter filter = new ComplaintFilter();
+    filter.setCountry("Poland");
+
+    // when
+    List<ComplaintResponse> streamed = new ArrayList<>();
+    complaintRepository.streamComplaints(filter, 2, streamed::add);
+
+    // then
+    assertThat(streamed)
+      .extracting(ComplaintResponse::getProductId)
+      .containsExactly("RocknRoll-003", "RocknRoll-001", "RocknRoll-002");
+  }
+
+  private static Complaint newComplaint(String content) {
+    Complaint complaint = new Complaint();
+    complaint.setProductId("RocknRoll-001");
+    complaint.setReporter("Cliff Burton");
+    complaint.setContent(content);
+    complaint.setCountry("Poland");
+    return complaint;
+  }
+}
@@ -0,0 +1,159 @@
+package com.bbockowski.apicomplaint.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import com.bbockowski.apicomplaint.dto.ComplaintSearchHit;
+import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ComplaintSearchRepository.Position;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ComplaintSearchRepositoryTest {
+  @Autowired
+  private ComplaintRepository complaintRepository;
+
+  @Autowired
+  private ComplaintSearchRepository complaintSearchRepository;
+
+  @AfterEach
+  void tearDown() {
+    complaintRepository.deleteAll();
+  }
+
+  @Test
+  void search_ShouldRankComplaintsMentioningTheWordMoreOftenFirst() {
+    // given
+    UUID once = store("RocknRoll-001", "Poland", "The battery died after a week");
+    UUID twice = store("RocknRoll-002", "Poland", "Battery leaks, new battery too");
+    store("RocknRoll-003", "Poland", "Strings keep breaking, I want a refund");
+
+    // when
+    List<ComplaintSearchHit> hits = complaintSearchRepository.search(
+      "Battery",
+      null,
+      null,
+      null,
+      10
+    );
+
+    // then
+    assertThat(hits).extracting(ComplaintSearchHit::getId).containsExactly(twice, once);
+  }
+
+  @Test
+  void search_ShouldFilterByProductAndCountry() {
+    // given
+    UUID wanted = store("RocknRoll-001", "Poland", "Battery is dead");
+    store("RocknRoll-001", "Germany", "Battery is dead");
+    store("RocknRoll-002", "Poland", "Battery is dead");
+
+    // when
+    List<ComplaintSearchHit> hits = complaintSearchRepository.search(
+      "battery",
+      "RocknRoll-001",
+      "Poland",
+      null,
+      10
+    );
+
+    // then
+    assertThat(hits).extracting(ComplaintSearchHit::getId).containsExactly(wanted);
+  }
+
+  @Test
+  void search_ShouldContinueAfterTheLastHitOfThePreviousPage() {
+    // given
+    for (int i = 0; i < 5; i++) {
+      store("RocknRoll-00" + i, "Poland", "Refund please " + "refund ".repeat(i % 2));
+    }
+    List<ComplaintSearchHit> all = complaintSearchRepository.search(
+      "refund",
+      null,
+      null,
+      null,
+      10
+    );
+
+    // when
+    List<ComplaintSearchHit> first = complaintSearchRepository.search(
+      "refund",
+      null,
+      null,
+      null,
+      2
+    );
+    ComplaintSearchHit last = first.get(first.size() - 1);
+    List<ComplaintSearchHit> rest = complaintSearchRepository.search(
+      "refund",
+      null,
+      null,
+      new Position(last.getRank(), last.getId()),
+      10
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(all).hasSize(5),
+      () ->
+        assertThat(first)
+          .extracting(ComplaintSearchHit::getId)
+          .containsExactlyElementsOf(ids(all.subList(0, 2))),
+      () ->
+        assertThat(rest)
+          .extracting(ComplaintSearchHit::getId)
+          .containsExactlyElementsOf(ids(all.subList(2, 5)))
+    );
+  }
+
+  @Test
+  void search_ShouldFollowEditedContent() {
+    // given
+    UUID id = store("RocknRoll-001", "Poland", "The battery died");
+    Complaint complaint = complaintRepository.findById(id).orElseThrow();
+    complaint.setContent("The screen cracked");
+    complaintRepository.saveAndFlush(complaint);
+
+    // when
+    List<ComplaintSearchHit> battery = complaintSearchRepository.search(
+      "battery",
+      null,
+      null,
+      null,
+      10
+    );
+    List<ComplaintSearchHit> screen = complaintSearchRepository.search(
+      "screen",
+      null,
+      null,
+      null,
+      10
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(battery).isEmpty(),
+      () -> assertThat(screen).extracting(ComplaintSearchHit::getId).containsExactly(id)
+    );
+  }
+
+  private static List<UUID> ids(List<ComplaintSearchHit> hits) {
+    return hits.stream().map(ComplaintSearchHit::getId).toList();
+  }
+
+  private UUID store(String productId, String country, String content) {
+    Complaint complaint = new Complaint();
+    complaint.setProductId(productId);
+    complaint.setReporter("reporter-" + UUID.randomUUID());
+    complaint.setContent(content);
+    complaint.setCountry(country);
+    return complaintRepository.upsert(complaint).complaint().getId();
+  }
+}
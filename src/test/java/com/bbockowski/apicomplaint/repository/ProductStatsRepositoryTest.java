@@ -0,0 +1,145 @@
+package com.bbockowski.apicomplaint.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.BatchUpsert;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.ReportCountIncrement;
+import com.bbockowski.apicomplaint.repository.ProductStatsRepository.CountryStats;
+import com.bbockowski.apicomplaint.service.ProductStatsBackfill;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductStatsRepositoryTest {
+  @Autowired
+  private ComplaintRepository complaintRepository;
+
+  @Autowired
+  private ProductStatsRepository productStatsRepository;
+
+  @Autowired
+  private ProductStatsBackfill productStatsBackfill;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  // Other tests delete their complaints but leave the statistics behind.
+  @BeforeEach
+  @AfterEach
+  void clear() {
+    complaintRepository.deleteAll();
+    jdbcTemplate.update("DELETE FROM product_stats");
+  }
+
+  @Test
+  void upserts_ShouldCountDistinctReportersAndReportsPerCountry() {
+    // given
+    complaintRepository.upsert(newComplaint("Cliff Burton", "Poland"));
+    complaintRepository.upsert(newComplaint("Cliff Burton", "Poland"));
+    complaintRepository.upsert(newComplaint("Kirk Hammett", "Germany"));
+
+    // when
+    complaintRepository.upsertBatch(
+      List.of(
+        new BatchUpsert(newComplaint("Cliff Burton", "Poland"), 3),
+        new BatchUpsert(newComplaint("James Hetfield", "Poland"), 2)
+      )
+    );
+
+    // then
+    assertThat(productStatsRepository.findByProductId("RocknRoll-001"))
+      .containsExactly(
+        new CountryStats("Poland", 2, 7),
+        new CountryStats("Germany", 1, 1)
+      );
+  }
+
+  @Test
+  void applyReportCountIncrements_ShouldAddReportsToTheComplaintCountry() {
+    // given
+    complaintRepository.upsert(newComplaint("Cliff Burton", "Poland"));
+
+    // when
+    complaintRepository.applyReportCountIncrements(
+      "node:1",
+      List.of(new ReportCountIncrement("RocknRoll-001", "Cliff Burton", 4))
+    );
+    complaintRepository.deleteReportCountFlush("node:1");
+
+    // then
+    assertThat(productStatsRepository.findByProductId("RocknRoll-001"))
+      .containsExactly(new CountryStats("Poland", 1, 5));
+  }
+
+  @Test
+  void completeEnrichments_ShouldMovePendingComplaintsToTheirCountry() {
+    // given
+    Complaint pending = newComplaint("Cliff Burton", null);
+    pending.setPendingIp("203.0.113.7");
+    UUID id = complaintRepository.upsert(pending).complaint().getId();
+    complaintRepository.upsert(newComplaint("Cliff Burton", null));
+    List<CountryStats> beforeEnrichment = productStatsRepository.findByProductId(
+      "RocknRoll-001"
+    );
+
+    // when
+    complaintRepository.completeEnrichments(Map.of(id, "Poland"));
+
+    // then
+    assertAll(
+      () -> assertThat(beforeEnrichment).containsExactly(new CountryStats(null, 1, 2)),
+      () ->
+        assertThat(productStatsRepository.findByProductId("RocknRoll-001"))
+          .containsExactly(new CountryStats("Poland", 1, 2))
+    );
+  }
+
+  @Test
+  void rebuildAll_ShouldRecomputeTheMaintainedStatistics() {
+    // given
+    complaintRepository.upsert(newComplaint("Cliff Burton", "Poland"));
+    complaintRepository.upsert(newComplaint("Cliff Burton", "Poland"));
+    complaintRepository.upsert(newComplaint("Kirk Hammett", "Germany"));
+    Complaint other = newComplaint("Cliff Burton", "Poland");
+    other.setProductId("RocknRoll-002");
+    complaintRepository.upsert(other);
+    List<CountryStats> maintained = productStatsRepository.findByProductId(
+      "RocknRoll-001"
+    );
+    jdbcTemplate.update("DELETE FROM product_stats");
+
+    // when
+    long rebuilt = productStatsBackfill.rebuildAll();
+
+    // then
+    assertAll(
+      () -> assertThat(rebuilt).isEqualTo(2),
+      () ->
+        assertThat(productStatsRepository.findByProductId("RocknRoll-001"))
+          .isEqualTo(maintained),
+      () ->
+        assertThat(productStatsRepository.findByProductId("RocknRoll-002"))
+          .containsExactly(new CountryStats("Poland", 1, 1))
+    );
+  }
+
+  private static Complaint newComplaint(String reporter, String country) {
+    Complaint complaint = new Complaint();
+    complaint.setProductId("RocknRoll-001");
+    complaint.setReporter(reporter);
+    complaint.setContent("Volume too loud");
+    complaint.setCountry(country);
+    return complaint;
+  }
+}
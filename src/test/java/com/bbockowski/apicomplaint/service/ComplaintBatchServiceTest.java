@@ -0,0 +1,173 @@
+package com.bbockowski.apicomplaint.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.BatchComplaintResponse;
+import com.bbockowski.apicomplaint.dto.BatchItemResult;
+import com.bbockowski.apicomplaint.mapper.ComplaintMapper;
+import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.BatchUpsert;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.UpsertResult;
+import com.bbockowski.apicomplaint.trending.TrendingProducts;
+import com.bbockowski.apicomplaint.writebehind.ReportCountWriteBehind;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class ComplaintBatchServiceTest {
+  @Mock
+  private ComplaintRepository complaintRepository;
+
+  @Mock
+  private CountryEnrichmentService countryEnrichmentService;
+
+  @Mock
+  private ReportCountWriteBehind reportCountWriteBehind;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private ComplaintBatchService complaintBatchService;
+
+  @BeforeEach
+  void setUp() {
+    complaintBatchService =
+      new ComplaintBatchService(
+        new ComplaintProperties(),
+        complaintRepository,
+        new ComplaintMapper(),
+        countryEnrichmentService,
+        reportCountWriteBehind,
+        new ComplaintCache(new ComplaintProperties()),
+        new TrendingProducts(new ComplaintProperties()),
+        transactionManager
+      );
+  }
+
+  @Test
+  void shouldMergeDuplicateKeysIntoOneUpsert() {
+    // given
+    when(complaintRepository.upsertBatch(anyList()))
+      .thenAnswer(invocation -> storeAsCreated(invocation.getArgument(0)));
+
+    // when
+    BatchComplaintResponse response = complaintBatchService.createComplaints(
+      items(request("prod1"), request("prod2"), request("prod1")),
+      "Poland",
+      null
+    );
+
+    // then
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<BatchUpsert>> captor = ArgumentCaptor.forClass(List.class);
+    verify(complaintRepository).upsertBatch(captor.capture());
+    assertAll(
+      () -> assertThat(captor.getValue()).hasSize(2),
+      () -> assertThat(captor.getValue().get(0).reportCount()).isEqualTo(2),
+      () ->
+        assertThat(captor.getValue().get(0).complaint().getCountry()).isEqualTo("Poland"),
+      () -> assertThat(response.getCreated()).isEqualTo(2),
+      () -> assertThat(response.getIncremented()).isEqualTo(1),
+      () ->
+        assertThat(response.getItems())
+          .extracting(BatchItemResult::getIndex)
+          .containsExactly(0, 1, 2),
+      () ->
+        assertThat(response.getItems().get(2).getStatus())
+          .isEqualTo(BatchItemResult.Status.INCREMENTED)
+    );
+  }
+
+  @Test
+  void shouldRetryFailedChunkKeyByKey() {
+    // given
+    when(complaintRepository.upsertBatch(anyList()))
+      .thenAnswer(
+        invocation -> {
+          List<BatchUpsert> upserts = invocation.getArgument(0);
+          if (upserts.size() > 1) {
+            throw new IllegalStateException("Deadlock detected");
+          }
+          if (upserts.get(0).complaint().getProductId().equals("bad")) {
+            throw new IllegalStateException("Value too long");
+          }
+          return storeAsCreated(upserts);
+        }
+      );
+
+    // when
+    BatchComplaintResponse response = complaintBatchService.createComplaints(
+      items(request("prod1"), request("bad"), request("prod2")),
+      "Poland",
+      null
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(response.getCreated()).isEqualTo(2),
+      () -> assertThat(response.getFailed()).isEqualTo(1),
+      () -> assertThat(response.getItems().get(1).getError()).isEqualTo("Value too long"),
+      () -> verify(complaintRepository, times(4)).upsertBatch(anyList())
+    );
+  }
+
+  @Test
+  void shouldFailInvalidItemsWithoutStoringThem() {
+    // given
+    AddComplaintRequest missingReporter = request("prod1");
+    missingReporter.setReporter(null);
+
+    // when
+    BatchComplaintResponse response = complaintBatchService.createComplaints(
+      items(missingReporter),
+      null,
+      "10.0.0.1"
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(response.getFailed()).isEqualTo(1),
+      () -> verify(complaintRepository, never()).upsertBatch(any()),
+      () -> verifyNoInteractions(countryEnrichmentService)
+    );
+  }
+
+  private static List<UpsertResult> storeAsCreated(List<BatchUpsert> upserts) {
+    return upserts
+      .stream()
+      .map(
+        upsert -> {
+          Complaint complaint = upsert.complaint();
+          complaint.setReportCount(upsert.reportCount());
+          return new UpsertResult(complaint, true);
+        }
+      )
+      .toList();
+  }
+
+  private static Iterator<AddComplaintRequest> items(AddComplaintRequest... requests) {
+    return List.of(requests).iterator();
+  }
+
+  private static AddComplaintRequest request(String productId) {
+    AddComplaintRequest request = new AddComplaintRequest();
+    request.setProductId(productId);
+    request.setContent("Too loud");
+    request.setReporter("reporter@example.com");
+    return request;
+  }
+}
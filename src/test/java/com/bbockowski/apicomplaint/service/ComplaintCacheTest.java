@@ -0,0 +1,123 @@
+package com.bbockowski.apicomplaint.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ComplaintCacheTest {
+  private final UUID id = UUID.randomUUID();
+  private final AtomicLong version = new AtomicLong();
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private ComplaintProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    properties = new ComplaintProperties();
+  }
+
+  @Test
+  void shouldServeRepeatReadsFromMemoryUntilInvalidated() {
+    // given
+    ComplaintCache cache = new ComplaintCache(properties);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    cache.bindTo(registry);
+
+    // when
+    cache.get(id, this::load);
+    ComplaintResponse cached = cache.get(id, this::load);
+    version.incrementAndGet();
+    cache.invalidateAfterCommit(id);
+    ComplaintResponse reloaded = cache.get(id, this::load);
+
+    // then
+    double hits = registry
+      .get("complaints.cache.requests")
+      .tag("result", "hit")
+      .functionCounter()
+      .count();
+    assertAll(
+      () -> assertThat(cached.getVersion()).isEqualTo(0),
+      () -> assertThat(reloaded.getVersion()).isEqualTo(1),
+      () -> assertThat(loads).hasValue(2),
+      () -> assertThat(hits).isEqualTo(1)
+    );
+  }
+
+  @Test
+  void shouldNotStoreLoadThatOverlappedCommittedWrite() {
+    // given
+    ComplaintCache cache = new ComplaintCache(properties);
+
+    // when
+    ComplaintResponse overlapped = cache.get(
+      id,
+      key -> {
+        ComplaintResponse read = load(key);
+        // A write commits and invalidates while the read is still in flight.
+        version.incrementAndGet();
+        cache.invalidateAfterCommit(key);
+        return read;
+      }
+    );
+    ComplaintResponse next = cache.get(id, this::load);
+
+    // then
+    assertAll(
+      () -> assertThat(overlapped.getVersion()).isEqualTo(0),
+      () -> assertThat(next.getVersion()).isEqualTo(1),
+      () -> assertThat(loads).hasValue(2)
+    );
+  }
+
+  @Test
+  void shouldDropMatchingComplaintsAndInFlightLoadsOnBulkInvalidation() {
+    // given
+    ComplaintCache cache = new ComplaintCache(properties);
+    cache.get(id, this::load);
+
+    // when
+    cache.get(
+      UUID.randomUUID(),
+      key -> {
+        ComplaintResponse read = load(key);
+        cache.invalidateIf(complaint -> complaint.getProductId().equals("prod1"));
+        return read;
+      }
+    );
+
+    // then
+    assertThat(cache.estimatedSize()).isZero();
+  }
+
+  @Test
+  void shouldAlwaysLoadWhenDisabled() {
+    // given
+    properties.getCache().setEnabled(false);
+    ComplaintCache cache = new ComplaintCache(properties);
+
+    // when
+    cache.get(id, this::load);
+    cache.get(id, this::load);
+
+    // then
+    assertThat(loads).hasValue(2);
+  }
+
+  private ComplaintResponse load(UUID key) {
+    loads.incrementAndGet();
+    ComplaintResponse response = new ComplaintResponse();
+    response.setId(key);
+    response.setProductId("prod1");
+    response.setVersion(version.get());
+    return response;
+  }
+}
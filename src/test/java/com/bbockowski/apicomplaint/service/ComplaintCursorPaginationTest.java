@@ -0,0 +1,107 @@
+package com.bbockowski.apicomplaint.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.bbockowski.apicomplaint.dto.ComplaintCursorPage;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
+import com.bbockowski.apicomplaint.exception.InvalidCursorException;
+import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ComplaintCursorPaginationTest {
+  private static final int COMPLAINTS = 23;
+
+  @Autowired
+  private ComplaintDefaultService complaintDefaultService;
+
+  @Autowired
+  private ComplaintRepository complaintRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    for (int i = 0; i < COMPLAINTS; i++) {
+      Complaint complaint = new Complaint();
+      complaint.setProductId("product-" + i);
+      complaint.setReporter("Cliff Burton");
+      complaint.setContent("Volume too loud");
+      complaintRepository.upsert(complaint);
+    }
+    // Equal timestamps for half the rows make the id tie-breaker matter.
+    Timestamp shared = Timestamp.from(Instant.parse("2026-10-18T12:00:00.123456Z"));
+    jdbcTemplate.update(
+      "UPDATE complaints SET created_at = ? WHERE product_id < ?",
+      shared,
+      "product-2"
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    complaintRepository.deleteAll();
+  }
+
+  @Test
+  void shouldWalkAllComplaintsForwardAndBackWithoutGapsOrDuplicates() {
+    // when
+    List<ComplaintCursorPage> pages = new ArrayList<>();
+    ComplaintCursorPage page = complaintDefaultService.getComplaints(null, 5);
+    pages.add(page);
+    while (page.getNextCursor() != null) {
+      page = complaintDefaultService.getComplaints(page.getNextCursor(), 5);
+      pages.add(page);
+    }
+    List<UUID> forward = ids(pages);
+
+    List<ComplaintCursorPage> backPages = new ArrayList<>();
+    ComplaintCursorPage back = pages.get(pages.size() - 1);
+    while (back.getPreviousCursor() != null) {
+      back = complaintDefaultService.getComplaints(back.getPreviousCursor(), 5);
+      backPages.add(0, back);
+    }
+
+    // then
+    assertAll(
+      () -> assertThat(pages).hasSize(5),
+      () -> assertThat(forward).hasSize(COMPLAINTS).doesNotHaveDuplicates(),
+      () -> assertThat(pages.get(0).getPreviousCursor()).isNull(),
+      () -> assertThat(backPages).hasSize(4),
+      () -> assertThat(ids(backPages)).isEqualTo(forward.subList(0, 20)),
+      () -> assertThat(backPages.get(0).getPreviousCursor()).isNull()
+    );
+  }
+
+  @Test
+  void shouldRejectTamperedCursor() {
+    assertThrows(
+      InvalidCursorException.class,
+      () -> complaintDefaultService.getComplaints("not-a-cursor", 5)
+    );
+  }
+
+  private static List<UUID> ids(List<ComplaintCursorPage> pages) {
+    return pages
+      .stream()
+      .flatMap(page -> page.getItems().stream())
+      .map(ComplaintSummary::getId)
+      .toList();
+  }
+}
@@ -4,16 +4,25 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.config.ComplaintProperties.Edit.Locking;
 import com.bbockowski.apicomplaint.dto.AddComplaintRequest;
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintListResponse.TotalMode;
 import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.ComplaintSummary;
 import com.bbockowski.apicomplaint.dto.EditComplaintRequest;
 import com.bbockowski.apicomplaint.exception.ComplaintCreateException;
 import com.bbockowski.apicomplaint.exception.ComplaintNotFoundException;
+import com.bbockowski.apicomplaint.mapper.ComplaintMapper;
 import com.bbockowski.apicomplaint.model.Complaint;
 import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import com.bbockowski.apicomplaint.repository.ComplaintRepositoryCustom.UpsertResult;
+import com.bbockowski.apicomplaint.trending.TrendingProducts;
+import com.bbockowski.apicomplaint.writebehind.ReportCountWriteBehind;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.List;
@@ -22,21 +31,48 @@ import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
 @ExtendWith(MockitoExtension.class)
 class ComplaintDefaultServiceImplTest {
   @Mock
   private ComplaintRepository complaintRepository;
 
+  @Spy
+  private ComplaintMapper complaintMapper = new ComplaintMapper();
+
+  @Mock
+  private CountryEnrichmentService countryEnrichmentService;
+
+  @Mock
+  private ReportCountWriteBehind reportCountWriteBehind;
+
   @Mock
-  private ModelMapper modelMapper;
+  private ComplaintCountEstimate complaintCountEstimate;
+
+  @Spy
+  private ComplaintProperties complaintProperties = new ComplaintProperties();
+
+  @Spy
+  private ComplaintCache complaintCache = new ComplaintCache(new ComplaintProperties());
+
+  @Spy
+  private ComplaintSubmissionMetrics submissionMetrics = new ComplaintSubmissionMetrics();
+
+  @Spy
+  private TrendingProducts trendingProducts = new TrendingProducts(
+    new ComplaintProperties()
+  );
 
   @InjectMocks
   private ComplaintDefaultServiceImpl complaintDefaultService;
@@ -72,18 +108,8 @@ class ComplaintDefaultServiceImplTest {
   @Test
   void shouldCreateNewComplaintWhenNoExistingComplaint() {
     // given
-    when(complaintRepository.findByProductIdAndReporter(anyString(), anyString()))
-      .thenReturn(Optional.empty());
-    when(complaintRepository.save(any(Complaint.class)))
-      .thenAnswer(
-        invocation -> {
-          Complaint saved = invocation.getArgument(0);
-          saved.setId(complaintId);
-          return saved;
-        }
-      );
-    when(modelMapper.map(any(Complaint.class), eq(ComplaintResponse.class)))
-      .thenReturn(new ComplaintResponse());
+    when(complaintRepository.upsert(any(Complaint.class)))
+      .thenAnswer(invocation -> new UpsertResult(invocation.getArgument(0), true));
 
     // when
     ComplaintResponse response = complaintDefaultService.createComplaint(
@@ -91,19 +117,25 @@ class ComplaintDefaultServiceImplTest {
     );
 
     // then
+    ArgumentCaptor<Complaint> captor = ArgumentCaptor.forClass(Complaint.class);
     assertAll(
       () -> assertThat(response).isNotNull(),
-      () -> verify(complaintRepository).save(any(Complaint.class))
+      () -> verify(complaintRepository).upsert(captor.capture()),
+      () -> assertThat(captor.getValue().getProductId()).isEqualTo("prod1"),
+      () -> assertThat(captor.getValue().getReporter()).isEqualTo("reporter@example.com"),
+      () -> assertThat(captor.getValue().getCountry()).isEqualTo("Poland"),
+      () -> assertThat(submissionMetrics.created()).isEqualTo(1),
+      () -> assertThat(submissionMetrics.incremented()).isZero(),
+      () -> verify(trendingProducts).recordAfterCommit("prod1", 1)
     );
   }
 
   @Test
-  void shouldIncrementReportCountWhenComplaintExists() {
+  void shouldReturnIncrementedComplaintWhenComplaintExists() {
     // given
-    when(complaintRepository.findByProductIdAndReporter(anyString(), anyString()))
-      .thenReturn(Optional.of(complaint));
-    when(modelMapper.map(any(Complaint.class), eq(ComplaintResponse.class)))
-      .thenReturn(new ComplaintResponse());
+    complaint.setReportCount(2);
+    when(complaintRepository.upsert(any(Complaint.class)))
+      .thenReturn(new UpsertResult(complaint, false));
 
     // when
     ComplaintResponse response = complaintDefaultService.createComplaint(
@@ -113,17 +145,40 @@ class ComplaintDefaultServiceImplTest {
     // then
     assertAll(
       () -> assertThat(response).isNotNull(),
-      () -> assertThat(complaint.getReportCount()).isEqualTo(2),
-      () -> verify(complaintRepository).save(complaint)
+      () -> assertThat(response.getReportCount()).isEqualTo(2),
+      () -> verify(complaintMapper).toResponse(complaint),
+      () -> verify(complaintRepository, never()).save(any(Complaint.class)),
+      () -> assertThat(submissionMetrics.incremented()).isEqualTo(1),
+      () -> assertThat(submissionMetrics.created()).isZero()
+    );
+  }
+
+  @Test
+  void shouldSkipDatabaseWhenWriteBehindAbsorbsRepeatComplaint() {
+    // given
+    ComplaintResponse incremented = new ComplaintResponse();
+    incremented.setReportCount(3);
+    when(reportCountWriteBehind.tryIncrement("prod1", "reporter@example.com"))
+      .thenReturn(Optional.of(incremented));
+
+    // when
+    ComplaintResponse response = complaintDefaultService.createComplaint(
+      addComplaintRequest
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(response.getReportCount()).isEqualTo(3),
+      () -> verifyNoInteractions(complaintRepository),
+      () -> assertThat(submissionMetrics.journaled()).isEqualTo(1),
+      () -> verify(trendingProducts).record("prod1", 1)
     );
   }
 
   @Test
   void shouldThrowExceptionWhenSavingComplaintFails() {
     // given
-    when(complaintRepository.findByProductIdAndReporter(anyString(), anyString()))
-      .thenReturn(Optional.empty());
-    when(complaintRepository.save(any(Complaint.class)))
+    when(complaintRepository.upsert(any(Complaint.class)))
       .thenThrow(new RuntimeException("Database error"));
 
     // when
@@ -137,35 +192,34 @@ class ComplaintDefaultServiceImplTest {
       () ->
         assertThat(exception.getMessage())
           .contains("Failed to create or update complaint"),
-      () -> verify(complaintRepository).save(any(Complaint.class))
+      () -> verify(complaintRepository).upsert(any(Complaint.class))
     );
   }
 
   @Test
-  void shouldNotCreateNewComplaintWhenDuplicateExists() {
+  void shouldEnqueueEnrichmentOnlyForNewlyCreatedPendingComplaint() {
     // given
-    when(complaintRepository.findByProductIdAndReporter(anyString(), anyString()))
-      .thenReturn(Optional.of(complaint));
-    when(modelMapper.map(any(Complaint.class), eq(ComplaintResponse.class)))
-      .thenReturn(new ComplaintResponse());
+    addComplaintRequest.setCountry(null);
+    addComplaintRequest.setPendingIp("80.1.2.3");
+    complaint.setPendingIp("80.1.2.3");
+    when(complaintRepository.upsert(any(Complaint.class)))
+      .thenReturn(new UpsertResult(complaint, true))
+      .thenReturn(new UpsertResult(complaint, false));
 
     // when
-    ComplaintResponse response = complaintDefaultService.createComplaint(
-      addComplaintRequest
-    );
+    complaintDefaultService.createComplaint(addComplaintRequest);
+    complaintDefaultService.createComplaint(addComplaintRequest);
 
     // then
-    assertAll(
-      () -> assertThat(response).isNotNull(),
-      () -> assertThat(complaint.getReportCount()).isEqualTo(2),
-      () -> verify(complaintRepository).save(complaint)
-    );
+    verify(countryEnrichmentService, times(1))
+      .enqueueAfterCommit(complaintId, "80.1.2.3");
   }
 
   @Test
   void shouldThrowExceptionWhenComplaintNotFoundOnEdit() {
     // given
-    when(complaintRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+    when(complaintRepository.findResponseById(any(UUID.class)))
+      .thenReturn(Optional.empty());
 
     // when / then
     assertThrows(
@@ -177,10 +231,13 @@ class ComplaintDefaultServiceImplTest {
   @Test
   void shouldUpdateComplaintContent() {
     // given
-    when(complaintRepository.findById(any(UUID.class)))
-      .thenReturn(Optional.of(complaint));
-    when(modelMapper.map(any(Complaint.class), eq(ComplaintResponse.class)))
-      .thenReturn(new ComplaintResponse());
+    when(complaintRepository.findResponseById(complaintId))
+      .thenReturn(
+        Optional.of(storedResponse("Initial content", 3L)),
+        Optional.of(storedResponse("Updated content", 4L))
+      );
+    when(complaintRepository.updateContentIfVersion(complaintId, 3L, "Updated content"))
+      .thenReturn(1);
 
     // when
     ComplaintResponse response = complaintDefaultService.editComplaint(
@@ -189,8 +246,42 @@ class ComplaintDefaultServiceImplTest {
 
     // then
     assertAll(
-      () -> assertThat(response).isNotNull(),
-      () -> assertThat(complaint.getContent()).isEqualTo("Updated content"),
+      () -> assertThat(response.getContent()).isEqualTo("Updated content"),
+      () -> assertThat(response.getVersion()).isEqualTo(4L),
+      () -> verify(complaintRepository, never()).findById(any(UUID.class)),
+      () -> verify(complaintRepository, never()).save(any(Complaint.class))
+    );
+  }
+
+  @Test
+  void shouldFailEditForRetryWhenComplaintChangedSinceRead() {
+    // given
+    when(complaintRepository.findResponseById(complaintId))
+      .thenReturn(Optional.of(storedResponse("Initial content", 3L)));
+    when(complaintRepository.updateContentIfVersion(complaintId, 3L, "Updated content"))
+      .thenReturn(0);
+
+    // when / then
+    assertThrows(
+      OptimisticLockingFailureException.class,
+      () -> complaintDefaultService.editComplaint(editComplaintRequest)
+    );
+  }
+
+  @Test
+  void shouldLockRowForEditOnlyWhenPessimisticLockingConfigured() {
+    // given
+    complaintProperties.getEdit().setLocking(Locking.PESSIMISTIC);
+    when(complaintRepository.findByIdForUpdate(complaintId))
+      .thenReturn(Optional.of(complaint));
+
+    // when
+    complaintDefaultService.editComplaint(editComplaintRequest);
+
+    // then
+    assertAll(
+      () -> verify(complaintRepository).findByIdForUpdate(complaintId),
+      () -> verify(complaintRepository, never()).findById(any(UUID.class)),
       () -> verify(complaintRepository).save(complaint)
     );
   }
@@ -198,9 +289,9 @@ class ComplaintDefaultServiceImplTest {
   @Test
   void shouldThrowExceptionWhenEditingComplaintFails() {
     // given
-    when(complaintRepository.findById(any(UUID.class)))
-      .thenReturn(Optional.of(complaint));
-    when(complaintRepository.save(any(Complaint.class)))
+    when(complaintRepository.findResponseById(complaintId))
+      .thenReturn(Optional.of(storedResponse("Initial content", 3L)));
+    when(complaintRepository.updateContentIfVersion(complaintId, 3L, "Updated content"))
       .thenThrow(new RuntimeException("Database error"));
 
     // when
@@ -212,14 +303,33 @@ class ComplaintDefaultServiceImplTest {
     // then
     assertAll(
       () -> assertThat(exception.getMessage()).contains("Database error"),
-      () -> verify(complaintRepository).save(complaint)
+      () -> verify(complaintRepository, never()).save(any(Complaint.class))
+    );
+  }
+
+  @Test
+  void shouldGetComplaintWithoutLoadingEntity() {
+    // given
+    ComplaintResponse stored = new ComplaintResponse();
+    stored.setId(complaintId);
+    when(complaintRepository.findResponseById(complaintId))
+      .thenReturn(Optional.of(stored));
+
+    // when
+    ComplaintResponse response = complaintDefaultService.getComplaint(complaintId);
+
+    // then
+    assertAll(
+      () -> assertThat(response).isSameAs(stored),
+      () -> verify(complaintRepository, never()).findById(any(UUID.class))
     );
   }
 
   @Test
   void shouldThrowExceptionWhenGettingNonExistentComplaint() {
     // given
-    when(complaintRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+    when(complaintRepository.findResponseById(any(UUID.class)))
+      .thenReturn(Optional.empty());
 
     // when / then
     assertThrows(
@@ -231,47 +341,127 @@ class ComplaintDefaultServiceImplTest {
   @Test
   void shouldReturnEmptyPageWhenNoComplaintsExist() {
     // given
-    when(complaintRepository.findAll(any(Pageable.class))).thenReturn(Page.empty());
+    when(complaintRepository.findSummaryPage(any(Pageable.class)))
+      .thenReturn(Page.empty());
 
     // when
-    Page<ComplaintResponse> response = complaintDefaultService.getAllComplaints(
-      Pageable.unpaged()
+    ComplaintListResponse response = complaintDefaultService.getAllComplaints(
+      new ComplaintFilter(),
+      Pageable.unpaged(),
+      TotalMode.EXACT
     );
 
     // then
     assertAll(
       () -> assertThat(response.getTotalElements()).isEqualTo(0),
-      () -> verify(complaintRepository).findAll(any(Pageable.class))
+      () -> assertThat(response.getTotalMode()).isEqualTo(TotalMode.EXACT),
+      () -> verify(complaintRepository).findSummaryPage(any(Pageable.class))
     );
   }
 
   @Test
   void shouldReturnAllComplaintsWhenTheyExist() {
     // given
-    when(complaintRepository.findAll(any(Pageable.class)))
-      .thenReturn(new PageImpl<>(List.of(complaint)));
-    when(modelMapper.map(any(Complaint.class), eq(ComplaintResponse.class)))
-      .thenReturn(new ComplaintResponse());
+    when(complaintRepository.findSummaryPage(any(Pageable.class)))
+      .thenReturn(new PageImpl<>(List.of(new ComplaintSummary())));
 
     // when
-    Page<ComplaintResponse> response = complaintDefaultService.getAllComplaints(
-      Pageable.unpaged()
+    ComplaintListResponse response = complaintDefaultService.getAllComplaints(
+      new ComplaintFilter(),
+      Pageable.unpaged(),
+      TotalMode.EXACT
     );
 
     // then
     assertAll(
       () -> assertThat(response.getTotalElements()).isEqualTo(1),
-      () -> verify(complaintRepository).findAll(any(Pageable.class))
+      () -> assertThat(response.getContent()).hasSize(1),
+      () -> verify(complaintRepository, never()).findAll(any(Pageable.class))
+    );
+  }
+
+  @Test
+  void shouldListWithoutCountingWhenNoTotalRequested() {
+    // given
+    when(complaintRepository.findSummaries(any(Pageable.class)))
+      .thenReturn(
+        new SliceImpl<>(List.of(new ComplaintSummary()), PageRequest.of(0, 1), true)
+      );
+
+    // when
+    ComplaintListResponse response = complaintDefaultService.getAllComplaints(
+      new ComplaintFilter(),
+      PageRequest.of(0, 1),
+      TotalMode.NONE
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(response.isHasNext()).isTrue(),
+      () -> assertThat(response.getTotalElements()).isNull(),
+      () -> verify(complaintRepository, never()).findSummaryPage(any(Pageable.class)),
+      () -> verify(complaintRepository, never()).count(),
+      () -> verifyNoInteractions(complaintCountEstimate)
+    );
+  }
+
+  @Test
+  void shouldNeverEstimateFewerComplaintsThanListed() {
+    // given
+    when(complaintRepository.findSummaries(any(Pageable.class)))
+      .thenReturn(
+        new SliceImpl<>(List.of(new ComplaintSummary()), PageRequest.of(3, 1), true)
+      );
+    when(complaintCountEstimate.get()).thenReturn(2L);
+
+    // when
+    ComplaintListResponse response = complaintDefaultService.getAllComplaints(
+      new ComplaintFilter(),
+      PageRequest.of(3, 1),
+      TotalMode.ESTIMATED
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(response.getTotalElements()).isEqualTo(5),
+      () -> assertThat(response.getTotalMode()).isEqualTo(TotalMode.ESTIMATED)
+    );
+  }
+
+  @Test
+  void shouldReportNoTotalForFilteredEstimates() {
+    // given
+    ComplaintFilter filter = new ComplaintFilter();
+    filter.setCountry("Poland");
+    when(complaintRepository.findSummaries(eq(filter), any(Pageable.class)))
+      .thenReturn(
+        new SliceImpl<>(List.of(new ComplaintSummary()), PageRequest.of(0, 1), true)
+      );
+
+    // when
+    ComplaintListResponse response = complaintDefaultService.getAllComplaints(
+      filter,
+      PageRequest.of(0, 1),
+      TotalMode.ESTIMATED
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(response.getTotalElements()).isNull(),
+      () -> assertThat(response.getTotalMode()).isEqualTo(TotalMode.NONE),
+      () -> assertThat(response.isHasNext()).isTrue(),
+      () ->
+        verify(complaintRepository, never())
+          .findSummaryPage(any(ComplaintFilter.class), any(Pageable.class)),
+      () -> verifyNoInteractions(complaintCountEstimate)
     );
   }
 
   @Test
   void shouldNotUpdateComplaintWhenContentIsNull() {
     // given
-    when(complaintRepository.findById(any(UUID.class)))
-      .thenReturn(Optional.of(complaint));
-    when(modelMapper.map(any(Complaint.class), eq(ComplaintResponse.class)))
-      .thenReturn(new ComplaintResponse());
+    when(complaintRepository.findResponseById(complaintId))
+      .thenReturn(Optional.of(storedResponse("Initial content", 3L)));
     editComplaintRequest.setContent(null);
 
     // when
@@ -281,9 +471,20 @@ class ComplaintDefaultServiceImplTest {
 
     // then
     assertAll(
-      () -> assertThat(response).isNotNull(),
-      () -> assertThat(complaint.getContent()).isEqualTo("Initial content"),
-      () -> verify(complaintRepository, never()).save(complaint)
+      () -> assertThat(response.getContent()).isEqualTo("Initial content"),
+      () ->
+        verify(complaintRepository, never())
+          .updateContentIfVersion(any(UUID.class), anyLong(), anyString())
     );
   }
+
+  private ComplaintResponse storedResponse(String content, long version) {
+    ComplaintResponse response = new ComplaintResponse();
+    response.setId(complaintId);
+    response.setProductId("prod1");
+    response.setContent(content);
+    response.setReporter("reporter@example.com");
+    response.setVersion(version);
+    return response;
+  }
 }
@@ -0,0 +1,189 @@
+package com.bbockowski.apicomplaint.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.dto.EditComplaintRequest;
+import com.bbockowski.apicomplaint.exception.ComplaintVersionMismatchException;
+import com.bbockowski.apicomplaint.model.Complaint;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import com.bbockowski.apicomplaint.writebehind.ReportCountWriteBehind;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ComplaintEditConcurrencyTest {
+  @Autowired
+  private ComplaintDefaultService complaintDefaultService;
+
+  @Autowired
+  private ComplaintRepository complaintRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @MockitoBean
+  private ReportCountWriteBehind reportCountWriteBehind;
+
+  private UUID complaintId;
+
+  @BeforeEach
+  void setUp() {
+    Complaint complaint = new Complaint();
+    complaint.setProductId("RocknRoll-001");
+    complaint.setReporter("Cliff Burton");
+    complaint.setContent("Volume too loud");
+    complaintId = complaintRepository.upsert(complaint).complaint().getId();
+  }
+
+  @AfterEach
+  void tearDown() {
+    complaintRepository.deleteAll();
+  }
+
+  @Test
+  void shouldRetryEditWhenComplaintChangesBeforeCommit() {
+    // given
+    AtomicBoolean raced = new AtomicBoolean();
+    doAnswer(
+        invocation -> {
+          // A repeat complaint commits between the edit's read and its update.
+          if (raced.compareAndSet(false, true)) {
+            CompletableFuture
+              .runAsync(
+                () ->
+                  jdbcTemplate.update(
+                    "UPDATE complaints SET report_count = report_count + 1, " +
+                    "version = version + 1 WHERE id = ?",
+                    complaintId
+                  )
+              )
+              .join();
+          }
+          return null;
+        }
+      )
+      .when(reportCountWriteBehind)
+      .forget(any(), any());
+
+    // when
+    ComplaintResponse response = complaintDefaultService.editComplaint(
+      editRequest("Patched content")
+    );
+
+    // then
+    Complaint stored = complaintRepository.findById(complaintId).orElseThrow();
+    assertAll(
+      () -> verify(reportCountWriteBehind, times(2)).forget(any(), any()),
+      () -> assertThat(response.getReportCount()).isEqualTo(2),
+      () -> assertThat(stored.getContent()).isEqualTo("Patched content"),
+      () -> assertThat(stored.getReportCount()).isEqualTo(2)
+    );
+  }
+
+  @Test
+  void shouldApplyConditionalEditOnlyAtExpectedVersion() {
+    // given
+    long version = complaintDefaultService.getComplaintVersion(complaintId);
+
+    // when
+    ComplaintResponse edited = complaintDefaultService.editComplaint(
+      editRequest("Patched content"),
+      version
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(edited.getVersion()).isEqualTo(version + 1),
+      () -> assertThat(edited.getContent()).isEqualTo("Patched content"),
+      () ->
+        assertThrows(
+          ComplaintVersionMismatchException.class,
+          () -> complaintDefaultService.editComplaint(editRequest("Stale"), version)
+        ),
+      () ->
+        assertThat(complaintDefaultService.getComplaint(complaintId).getContent())
+          .isEqualTo("Patched content")
+    );
+  }
+
+  @Test
+  void shouldServeReadsWhileComplaintRowIsLocked() throws Exception {
+    // given
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    CompletableFuture<Void> editor = CompletableFuture.runAsync(
+      () ->
+        transactionTemplate.executeWithoutResult(
+          status -> {
+            complaintRepository.findByIdForUpdate(complaintId);
+            locked.countDown();
+            await(release);
+          }
+        )
+    );
+    assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+    try {
+      // when
+      int reads = assertTimeoutPreemptively(
+        Duration.ofSeconds(5),
+        () -> {
+          int count = 0;
+          for (int i = 0; i < 200; i++) {
+            complaintDefaultService.getComplaint(complaintId);
+            count++;
+          }
+          return count;
+        }
+      );
+
+      // then
+      assertThat(reads).isEqualTo(200);
+    } finally {
+      release.countDown();
+      editor.get(5, TimeUnit.SECONDS);
+    }
+  }
+
+  private EditComplaintRequest editRequest(String content) {
+    EditComplaintRequest request = new EditComplaintRequest();
+    request.setId(complaintId.toString());
+    request.setContent(content);
+    return request;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
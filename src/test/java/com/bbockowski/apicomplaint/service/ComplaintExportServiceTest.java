@@ -0,0 +1,118 @@
+package com.bbockowski.apicomplaint.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.dto.ComplaintFilter;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ComplaintExportServiceTest {
+  private static final UUID FIRST_ID = UUID.fromString(
+    "c732cd78-572c-4059-bd62-61b9f5ed9251"
+  );
+  private static final UUID SECOND_ID = UUID.fromString(
+    "0b8e5a34-7b5c-4d44-9a0c-3c1b2f8f1e11"
+  );
+
+  @Mock
+  private ComplaintRepository complaintRepository;
+
+  private ComplaintExportService complaintExportService;
+
+  @BeforeEach
+  void setUp() {
+    complaintExportService =
+      new ComplaintExportService(
+        complaintRepository,
+        new ComplaintProperties(),
+        new ObjectMapper()
+      );
+    doAnswer(
+        invocation -> {
+          Consumer<ComplaintResponse> consumer = invocation.getArgument(2);
+          consumer.accept(complaint(FIRST_ID, "Too \"loud\", really"));
+          consumer.accept(complaint(SECOND_ID, "Fine"));
+          return null;
+        }
+      )
+      .when(complaintRepository)
+      .streamComplaints(any(ComplaintFilter.class), anyInt(), any());
+  }
+
+  @Test
+  void shouldWriteOneJsonObjectPerLine() throws Exception {
+    // given
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // when
+    complaintExportService.export(
+      new ComplaintFilter(),
+      ComplaintExportService.Format.NDJSON,
+      out
+    );
+
+    // then
+    List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+    ObjectMapper objectMapper = new ObjectMapper();
+    assertThat(lines).hasSize(2);
+    assertThat(objectMapper.readTree(lines.get(0)).get("content").asText())
+      .isEqualTo("Too \"loud\", really");
+    assertThat(objectMapper.readTree(lines.get(1)).get("id").asText())
+      .isEqualTo(SECOND_ID.toString());
+    assertThat(out.toString(StandardCharsets.UTF_8)).endsWith("}\n");
+  }
+
+  @Test
+  void shouldWriteCsvWithHeaderAndQuotedFields() throws Exception {
+    // given
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // when
+    complaintExportService.export(
+      new ComplaintFilter(),
+      ComplaintExportService.Format.CSV,
+      out
+    );
+
+    // then
+    assertThat(out.toString(StandardCharsets.UTF_8))
+      .isEqualTo(
+        "id,productId,content,createdAt,reporter,country,reportCount\r\n" +
+        FIRST_ID +
+        ",RocknRoll-001,\"Too \"\"loud\"\", really\",2025-01-02T03:04:05Z," +
+        "Cliff Burton,Poland,2\r\n" +
+        SECOND_ID +
+        ",RocknRoll-001,Fine,2025-01-02T03:04:05Z,Cliff Burton,Poland,2\r\n"
+      );
+  }
+
+  private static ComplaintResponse complaint(UUID id, String content) {
+    ComplaintResponse complaint = new ComplaintResponse();
+    complaint.setId(id);
+    complaint.setProductId("RocknRoll-001");
+    complaint.setContent(content);
+    complaint.setCreatedAt(Timestamp.from(Instant.parse("2025-01-02T03:04:05Z")));
+    complaint.setReporter("Cliff Burton");
+    complaint.setCountry("Poland");
+    complaint.setReportCount(2);
+    return complaint;
+  }
+}
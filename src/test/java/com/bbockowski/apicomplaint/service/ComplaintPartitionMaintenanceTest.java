@@ -0,0 +1,167 @@
+package com.bbockowski.apicomplaint.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.config.ComplaintProperties.Partitions.Retirement;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.repository.ComplaintPartitionRepository;
+import com.bbockowski.apicomplaint.writebehind.ReportCountWriteBehind;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+@ExtendWith(MockitoExtension.class)
+class ComplaintPartitionMaintenanceTest {
+  private static final Clock MID_OCTOBER = Clock.fixed(
+    Instant.parse("2026-10-18T12:00:00Z"),
+    ZoneOffset.UTC
+  );
+
+  @Mock
+  private ComplaintPartitionRepository partitionRepository;
+
+  @Mock
+  private TaskScheduler taskScheduler;
+
+  @Mock
+  private ReportCountWriteBehind reportCountWriteBehind;
+
+  @Mock
+  private ComplaintCache complaintCache;
+
+  private ComplaintProperties properties;
+  private ComplaintPartitionMaintenance maintenance;
+
+  @BeforeEach
+  void setUp() {
+    properties = new ComplaintProperties();
+    maintenance =
+      new ComplaintPartitionMaintenance(
+        properties,
+        partitionRepository,
+        taskScheduler,
+        reportCountWriteBehind,
+        complaintCache,
+        MID_OCTOBER
+      );
+  }
+
+  @Test
+  void shouldCreateMissingPartitionsAheadAndKeepEverythingWithoutRetention() {
+    // given
+    when(partitionRepository.isPartitioned()).thenReturn(true);
+    when(partitionRepository.findPartitions())
+      .thenReturn(List.of(YearMonth.of(2020, 1), YearMonth.of(2026, 10)));
+    when(partitionRepository.createPartition(any())).thenReturn(true);
+
+    // when
+    maintenance.maintain();
+
+    // then
+    verify(partitionRepository).createPartition(YearMonth.of(2026, 11));
+    verify(partitionRepository).createPartition(YearMonth.of(2026, 12));
+    verify(partitionRepository).createPartition(YearMonth.of(2027, 1));
+    verify(partitionRepository, never()).createPartition(YearMonth.of(2026, 10));
+    verify(partitionRepository, never()).retirePartition(any(), anyBoolean());
+    verifyNoInteractions(reportCountWriteBehind, complaintCache);
+  }
+
+  @Test
+  void shouldRetireOnlyMonthsWhollyOlderThanTheRetention() {
+    // given
+    properties.getPartitions().setRetention(Period.ofMonths(12));
+    properties.getPartitions().setRetirement(Retirement.DROP);
+    when(partitionRepository.isPartitioned()).thenReturn(true);
+    when(partitionRepository.findPartitions())
+      .thenReturn(
+        List.of(
+          YearMonth.of(2025, 9),
+          YearMonth.of(2025, 10),
+          YearMonth.of(2025, 11),
+          YearMonth.of(2026, 10),
+          YearMonth.of(2026, 11),
+          YearMonth.of(2026, 12),
+          YearMonth.of(2027, 1)
+        )
+      );
+
+    // when
+    maintenance.maintain();
+
+    // then
+    verify(partitionRepository).retirePartition(YearMonth.of(2025, 9), true);
+    verify(partitionRepository, never()).retirePartition(YearMonth.of(2025, 10), true);
+    verify(partitionRepository, never()).retirePartition(YearMonth.of(2025, 11), true);
+    verify(partitionRepository, never()).createPartition(any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldForgetCachedComplaintsOfRetiredMonths() {
+    // given
+    properties.getPartitions().setRetention(Period.ofMonths(12));
+    when(partitionRepository.isPartitioned()).thenReturn(true);
+    when(partitionRepository.findPartitions())
+      .thenReturn(List.of(YearMonth.of(2025, 9), YearMonth.of(2026, 10)));
+    when(partitionRepository.retirePartition(YearMonth.of(2025, 9), false))
+      .thenReturn(true);
+
+    // when
+    maintenance.maintain();
+
+    // then
+    ArgumentCaptor<Predicate<ComplaintResponse>> forgotten = ArgumentCaptor.forClass(
+      Predicate.class
+    );
+    ArgumentCaptor<Predicate<ComplaintResponse>> invalidated = ArgumentCaptor.forClass(
+      Predicate.class
+    );
+    verify(reportCountWriteBehind).forgetIf(forgotten.capture());
+    verify(complaintCache).invalidateIf(invalidated.capture());
+    ComplaintResponse retired = createdAt(LocalDateTime.of(2025, 9, 30, 23, 59));
+    ComplaintResponse kept = createdAt(LocalDateTime.of(2025, 10, 1, 0, 0));
+    assertAll(
+      () -> assertThat(forgotten.getValue().test(retired)).isTrue(),
+      () -> assertThat(forgotten.getValue().test(kept)).isFalse(),
+      () -> assertThat(invalidated.getValue().test(retired)).isTrue(),
+      () -> assertThat(invalidated.getValue().test(kept)).isFalse()
+    );
+  }
+
+  @Test
+  void shouldDoNothingOnAnUnpartitionedTable() {
+    // given
+    when(partitionRepository.isPartitioned()).thenReturn(false);
+
+    // when
+    maintenance.maintain();
+
+    // then
+    verify(partitionRepository, never()).findPartitions();
+    verify(partitionRepository, never()).createPartition(any());
+  }
+
+  private static ComplaintResponse createdAt(LocalDateTime createdAt) {
+    ComplaintResponse complaint = new ComplaintResponse();
+    complaint.setCreatedAt(Timestamp.valueOf(createdAt));
+    return complaint;
+  }
+}
@@ -0,0 +1,195 @@
+package com.bbockowski.apicomplaint.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+import com.bbockowski.apicomplaint.config.GeoLocationProperties;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import com.bbockowski.apicomplaint.writebehind.ReportCountWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+@ExtendWith(MockitoExtension.class)
+class CountryEnrichmentServiceTest {
+  @Mock
+  private IpLocationService ipLocationService;
+
+  @Mock
+  private ComplaintRepository complaintRepository;
+
+  @Mock
+  private TaskScheduler taskScheduler;
+
+  @Mock
+  private ComplaintCache complaintCache;
+
+  @Mock
+  private ReportCountWriteBehind reportCountWriteBehind;
+
+  private CountryEnrichmentService countryEnrichmentService;
+
+  @BeforeEach
+  void setUp() {
+    GeoLocationProperties properties = new GeoLocationProperties();
+    properties.getEnrichment().setMode(GeoLocationProperties.Enrichment.Mode.ASYNC);
+    countryEnrichmentService =
+      new CountryEnrichmentService(
+        properties,
+        ipLocationService,
+        complaintRepository,
+        taskScheduler,
+        complaintCache,
+        reportCountWriteBehind,
+        new SimpleMeterRegistry()
+      );
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldStoreResolvedCountriesInOneBatch() {
+    // given
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+    when(ipLocationService.findResolvedCountry("80.1.2.3"))
+      .thenReturn(Optional.of("Poland"));
+    when(ipLocationService.findResolvedCountry("1.0.0.1"))
+      .thenReturn(Optional.of("Australia"));
+
+    // when
+    countryEnrichmentService.processBatch(
+      List.of(
+        new CountryEnrichmentService.Task(first, "80.1.2.3", System.nanoTime()),
+        new CountryEnrichmentService.Task(second, "1.0.0.1", System.nanoTime())
+      )
+    );
+
+    // then
+    ArgumentCaptor<Map<UUID, String>> captor = ArgumentCaptor.forClass(Map.class);
+    verify(complaintRepository).completeEnrichments(captor.capture());
+    assertThat(captor.getValue())
+      .containsEntry(first, "Poland")
+      .containsEntry(second, "Australia");
+  }
+
+  @Test
+  void shouldForgetWriteBehindCopiesOfEnrichedComplaints() {
+    // given
+    UUID id = UUID.randomUUID();
+    when(ipLocationService.findResolvedCountry("80.1.2.3"))
+      .thenReturn(Optional.of("Poland"));
+    when(complaintRepository.completeEnrichments(Map.of(id, "Poland")))
+      .thenReturn(
+        List.of(
+          new ComplaintRepository.EnrichedComplaint(id, "RocknRoll-001", "Cliff Burton")
+        )
+      );
+
+    // when
+    countryEnrichmentService.processBatch(
+      List.of(new CountryEnrichmentService.Task(id, "80.1.2.3", System.nanoTime()))
+    );
+
+    // then
+    verify(reportCountWriteBehind).forget("RocknRoll-001", "Cliff Burton");
+  }
+
+  @Test
+  void shouldLeaveComplaintPendingWhenLookupFails() {
+    // given
+    when(ipLocationService.findResolvedCountry(anyString())).thenReturn(Optional.empty());
+
+    // when
+    countryEnrichmentService.processBatch(
+      List.of(
+        new CountryEnrichmentService.Task(
+          UUID.randomUUID(),
+          "80.1.2.3",
+          System.nanoTime()
+        )
+      )
+    );
+
+    // then
+    verify(complaintRepository, never()).completeEnrichments(anyMap());
+  }
+
+  @Test
+  void shouldEnrichQueuedComplaintsOnTheWorkerThread() throws Exception {
+    // given
+    UUID id = UUID.randomUUID();
+    when(ipLocationService.findResolvedCountry("80.1.2.3"))
+      .thenReturn(Optional.of("Poland"));
+    countryEnrichmentService.start();
+
+    // when
+    countryEnrichmentService.enqueueAfterCommit(id, "80.1.2.3");
+
+    // then
+    verify(complaintRepository, timeout(5000)).completeEnrichments(Map.of(id, "Poland"));
+    countryEnrichmentService.stop();
+  }
+
+  @Test
+  void shouldNotQueueComplaintsTheWorkerIsStillResolving() throws Exception {
+    // given
+    UUID id = UUID.randomUUID();
+    CountDownLatch lookupStarted = new CountDownLatch(1);
+    CountDownLatch releaseLookup = new CountDownLatch(1);
+    when(ipLocationService.findResolvedCountry("80.1.2.3"))
+      .thenAnswer(
+        invocation -> {
+          lookupStarted.countDown();
+          releaseLookup.await(5, TimeUnit.SECONDS);
+          return Optional.of("Poland");
+        }
+      );
+    when(complaintRepository.findPendingEnrichments(anyInt()))
+      .thenReturn(List.of(new ComplaintRepository.PendingEnrichment(id, "80.1.2.3")));
+    countryEnrichmentService.start();
+    countryEnrichmentService.enqueueAfterCommit(id, "80.1.2.3");
+    lookupStarted.await(5, TimeUnit.SECONDS);
+
+    // when
+    countryEnrichmentService.scanBacklog();
+    releaseLookup.countDown();
+
+    // then
+    verify(complaintRepository, timeout(5000)).completeEnrichments(Map.of(id, "Poland"));
+    countryEnrichmentService.stop();
+    verify(ipLocationService, times(1)).findResolvedCountry("80.1.2.3");
+  }
+
+  @Test
+  void shouldRecoverBacklogFromDatabase() throws Exception {
+    // given
+    UUID pendingId = UUID.randomUUID();
+    when(complaintRepository.findPendingEnrichments(anyInt()))
+      .thenReturn(
+        List.of(new ComplaintRepository.PendingEnrichment(pendingId, "80.1.2.3"))
+      );
+    when(ipLocationService.findResolvedCountry("80.1.2.3"))
+      .thenReturn(Optional.of("Poland"));
+    countryEnrichmentService.start();
+
+    // when
+    countryEnrichmentService.scanBacklog();
+
+    // then
+    verify(complaintRepository, timeout(5000))
+      .completeEnrichments(Map.of(pendingId, "Poland"));
+    countryEnrichmentService.stop();
+  }
+}
@@ -0,0 +1,64 @@
+package com.bbockowski.apicomplaint.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import com.bbockowski.apicomplaint.config.GeoLocationProperties;
+import com.bbockowski.apicomplaint.geolocation.GeoLocationCache;
+import com.bbockowski.apicomplaint.geolocation.GeoLocationEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IpLocationServiceTest {
+  private SimpleMeterRegistry meterRegistry;
+  private GeoLocationCache geoLocationCache;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    geoLocationCache = new GeoLocationCache(new GeoLocationProperties());
+  }
+
+  @Test
+  void shouldTimeLookupsByOutcome() {
+    // given
+    GeoLocationEngine engine = ip -> {
+      if (ip.startsWith("10.")) {
+        throw new IllegalStateException("Service unavailable");
+      }
+      return Optional.of("Poland");
+    };
+    IpLocationService service = new IpLocationService(
+      List.of(engine),
+      geoLocationCache,
+      meterRegistry
+    );
+
+    // when
+    String resolved = service.getCountryByIp("83.12.34.56");
+    String cached = service.getCountryByIp("83.12.34.56");
+    String fallback = service.getCountryByIp("10.0.0.1");
+
+    // then
+    assertAll(
+      () -> assertThat(resolved).isEqualTo("Poland"),
+      () -> assertThat(cached).isEqualTo("Poland"),
+      () -> assertThat(fallback).isEqualTo(IpLocationService.FALLBACK_COUNTRY),
+      () -> assertThat(lookups("miss")).isEqualTo(1),
+      () -> assertThat(lookups("hit")).isEqualTo(1),
+      () -> assertThat(lookups("fallback")).isEqualTo(1),
+      () -> assertThat(lookups("error")).isZero()
+    );
+  }
+
+  private long lookups(String outcome) {
+    return meterRegistry
+      .get("geolocation.lookup")
+      .tag("outcome", outcome)
+      .timer()
+      .count();
+  }
+}
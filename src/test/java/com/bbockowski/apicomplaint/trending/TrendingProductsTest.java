@@ -0,0 +1,142 @@
+package com.bbockowski.apicomplaint.trending;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.trending.TrendingProducts.TrendingProduct;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class TrendingProductsTest {
+  private static final int CAPACITY = 200;
+
+  private final AtomicLong now = new AtomicLong();
+  private final TrendingProducts trendingProducts = new TrendingProducts(
+    properties(),
+    now::get
+  );
+
+  @Test
+  void top_ShouldMatchExactCountsOfSkewedStream() {
+    // given
+    int products = 20_000;
+    int reports = 200_000;
+    long hour = Duration.ofHours(1).toMillis();
+    Random random = new Random(42);
+    double[] cumulative = zipf(products, 1.1);
+    Map<String, Long> exact = new HashMap<>();
+
+    // when
+    for (int i = 0; i < reports; i++) {
+      now.set(i * hour / reports);
+      String productId = "product-" + sample(cumulative, random.nextDouble());
+      trendingProducts.record(productId, 1);
+      exact.merge(productId, 1L, Long::sum);
+    }
+    List<TrendingProduct> top = trendingProducts.top(TrendingWindow.ONE_HOUR, 10);
+
+    // then
+    List<String> exactTop = exact
+      .entrySet()
+      .stream()
+      .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+      .limit(10)
+      .map(Map.Entry::getKey)
+      .toList();
+    assertAll(
+      () ->
+        assertThat(top)
+          .extracting(TrendingProduct::productId)
+          .containsExactlyElementsOf(exactTop),
+      () ->
+        assertThat(top)
+          .allSatisfy(
+            product -> {
+              long actual = exact.get(product.productId());
+              assertThat(product.reports()).isGreaterThanOrEqualTo(actual);
+              assertThat(product.reports() - product.maxOvercount())
+                .isLessThanOrEqualTo(actual);
+              assertThat(product.maxOvercount()).isLessThanOrEqualTo(reports / CAPACITY);
+            }
+          )
+    );
+  }
+
+  @Test
+  void top_ShouldOnlyCountReportsInsideTheWindow() {
+    // given
+    trendingProducts.record("RocknRoll-001", 5);
+    now.set(Duration.ofMinutes(10).toMillis());
+    trendingProducts.record("RocknRoll-002", 2);
+
+    // when
+    List<TrendingProduct> fiveMinutes = trendingProducts.top(
+      TrendingWindow.FIVE_MINUTES,
+      10
+    );
+    List<TrendingProduct> oneHour = trendingProducts.top(TrendingWindow.ONE_HOUR, 10);
+
+    // then
+    assertAll(
+      () ->
+        assertThat(fiveMinutes)
+          .containsExactly(new TrendingProduct("RocknRoll-002", 2, 0)),
+      () ->
+        assertThat(oneHour)
+          .containsExactly(
+            new TrendingProduct("RocknRoll-001", 5, 0),
+            new TrendingProduct("RocknRoll-002", 2, 0)
+          )
+    );
+  }
+
+  @Test
+  void record_ShouldKeepAtMostCapacityProductsPerBucket() {
+    // given
+    SpaceSaving summary = new SpaceSaving(CAPACITY);
+
+    // when
+    for (int i = 0; i < 100_000; i++) {
+      summary.offer("product-" + i, 1);
+    }
+
+    // then
+    assertAll(
+      () -> assertThat(summary.counters()).hasSize(CAPACITY),
+      () -> assertThat(summary.total()).isEqualTo(100_000),
+      () -> assertThat(summary.floor()).isLessThanOrEqualTo(100_000 / CAPACITY)
+    );
+  }
+
+  private static ComplaintProperties.Trending properties() {
+    ComplaintProperties.Trending properties = new ComplaintProperties.Trending();
+    properties.setCapacity(CAPACITY);
+    return properties;
+  }
+
+  private static double[] zipf(int size, double exponent) {
+    double[] cumulative = new double[size];
+    double sum = 0;
+    for (int i = 0; i < size; i++) {
+      sum += 1 / Math.pow(i + 1, exponent);
+      cumulative[i] = sum;
+    }
+    for (int i = 0; i < size; i++) {
+      cumulative[i] /= sum;
+    }
+    return cumulative;
+  }
+
+  private static int sample(double[] cumulative, double uniform) {
+    int index = Arrays.binarySearch(cumulative, uniform);
+    return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+  }
+}
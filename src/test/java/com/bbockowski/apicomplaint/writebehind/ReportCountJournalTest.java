@@ -0,0 +1,95 @@
+package com.bbockowski.apicomplaint.writebehind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReportCountJournalTest {
+  private static final ComplaintKey FIRST = new ComplaintKey("prod1", "a@example.com");
+  private static final ComplaintKey SECOND = new ComplaintKey("prod2", "b@example.com");
+
+  @TempDir
+  private Path tempDir;
+
+  @Test
+  void shouldReplayDurableIncrementsOfRotatedSegment() throws IOException {
+    // given
+    ReportCountJournal.Segment segment;
+    try (ReportCountJournal journal = new ReportCountJournal(tempDir)) {
+      journal.append(FIRST, 1);
+      journal.append(SECOND, 1);
+      journal.awaitDurable(journal.append(FIRST, 2));
+      segment = journal.rotate();
+    }
+
+    // when
+    Map<ComplaintKey, Integer> sums = replay(segment.path());
+
+    // then
+    assertAll(
+      () -> assertThat(sums).containsEntry(FIRST, 3).containsEntry(SECOND, 1),
+      () -> assertThat(sums).hasSize(2)
+    );
+  }
+
+  @Test
+  void shouldListSegmentsLeftByPreviousRunUnderStableKeys() throws IOException {
+    // given
+    try (ReportCountJournal journal = new ReportCountJournal(tempDir)) {
+      journal.append(FIRST, 1);
+    }
+
+    // when
+    List<ReportCountJournal.Segment> leftovers;
+    List<ReportCountJournal.Segment> leftoversAfterRestart;
+    try (ReportCountJournal journal = new ReportCountJournal(tempDir)) {
+      leftovers = journal.closedSegments();
+    }
+    try (ReportCountJournal journal = new ReportCountJournal(tempDir)) {
+      leftoversAfterRestart = journal.closedSegments();
+    }
+
+    // then
+    assertAll(
+      () -> assertThat(leftovers).hasSize(1),
+      () -> assertThat(replay(leftovers.get(0).path())).containsEntry(FIRST, 1),
+      () -> assertThat(leftoversAfterRestart).contains(leftovers.get(0))
+    );
+  }
+
+  @Test
+  void shouldIgnoreTornTailOfSegment() throws IOException {
+    // given
+    ReportCountJournal.Segment segment;
+    try (ReportCountJournal journal = new ReportCountJournal(tempDir)) {
+      journal.append(FIRST, 1);
+      segment = journal.rotate();
+    }
+    byte[] tornRecord = { 0, 0, 0, 40, 1, 2 };
+    Files.write(segment.path(), tornRecord, StandardOpenOption.APPEND);
+
+    // when
+    Map<ComplaintKey, Integer> sums = replay(segment.path());
+
+    // then
+    assertThat(sums).containsExactlyEntriesOf(Map.of(FIRST, 1));
+  }
+
+  private static Map<ComplaintKey, Integer> replay(Path segment) throws IOException {
+    Map<ComplaintKey, Integer> sums = new HashMap<>();
+    ReportCountJournal.replay(
+      segment,
+      (key, delta) -> sums.merge(key, delta, Integer::sum)
+    );
+    return sums;
+  }
+}
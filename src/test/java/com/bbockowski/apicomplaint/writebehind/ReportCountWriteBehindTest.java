@@ -0,0 +1,132 @@
+package com.bbockowski.apicomplaint.writebehind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.bbockowski.apicomplaint.config.ComplaintProperties;
+import com.bbockowski.apicomplaint.dto.ComplaintResponse;
+import com.bbockowski.apicomplaint.repository.ComplaintRepository;
+import com.bbockowski.apicomplaint.service.ComplaintCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+@ExtendWith(MockitoExtension.class)
+class ReportCountWriteBehindTest {
+  @Mock
+  private ComplaintRepository complaintRepository;
+
+  @Mock
+  private TaskScheduler taskScheduler;
+
+  @Mock
+  private ComplaintCache complaintCache;
+
+  @TempDir
+  private Path tempDir;
+
+  private ReportCountWriteBehind writeBehind;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    ComplaintProperties properties = new ComplaintProperties();
+    properties.getWriteBehind().setEnabled(true);
+    properties.getWriteBehind().setJournalDirectory(tempDir.toString());
+    writeBehind =
+      new ReportCountWriteBehind(
+        properties,
+        complaintRepository,
+        taskScheduler,
+        complaintCache,
+        new SimpleMeterRegistry()
+      );
+    writeBehind.start();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    writeBehind.stop();
+  }
+
+  @Test
+  void tryIncrement_ShouldCountReportsWithoutPredictingTheVersion() {
+    // given
+    ComplaintResponse stored = new ComplaintResponse();
+    stored.setId(UUID.randomUUID());
+    stored.setProductId("RocknRoll-001");
+    stored.setReporter("Cliff Burton");
+    stored.setReportCount(2);
+    stored.setVersion(1L);
+    writeBehind.rememberAfterCommit(stored);
+
+    // when
+    Optional<ComplaintResponse> first = writeBehind.tryIncrement(
+      "RocknRoll-001",
+      "Cliff Burton"
+    );
+    Optional<ComplaintResponse> second = writeBehind.tryIncrement(
+      "RocknRoll-001",
+      "Cliff Burton"
+    );
+
+    // then
+    assertAll(
+      () -> assertThat(first).map(ComplaintResponse::getReportCount).hasValue(3),
+      () -> assertThat(first).map(ComplaintResponse::getVersion).isEmpty(),
+      () -> assertThat(second).map(ComplaintResponse::getReportCount).hasValue(4),
+      () -> assertThat(second).map(ComplaintResponse::getVersion).isEmpty(),
+      () ->
+        assertThat(writeBehind.tryIncrement("RocknRoll-002", "Cliff Burton")).isEmpty()
+    );
+  }
+
+  @Test
+  void tryIncrement_ShouldLeaveNullReporterRepeatsToTheDatabase() {
+    // given
+    ComplaintResponse stored = new ComplaintResponse();
+    stored.setId(UUID.randomUUID());
+    stored.setProductId("RocknRoll-001");
+    stored.setReportCount(1);
+    stored.setVersion(0L);
+    writeBehind.rememberAfterCommit(stored);
+
+    // when
+    Optional<ComplaintResponse> repeat = writeBehind.tryIncrement("RocknRoll-001", null);
+    writeBehind.flush();
+
+    // then
+    assertAll(
+      () -> assertThat(repeat).isEmpty(),
+      () -> verifyNoInteractions(complaintRepository)
+    );
+  }
+
+  @Test
+  void forgetIf_ShouldLeaveRepeatsOfForgottenComplaintsToTheDatabase() {
+    // given
+    ComplaintResponse stored = new ComplaintResponse();
+    stored.setId(UUID.randomUUID());
+    stored.setProductId("RocknRoll-001");
+    stored.setReporter("Cliff Burton");
+    stored.setReportCount(1);
+    stored.setVersion(0L);
+    writeBehind.rememberAfterCommit(stored);
+
+    // when
+    writeBehind.forgetIf(complaint -> complaint.getId().equals(stored.getId()));
+
+    // then
+    assertThat(writeBehind.tryIncrement("RocknRoll-001", "Cliff Burton")).isEmpty();
+  }
+}